@@ -157,6 +157,10 @@ public class ProfilerConfig {
     private boolean ioBufferingEnable;
     private int ioBufferingBufferSize;
 
+    // outgoing call statistics
+    private boolean callStatEnable = false;
+    private long callStatSendInterval = 5000L;
+
     private int profileJvmCollectInterval;
 
     private Filter<String> profilableClassFilter = new SkipFilter<String>();
@@ -273,6 +277,14 @@ public class ProfilerConfig {
         return ioBufferingBufferSize;
     }
 
+    public boolean isCallStatEnable() {
+        return callStatEnable;
+    }
+
+    public long getCallStatSendInterval() {
+        return callStatSendInterval;
+    }
+
     public int getProfileJvmCollectInterval() {
         return profileJvmCollectInterval;
     }
@@ -533,6 +545,10 @@ public class ProfilerConfig {
         // it may be a problem to be here.  need to modify(delete or move or .. )  this configuration.
         this.ioBufferingBufferSize = readInt("profiler.io.buffering.buffersize", 20);
 
+        // aggregate outgoing calls in the agent instead of deriving them from span events at the collector
+        this.callStatEnable = readBoolean("profiler.callstat.enable", false);
+        this.callStatSendInterval = readLong("profiler.callstat.send.interval", 5000L);
+
         // JVM
         this.profileJvmCollectInterval = readInt("profiler.jvm.collect.interval", 1000);
 
@@ -732,6 +748,10 @@ public class ProfilerConfig {
         builder.append(ioBufferingEnable);
         builder.append(", ioBufferingBufferSize=");
         builder.append(ioBufferingBufferSize);
+        builder.append(", callStatEnable=");
+        builder.append(callStatEnable);
+        builder.append(", callStatSendInterval=");
+        builder.append(callStatSendInterval);
         builder.append(", profileJvmCollectInterval=");
         builder.append(profileJvmCollectInterval);
         builder.append(", profilableClassFilter=");
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.bootstrap.plugin.jdbc.interceptor;
+
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.interceptor.StaticAroundInterceptor;
+import com.navercorp.pinpoint.bootstrap.logging.PLogger;
+import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.BatchSizeAccessor;
+
+/**
+ * Counts addBatch() calls and resets the count on clearBatch().
+ * No span event is recorded. executeBatch() is traced by {@link PreparedStatementExecuteBatchInterceptor}.
+ */
+public class PreparedStatementAddBatchInterceptor implements StaticAroundInterceptor {
+
+    private final PLogger logger = PLoggerFactory.getLogger(this.getClass());
+    private final boolean isDebug = logger.isDebugEnabled();
+
+    private final TraceContext traceContext;
+
+    public PreparedStatementAddBatchInterceptor(TraceContext traceContext) {
+        this.traceContext = traceContext;
+    }
+
+    @Override
+    public void before(Object target, String className, String methodName, String parameterDescription, Object[] args) {
+    }
+
+    @Override
+    public void after(Object target, String className, String methodName, String parameterDescription, Object[] args, Object result, Throwable throwable) {
+        if (isDebug) {
+            logger.afterInterceptor(target, className, methodName, parameterDescription, args, result, throwable);
+        }
+
+        if (throwable != null) {
+            return;
+        }
+
+        final Trace trace = traceContext.currentTraceObject();
+        if (trace == null) {
+            return;
+        }
+
+        if (target instanceof BatchSizeAccessor) {
+            final BatchSizeAccessor accessor = (BatchSizeAccessor) target;
+            if ("clearBatch".equals(methodName)) {
+                accessor._$PINPOINT$_setBatchSize(0);
+            } else {
+                accessor._$PINPOINT$_setBatchSize(accessor._$PINPOINT$_getBatchSize() + 1);
+            }
+        }
+    }
+}
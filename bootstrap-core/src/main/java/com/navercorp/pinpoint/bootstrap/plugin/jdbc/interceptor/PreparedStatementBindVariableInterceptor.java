@@ -24,6 +24,7 @@ import com.navercorp.pinpoint.bootstrap.interceptor.StaticAroundInterceptor;
 import com.navercorp.pinpoint.bootstrap.logging.PLogger;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
 import com.navercorp.pinpoint.bootstrap.plugin.annotation.TargetFilter;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.BatchSizeAccessor;
 import com.navercorp.pinpoint.bootstrap.plugin.jdbc.BindValueAccessor;
 import com.navercorp.pinpoint.bootstrap.plugin.jdbc.bindvalue.BindValueConverter;
 import com.navercorp.pinpoint.bootstrap.util.NumberUtils;
@@ -58,6 +59,10 @@ public class PreparedStatementBindVariableInterceptor implements StaticAroundInt
         if (trace == null) {
             return;
         }
+        if (isBatching(target)) {
+            // only the bind values of the first batched row are recorded.
+            return;
+        }
         Map<Integer, String> bindList = null;
         if (target instanceof BindValueAccessor) {
             bindList = ((BindValueAccessor)target)._$PINPOINT$_getBindValue();
@@ -77,4 +82,11 @@ public class PreparedStatementBindVariableInterceptor implements StaticAroundInt
         bindList.put(index, value);
 
     }
+
+    private boolean isBatching(Object target) {
+        if (target instanceof BatchSizeAccessor) {
+            return ((BatchSizeAccessor) target)._$PINPOINT$_getBatchSize() > 0;
+        }
+        return false;
+    }
 }
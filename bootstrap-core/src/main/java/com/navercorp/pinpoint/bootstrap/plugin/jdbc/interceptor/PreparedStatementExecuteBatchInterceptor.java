@@ -0,0 +1,142 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.bootstrap.plugin.jdbc.interceptor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.navercorp.pinpoint.bootstrap.context.DatabaseInfo;
+import com.navercorp.pinpoint.bootstrap.context.ParsingResult;
+import com.navercorp.pinpoint.bootstrap.context.SpanEventRecorder;
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.interceptor.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.SimpleAroundInterceptor;
+import com.navercorp.pinpoint.bootstrap.logging.PLogger;
+import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.BatchSizeAccessor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.BindValueAccessor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.DatabaseInfoAccessor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.ParsingResultAccessor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.UnKnownDatabaseInfo;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.bindvalue.BindValueUtils;
+import com.navercorp.pinpoint.common.trace.AnnotationKey;
+
+/**
+ * Records one span event per executeBatch() with the sql, the bind values of the first batched row and the batch size.
+ */
+public class PreparedStatementExecuteBatchInterceptor implements SimpleAroundInterceptor {
+
+    private static final int DEFAULT_BIND_VALUE_LENGTH = 1024;
+
+    private final PLogger logger = PLoggerFactory.getLogger(this.getClass());
+    private final boolean isDebug = logger.isDebugEnabled();
+
+    private final MethodDescriptor descriptor;
+    private final TraceContext traceContext;
+    private final int maxSqlBindValueLength;
+
+    public PreparedStatementExecuteBatchInterceptor(TraceContext traceContext, MethodDescriptor descriptor) {
+        this(traceContext, descriptor, DEFAULT_BIND_VALUE_LENGTH);
+    }
+
+    public PreparedStatementExecuteBatchInterceptor(TraceContext traceContext, MethodDescriptor descriptor, int maxSqlBindValueLength) {
+        this.traceContext = traceContext;
+        this.descriptor = descriptor;
+        this.maxSqlBindValueLength = maxSqlBindValueLength;
+    }
+
+    @Override
+    public void before(Object target, Object[] args) {
+        if (isDebug) {
+            logger.beforeInterceptor(target, args);
+        }
+
+        Trace trace = traceContext.currentTraceObject();
+        if (trace == null) {
+            return;
+        }
+
+        SpanEventRecorder recorder = trace.traceBlockBegin();
+        try {
+            DatabaseInfo databaseInfo = (target instanceof DatabaseInfoAccessor) ? ((DatabaseInfoAccessor)target)._$PINPOINT$_getDatabaseInfo() : null;
+
+            if (databaseInfo == null) {
+                databaseInfo = UnKnownDatabaseInfo.INSTANCE;
+            }
+
+            recorder.recordServiceType(databaseInfo.getExecuteQueryType());
+            recorder.recordEndPoint(databaseInfo.getMultipleHost());
+            recorder.recordDestinationId(databaseInfo.getDatabaseId());
+
+            ParsingResult parsingResult = null;
+            if (target instanceof ParsingResultAccessor) {
+                parsingResult = ((ParsingResultAccessor)target)._$PINPOINT$_getParsingResult();
+            }
+            Map<Integer, String> bindValue = null;
+            if (target instanceof BindValueAccessor) {
+                bindValue = ((BindValueAccessor)target)._$PINPOINT$_getBindValue();
+            }
+            if (bindValue != null && !bindValue.isEmpty()) {
+                String bindString = BindValueUtils.bindValueToString(bindValue, maxSqlBindValueLength);
+                recorder.recordSqlParsingResult(parsingResult, bindString);
+            } else {
+                recorder.recordSqlParsingResult(parsingResult);
+            }
+
+            if (target instanceof BatchSizeAccessor) {
+                final BatchSizeAccessor batchSizeAccessor = (BatchSizeAccessor) target;
+                recorder.recordAttribute(AnnotationKey.SQL_BATCH_SIZE, batchSizeAccessor._$PINPOINT$_getBatchSize());
+                // executeBatch() empties the batch whether it succeeds or not.
+                batchSizeAccessor._$PINPOINT$_setBatchSize(0);
+            }
+
+            recorder.recordApi(descriptor);
+
+            clean(target);
+        } catch (Exception e) {
+            if (logger.isWarnEnabled()) {
+                logger.warn(e.getMessage(), e);
+            }
+        }
+    }
+
+    private void clean(Object target) {
+        if (target instanceof BindValueAccessor) {
+            ((BindValueAccessor)target)._$PINPOINT$_setBindValue(new HashMap<Integer, String>());
+        }
+    }
+
+    @Override
+    public void after(Object target, Object[] args, Object result, Throwable throwable) {
+        if (isDebug) {
+            logger.afterInterceptor(target, args, result, throwable);
+        }
+
+        Trace trace = traceContext.currentTraceObject();
+        if (trace == null) {
+            return;
+        }
+
+        try {
+            SpanEventRecorder recorder = trace.currentSpanEventRecorder();
+            recorder.recordException(throwable);
+        } finally {
+            trace.traceBlockEnd();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.bootstrap.plugin.jdbc.interceptor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.bootstrap.context.DatabaseInfo;
+import com.navercorp.pinpoint.bootstrap.context.ParsingResult;
+import com.navercorp.pinpoint.bootstrap.context.SpanEventRecorder;
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.interceptor.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.BatchSizeAccessor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.BindValueAccessor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.DatabaseInfoAccessor;
+import com.navercorp.pinpoint.bootstrap.plugin.jdbc.ParsingResultAccessor;
+import com.navercorp.pinpoint.common.trace.AnnotationKey;
+
+public class PreparedStatementExecuteBatchInterceptorTest {
+
+    private static final String CLASS_NAME = "PreparedStatement";
+    private static final String DESCRIPTION = "(int, int)";
+
+    private TraceContext traceContext;
+    private Trace trace;
+    private SpanEventRecorder recorder;
+    private MethodDescriptor descriptor;
+
+    private PreparedStatementAddBatchInterceptor addBatchInterceptor;
+    private PreparedStatementBindVariableInterceptor bindVariableInterceptor;
+    private PreparedStatementExecuteBatchInterceptor executeBatchInterceptor;
+
+    @Before
+    public void setUp() {
+        traceContext = mock(TraceContext.class);
+        trace = mock(Trace.class);
+        recorder = mock(SpanEventRecorder.class);
+        descriptor = mock(MethodDescriptor.class);
+        when(trace.traceBlockBegin()).thenReturn(recorder);
+        when(trace.currentSpanEventRecorder()).thenReturn(recorder);
+        when(traceContext.currentTraceObject()).thenReturn(trace);
+
+        addBatchInterceptor = new PreparedStatementAddBatchInterceptor(traceContext);
+        bindVariableInterceptor = new PreparedStatementBindVariableInterceptor(traceContext);
+        executeBatchInterceptor = new PreparedStatementExecuteBatchInterceptor(traceContext, descriptor);
+    }
+
+    @Test
+    public void recordBatchSize() {
+        PreparedStatementMock statement = new PreparedStatementMock();
+        for (int i = 0; i < 3; i++) {
+            setInt(statement, 1, 10 + i);
+            addBatch(statement, "addBatch");
+        }
+        assertEquals(3, statement._$PINPOINT$_getBatchSize());
+
+        executeBatch(statement, null);
+
+        verify(recorder).recordAttribute(AnnotationKey.SQL_BATCH_SIZE, 3);
+        // bind values of the first row only
+        verify(recorder).recordSqlParsingResult(statement._$PINPOINT$_getParsingResult(), "10");
+        verify(recorder).recordApi(descriptor);
+        verify(trace).traceBlockEnd();
+        assertEquals(0, statement._$PINPOINT$_getBatchSize());
+        assertTrue(statement._$PINPOINT$_getBindValue().isEmpty());
+    }
+
+    @Test
+    public void executeBatchFailure() {
+        PreparedStatementMock statement = new PreparedStatementMock();
+        setInt(statement, 1, 10);
+        addBatch(statement, "addBatch");
+
+        RuntimeException exception = new RuntimeException();
+        executeBatch(statement, exception);
+
+        verify(recorder).recordAttribute(AnnotationKey.SQL_BATCH_SIZE, 1);
+        verify(recorder).recordException(exception);
+        // executeBatch() empties the batch even if it fails
+        assertEquals(0, statement._$PINPOINT$_getBatchSize());
+    }
+
+    @Test
+    public void clearBatch() {
+        PreparedStatementMock statement = new PreparedStatementMock();
+        setInt(statement, 1, 10);
+        addBatch(statement, "addBatch");
+        addBatch(statement, "addBatch");
+        addBatch(statement, "clearBatch");
+        assertEquals(0, statement._$PINPOINT$_getBatchSize());
+
+        // bind values are recorded again once the batch is cleared
+        setInt(statement, 1, 20);
+        addBatch(statement, "addBatch");
+        executeBatch(statement, null);
+
+        verify(recorder).recordAttribute(AnnotationKey.SQL_BATCH_SIZE, 1);
+        verify(recorder).recordSqlParsingResult(statement._$PINPOINT$_getParsingResult(), "20");
+    }
+
+    @Test
+    public void failedAddBatchIsNotCounted() {
+        PreparedStatementMock statement = new PreparedStatementMock();
+        addBatchInterceptor.before(statement, CLASS_NAME, "addBatch", "()", null);
+        addBatchInterceptor.after(statement, CLASS_NAME, "addBatch", "()", null, null, new RuntimeException());
+
+        assertEquals(0, statement._$PINPOINT$_getBatchSize());
+    }
+
+    @Test
+    public void notTraced() {
+        when(traceContext.currentTraceObject()).thenReturn(null);
+        PreparedStatementMock statement = new PreparedStatementMock();
+        setInt(statement, 1, 10);
+        addBatch(statement, "addBatch");
+        executeBatch(statement, null);
+
+        assertEquals(0, statement._$PINPOINT$_getBatchSize());
+        assertTrue(statement._$PINPOINT$_getBindValue().isEmpty());
+        verifyZeroInteractions(recorder);
+    }
+
+    private void setInt(PreparedStatementMock statement, int index, int value) {
+        Object[] args = new Object[] {index, value};
+        bindVariableInterceptor.before(statement, CLASS_NAME, "setInt", DESCRIPTION, args);
+        bindVariableInterceptor.after(statement, CLASS_NAME, "setInt", DESCRIPTION, args, null, null);
+    }
+
+    private void addBatch(PreparedStatementMock statement, String methodName) {
+        addBatchInterceptor.before(statement, CLASS_NAME, methodName, "()", null);
+        addBatchInterceptor.after(statement, CLASS_NAME, methodName, "()", null, null, null);
+    }
+
+    private void executeBatch(PreparedStatementMock statement, Throwable throwable) {
+        executeBatchInterceptor.before(statement, null);
+        executeBatchInterceptor.after(statement, null, null, throwable);
+    }
+
+    private static class PreparedStatementMock implements BatchSizeAccessor, BindValueAccessor, DatabaseInfoAccessor, ParsingResultAccessor {
+        private int batchSize;
+        private Map<Integer, String> bindValue = new HashMap<Integer, String>();
+        private DatabaseInfo databaseInfo;
+        private final ParsingResult parsingResult = mock(ParsingResult.class);
+
+        @Override
+        public void _$PINPOINT$_setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public int _$PINPOINT$_getBatchSize() {
+            return batchSize;
+        }
+
+        @Override
+        public void _$PINPOINT$_setBindValue(Map<Integer, String> map) {
+            this.bindValue = map;
+        }
+
+        @Override
+        public Map<Integer, String> _$PINPOINT$_getBindValue() {
+            return bindValue;
+        }
+
+        @Override
+        public void _$PINPOINT$_setDatabaseInfo(DatabaseInfo info) {
+            this.databaseInfo = info;
+        }
+
+        @Override
+        public DatabaseInfo _$PINPOINT$_getDatabaseInfo() {
+            return databaseInfo;
+        }
+
+        @Override
+        public void _$PINPOINT$_setParsingResult(ParsingResult result) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ParsingResult _$PINPOINT$_getParsingResult() {
+            return parsingResult;
+        }
+    }
+}
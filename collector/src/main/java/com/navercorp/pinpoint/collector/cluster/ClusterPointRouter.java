@@ -16,8 +16,13 @@
 
 package com.navercorp.pinpoint.collector.cluster;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import javax.annotation.PreDestroy;
 
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransferBatch;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransferBatchResponse;
 import com.navercorp.pinpoint.thrift.dto.command.TCommandTransferResponse;
 import com.navercorp.pinpoint.thrift.dto.command.TRouteResult;
 import org.apache.thrift.TBase;
@@ -99,6 +104,8 @@ public class ClusterPointRouter implements MessageListener, ServerStreamChannelM
             handleRouteRequestFail("Protocol decoding failed.", packet, channel);
         } else if (request instanceof TCommandTransfer) {
             handleRouteRequest((TCommandTransfer)request, packet, channel);
+        } else if (request instanceof TCommandTransferBatch) {
+            handleRouteBatchRequest((TCommandTransferBatch)request, packet, channel);
         } else {
             handleRouteRequestFail("Unknown error.", packet, channel);
         }
@@ -135,6 +142,28 @@ public class ClusterPointRouter implements MessageListener, ServerStreamChannelM
         return response.getRouteResult() == TRouteResult.OK;
     }
 
+    private void handleRouteBatchRequest(TCommandTransferBatch request, RequestPacket requestPacket, Channel channel) {
+        // the command is shared by all agents of the batch, deserialize it once
+        byte[] payload = request.getPayload();
+        TBase<?,?> command = deserialize(payload);
+
+        List<TCommandTransfer> transferList = request.getTransferList();
+        if (transferList == null) {
+            transferList = new ArrayList<TCommandTransfer>(0);
+        }
+
+        List<RequestEvent> eventList = new ArrayList<RequestEvent>(transferList.size());
+        for (TCommandTransfer transfer : transferList) {
+            transfer.setPayload(payload);
+            eventList.add(new RequestEvent(transfer, channel, requestPacket.getRequestId(), command));
+        }
+
+        // reply before the web gives up on the whole batch, agents not answering in time are reported as TIMEOUT
+        long timeoutMillis = request.isSetTimeoutMillis() ? request.getTimeoutMillis() : -1;
+        List<TCommandTransferResponse> responseList = routeHandler.onRoute(eventList, timeoutMillis);
+        channel.write(new ResponsePacket(requestPacket.getRequestId(), serialize(new TCommandTransferBatchResponse(responseList))));
+    }
+
     private void handleRouteRequestFail(String message, RequestPacket requestPacket, Channel channel) {
         TResult tResult = new TResult(false);
         tResult.setMessage(message);
@@ -16,6 +16,10 @@
 
 package com.navercorp.pinpoint.collector.cluster.route;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
 import com.navercorp.pinpoint.collector.cluster.ClusterPointLocator;
 import com.navercorp.pinpoint.collector.cluster.TargetClusterPoint;
 import com.navercorp.pinpoint.collector.cluster.route.filter.RouteFilter;
@@ -69,24 +73,97 @@ public class DefaultRouteHandler extends AbstractRouteHandler<RequestEvent> {
         return routeResult;
     }
 
+    public List<TCommandTransferResponse> onRoute(List<RequestEvent> eventList) {
+        return onRoute(eventList, -1);
+    }
+
+    /**
+     * routes the same command to several agents.
+     * every request is sent before waiting for any response, so the agents handle them in parallel
+     * and the whole batch takes as long as the slowest agent, or timeoutMillis at most.
+     *
+     * @param timeoutMillis agents not answering within it are reported as {@link TRouteResult#TIMEOUT}, no limit if not positive
+     * @return responses in the order of eventList
+     */
+    public List<TCommandTransferResponse> onRoute(List<RequestEvent> eventList, long timeoutMillis) {
+        final int size = eventList.size();
+        final TCommandTransferResponse[] responses = new TCommandTransferResponse[size];
+        final List<Future<ResponseMessage>> futureList = new ArrayList<Future<ResponseMessage>>(size);
+
+        for (int i = 0; i < size; i++) {
+            RequestEvent event = eventList.get(i);
+            requestFilterChain.doEvent(event);
+
+            TargetClusterPoint clusterPoint = findClusterPoint(event.getDeliveryCommand());
+            TRouteResult routeResult = checkRoutable(event, clusterPoint);
+            if (routeResult == TRouteResult.OK) {
+                futureList.add(clusterPoint.request(event.getDeliveryCommand().getPayload()));
+            } else {
+                futureList.add(null);
+                responses[i] = createResponse(routeResult);
+            }
+        }
+
+        final long deadline = System.currentTimeMillis() + timeoutMillis;
+        for (int i = 0; i < size; i++) {
+            if (responses[i] == null) {
+                if (timeoutMillis > 0) {
+                    responses[i] = await(futureList.get(i), deadline - System.currentTimeMillis());
+                } else {
+                    responses[i] = await(futureList.get(i));
+                }
+            }
+            RequestEvent event = eventList.get(i);
+            responseFilterChain.doEvent(new ResponseEvent(event, event.getRequestId(), responses[i]));
+        }
+
+        if (logger.isDebugEnabled()) {
+            logger.debug("batch route completed. size:{}", size);
+        }
+        return Arrays.asList(responses);
+    }
+
     private TCommandTransferResponse onRoute0(RequestEvent event) {
+        TargetClusterPoint clusterPoint = findClusterPoint(event.getDeliveryCommand());
+        TRouteResult routeResult = checkRoutable(event, clusterPoint);
+        if (routeResult != TRouteResult.OK) {
+            return createResponse(routeResult);
+        }
+
+        Future<ResponseMessage> future = clusterPoint.request(event.getDeliveryCommand().getPayload());
+        return await(future);
+    }
+
+    private TRouteResult checkRoutable(RequestEvent event, TargetClusterPoint clusterPoint) {
         TBase<?,?> requestObject = event.getRequestObject();
         if (requestObject == null) {
-            return createResponse(TRouteResult.EMPTY_REQUEST);
+            return TRouteResult.EMPTY_REQUEST;
         }
 
-        TargetClusterPoint clusterPoint = findClusterPoint(event.getDeliveryCommand());
         if (clusterPoint == null) {
-            return createResponse(TRouteResult.NOT_FOUND);
+            return TRouteResult.NOT_FOUND;
         }
 
         TCommandTypeVersion commandVersion = TCommandTypeVersion.getVersion(clusterPoint.gerVersion());
         if (!commandVersion.isSupportCommand(requestObject)) {
-            return createResponse(TRouteResult.NOT_SUPPORTED_REQUEST);
+            return TRouteResult.NOT_SUPPORTED_REQUEST;
         }
 
-        Future<ResponseMessage> future = clusterPoint.request(event.getDeliveryCommand().getPayload());
+        return TRouteResult.OK;
+    }
+
+    private TCommandTransferResponse await(Future<ResponseMessage> future) {
         boolean isCompleted = future.await();
+        return getResponse(future, isCompleted);
+    }
+
+    private TCommandTransferResponse await(Future<ResponseMessage> future, long timeoutMillis) {
+        // the deadline may have passed while waiting for other agents, take what is ready
+        boolean isCompleted = timeoutMillis > 0 ? future.await(timeoutMillis) : future.isReady();
+        return getResponse(future, isCompleted);
+    }
+
+    private TCommandTransferResponse getResponse(Future<ResponseMessage> future, boolean isCompleted) {
         if (!isCompleted) {
             return createResponse(TRouteResult.TIMEOUT);
         }
@@ -66,6 +66,8 @@ public class CollectorConfiguration implements InitializingBean {
     private int udpStatWorkerThread;
     private int udpStatWorkerQueueSize;
     private int udpStatSocketReceiveBufferSize;
+    private int udpStatSocketCount;
+    private int udpStatSocketQueueSize;
 
     private String udpSpanListenIp = DEFAULT_LISTEN_IP;
     private int udpSpanListenPort;
@@ -73,7 +75,27 @@ public class CollectorConfiguration implements InitializingBean {
     private int udpSpanWorkerThread;
     private int udpSpanWorkerQueueSize;
     private int udpSpanSocketReceiveBufferSize;
+    private int udpSpanSocketCount;
+    private int udpSpanSocketQueueSize;
+    private boolean udpSpanStreamingDecode;
     
+    private int partitionLaneCount;
+    private int partitionLaneQueueSize;
+    private long partitionLaneFlushPeriod;
+
+    private int admissionAgentRate;
+    private int admissionAgentBurst;
+    private int admissionApplicationTotalRate;
+    private String admissionApplicationWeights;
+
+    private int metaDataWriteCacheSize;
+
+    private boolean loadAdvertiseEnable;
+    private int loadAdvertiseInterval;
+    private int loadAdvertiseThreshold;
+
+    private boolean statisticsRollupEnable;
+
     private int agentEventWorkerThreadSize;
     private int agentEventWorkerQueueSize;
     
@@ -154,6 +176,22 @@ public class CollectorConfiguration implements InitializingBean {
         this.udpStatSocketReceiveBufferSize = udpStatSocketReceiveBufferSize;
     }
 
+    public int getUdpStatSocketCount() {
+        return udpStatSocketCount;
+    }
+
+    public void setUdpStatSocketCount(int udpStatSocketCount) {
+        this.udpStatSocketCount = udpStatSocketCount;
+    }
+
+    public int getUdpStatSocketQueueSize() {
+        return udpStatSocketQueueSize;
+    }
+
+    public void setUdpStatSocketQueueSize(int udpStatSocketQueueSize) {
+        this.udpStatSocketQueueSize = udpStatSocketQueueSize;
+    }
+
     public String getUdpSpanListenIp() {
         return udpSpanListenIp;
     }
@@ -194,6 +232,126 @@ public class CollectorConfiguration implements InitializingBean {
         this.udpSpanSocketReceiveBufferSize = udpSpanSocketReceiveBufferSize;
     }
 
+    public int getUdpSpanSocketCount() {
+        return udpSpanSocketCount;
+    }
+
+    public void setUdpSpanSocketCount(int udpSpanSocketCount) {
+        this.udpSpanSocketCount = udpSpanSocketCount;
+    }
+
+    public int getUdpSpanSocketQueueSize() {
+        return udpSpanSocketQueueSize;
+    }
+
+    public void setUdpSpanSocketQueueSize(int udpSpanSocketQueueSize) {
+        this.udpSpanSocketQueueSize = udpSpanSocketQueueSize;
+    }
+
+    public boolean isUdpSpanStreamingDecode() {
+        return udpSpanStreamingDecode;
+    }
+
+    public void setUdpSpanStreamingDecode(boolean udpSpanStreamingDecode) {
+        this.udpSpanStreamingDecode = udpSpanStreamingDecode;
+    }
+
+    public int getPartitionLaneCount() {
+        return partitionLaneCount;
+    }
+
+    public void setPartitionLaneCount(int partitionLaneCount) {
+        this.partitionLaneCount = partitionLaneCount;
+    }
+
+    public int getPartitionLaneQueueSize() {
+        return partitionLaneQueueSize;
+    }
+
+    public void setPartitionLaneQueueSize(int partitionLaneQueueSize) {
+        this.partitionLaneQueueSize = partitionLaneQueueSize;
+    }
+
+    public long getPartitionLaneFlushPeriod() {
+        return partitionLaneFlushPeriod;
+    }
+
+    public void setPartitionLaneFlushPeriod(long partitionLaneFlushPeriod) {
+        this.partitionLaneFlushPeriod = partitionLaneFlushPeriod;
+    }
+
+    public int getAdmissionAgentRate() {
+        return admissionAgentRate;
+    }
+
+    public void setAdmissionAgentRate(int admissionAgentRate) {
+        this.admissionAgentRate = admissionAgentRate;
+    }
+
+    public int getAdmissionAgentBurst() {
+        return admissionAgentBurst;
+    }
+
+    public void setAdmissionAgentBurst(int admissionAgentBurst) {
+        this.admissionAgentBurst = admissionAgentBurst;
+    }
+
+    public int getAdmissionApplicationTotalRate() {
+        return admissionApplicationTotalRate;
+    }
+
+    public void setAdmissionApplicationTotalRate(int admissionApplicationTotalRate) {
+        this.admissionApplicationTotalRate = admissionApplicationTotalRate;
+    }
+
+    public String getAdmissionApplicationWeights() {
+        return admissionApplicationWeights;
+    }
+
+    public void setAdmissionApplicationWeights(String admissionApplicationWeights) {
+        this.admissionApplicationWeights = admissionApplicationWeights;
+    }
+
+    public int getMetaDataWriteCacheSize() {
+        return metaDataWriteCacheSize;
+    }
+
+    public void setMetaDataWriteCacheSize(int metaDataWriteCacheSize) {
+        this.metaDataWriteCacheSize = metaDataWriteCacheSize;
+    }
+
+    public boolean isLoadAdvertiseEnable() {
+        return loadAdvertiseEnable;
+    }
+
+    public void setLoadAdvertiseEnable(boolean loadAdvertiseEnable) {
+        this.loadAdvertiseEnable = loadAdvertiseEnable;
+    }
+
+    public int getLoadAdvertiseInterval() {
+        return loadAdvertiseInterval;
+    }
+
+    public void setLoadAdvertiseInterval(int loadAdvertiseInterval) {
+        this.loadAdvertiseInterval = loadAdvertiseInterval;
+    }
+
+    public int getLoadAdvertiseThreshold() {
+        return loadAdvertiseThreshold;
+    }
+
+    public void setLoadAdvertiseThreshold(int loadAdvertiseThreshold) {
+        this.loadAdvertiseThreshold = loadAdvertiseThreshold;
+    }
+
+    public boolean isStatisticsRollupEnable() {
+        return statisticsRollupEnable;
+    }
+
+    public void setStatisticsRollupEnable(boolean statisticsRollupEnable) {
+        this.statisticsRollupEnable = statisticsRollupEnable;
+    }
+
     public int getAgentEventWorkerThreadSize() {
         return this.agentEventWorkerThreadSize;
     }
@@ -282,6 +440,8 @@ public class CollectorConfiguration implements InitializingBean {
         this.udpStatWorkerThread = readInt(properties, "collector.udpStatWorkerThread", 128);
         this.udpStatWorkerQueueSize = readInt(properties, "collector.udpStatWorkerQueueSize", 1024);
         this.udpStatSocketReceiveBufferSize = readInt(properties, "collector.udpStatSocketReceiveBufferSize", 1024 * 4096);
+        this.udpStatSocketCount = readInt(properties, "collector.udpStatSocketCount", 0);
+        this.udpStatSocketQueueSize = readInt(properties, "collector.udpStatSocketQueueSize", 0);
 
         this.udpSpanListenIp = readString(properties, "collector.udpSpanListenIp", DEFAULT_LISTEN_IP);
         this.udpSpanListenPort = readInt(properties, "collector.udpSpanListenPort", udpSpanListenPort);
@@ -289,7 +449,27 @@ public class CollectorConfiguration implements InitializingBean {
         this.udpSpanWorkerThread = readInt(properties, "collector.udpSpanWorkerThread", 256);
         this.udpSpanWorkerQueueSize = readInt(properties, "collector.udpSpanWorkerQueueSize", 1024 * 5);
         this.udpSpanSocketReceiveBufferSize = readInt(properties, "collector.udpSpanSocketReceiveBufferSize", 1024 * 4096);
+        this.udpSpanSocketCount = readInt(properties, "collector.udpSpanSocketCount", 0);
+        this.udpSpanSocketQueueSize = readInt(properties, "collector.udpSpanSocketQueueSize", 0);
+        this.udpSpanStreamingDecode = readBoolean(properties, "collector.udpSpanStreamingDecode");
         
+        this.partitionLaneCount = readInt(properties, "collector.partition.laneCount", 0);
+        this.partitionLaneQueueSize = readInt(properties, "collector.partition.laneQueueSize", 1024 * 5);
+        this.partitionLaneFlushPeriod = readInt(properties, "collector.partition.laneFlushPeriod", 1000);
+
+        this.admissionAgentRate = readInt(properties, "collector.admission.agentRate", 0);
+        this.admissionAgentBurst = readInt(properties, "collector.admission.agentBurst", 0);
+        this.admissionApplicationTotalRate = readInt(properties, "collector.admission.applicationTotalRate", 0);
+        this.admissionApplicationWeights = readString(properties, "collector.admission.applicationWeights", "");
+
+        this.metaDataWriteCacheSize = readInt(properties, "collector.metadata.writeCacheSize", 100000);
+
+        this.loadAdvertiseEnable = readBoolean(properties, "collector.loadAdvertise.enable");
+        this.loadAdvertiseInterval = readInt(properties, "collector.loadAdvertise.interval", 1000);
+        this.loadAdvertiseThreshold = readInt(properties, "collector.loadAdvertise.threshold", 50);
+
+        this.statisticsRollupEnable = readBoolean(properties, "collector.statistics.rollup.enable");
+
         this.agentEventWorkerThreadSize = readInt(properties, "collector.agentEventWorker.threadSize", 32);
         this.agentEventWorkerQueueSize = readInt(properties, "collector.agentEventWorker.queueSize", 1024 * 5);
         
@@ -347,11 +527,28 @@ public class CollectorConfiguration implements InitializingBean {
         sb.append(", udpStatWorkerThread=").append(udpStatWorkerThread);
         sb.append(", udpStatWorkerQueueSize=").append(udpStatWorkerQueueSize);
         sb.append(", udpStatSocketReceiveBufferSize=").append(udpStatSocketReceiveBufferSize);
+        sb.append(", udpStatSocketCount=").append(udpStatSocketCount);
+        sb.append(", udpStatSocketQueueSize=").append(udpStatSocketQueueSize);
         sb.append(", udpSpanListenIp='").append(udpSpanListenIp).append('\'');
         sb.append(", udpSpanListenPort=").append(udpSpanListenPort);
         sb.append(", udpSpanWorkerThread=").append(udpSpanWorkerThread);
         sb.append(", udpSpanWorkerQueueSize=").append(udpSpanWorkerQueueSize);
         sb.append(", udpSpanSocketReceiveBufferSize=").append(udpSpanSocketReceiveBufferSize);
+        sb.append(", udpSpanSocketCount=").append(udpSpanSocketCount);
+        sb.append(", udpSpanSocketQueueSize=").append(udpSpanSocketQueueSize);
+        sb.append(", udpSpanStreamingDecode=").append(udpSpanStreamingDecode);
+        sb.append(", partitionLaneCount=").append(partitionLaneCount);
+        sb.append(", partitionLaneQueueSize=").append(partitionLaneQueueSize);
+        sb.append(", partitionLaneFlushPeriod=").append(partitionLaneFlushPeriod);
+        sb.append(", admissionAgentRate=").append(admissionAgentRate);
+        sb.append(", admissionAgentBurst=").append(admissionAgentBurst);
+        sb.append(", admissionApplicationTotalRate=").append(admissionApplicationTotalRate);
+        sb.append(", admissionApplicationWeights=").append(admissionApplicationWeights);
+        sb.append(", metaDataWriteCacheSize=").append(metaDataWriteCacheSize);
+        sb.append(", loadAdvertiseEnable=").append(loadAdvertiseEnable);
+        sb.append(", loadAdvertiseInterval=").append(loadAdvertiseInterval);
+        sb.append(", loadAdvertiseThreshold=").append(loadAdvertiseThreshold);
+        sb.append(", statisticsRollupEnable=").append(statisticsRollupEnable);
         sb.append(", agentEventWorkerThreadSize=").append(agentEventWorkerThreadSize);
         sb.append(", agentEventWorkerQueueSize=").append(agentEventWorkerQueueSize);
         sb.append(", l4IpList=").append(l4IpList);
@@ -16,6 +16,8 @@
 
 package com.navercorp.pinpoint.collector.dao;
 
+import java.util.List;
+
 import com.navercorp.pinpoint.thrift.dto.TAgentStat;
 
 /**
@@ -24,4 +26,9 @@ import com.navercorp.pinpoint.thrift.dto.TAgentStat;
  */
 public interface AgentStatDao {
     void insert(TAgentStat agentStat);
+
+    /**
+     * @param agentStats samples of the same agent
+     */
+    void insert(List<TAgentStat> agentStats);
 }
@@ -26,6 +26,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
 
 /**
@@ -44,6 +47,9 @@ public class AutoFlusher {
     @Autowired
     private List<CachedStatisticsDao> cachedStatisticsDaoList;
 
+    @Autowired(required = false)
+    private MetricRegistry metricRegistry;
+
     public long getFlushPeriod() {
         return flushPeriod;
     }
@@ -55,17 +61,34 @@ public class AutoFlusher {
     private static final class Worker implements Runnable {
         private final Logger logger = LoggerFactory.getLogger(this.getClass());
         private final CachedStatisticsDao dao;
+        // duration histogram of flushAll(), shows how far statistics lag behind
+        private final Timer flushTimer;
+        private volatile long lastFlushTime = System.currentTimeMillis();
 
-        public Worker(CachedStatisticsDao dao) {
+        public Worker(CachedStatisticsDao dao, Timer flushTimer) {
             this.dao = dao;
+            this.flushTimer = flushTimer;
+        }
+
+        /**
+         * @return millis since the last flush completed, grows beyond the flush period when flushes fall behind
+         */
+        private long getFlushLag() {
+            return System.currentTimeMillis() - lastFlushTime;
         }
 
         @Override
         public void run() {
+            final Timer.Context time = (flushTimer != null) ? flushTimer.time() : null;
             try {
                 dao.flushAll();
+                lastFlushTime = System.currentTimeMillis();
             } catch (Throwable th) {
                 logger.error("AutoFlusherWorker failed. Caused:{}", th.getMessage(), th);
+            } finally {
+                if (time != null) {
+                    time.stop();
+                }
             }
         }
     }
@@ -78,11 +101,32 @@ public class AutoFlusher {
         ThreadFactory threadFactory = PinpointThreadFactory.createThreadFactory(this.getClass().getSimpleName());
         executor = Executors.newScheduledThreadPool(cachedStatisticsDaoList.size(), threadFactory);
         for (CachedStatisticsDao dao : cachedStatisticsDaoList) {
-            executor.scheduleAtFixedRate(new Worker(dao), 0L, flushPeriod, TimeUnit.MILLISECONDS);
+            final Worker worker = new Worker(dao, getFlushTimer(dao));
+            registerFlushLag(dao, worker);
+            executor.scheduleAtFixedRate(worker, 0L, flushPeriod, TimeUnit.MILLISECONDS);
         }
         logger.info("Auto flusher initialized.");
     }
 
+    private Timer getFlushTimer(CachedStatisticsDao dao) {
+        if (metricRegistry == null) {
+            return null;
+        }
+        return metricRegistry.timer(dao.getClass().getSimpleName() + "-flush");
+    }
+
+    private void registerFlushLag(CachedStatisticsDao dao, final Worker worker) {
+        if (metricRegistry == null) {
+            return;
+        }
+        metricRegistry.register(dao.getClass().getSimpleName() + "-flush-lag", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return worker.getFlushLag();
+            }
+        });
+    }
+
     public void shutdown() {
         logger.info("Shutdown auto flusher.");
         shutdownExecutor();
@@ -35,6 +35,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import java.util.Arrays;
+
 /**
  * @author emeroad
  */
@@ -54,6 +56,9 @@ public class HbaseAgentInfoDao implements AgentInfoDao {
     @Qualifier("serverMetaDataBoMapper")
     private ThriftBoMapper<ServerMetaDataBo, TServerMetaData> serverMetaDataBoMapper;
 
+    @Autowired
+    private MetaDataWriteCache metaDataWriteCache;
+
     @Override
     public void insert(TAgentInfo agentInfo) {
         if (agentInfo == null) {
@@ -64,22 +69,31 @@ public class HbaseAgentInfoDao implements AgentInfoDao {
             logger.debug("insert agent info. {}", agentInfo);
         }
 
-        byte[] agentId = Bytes.toBytes(agentInfo.getAgentId());
-        long reverseKey = TimeUtils.reverseTimeMillis(agentInfo.getStartTimestamp());
-        byte[] rowKey = RowKeyUtils.concatFixedByteAndLong(agentId, HBaseTables.AGENT_NAME_MAX_LEN, reverseKey);
-        Put put = new Put(rowKey);
-
         // should add additional agent informations. for now added only starttime for sqlMetaData
         AgentInfoBo agentInfoBo = this.agentInfoBoMapper.map(agentInfo);
         byte[] agentInfoBoValue = agentInfoBo.writeValue();
-        put.addColumn(HBaseTables.AGENTINFO_CF_INFO, HBaseTables.AGENTINFO_CF_INFO_IDENTIFIER, agentInfoBoValue);
 
+        byte[] serverMetaDataBoValue = null;
         if (agentInfo.isSetServerMetaData()) {
             ServerMetaDataBo serverMetaDataBo = this.serverMetaDataBoMapper.map(agentInfo.getServerMetaData());
-            byte[] serverMetaDataBoValue = serverMetaDataBo.writeValue();
+            serverMetaDataBoValue = serverMetaDataBo.writeValue();
+        }
+
+        final int valueHash = 31 * Arrays.hashCode(agentInfoBoValue) + Arrays.hashCode(serverMetaDataBoValue);
+        if (metaDataWriteCache.isWritten(MetaDataWriteCache.Type.AGENT_INFO, agentInfo.getAgentId(), agentInfo.getStartTimestamp(), 0, valueHash)) {
+            return;
+        }
+
+        byte[] agentId = Bytes.toBytes(agentInfo.getAgentId());
+        long reverseKey = TimeUtils.reverseTimeMillis(agentInfo.getStartTimestamp());
+        byte[] rowKey = RowKeyUtils.concatFixedByteAndLong(agentId, HBaseTables.AGENT_NAME_MAX_LEN, reverseKey);
+        Put put = new Put(rowKey);
+        put.addColumn(HBaseTables.AGENTINFO_CF_INFO, HBaseTables.AGENTINFO_CF_INFO_IDENTIFIER, agentInfoBoValue);
+        if (serverMetaDataBoValue != null) {
             put.addColumn(HBaseTables.AGENTINFO_CF_INFO, HBaseTables.AGENTINFO_CF_INFO_SERVER_META_DATA, serverMetaDataBoValue);
         }
 
         hbaseTemplate.put(HBaseTables.AGENTINFO, put);
+        metaDataWriteCache.putWritten(MetaDataWriteCache.Type.AGENT_INFO, agentInfo.getAgentId(), agentInfo.getStartTimestamp(), 0, valueHash);
     }
 }
@@ -18,16 +18,24 @@ package com.navercorp.pinpoint.collector.dao.hbase;
 
 import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
 import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
 
 import com.navercorp.pinpoint.collector.dao.AgentStatDao;
 import com.navercorp.pinpoint.collector.mapper.thrift.ThriftBoMapper;
+import com.navercorp.pinpoint.common.bo.AgentStatBlockBo;
 import com.navercorp.pinpoint.common.bo.AgentStatCpuLoadBo;
 import com.navercorp.pinpoint.common.bo.AgentStatMemoryGcBo;
-import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.BufferedPutWriter;
 import com.navercorp.pinpoint.common.util.BytesUtils;
 import com.navercorp.pinpoint.common.util.RowKeyUtils;
 import com.navercorp.pinpoint.common.util.TimeUtils;
@@ -44,7 +52,7 @@ import com.sematext.hbase.wd.AbstractRowKeyDistributor;
 public class HbaseAgentStatDao implements AgentStatDao {
 
     @Autowired
-    private HbaseOperations2 hbaseTemplate;
+    private BufferedPutWriter putWriter;
 
     @Autowired
     @Qualifier("agentStatMemoryGcBoMapper")
@@ -58,6 +66,20 @@ public class HbaseAgentStatDao implements AgentStatDao {
     @Qualifier("agentStatRowKeyDistributor")
     private AbstractRowKeyDistributor rowKeyDistributor;
 
+    // write batches as delta encoded samples into one row per agent and block
+    @Value("#{pinpoint_collector_properties['collector.agentStat.block.enable'] ?: false}")
+    private boolean blockEnable = false;
+
+    private static final Comparator<TAgentStat> TIMESTAMP_COMPARATOR = new Comparator<TAgentStat>() {
+        @Override
+        public int compare(TAgentStat o1, TAgentStat o2) {
+            final long t1 = o1.getTimestamp();
+            final long t2 = o2.getTimestamp();
+            return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+        }
+    };
+
+    @Override
     public void insert(final TAgentStat agentStat) {
         if (agentStat == null) {
             throw new NullPointerException("agentStat must not be null");
@@ -73,7 +95,64 @@ public class HbaseAgentStatDao implements AgentStatDao {
         final AgentStatCpuLoadBo agentStatCpuLoadBo = this.agentStatCpuLoadBoMapper.map(agentStat);
         put.addColumn(AGENT_STAT_CF_STATISTICS, AGENT_STAT_CF_STATISTICS_CPU_LOAD, timestamp, agentStatCpuLoadBo.writeValue());
 
-        hbaseTemplate.put(AGENT_STAT, put);
+        putWriter.put(AGENT_STAT, put);
+    }
+
+    @Override
+    public void insert(final List<TAgentStat> agentStats) {
+        if (agentStats == null) {
+            throw new NullPointerException("agentStats must not be null");
+        }
+        if (!blockEnable) {
+            for (TAgentStat agentStat : agentStats) {
+                insert(agentStat);
+            }
+            return;
+        }
+        if (agentStats.isEmpty()) {
+            return;
+        }
+
+        final List<TAgentStat> sorted = new ArrayList<TAgentStat>(agentStats);
+        Collections.sort(sorted, TIMESTAMP_COMPARATOR);
+
+        int blockStart = 0;
+        long blockTimestamp = getBlockTimestamp(sorted.get(0).getTimestamp());
+        for (int i = 1; i < sorted.size(); i++) {
+            final long sampleBlockTimestamp = getBlockTimestamp(sorted.get(i).getTimestamp());
+            if (sampleBlockTimestamp != blockTimestamp) {
+                insertBlock(blockTimestamp, sorted.subList(blockStart, i));
+                blockStart = i;
+                blockTimestamp = sampleBlockTimestamp;
+            }
+        }
+        insertBlock(blockTimestamp, sorted.subList(blockStart, sorted.size()));
+    }
+
+    private void insertBlock(long blockTimestamp, List<TAgentStat> agentStats) {
+        final TAgentStat first = agentStats.get(0);
+        final TAgentStat last = agentStats.get(agentStats.size() - 1);
+
+        final List<AgentStatMemoryGcBo> memoryGcBos = new ArrayList<AgentStatMemoryGcBo>(agentStats.size());
+        final List<AgentStatCpuLoadBo> cpuLoadBos = new ArrayList<AgentStatCpuLoadBo>(agentStats.size());
+        for (TAgentStat agentStat : agentStats) {
+            memoryGcBos.add(this.agentStatMemoryGcBoMapper.map(agentStat));
+            cpuLoadBos.add(this.agentStatCpuLoadBoMapper.map(agentStat));
+        }
+        final AgentStatBlockBo agentStatBlockBo = new AgentStatBlockBo(first.getAgentId(), first.getStartTimestamp(), memoryGcBos, cpuLoadBos);
+
+        // batches of the same block are stored in separate columns ordered by the offset of their first sample
+        final int offset = (int) (first.getTimestamp() - blockTimestamp);
+        final byte[] qualifier = Bytes.add(AGENT_STAT_CF_STATISTICS_BLOCK, Bytes.toBytes(offset));
+
+        final Put put = new Put(getDistributedRowKey(first, blockTimestamp));
+        put.addColumn(AGENT_STAT_CF_STATISTICS, qualifier, last.getTimestamp(), agentStatBlockBo.writeValue());
+
+        putWriter.put(AGENT_STAT, put);
+    }
+
+    private long getBlockTimestamp(long timestamp) {
+        return timestamp - (timestamp % AGENT_STAT_BLOCK_SIZE);
     }
 
     /**
@@ -32,6 +32,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import java.util.Arrays;
+
 /**
  * @author emeroad
  * @author minwoo.jung
@@ -48,6 +50,9 @@ public class HbaseApiMetaDataDao implements ApiMetaDataDao {
     @Qualifier("metadataRowKeyDistributor")
     private RowKeyDistributorByHashPrefix rowKeyDistributorByHashPrefix;
 
+    @Autowired
+    private MetaDataWriteCache metaDataWriteCache;
+
     @Override
     public void insert(TApiMetaData apiMetaData) {
         if (logger.isDebugEnabled()) {
@@ -55,11 +60,6 @@ public class HbaseApiMetaDataDao implements ApiMetaDataDao {
         }
 
 
-        ApiMetaDataBo apiMetaDataBo = new ApiMetaDataBo(apiMetaData.getAgentId(), apiMetaData.getAgentStartTime(), apiMetaData.getApiId());
-        byte[] rowKey = getDistributedKey(apiMetaDataBo.toRowKey());
-
-        final Put put = new Put(rowKey);
-
         final Buffer buffer = new AutomaticBuffer(64);
         String api = apiMetaData.getApiInfo();
         buffer.putPrefixedString(api);
@@ -75,9 +75,19 @@ public class HbaseApiMetaDataDao implements ApiMetaDataDao {
         }
         
         final byte[] apiMetaDataBytes = buffer.getBuffer();
+        final int valueHash = Arrays.hashCode(apiMetaDataBytes);
+        if (metaDataWriteCache.isWritten(MetaDataWriteCache.Type.API, apiMetaData.getAgentId(), apiMetaData.getAgentStartTime(), apiMetaData.getApiId(), valueHash)) {
+            return;
+        }
+
+        ApiMetaDataBo apiMetaDataBo = new ApiMetaDataBo(apiMetaData.getAgentId(), apiMetaData.getAgentStartTime(), apiMetaData.getApiId());
+        byte[] rowKey = getDistributedKey(apiMetaDataBo.toRowKey());
+
+        final Put put = new Put(rowKey);
         put.addColumn(HBaseTables.API_METADATA_CF_API, HBaseTables.API_METADATA_CF_API_QUALI_SIGNATURE, apiMetaDataBytes);
 
         hbaseTemplate.put(HBaseTables.API_METADATA, put);
+        metaDataWriteCache.putWritten(MetaDataWriteCache.Type.API, apiMetaData.getAgentId(), apiMetaData.getAgentStartTime(), apiMetaData.getApiId(), valueHash);
     }
 
     private byte[] getDistributedKey(byte[] rowKey) {
@@ -16,9 +16,9 @@
 
 package com.navercorp.pinpoint.collector.dao.hbase;
 
+import com.navercorp.pinpoint.collector.dao.CachedStatisticsDao;
 import com.navercorp.pinpoint.collector.dao.HostApplicationMapDao;
 import com.navercorp.pinpoint.collector.util.AcceptedTimeService;
-import com.navercorp.pinpoint.collector.util.AtomicLongUpdateMap;
 import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
 import com.navercorp.pinpoint.common.buffer.Buffer;
 import com.navercorp.pinpoint.common.hbase.HBaseTables;
@@ -27,19 +27,36 @@ import com.navercorp.pinpoint.common.util.TimeSlot;
 import com.navercorp.pinpoint.common.util.TimeUtils;
 import com.sematext.hbase.wd.AbstractRowKeyDistributor;
 
+import org.apache.hadoop.hbase.client.Put;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+
 /**
- * 
+ * Distinct (host, application, parent application) tuples of a time slot are collected in a set
+ * and written once per flush period by {@link #flushAll()}, instead of a put per span.
+ *
  * @author netspider
  * @author emeroad
  */
 @Repository
-public class HbaseHostApplicationMapDao implements HostApplicationMapDao {
+public class HbaseHostApplicationMapDao implements HostApplicationMapDao, CachedStatisticsDao {
+
+    // the slot of the newest span and the one before it, for spans accepted right after the slot changed
+    private static final int RETAINED_SLOT_SIZE = 2;
 
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
@@ -56,9 +73,19 @@ public class HbaseHostApplicationMapDao implements HostApplicationMapDao {
     @Qualifier("acceptApplicationRowKeyDistributor")
     private AbstractRowKeyDistributor rowKeyDistributor;
 
-    // FIXME should modify to save a cachekey at each 30~50 seconds instead of saving at each time
-    private final AtomicLongUpdateMap<CacheKey> updater = new AtomicLongUpdateMap<CacheKey>();
+    // tuples seen per slot, old slots are dropped as a whole
+    private final ConcurrentMap<Long, SlotSet> slotMap = new ConcurrentHashMap<Long, SlotSet>();
+    private volatile SlotSet lastSlotSet = new SlotSet(-1);
+    // tuples not written yet
+    private final ConcurrentLinkedQueue<CacheKey> pendingQueue = new ConcurrentLinkedQueue<CacheKey>();
 
+    // looking up a known tuple does not allocate
+    private final ThreadLocal<CacheKey> lookupKey = new ThreadLocal<CacheKey>() {
+        @Override
+        protected CacheKey initialValue() {
+            return new CacheKey();
+        }
+    };
 
     @Override
     public void insert(String host, String bindApplicationName, short bindServiceType, String parentApplicationName, short parentServiceType) {
@@ -70,43 +97,101 @@ public class HbaseHostApplicationMapDao implements HostApplicationMapDao {
         }
 
         final long statisticsRowSlot = getSlotTime();
+        final Set<CacheKey> slotSet = getSlotSet(statisticsRowSlot).keySet;
 
-        final CacheKey cacheKey = new CacheKey(host, bindApplicationName, bindServiceType, parentApplicationName, parentServiceType);
-        final boolean needUpdate = updater.update(cacheKey, statisticsRowSlot);
-        if (needUpdate) {
-            insertHostVer2(host, bindApplicationName, bindServiceType, statisticsRowSlot, parentApplicationName, parentServiceType);
+        final CacheKey lookupKey = this.lookupKey.get();
+        lookupKey.set(host, bindApplicationName, bindServiceType, parentApplicationName, parentServiceType, statisticsRowSlot);
+        if (slotSet.contains(lookupKey)) {
+            return;
+        }
+        final CacheKey cacheKey = lookupKey.copy();
+        if (slotSet.add(cacheKey)) {
+            pendingQueue.offer(cacheKey);
         }
     }
 
+    private SlotSet getSlotSet(long statisticsRowSlot) {
+        final SlotSet lastSlotSet = this.lastSlotSet;
+        if (lastSlotSet.statisticsRowSlot == statisticsRowSlot) {
+            return lastSlotSet;
+        }
+        final Long slotKey = statisticsRowSlot;
+        SlotSet slotSet = slotMap.get(slotKey);
+        if (slotSet == null) {
+            final SlotSet newSlotSet = new SlotSet(statisticsRowSlot);
+            final SlotSet exist = slotMap.putIfAbsent(slotKey, newSlotSet);
+            slotSet = exist != null ? exist : newSlotSet;
+        }
+        if (statisticsRowSlot > lastSlotSet.statisticsRowSlot) {
+            this.lastSlotSet = slotSet;
+        }
+        return slotSet;
+    }
 
     private long getSlotTime() {
         final long acceptedTime = acceptedTimeService.getAcceptedTime();
         return timeSlot.getTimeSlot(acceptedTime);
     }
 
-
-
-    private void insertHostVer2(String host, String bindApplicationName, short bindServiceType, long statisticsRowSlot, String parentApplicationName, short parentServiceType) {
-        if (logger.isDebugEnabled()) {
-            logger.debug("Insert host-application map. host={}, bindApplicationName={}, bindServiceType={}, parentApplicationName={}, parentServiceType={}",
-                    host, bindApplicationName, bindServiceType, parentApplicationName, parentServiceType);
+    @Override
+    public void flushAll() {
+        final List<Put> putList = drainPendingQueue();
+        if (!putList.isEmpty()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("flush host-application map. rows={}", putList.size());
+            }
+            try {
+                hbaseTemplate.put(HBaseTables.HOST_APPLICATION_MAP_VER2, putList);
+            } catch (Exception ex) {
+                logger.warn("retry one. Caused:{}", ex.getCause(), ex);
+                hbaseTemplate.put(HBaseTables.HOST_APPLICATION_MAP_VER2, putList);
+            }
         }
+        evictOldSlots();
+    }
 
-        // TODO should consider to add bellow codes again later.
-        //String parentAgentId = null;
-        //final byte[] rowKey = createRowKey(parentApplicationName, parentServiceType, statisticsRowSlot, parentAgentId);
-        final byte[] rowKey = createRowKey(parentApplicationName, parentServiceType, statisticsRowSlot, null);
-
-        byte[] columnName = createColumnName(host, bindApplicationName, bindServiceType);
+    private List<Put> drainPendingQueue() {
+        // tuples of the same parent application and slot share a row
+        final Map<ByteBuffer, Put> putMap = new LinkedHashMap<ByteBuffer, Put>();
+        CacheKey cacheKey;
+        while ((cacheKey = pendingQueue.poll()) != null) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("Insert host-application map. host={}, bindApplicationName={}, bindServiceType={}, parentApplicationName={}, parentServiceType={}",
+                        cacheKey.host, cacheKey.applicationName, cacheKey.serviceType, cacheKey.parentApplicationName, cacheKey.parentServiceType);
+            }
+            // TODO should consider to add bellow codes again later.
+            //String parentAgentId = null;
+            //final byte[] rowKey = createRowKey(parentApplicationName, parentServiceType, statisticsRowSlot, parentAgentId);
+            final byte[] rowKey = createRowKey(cacheKey.parentApplicationName, cacheKey.parentServiceType, cacheKey.statisticsRowSlot, null);
+            final byte[] columnName = createColumnName(cacheKey.host, cacheKey.applicationName, cacheKey.serviceType);
+
+            final ByteBuffer row = ByteBuffer.wrap(rowKey);
+            Put put = putMap.get(row);
+            if (put == null) {
+                put = new Put(rowKey);
+                putMap.put(row, put);
+            }
+            put.addColumn(HBaseTables.HOST_APPLICATION_MAP_VER2_CF_MAP, columnName, null);
+        }
+        return new ArrayList<Put>(putMap.values());
+    }
 
-        try {
-            hbaseTemplate.put(HBaseTables.HOST_APPLICATION_MAP_VER2, rowKey, HBaseTables.HOST_APPLICATION_MAP_VER2_CF_MAP, columnName, null);
-        } catch (Exception ex) {
-            logger.warn("retry one. Caused:{}", ex.getCause(), ex);
-            hbaseTemplate.put(HBaseTables.HOST_APPLICATION_MAP_VER2, rowKey, HBaseTables.HOST_APPLICATION_MAP_VER2_CF_MAP, columnName, null);
+    private void evictOldSlots() {
+        if (slotMap.size() <= RETAINED_SLOT_SIZE) {
+            return;
+        }
+        final List<Long> slotList = new ArrayList<Long>(slotMap.keySet());
+        Collections.sort(slotList);
+        // a tuple of an evicted slot is written again at worst
+        for (int i = 0; i < slotList.size() - RETAINED_SLOT_SIZE; i++) {
+            slotMap.remove(slotList.get(i));
         }
     }
 
+    int getSlotSize() {
+        return slotMap.size();
+    }
+
     private byte[] createColumnName(String host, String bindApplicationName, short bindServiceType) {
         Buffer buffer = new AutomaticBuffer();
         buffer.putPrefixedString(host);
@@ -135,28 +220,39 @@ public class HbaseHostApplicationMapDao implements HostApplicationMapDao {
         return rowKeyBuffer.getBuffer();
     }
 
+    private static final class SlotSet {
+        private final long statisticsRowSlot;
+        private final Set<CacheKey> keySet = Collections.newSetFromMap(new ConcurrentHashMap<CacheKey, Boolean>(256, 0.75f, 32));
+
+        private SlotSet(long statisticsRowSlot) {
+            this.statisticsRowSlot = statisticsRowSlot;
+        }
+    }
+
     private static final class CacheKey {
-        private final String host;
-        private final String applicationName;
-        private final short serviceType;
+        private String host;
+        private String applicationName;
+        private short serviceType;
 
-        private final String parentApplicationName;
-        private final short parentServiceType;
+        // may be null for below two parent values.
+        private String parentApplicationName;
+        private short parentServiceType;
 
-        public CacheKey(String host, String applicationName, short serviceType, String parentApplicationName, short parentServiceType) {
-            if (host == null) {
-                throw new NullPointerException("host must not be null");
-            }
-            if (applicationName == null) {
-                throw new NullPointerException("bindApplicationName must not be null");
-            }
+        private long statisticsRowSlot;
+
+        private void set(String host, String applicationName, short serviceType, String parentApplicationName, short parentServiceType, long statisticsRowSlot) {
             this.host = host;
             this.applicationName = applicationName;
             this.serviceType = serviceType;
-
-            // may be null for below two parent values.
             this.parentApplicationName = parentApplicationName;
             this.parentServiceType = parentServiceType;
+            this.statisticsRowSlot = statisticsRowSlot;
+        }
+
+        private CacheKey copy() {
+            final CacheKey copy = new CacheKey();
+            copy.set(host, applicationName, serviceType, parentApplicationName, parentServiceType, statisticsRowSlot);
+            return copy;
         }
 
         @Override
@@ -166,6 +262,7 @@ public class HbaseHostApplicationMapDao implements HostApplicationMapDao {
 
             CacheKey cacheKey = (CacheKey) o;
 
+            if (statisticsRowSlot != cacheKey.statisticsRowSlot) return false;
             if (parentServiceType != cacheKey.parentServiceType) return false;
             if (serviceType != cacheKey.serviceType) return false;
             if (!applicationName.equals(cacheKey.applicationName)) return false;
@@ -183,6 +280,7 @@ public class HbaseHostApplicationMapDao implements HostApplicationMapDao {
             result = 31 * result + (int) serviceType;
             result = 31 * result + (parentApplicationName != null ? parentApplicationName.hashCode() : 0);
             result = 31 * result + (int) parentServiceType;
+            result = 31 * result + (int) (statisticsRowSlot ^ (statisticsRowSlot >>> 32));
             return result;
         }
     }
@@ -20,7 +20,9 @@ import com.navercorp.pinpoint.collector.dao.MapResponseTimeDao;
 import com.navercorp.pinpoint.collector.dao.hbase.statistics.*;
 import com.navercorp.pinpoint.collector.util.AcceptedTimeService;
 import com.navercorp.pinpoint.collector.util.ConcurrentCounterMap;
+import com.navercorp.pinpoint.collector.util.LaneLocal;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.StatisticsResolution;
 import com.navercorp.pinpoint.common.trace.ServiceType;
 import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
 import com.navercorp.pinpoint.common.util.TimeSlot;
@@ -32,6 +34,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
+
 import java.util.List;
 import java.util.Map;
 
@@ -63,7 +67,25 @@ public class HbaseMapResponseTimeDao implements MapResponseTimeDao {
 
     private final boolean useBulk;
 
-    private final ConcurrentCounterMap<RowInfo> counter = new ConcurrentCounterMap<RowInfo>();
+    @Autowired
+    private StatisticsRollup statisticsRollup;
+
+    private final RowInfoCounter counter = new RowInfoCounter();
+
+    private RollupRowInfoCounter rollupCounter;
+
+    // the spans of a transaction are counted by the lane handling it, without sharing the counters with other threads
+    private final LaneLocal<StatisticsCounter> laneCounter = new LaneLocal<StatisticsCounter>() {
+        @Override
+        protected StatisticsCounter initialValue() {
+            return new StatisticsCounter(new RowInfoCounter(true), statisticsRollup.newRowInfoCounter(true));
+        }
+
+        @Override
+        protected void flush(StatisticsCounter laneCounter) {
+            HbaseMapResponseTimeDao.this.flush(laneCounter.getCounter(), laneCounter.getRollupCounter());
+        }
+    };
 
     public HbaseMapResponseTimeDao() {
         this(true);
@@ -73,6 +95,11 @@ public class HbaseMapResponseTimeDao implements MapResponseTimeDao {
         this.useBulk = useBulk;
     }
 
+    @PostConstruct
+    public void setup() {
+        this.rollupCounter = statisticsRollup.newRowInfoCounter();
+    }
+
     @Override
     public void received(String applicationName, ServiceType applicationServiceType, String agentId, int elapsed, boolean isError) {
         if (applicationName == null) {
@@ -90,29 +117,36 @@ public class HbaseMapResponseTimeDao implements MapResponseTimeDao {
         // make row key. rowkey is me
         final long acceptedTime = acceptedTimeService.getAcceptedTime();
         final long rowTimeSlot = timeSlot.getTimeSlot(acceptedTime);
-        final RowKey selfRowKey = new CallRowKey(applicationName, applicationServiceType.getCode(), rowTimeSlot);
-
         final short slotNumber = ApplicationMapStatisticsUtils.getSlotNumber(applicationServiceType, elapsed, isError);
-        final ColumnName selfColumnName = new ResponseColumnName(agentId, slotNumber);
         if (useBulk) {
-            RowInfo rowInfo = new DefaultRowInfo(selfRowKey, selfColumnName);
-            this.counter.increment(rowInfo, 1L);
+            final StatisticsCounter laneCounter = this.laneCounter.get();
+            final RowInfoCounter counter = (laneCounter != null) ? laneCounter.getCounter() : this.counter;
+            final RollupRowInfoCounter rollupCounter = (laneCounter != null) ? laneCounter.getRollupCounter() : this.rollupCounter;
+            counter.incrementResponse(applicationName, applicationServiceType.getCode(), rowTimeSlot, agentId, slotNumber, 1L);
+            rollupCounter.incrementResponse(applicationName, applicationServiceType.getCode(), acceptedTime, agentId, slotNumber, 1L);
         } else {
+            final RowKey selfRowKey = new CallRowKey(applicationName, applicationServiceType.getCode(), rowTimeSlot);
+            final ColumnName selfColumnName = new ResponseColumnName(agentId, slotNumber);
             final byte[] rowKey = selfRowKey.getRowKey();
             // column name is the name of caller app.
             byte[] columnName = selfColumnName.getColumnName();
-            increment(rowKey, columnName, 1L);
+            increment(MAP_STATISTICS_SELF, rowKey, columnName, 1L);
+            for (StatisticsResolution resolution : statisticsRollup.getResolutions()) {
+                final long rollupTimeSlot = resolution.getTimeSlot().getTimeSlot(acceptedTime);
+                final byte[] rollupRowKey = new CallRowKey(applicationName, applicationServiceType.getCode(), rollupTimeSlot).getRowKey();
+                increment(resolution.getTableName(MAP_STATISTICS_SELF), rollupRowKey, columnName, 1L);
+            }
         }
     }
 
-    private void increment(byte[] rowKey, byte[] columnName, long increment) {
+    private void increment(String tableName, byte[] rowKey, byte[] columnName, long increment) {
         if (rowKey == null) {
             throw new NullPointerException("rowKey must not be null");
         }
         if (columnName == null) {
             throw new NullPointerException("columnName must not be null");
         }
-        hbaseTemplate.incrementColumnValue(MAP_STATISTICS_SELF, rowKey, MAP_STATISTICS_SELF_CF_COUNTER, columnName, increment);
+        hbaseTemplate.incrementColumnValue(tableName, rowKey, MAP_STATISTICS_SELF_CF_COUNTER, columnName, increment);
     }
 
 
@@ -121,15 +155,25 @@ public class HbaseMapResponseTimeDao implements MapResponseTimeDao {
         if (!useBulk) {
             throw new IllegalStateException("useBulk is " + useBulk);
         }
+        flush(this.counter, this.rollupCounter);
+    }
+
+    private void flush(RowInfoCounter counter, RollupRowInfoCounter rollupCounter) {
+        flush(MAP_STATISTICS_SELF, counter.remove());
+        for (int i = 0; i < rollupCounter.getResolutionSize(); i++) {
+            final StatisticsResolution resolution = rollupCounter.getResolution(i);
+            flush(resolution.getTableName(MAP_STATISTICS_SELF), rollupCounter.remove(i));
+        }
+    }
 
+    private void flush(String tableName, Map<RowInfo, ConcurrentCounterMap.LongAdder> remove) {
         // update statistics by rowkey and column for now. need to update it by rowkey later.
-        Map<RowInfo,ConcurrentCounterMap.LongAdder> remove = this.counter.remove();
         List<Increment> merge = rowKeyMerge.createBulkIncrement(remove);
         if (!merge.isEmpty()) {
             if (logger.isDebugEnabled()) {
-                logger.debug("flush {} Increment:{}", this.getClass().getSimpleName(), merge.size());
+                logger.debug("flush {} {} Increment:{}", this.getClass().getSimpleName(), tableName, merge.size());
             }
-            hbaseTemplate.increment(MAP_STATISTICS_SELF, merge);
+            hbaseTemplate.increment(tableName, merge);
         }
 
     }
@@ -22,7 +22,9 @@ import com.navercorp.pinpoint.collector.dao.MapStatisticsCalleeDao;
 import com.navercorp.pinpoint.collector.dao.hbase.statistics.*;
 import com.navercorp.pinpoint.collector.util.AcceptedTimeService;
 import com.navercorp.pinpoint.collector.util.ConcurrentCounterMap;
+import com.navercorp.pinpoint.collector.util.LaneLocal;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.StatisticsResolution;
 import com.navercorp.pinpoint.common.trace.ServiceType;
 import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
 import com.navercorp.pinpoint.common.util.TimeSlot;
@@ -35,6 +37,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
+
 import java.util.List;
 import java.util.Map;
 
@@ -64,7 +68,25 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
 
     private final boolean useBulk;
 
-    private final ConcurrentCounterMap<RowInfo> counter = new ConcurrentCounterMap<RowInfo>();
+    @Autowired
+    private StatisticsRollup statisticsRollup;
+
+    private final RowInfoCounter counter = new RowInfoCounter();
+
+    private RollupRowInfoCounter rollupCounter;
+
+    // the spans of a transaction are counted by the lane handling it, without sharing the counters with other threads
+    private final LaneLocal<StatisticsCounter> laneCounter = new LaneLocal<StatisticsCounter>() {
+        @Override
+        protected StatisticsCounter initialValue() {
+            return new StatisticsCounter(new RowInfoCounter(true), statisticsRollup.newRowInfoCounter(true));
+        }
+
+        @Override
+        protected void flush(StatisticsCounter laneCounter) {
+            HbaseMapStatisticsCalleeDao.this.flush(laneCounter.getCounter(), laneCounter.getRollupCounter());
+        }
+    };
 
     public HbaseMapStatisticsCalleeDao() {
         this(true);
@@ -74,9 +96,20 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
         this.useBulk = useBulk;
     }
 
+    @PostConstruct
+    public void setup() {
+        this.rollupCounter = statisticsRollup.newRowInfoCounter();
+    }
+
 
     @Override
     public void update(String calleeApplicationName, ServiceType calleeServiceType, String callerApplicationName, ServiceType callerServiceType, String callerHost, int elapsed, boolean isError) {
+        final short callerSlotNumber = ApplicationMapStatisticsUtils.getSlotNumber(calleeServiceType, elapsed, isError);
+        updateSlot(calleeApplicationName, calleeServiceType, callerApplicationName, callerServiceType, callerHost, callerSlotNumber, 1L);
+    }
+
+    @Override
+    public void updateSlot(String calleeApplicationName, ServiceType calleeServiceType, String callerApplicationName, ServiceType callerServiceType, String callerHost, short callerSlotNumber, long count) {
         if (callerApplicationName == null) {
             throw new NullPointerException("callerApplicationName must not be null");
         }
@@ -96,33 +129,41 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
         // make row key. rowkey is me
         final long acceptedTime = acceptedTimeService.getAcceptedTime();
         final long rowTimeSlot = timeSlot.getTimeSlot(acceptedTime);
-        final RowKey calleeRowKey = new CallRowKey(calleeApplicationName, calleeServiceType.getCode(), rowTimeSlot);
-
-        final short callerSlotNumber = ApplicationMapStatisticsUtils.getSlotNumber(calleeServiceType, elapsed, isError);
-        final ColumnName callerColumnName = new CallerColumnName(callerServiceType.getCode(), callerApplicationName, callerHost, callerSlotNumber);
-
         if (useBulk) {
-            RowInfo rowInfo = new DefaultRowInfo(calleeRowKey, callerColumnName);
-            counter.increment(rowInfo, 1L);
+            final StatisticsCounter laneCounter = this.laneCounter.get();
+            final RowInfoCounter counter = (laneCounter != null) ? laneCounter.getCounter() : this.counter;
+            final RollupRowInfoCounter rollupCounter = (laneCounter != null) ? laneCounter.getRollupCounter() : this.rollupCounter;
+            counter.incrementCaller(calleeApplicationName, calleeServiceType.getCode(), rowTimeSlot,
+                    callerServiceType.getCode(), callerApplicationName, callerHost, callerSlotNumber, count);
+            rollupCounter.incrementCaller(calleeApplicationName, calleeServiceType.getCode(), acceptedTime,
+                    callerServiceType.getCode(), callerApplicationName, callerHost, callerSlotNumber, count);
         } else {
+            final RowKey calleeRowKey = new CallRowKey(calleeApplicationName, calleeServiceType.getCode(), rowTimeSlot);
+            final ColumnName callerColumnName = new CallerColumnName(callerServiceType.getCode(), callerApplicationName, callerHost, callerSlotNumber);
+
             final byte[] rowKey = calleeRowKey.getRowKey();
 
             // column name is the name of caller app.
             byte[] columnName = callerColumnName.getColumnName();
-            increment(rowKey, columnName, 1L);
+            increment(MAP_STATISTICS_CALLER, rowKey, columnName, count);
+            for (StatisticsResolution resolution : statisticsRollup.getResolutions()) {
+                final long rollupTimeSlot = resolution.getTimeSlot().getTimeSlot(acceptedTime);
+                final byte[] rollupRowKey = new CallRowKey(calleeApplicationName, calleeServiceType.getCode(), rollupTimeSlot).getRowKey();
+                increment(resolution.getTableName(MAP_STATISTICS_CALLER), rollupRowKey, columnName, count);
+            }
         }
     }
 
 
 
-    private void increment(byte[] rowKey, byte[] columnName, long increment) {
+    private void increment(String tableName, byte[] rowKey, byte[] columnName, long increment) {
         if (rowKey == null) {
             throw new NullPointerException("rowKey must not be null");
         }
         if (columnName == null) {
             throw new NullPointerException("columnName must not be null");
         }
-        hbaseTemplate.incrementColumnValue(MAP_STATISTICS_CALLER, rowKey, MAP_STATISTICS_CALLER_CF_COUNTER, columnName, increment);
+        hbaseTemplate.incrementColumnValue(tableName, rowKey, MAP_STATISTICS_CALLER_CF_COUNTER, columnName, increment);
     }
 
     @Override
@@ -130,14 +171,25 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
         if (!useBulk) {
             throw new IllegalStateException();
         }
+        flush(this.counter, this.rollupCounter);
+    }
+
+    private void flush(RowInfoCounter counter, RollupRowInfoCounter rollupCounter) {
+        flush(MAP_STATISTICS_CALLER, counter.remove());
+        for (int i = 0; i < rollupCounter.getResolutionSize(); i++) {
+            final StatisticsResolution resolution = rollupCounter.getResolution(i);
+            flush(resolution.getTableName(MAP_STATISTICS_CALLER), rollupCounter.remove(i));
+        }
+    }
 
-        Map<RowInfo, ConcurrentCounterMap.LongAdder> remove = this.counter.remove();
+    private void flush(String tableName, Map<RowInfo, ConcurrentCounterMap.LongAdder> remove) {
+        // update statistics by rowkey and column for now. need to update it by rowkey later.
         List<Increment> merge = rowKeyMerge.createBulkIncrement(remove);
         if (!merge.isEmpty()) {
             if (logger.isDebugEnabled()) {
-                logger.debug("flush {} Increment:{}", this.getClass().getSimpleName(), merge.size());
+                logger.debug("flush {} {} Increment:{}", this.getClass().getSimpleName(), tableName, merge.size());
             }
-            hbaseTemplate.increment(MAP_STATISTICS_CALLER, merge);
+            hbaseTemplate.increment(tableName, merge);
         }
 
     }
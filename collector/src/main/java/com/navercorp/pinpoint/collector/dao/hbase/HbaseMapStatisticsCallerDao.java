@@ -22,7 +22,9 @@ import com.navercorp.pinpoint.collector.dao.MapStatisticsCallerDao;
 import com.navercorp.pinpoint.collector.dao.hbase.statistics.*;
 import com.navercorp.pinpoint.collector.util.AcceptedTimeService;
 import com.navercorp.pinpoint.collector.util.ConcurrentCounterMap;
+import com.navercorp.pinpoint.collector.util.LaneLocal;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.StatisticsResolution;
 import com.navercorp.pinpoint.common.trace.ServiceType;
 import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
 import com.navercorp.pinpoint.common.util.TimeSlot;
@@ -35,6 +37,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import javax.annotation.PostConstruct;
+
 import java.util.List;
 import java.util.Map;
 
@@ -64,7 +68,25 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
 
     private final boolean useBulk;
 
-    private final ConcurrentCounterMap<RowInfo> counter = new ConcurrentCounterMap<RowInfo>();
+    @Autowired
+    private StatisticsRollup statisticsRollup;
+
+    private final RowInfoCounter counter = new RowInfoCounter();
+
+    private RollupRowInfoCounter rollupCounter;
+
+    // the spans of a transaction are counted by the lane handling it, without sharing the counters with other threads
+    private final LaneLocal<StatisticsCounter> laneCounter = new LaneLocal<StatisticsCounter>() {
+        @Override
+        protected StatisticsCounter initialValue() {
+            return new StatisticsCounter(new RowInfoCounter(true), statisticsRollup.newRowInfoCounter(true));
+        }
+
+        @Override
+        protected void flush(StatisticsCounter laneCounter) {
+            HbaseMapStatisticsCallerDao.this.flush(laneCounter.getCounter(), laneCounter.getRollupCounter());
+        }
+    };
 
     public HbaseMapStatisticsCallerDao() {
         this(true);
@@ -74,8 +96,19 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
         this.useBulk = useBulk;
     }
 
+    @PostConstruct
+    public void setup() {
+        this.rollupCounter = statisticsRollup.newRowInfoCounter();
+    }
+
     @Override
     public void update(String callerApplicationName, ServiceType callerServiceType, String callerAgentid, String calleeApplicationName, ServiceType calleeServiceType, String calleeHost, int elapsed, boolean isError) {
+        final short calleeSlotNumber = ApplicationMapStatisticsUtils.getSlotNumber(calleeServiceType, elapsed, isError);
+        updateSlot(callerApplicationName, callerServiceType, callerAgentid, calleeApplicationName, calleeServiceType, calleeHost, calleeSlotNumber, 1L);
+    }
+
+    @Override
+    public void updateSlot(String callerApplicationName, ServiceType callerServiceType, String callerAgentid, String calleeApplicationName, ServiceType calleeServiceType, String calleeHost, short calleeSlotNumber, long count) {
         if (callerApplicationName == null) {
             throw new NullPointerException("callerApplicationName must not be null");
         }
@@ -94,29 +127,37 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
         // make row key. rowkey is me
         final long acceptedTime = acceptedTimeService.getAcceptedTime();
         final long rowTimeSlot = timeSlot.getTimeSlot(acceptedTime);
-        final RowKey callerRowKey = new CallRowKey(callerApplicationName, callerServiceType.getCode(), rowTimeSlot);
-
-        final short calleeSlotNumber = ApplicationMapStatisticsUtils.getSlotNumber(calleeServiceType, elapsed, isError);
-        final ColumnName calleeColumnName = new CalleeColumnName(callerAgentid, calleeServiceType.getCode(), calleeApplicationName, calleeHost, calleeSlotNumber);
         if (useBulk) {
-            RowInfo rowInfo = new DefaultRowInfo(callerRowKey, calleeColumnName);
-            this.counter.increment(rowInfo, 1L);
+            final StatisticsCounter laneCounter = this.laneCounter.get();
+            final RowInfoCounter counter = (laneCounter != null) ? laneCounter.getCounter() : this.counter;
+            final RollupRowInfoCounter rollupCounter = (laneCounter != null) ? laneCounter.getRollupCounter() : this.rollupCounter;
+            counter.incrementCallee(callerApplicationName, callerServiceType.getCode(), rowTimeSlot,
+                    callerAgentid, calleeServiceType.getCode(), calleeApplicationName, calleeHost, calleeSlotNumber, count);
+            rollupCounter.incrementCallee(callerApplicationName, callerServiceType.getCode(), acceptedTime,
+                    callerAgentid, calleeServiceType.getCode(), calleeApplicationName, calleeHost, calleeSlotNumber, count);
         } else {
+            final RowKey callerRowKey = new CallRowKey(callerApplicationName, callerServiceType.getCode(), rowTimeSlot);
+            final ColumnName calleeColumnName = new CalleeColumnName(callerAgentid, calleeServiceType.getCode(), calleeApplicationName, calleeHost, calleeSlotNumber);
             final byte[] rowKey = callerRowKey.getRowKey();
             // column name is the name of caller app.
             byte[] columnName = calleeColumnName.getColumnName();
-            increment(rowKey, columnName, 1L);
+            increment(MAP_STATISTICS_CALLEE, rowKey, columnName, count);
+            for (StatisticsResolution resolution : statisticsRollup.getResolutions()) {
+                final long rollupTimeSlot = resolution.getTimeSlot().getTimeSlot(acceptedTime);
+                final byte[] rollupRowKey = new CallRowKey(callerApplicationName, callerServiceType.getCode(), rollupTimeSlot).getRowKey();
+                increment(resolution.getTableName(MAP_STATISTICS_CALLEE), rollupRowKey, columnName, count);
+            }
         }
     }
 
-    private void increment(byte[] rowKey, byte[] columnName, long increment) {
+    private void increment(String tableName, byte[] rowKey, byte[] columnName, long increment) {
         if (rowKey == null) {
             throw new NullPointerException("rowKey must not be null");
         }
         if (columnName == null) {
             throw new NullPointerException("columnName must not be null");
         }
-        hbaseTemplate.incrementColumnValue(MAP_STATISTICS_CALLEE, rowKey, MAP_STATISTICS_CALLEE_CF_VER2_COUNTER, columnName, increment);
+        hbaseTemplate.incrementColumnValue(tableName, rowKey, MAP_STATISTICS_CALLEE_CF_VER2_COUNTER, columnName, increment);
     }
 
 
@@ -125,14 +166,25 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
         if (!useBulk) {
             throw new IllegalStateException();
         }
+        flush(this.counter, this.rollupCounter);
+    }
+
+    private void flush(RowInfoCounter counter, RollupRowInfoCounter rollupCounter) {
+        flush(MAP_STATISTICS_CALLEE, counter.remove());
+        for (int i = 0; i < rollupCounter.getResolutionSize(); i++) {
+            final StatisticsResolution resolution = rollupCounter.getResolution(i);
+            flush(resolution.getTableName(MAP_STATISTICS_CALLEE), rollupCounter.remove(i));
+        }
+    }
+
+    private void flush(String tableName, Map<RowInfo, ConcurrentCounterMap.LongAdder> remove) {
         // update statistics by rowkey and column for now. need to update it by rowkey later.
-        Map<RowInfo,ConcurrentCounterMap.LongAdder> remove = this.counter.remove();
         List<Increment> merge = rowKeyMerge.createBulkIncrement(remove);
         if (!merge.isEmpty()) {
             if (logger.isDebugEnabled()) {
-                logger.debug("flush {} Increment:{}", this.getClass().getSimpleName(), merge.size());
+                logger.debug("flush {} {} Increment:{}", this.getClass().getSimpleName(), tableName, merge.size());
             }
-            hbaseTemplate.increment(MAP_STATISTICS_CALLEE, merge);
+            hbaseTemplate.increment(tableName, merge);
         }
 
     }
@@ -31,6 +31,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import java.util.Arrays;
+
 /**
  * @author minwoo.jung
  */
@@ -46,6 +48,9 @@ public class HbaseSqlMetaDataDao implements SqlMetaDataDao {
     @Qualifier("metadataRowKeyDistributor2")
     private RowKeyDistributorByHashPrefix rowKeyDistributorByHashPrefix;
 
+    @Autowired
+    private MetaDataWriteCache metaDataWriteCache;
+
     @Override
     public void insert(TSqlMetaData sqlMetaData) {
         if (sqlMetaData == null) {
@@ -55,17 +60,22 @@ public class HbaseSqlMetaDataDao implements SqlMetaDataDao {
             logger.debug("insert:{}", sqlMetaData);
         }
 
+        String sql = sqlMetaData.getSql();
+        byte[] sqlBytes = Bytes.toBytes(sql);
+        final int valueHash = Arrays.hashCode(sqlBytes);
+        if (metaDataWriteCache.isWritten(MetaDataWriteCache.Type.SQL, sqlMetaData.getAgentId(), sqlMetaData.getAgentStartTime(), sqlMetaData.getSqlId(), valueHash)) {
+            return;
+        }
+
         SqlMetaDataBo sqlMetaDataBo = new SqlMetaDataBo(sqlMetaData.getAgentId(), sqlMetaData.getAgentStartTime(), sqlMetaData.getSqlId());
         final byte[] rowKey = getDistributedKey(sqlMetaDataBo.toRowKey());
 
 
         Put put = new Put(rowKey);
-        String sql = sqlMetaData.getSql();
-        byte[] sqlBytes = Bytes.toBytes(sql);
-
         put.addColumn(HBaseTables.SQL_METADATA_VER2_CF_SQL, HBaseTables.SQL_METADATA_VER2_CF_SQL_QUALI_SQLSTATEMENT, sqlBytes);
 
         hbaseTemplate.put(HBaseTables.SQL_METADATA_VER2, put);
+        metaDataWriteCache.putWritten(MetaDataWriteCache.Type.SQL, sqlMetaData.getAgentId(), sqlMetaData.getAgentStartTime(), sqlMetaData.getSqlId(), valueHash);
     }
 
     private byte[] getDistributedKey(byte[] rowKey) {
@@ -31,6 +31,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import java.util.Arrays;
+
 /**
  * @author emeroad
  * @author minwoo.jung
@@ -47,6 +49,9 @@ public class HbaseStringMetaDataDao implements StringMetaDataDao {
     @Qualifier("metadataRowKeyDistributor")
     private RowKeyDistributorByHashPrefix rowKeyDistributorByHashPrefix;
 
+    @Autowired
+    private MetaDataWriteCache metaDataWriteCache;
+
     @Override
     public void insert(TStringMetaData stringMetaData) {
         if (stringMetaData == null) {
@@ -56,16 +61,22 @@ public class HbaseStringMetaDataDao implements StringMetaDataDao {
             logger.debug("insert:{}", stringMetaData);
         }
 
+        String stringValue = stringMetaData.getStringValue();
+        byte[] sqlBytes = Bytes.toBytes(stringValue);
+        final int valueHash = Arrays.hashCode(sqlBytes);
+        if (metaDataWriteCache.isWritten(MetaDataWriteCache.Type.STRING, stringMetaData.getAgentId(), stringMetaData.getAgentStartTime(), stringMetaData.getStringId(), valueHash)) {
+            return;
+        }
+
         final StringMetaDataBo stringMetaDataBo = new StringMetaDataBo(stringMetaData.getAgentId(), stringMetaData.getAgentStartTime(), stringMetaData.getStringId());
         final byte[] rowKey = getDistributedKey(stringMetaDataBo.toRowKey());
 
 
         Put put = new Put(rowKey);
-        String stringValue = stringMetaData.getStringValue();
-        byte[] sqlBytes = Bytes.toBytes(stringValue);
         put.addColumn(HBaseTables.STRING_METADATA_CF_STR, HBaseTables.STRING_METADATA_CF_STR_QUALI_STRING, sqlBytes);
 
         hbaseTemplate.put(HBaseTables.STRING_METADATA, put);
+        metaDataWriteCache.putWritten(MetaDataWriteCache.Type.STRING, stringMetaData.getAgentId(), stringMetaData.getAgentStartTime(), stringMetaData.getStringId(), valueHash);
     }
 
     private byte[] getDistributedKey(byte[] rowKey) {
@@ -17,23 +17,25 @@
 package com.navercorp.pinpoint.collector.dao.hbase;
 
 import com.navercorp.pinpoint.collector.dao.TracesDao;
+import com.navercorp.pinpoint.collector.mapper.thrift.DecodedSpan;
+import com.navercorp.pinpoint.collector.mapper.thrift.DecodedSpanChunk;
 import com.navercorp.pinpoint.collector.util.AcceptedTimeService;
+import com.navercorp.pinpoint.collector.util.LaneLocal;
 import com.navercorp.pinpoint.common.bo.AnnotationBo;
 import com.navercorp.pinpoint.common.bo.AnnotationBoList;
 import com.navercorp.pinpoint.common.bo.SpanBo;
 import com.navercorp.pinpoint.common.bo.SpanEventBo;
-import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
-import com.navercorp.pinpoint.common.buffer.Buffer;
-import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.BufferedPutWriter;
+import com.navercorp.pinpoint.common.hbase.PutAssemblyWindow;
 import com.navercorp.pinpoint.common.util.BytesUtils;
 import com.navercorp.pinpoint.common.util.SpanUtils;
-import com.navercorp.pinpoint.thrift.dto.TAnnotation;
 import com.navercorp.pinpoint.thrift.dto.TSpan;
 import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
 import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
 import com.sematext.hbase.wd.AbstractRowKeyDistributor;
 
 import org.apache.commons.collections.CollectionUtils;
+import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.client.Put;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.slf4j.Logger;
@@ -42,8 +44,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
 
@@ -56,7 +62,10 @@ public class HbaseTraceDao implements TracesDao {
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     @Autowired
-    private HbaseOperations2 hbaseTemplate;
+    private PutAssemblyWindow putAssemblyWindow;
+
+    @Autowired
+    private BufferedPutWriter putWriter;
 
     @Autowired
     private AcceptedTimeService acceptedTimeService;
@@ -65,13 +74,27 @@ public class HbaseTraceDao implements TracesDao {
     @Qualifier("traceDistributor")
     private AbstractRowKeyDistributor rowKeyDistributor;
 
+    // the spans and span chunks of a transaction are handled by the same lane, which merges the puts of a row by itself
+    private final LaneLocal<LaneRows> laneRows = new LaneLocal<LaneRows>() {
+        @Override
+        protected LaneRows initialValue() {
+            return new LaneRows();
+        }
+
+        @Override
+        protected void flush(LaneRows laneRows) {
+            write(laneRows);
+        }
+    };
+
     @Override
     public void insert(final TSpan span) {
         if (span == null) {
             throw new NullPointerException("span must not be null");
         }
 
-        SpanBo spanBo = new SpanBo(span);
+        // DecodedSpan already carries the SpanBo with its annotations and span events
+        final SpanBo spanBo = (span instanceof DecodedSpan) ? ((DecodedSpan) span).getSpanBo() : new SpanBo(span);
         final byte[] rowKey = getDistributeRowKey(SpanUtils.getTransactionId(span));
         Put put = new Put(rowKey);
 
@@ -84,16 +107,42 @@ public class HbaseTraceDao implements TracesDao {
         long acceptedTime = acceptedTimeService.getAcceptedTime();
         put.addColumn(TRACES_CF_SPAN, spanId, acceptedTime, spanValue);
 
-        List<TAnnotation> annotations = span.getAnnotations();
+        List<AnnotationBo> annotations = spanBo.getAnnotationBoList();
         if (CollectionUtils.isNotEmpty(annotations)) {
-            byte[] bytes = writeAnnotation(annotations);
+            byte[] bytes = new AnnotationBoList(annotations).writeValue();
             put.addColumn(TRACES_CF_ANNOTATION, spanId, bytes);
         }
 
-        addNestedSpanEvent(put, span);
+        if (span instanceof DecodedSpan) {
+            addNestedSpanEvent(put, spanBo);
+        } else {
+            addNestedSpanEvent(put, span);
+        }
+
+        put(put);
 
-        hbaseTemplate.put(TRACES, put);
+    }
 
+    private void put(Put put) {
+        final LaneRows laneRows = this.laneRows.get();
+        if (laneRows == null) {
+            putAssemblyWindow.put(TRACES, put);
+            return;
+        }
+        if (!laneRows.add(put)) {
+            putWriter.put(TRACES, put);
+            return;
+        }
+        if (laneRows.size() >= putWriter.getMaxBatchSize()) {
+            write(laneRows);
+        }
+    }
+
+    private void write(LaneRows laneRows) {
+        final List<Put> puts = laneRows.take();
+        if (!puts.isEmpty()) {
+            putWriter.put(TRACES, puts);
+        }
     }
 
     private byte[] getDistributeRowKey(byte[] transactionId) {
@@ -109,12 +158,28 @@ public class HbaseTraceDao implements TracesDao {
         long acceptedTime0 = acceptedTimeService.getAcceptedTime();
         for (TSpanEvent spanEvent : spanEventBoList) {
             SpanEventBo spanEventBo = new SpanEventBo(span, spanEvent);
-            byte[] rowId = BytesUtils.add(spanEventBo.getSpanId(), spanEventBo.getSequence(), spanEventBo.getAsyncId(), spanEventBo.getAsyncSequence());
-            byte[] value = spanEventBo.writeValue();
-            put.addColumn(TRACES_CF_TERMINALSPAN, rowId, acceptedTime0, value);
+            addSpanEvent(put, spanEventBo, acceptedTime0);
         }
     }
 
+    private void addNestedSpanEvent(Put put, SpanBo spanBo) {
+        List<SpanEventBo> spanEventBoList = spanBo.getSpanEventBoList();
+        if (CollectionUtils.isEmpty(spanEventBoList)) {
+            return;
+        }
+
+        long acceptedTime0 = acceptedTimeService.getAcceptedTime();
+        for (SpanEventBo spanEventBo : spanEventBoList) {
+            addSpanEvent(put, spanEventBo, acceptedTime0);
+        }
+    }
+
+    private void addSpanEvent(Put put, SpanEventBo spanEventBo, long acceptedTime) {
+        byte[] rowId = BytesUtils.add(spanEventBo.getSpanId(), spanEventBo.getSequence(), spanEventBo.getAsyncId(), spanEventBo.getAsyncSequence());
+        byte[] value = spanEventBo.writeValue();
+        put.addColumn(TRACES_CF_TERMINALSPAN, rowId, acceptedTime, value);
+    }
+
 
 
     @Override
@@ -123,29 +188,60 @@ public class HbaseTraceDao implements TracesDao {
         Put put = new Put(rowKey);
 
         long acceptedTime = acceptedTimeService.getAcceptedTime();
-        List<TSpanEvent> spanEventBoList = spanChunk.getSpanEventList();
-        for (TSpanEvent spanEvent : spanEventBoList) {
-            SpanEventBo spanEventBo = new SpanEventBo(spanChunk, spanEvent);
-
-            byte[] value = spanEventBo.writeValue();
-            byte[] rowId = BytesUtils.add(spanEventBo.getSpanId(), spanEventBo.getSequence(), spanEventBo.getAsyncId(), spanEventBo.getAsyncSequence());
-
-            put.addColumn(TRACES_CF_TERMINALSPAN, rowId, acceptedTime, value);
+        if (spanChunk instanceof DecodedSpanChunk) {
+            for (SpanEventBo spanEventBo : ((DecodedSpanChunk) spanChunk).getSpanEventBoList()) {
+                addSpanEvent(put, spanEventBo, acceptedTime);
+            }
+        } else {
+            List<TSpanEvent> spanEventBoList = spanChunk.getSpanEventList();
+            for (TSpanEvent spanEvent : spanEventBoList) {
+                SpanEventBo spanEventBo = new SpanEventBo(spanChunk, spanEvent);
+                addSpanEvent(put, spanEventBo, acceptedTime);
+            }
         }
-        hbaseTemplate.put(TRACES, put);
+        put(put);
 
     }
 
-    private byte[] writeAnnotation(List<TAnnotation> annotations) {
-        List<AnnotationBo> boList = new ArrayList<AnnotationBo>(annotations.size());
-        for (TAnnotation ano : annotations) {
-            AnnotationBo annotationBo = new AnnotationBo(ano);
-            boList.add(annotationBo);
+    /**
+     * Traces rows of a lane, the puts of a row are merged until the lane writes them.
+     */
+    private static class LaneRows {
+        private Map<ByteBuffer, Put> rows = new LinkedHashMap<ByteBuffer, Put>();
+
+        /**
+         * @return false if the put could not be merged into the put of its row
+         */
+        private boolean add(Put put) {
+            final ByteBuffer row = ByteBuffer.wrap(put.getRow());
+            final Put exist = rows.get(row);
+            if (exist == null) {
+                rows.put(row, put);
+                return true;
+            }
+            try {
+                for (List<Cell> cells : put.getFamilyCellMap().values()) {
+                    for (Cell cell : cells) {
+                        exist.add(cell);
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private int size() {
+            return rows.size();
         }
 
-        Buffer buffer = new AutomaticBuffer(64);
-        AnnotationBoList annotationBoList = new AnnotationBoList(boList);
-        annotationBoList.writeValue(buffer);
-        return buffer.getBuffer();
+        private List<Put> take() {
+            if (rows.isEmpty()) {
+                return new ArrayList<Put>(0);
+            }
+            final List<Put> puts = new ArrayList<Put>(rows.values());
+            this.rows = new LinkedHashMap<ByteBuffer, Put>();
+            return puts;
+        }
     }
 }
@@ -0,0 +1,192 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * Remembers recently written metadata rows, so that the same row resent by an agent after a reconnect or a restart is not written again.
+ * Rows are keyed by (type, agentId, agentStartTime, id) and remember the hash of the written value, a changed value is written again.
+ * Entries expire after a day so that rows are still refreshed before the TTL of the metadata tables.
+ * A max size of 0 disables the cache.
+ */
+public class MetaDataWriteCache implements InitializingBean {
+
+    public enum Type {
+        API, SQL, STRING, AGENT_INFO
+    }
+
+    private static final long EXPIRE_AFTER_WRITE_HOURS = 24;
+
+    private final int maxSize;
+    private final ConcurrentMap<Key, Integer> cache;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+
+    @Autowired(required = false)
+    private MetricRegistry metricRegistry;
+
+    public MetaDataWriteCache(int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("maxSize must not be negative");
+        }
+        this.maxSize = maxSize;
+        if (maxSize == 0) {
+            this.cache = null;
+            return;
+        }
+        final CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder();
+        cacheBuilder.concurrencyLevel(32);
+        cacheBuilder.maximumSize(maxSize);
+        cacheBuilder.expireAfterWrite(EXPIRE_AFTER_WRITE_HOURS, TimeUnit.HOURS);
+        Cache<Key, Integer> localCache = cacheBuilder.build();
+        this.cache = localCache.asMap();
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (metricRegistry == null || cache == null) {
+            return;
+        }
+        final String name = MetaDataWriteCache.class.getSimpleName();
+        metricRegistry.register(name + "-hit", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getHitCount();
+            }
+        });
+        metricRegistry.register(name + "-miss", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return getMissCount();
+            }
+        });
+        metricRegistry.register(name + "-hitRatio", new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(getHitCount(), getHitCount() + getMissCount());
+            }
+        });
+        metricRegistry.register(name + "-size", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return size();
+            }
+        });
+    }
+
+    public boolean isEnable() {
+        return cache != null;
+    }
+
+    /**
+     * @return true if the same value has been written for the row recently, so the write can be skipped
+     */
+    public boolean isWritten(Type type, String agentId, long agentStartTime, long id, int valueHash) {
+        if (cache == null) {
+            return false;
+        }
+        final Integer writtenHash = cache.get(new Key(type, agentId, agentStartTime, id));
+        if (writtenHash != null && writtenHash == valueHash) {
+            hitCount.incrementAndGet();
+            return true;
+        }
+        missCount.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * should be called only after the value has been written successfully
+     */
+    public void putWritten(Type type, String agentId, long agentStartTime, long id, int valueHash) {
+        if (cache == null) {
+            return;
+        }
+        cache.put(new Key(type, agentId, agentStartTime, id), valueHash);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public int size() {
+        if (cache == null) {
+            return 0;
+        }
+        return cache.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    private static final class Key {
+        private final Type type;
+        private final String agentId;
+        private final long agentStartTime;
+        private final long id;
+
+        private Key(Type type, String agentId, long agentStartTime, long id) {
+            if (type == null) {
+                throw new NullPointerException("type must not be null");
+            }
+            this.type = type;
+            this.agentId = agentId;
+            this.agentStartTime = agentStartTime;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+
+            if (agentStartTime != key.agentStartTime) return false;
+            if (id != key.id) return false;
+            if (type != key.type) return false;
+            return agentId != null ? agentId.equals(key.agentId) : key.agentId == null;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = type.hashCode();
+            result = 31 * result + (agentId != null ? agentId.hashCode() : 0);
+            result = 31 * result + (int) (agentStartTime ^ (agentStartTime >>> 32));
+            result = 31 * result + (int) (id ^ (id >>> 32));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.dao.hbase.statistics;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Interns strings to positive int ids. Looking up a known string does not allocate.
+ * Ids are never released, so the number of ids is capped.
+ */
+public class IdRegistry {
+
+    public static final int NOT_REGISTERED = -1;
+
+    private final ConcurrentMap<String, Integer> idMap = new ConcurrentHashMap<String, Integer>();
+    private final int maxSize;
+
+    private volatile String[] names = new String[64];
+    private int nextId = 1;
+
+    public IdRegistry(int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("maxSize must be greater than 0");
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return id of the name, {@link #NOT_REGISTERED} if the registry is full
+     */
+    public int getId(String name) {
+        if (name == null) {
+            throw new NullPointerException("name must not be null");
+        }
+        final Integer id = idMap.get(name);
+        if (id != null) {
+            return id;
+        }
+        return register(name);
+    }
+
+    private synchronized int register(String name) {
+        final Integer exist = idMap.get(name);
+        if (exist != null) {
+            return exist;
+        }
+        if (nextId > maxSize) {
+            return NOT_REGISTERED;
+        }
+        final int id = nextId++;
+        String[] names = this.names;
+        if (id >= names.length) {
+            names = Arrays.copyOf(names, names.length * 2);
+        }
+        names[id] = name;
+        // publish the name before the id can be seen
+        this.names = names;
+        idMap.put(name, id);
+        return id;
+    }
+
+    public String getName(int id) {
+        final String[] names = this.names;
+        if (id <= 0 || id >= names.length) {
+            return null;
+        }
+        return names[id];
+    }
+
+    public int size() {
+        return idMap.size();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.dao.hbase.statistics;
+
+import java.util.Map;
+
+import com.navercorp.pinpoint.collector.util.ConcurrentCounterMap;
+import com.navercorp.pinpoint.common.hbase.StatisticsResolution;
+
+/**
+ * {@link RowInfoCounter} per rollup resolution.
+ * Takes the accepted time instead of a row time slot, which is computed for each resolution.
+ */
+public class RollupRowInfoCounter {
+
+    private final StatisticsResolution[] resolutions;
+    private final RowInfoCounter[] counters;
+
+    public RollupRowInfoCounter(StatisticsResolution... resolutions) {
+        this(false, resolutions);
+    }
+
+    public RollupRowInfoCounter(boolean threadConfined, StatisticsResolution... resolutions) {
+        if (resolutions == null) {
+            throw new NullPointerException("resolutions must not be null");
+        }
+        this.resolutions = resolutions.clone();
+        this.counters = new RowInfoCounter[resolutions.length];
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = new RowInfoCounter(threadConfined);
+        }
+    }
+
+    public void incrementCallee(String applicationName, short serviceType, long acceptedTime,
+                                String callerAgentId, short calleeServiceType, String calleeApplicationName, String callHost, short columnSlotNumber, long count) {
+        for (int i = 0; i < counters.length; i++) {
+            final long rowTimeSlot = resolutions[i].getTimeSlot().getTimeSlot(acceptedTime);
+            counters[i].incrementCallee(applicationName, serviceType, rowTimeSlot, callerAgentId, calleeServiceType, calleeApplicationName, callHost, columnSlotNumber, count);
+        }
+    }
+
+    public void incrementCaller(String applicationName, short serviceType, long acceptedTime,
+                                short callerServiceType, String callerApplicationName, String callHost, short columnSlotNumber, long count) {
+        for (int i = 0; i < counters.length; i++) {
+            final long rowTimeSlot = resolutions[i].getTimeSlot().getTimeSlot(acceptedTime);
+            counters[i].incrementCaller(applicationName, serviceType, rowTimeSlot, callerServiceType, callerApplicationName, callHost, columnSlotNumber, count);
+        }
+    }
+
+    public void incrementResponse(String applicationName, short serviceType, long acceptedTime, String agentId, short columnSlotNumber, long count) {
+        for (int i = 0; i < counters.length; i++) {
+            final long rowTimeSlot = resolutions[i].getTimeSlot().getTimeSlot(acceptedTime);
+            counters[i].incrementResponse(applicationName, serviceType, rowTimeSlot, agentId, columnSlotNumber, count);
+        }
+    }
+
+    public int getResolutionSize() {
+        return resolutions.length;
+    }
+
+    public StatisticsResolution getResolution(int index) {
+        return resolutions[index];
+    }
+
+    public Map<RowInfo, ConcurrentCounterMap.LongAdder> remove(int index) {
+        return counters[index].remove();
+    }
+}
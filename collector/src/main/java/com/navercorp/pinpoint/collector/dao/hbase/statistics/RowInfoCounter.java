@@ -0,0 +1,392 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.dao.hbase.statistics;
+
+import com.navercorp.pinpoint.collector.util.ConcurrentCounterMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pre-aggregates map statistics without allocating a {@link RowInfo} per call.
+ * <p>
+ * Strings are interned to ids by an {@link IdRegistry} and the ids are packed into four longs,
+ * which are counted in striped open addressing tables with primitive long values.
+ * {@link RowInfo}s are only created in {@link #remove()}, once per distinct key,
+ * so {@link RowKeyMerge} produces the same increments as with a {@link ConcurrentCounterMap}.
+ * Keys that can not be interned because the registry is full are counted in a {@link ConcurrentCounterMap}.
+ * <p>
+ * Ids are never released by an {@link IdRegistry}, so {@link #remove()} starts a new registry once the current one is half full.
+ * Each stripe table remembers the registry its ids come from, an increment that raced with the switch is counted in the
+ * {@link ConcurrentCounterMap} as well.
+ * <p>
+ * A thread confined counter, used by a single thread at a time, has a single stripe and increments it without locking.
+ */
+public class RowInfoCounter {
+
+    private static final int DEFAULT_STRIPE_SIZE = 16;
+    private static final int DEFAULT_MAX_ID_SIZE = 1024 * 64;
+
+    private static final int INITIAL_CAPACITY = 256;
+    private static final int KEY_LENGTH = 4;
+
+    // column kinds
+    private static final int CALLEE_COLUMN = 1;
+    private static final int CALLER_COLUMN = 2;
+    private static final int RESPONSE_COLUMN = 3;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final int maxIdSize;
+    private final boolean threadConfined;
+    private volatile IdRegistry idRegistry;
+    private final Stripe[] stripes;
+    private final ConcurrentCounterMap<RowInfo> overflow = new ConcurrentCounterMap<RowInfo>();
+    private final AtomicLong overflowCount = new AtomicLong();
+
+    public RowInfoCounter() {
+        this(DEFAULT_STRIPE_SIZE, DEFAULT_MAX_ID_SIZE);
+    }
+
+    public RowInfoCounter(boolean threadConfined) {
+        this(threadConfined ? 1 : DEFAULT_STRIPE_SIZE, DEFAULT_MAX_ID_SIZE, threadConfined);
+    }
+
+    public RowInfoCounter(int stripeSize, int maxIdSize) {
+        this(stripeSize, maxIdSize, false);
+    }
+
+    public RowInfoCounter(int stripeSize, int maxIdSize, boolean threadConfined) {
+        if (stripeSize <= 0) {
+            throw new IllegalArgumentException("stripeSize must be greater than 0");
+        }
+        this.maxIdSize = maxIdSize;
+        this.threadConfined = threadConfined;
+        this.idRegistry = new IdRegistry(maxIdSize);
+        this.stripes = new Stripe[stripeSize];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(idRegistry);
+        }
+    }
+
+    /**
+     * same key as {@code new DefaultRowInfo(new CallRowKey(..), new CalleeColumnName(..))}
+     */
+    public void incrementCallee(String applicationName, short serviceType, long rowTimeSlot,
+                                String callerAgentId, short calleeServiceType, String calleeApplicationName, String callHost, short columnSlotNumber, long count) {
+        if (callerAgentId == null) {
+            throw new NullPointerException("callerAgentId must not be null");
+        }
+        if (calleeApplicationName == null) {
+            throw new NullPointerException("calleeApplicationName must not be null");
+        }
+        if (callHost == null) {
+            throw new NullPointerException("callHost must not be null");
+        }
+        final IdRegistry idRegistry = this.idRegistry;
+        final int applicationId = getId(idRegistry, applicationName);
+        final int agentId = idRegistry.getId(callerAgentId);
+        final int columnApplicationId = idRegistry.getId(calleeApplicationName);
+        final int hostId = idRegistry.getId(callHost);
+        if (applicationId == IdRegistry.NOT_REGISTERED || agentId == IdRegistry.NOT_REGISTERED
+                || columnApplicationId == IdRegistry.NOT_REGISTERED || hostId == IdRegistry.NOT_REGISTERED
+                || !increment(idRegistry, applicationId, serviceType, rowTimeSlot, agentId, columnApplicationId, hostId, calleeServiceType, columnSlotNumber, CALLEE_COLUMN, count)) {
+            final RowKey rowKey = new CallRowKey(applicationName, serviceType, rowTimeSlot);
+            final ColumnName columnName = new CalleeColumnName(callerAgentId, calleeServiceType, calleeApplicationName, callHost, columnSlotNumber);
+            incrementOverflow(new DefaultRowInfo(rowKey, columnName), count);
+        }
+    }
+
+    /**
+     * same key as {@code new DefaultRowInfo(new CallRowKey(..), new CallerColumnName(..))}
+     */
+    public void incrementCaller(String applicationName, short serviceType, long rowTimeSlot,
+                                short callerServiceType, String callerApplicationName, String callHost, short columnSlotNumber, long count) {
+        if (callerApplicationName == null) {
+            throw new NullPointerException("callerApplicationName must not be null");
+        }
+        if (callHost == null) {
+            throw new NullPointerException("callHost must not be null");
+        }
+        final IdRegistry idRegistry = this.idRegistry;
+        final int applicationId = getId(idRegistry, applicationName);
+        final int columnApplicationId = idRegistry.getId(callerApplicationName);
+        final int hostId = idRegistry.getId(callHost);
+        if (applicationId == IdRegistry.NOT_REGISTERED || columnApplicationId == IdRegistry.NOT_REGISTERED || hostId == IdRegistry.NOT_REGISTERED
+                || !increment(idRegistry, applicationId, serviceType, rowTimeSlot, 0, columnApplicationId, hostId, callerServiceType, columnSlotNumber, CALLER_COLUMN, count)) {
+            final RowKey rowKey = new CallRowKey(applicationName, serviceType, rowTimeSlot);
+            final ColumnName columnName = new CallerColumnName(callerServiceType, callerApplicationName, callHost, columnSlotNumber);
+            incrementOverflow(new DefaultRowInfo(rowKey, columnName), count);
+        }
+    }
+
+    /**
+     * same key as {@code new DefaultRowInfo(new CallRowKey(..), new ResponseColumnName(..))}
+     */
+    public void incrementResponse(String applicationName, short serviceType, long rowTimeSlot, String agentId, short columnSlotNumber, long count) {
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        final IdRegistry idRegistry = this.idRegistry;
+        final int applicationId = getId(idRegistry, applicationName);
+        final int agentIdId = idRegistry.getId(agentId);
+        if (applicationId == IdRegistry.NOT_REGISTERED || agentIdId == IdRegistry.NOT_REGISTERED
+                || !increment(idRegistry, applicationId, serviceType, rowTimeSlot, agentIdId, 0, 0, (short) 0, columnSlotNumber, RESPONSE_COLUMN, count)) {
+            final RowKey rowKey = new CallRowKey(applicationName, serviceType, rowTimeSlot);
+            final ColumnName columnName = new ResponseColumnName(agentId, columnSlotNumber);
+            incrementOverflow(new DefaultRowInfo(rowKey, columnName), count);
+        }
+    }
+
+    private int getId(IdRegistry idRegistry, String applicationName) {
+        if (applicationName == null) {
+            throw new NullPointerException("callApplicationName must not be null");
+        }
+        return idRegistry.getId(applicationName);
+    }
+
+    private void incrementOverflow(RowInfo rowInfo, long count) {
+        overflow.increment(rowInfo, count);
+        overflowCount.incrementAndGet();
+    }
+
+    /**
+     * @return false if the ids are not from the registry of the stripe table
+     */
+    private boolean increment(IdRegistry idRegistry, int applicationId, short serviceType, long rowTimeSlot, int agentId, int columnApplicationId, int hostId,
+                              short columnServiceType, short columnSlotNumber, int kind, long count) {
+        final long key0 = ((long) applicationId << 32) | ((serviceType & 0xFFFFL) << 16) | (columnSlotNumber & 0xFFFFL);
+        final long key1 = rowTimeSlot;
+        final long key2 = ((long) agentId << 32) | (columnApplicationId & 0xFFFFFFFFL);
+        final long key3 = ((long) hostId << 32) | ((columnServiceType & 0xFFFFL) << 16) | kind;
+
+        final int hash = hash(key0, key1, key2, key3);
+        final Stripe stripe = stripes[(hash >>> 16) % stripes.length];
+        if (threadConfined) {
+            return stripe.increment0(idRegistry, key0, key1, key2, key3, hash, count);
+        }
+        return stripe.increment(idRegistry, key0, key1, key2, key3, hash, count);
+    }
+
+    private static int hash(long key0, long key1, long key2, long key3) {
+        long h = key0 * 0x9E3779B97F4A7C15L;
+        h = (h ^ key1) * 0x9E3779B97F4A7C15L;
+        h = (h ^ key2) * 0x9E3779B97F4A7C15L;
+        h = (h ^ key3) * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & Integer.MAX_VALUE;
+    }
+
+    /**
+     * Takes the counted values and resets the counter. Same contract as {@link ConcurrentCounterMap#remove()}.
+     */
+    public Map<RowInfo, ConcurrentCounterMap.LongAdder> remove() {
+        final IdRegistry nextIdRegistry = nextIdRegistry();
+        final Map<RowInfo, ConcurrentCounterMap.LongAdder> result = new HashMap<RowInfo, ConcurrentCounterMap.LongAdder>();
+        for (Stripe stripe : stripes) {
+            stripe.drainTo(result, nextIdRegistry);
+        }
+
+        final Map<RowInfo, ConcurrentCounterMap.LongAdder> overflowMap = overflow.remove();
+        for (Map.Entry<RowInfo, ConcurrentCounterMap.LongAdder> entry : overflowMap.entrySet()) {
+            final ConcurrentCounterMap.LongAdder exist = result.get(entry.getKey());
+            if (exist == null) {
+                result.put(entry.getKey(), entry.getValue());
+            } else {
+                exist.increment(entry.getValue().get());
+            }
+        }
+        return result;
+    }
+
+    private IdRegistry nextIdRegistry() {
+        final IdRegistry current = this.idRegistry;
+        final int size = current.size();
+        if (size <= maxIdSize / 2) {
+            return current;
+        }
+        if (size >= maxIdSize) {
+            logger.warn("IdRegistry is full. maxIdSize:{}, overflowCount:{}", maxIdSize, overflowCount.get());
+        } else if (logger.isDebugEnabled()) {
+            logger.debug("IdRegistry is replaced. size:{}, maxIdSize:{}", size, maxIdSize);
+        }
+        // names that are still in use are interned again by the next increments
+        final IdRegistry next = new IdRegistry(maxIdSize);
+        this.idRegistry = next;
+        return next;
+    }
+
+    /**
+     * @return number of increments counted without interned ids, a steadily growing value means the id space is too small
+     */
+    public long getOverflowCount() {
+        return overflowCount.get();
+    }
+
+    private static RowInfo createRowInfo(IdRegistry idRegistry, long key0, long key1, long key2, long key3) {
+        final String applicationName = idRegistry.getName((int) (key0 >>> 32));
+        final short serviceType = (short) (key0 >>> 16);
+        final short columnSlotNumber = (short) key0;
+        final RowKey rowKey = new CallRowKey(applicationName, serviceType, key1);
+
+        final int kind = (int) (key3 & 0xFFFF);
+        final ColumnName columnName;
+        switch (kind) {
+            case CALLEE_COLUMN:
+                columnName = new CalleeColumnName(idRegistry.getName((int) (key2 >>> 32)), (short) (key3 >>> 16), idRegistry.getName((int) key2),
+                        idRegistry.getName((int) (key3 >>> 32)), columnSlotNumber);
+                break;
+            case CALLER_COLUMN:
+                columnName = new CallerColumnName((short) (key3 >>> 16), idRegistry.getName((int) key2), idRegistry.getName((int) (key3 >>> 32)), columnSlotNumber);
+                break;
+            case RESPONSE_COLUMN:
+                columnName = new ResponseColumnName(idRegistry.getName((int) (key2 >>> 32)), columnSlotNumber);
+                break;
+            default:
+                throw new IllegalStateException("unknown column kind:" + kind);
+        }
+        return new DefaultRowInfo(rowKey, columnName);
+    }
+
+    private static class Stripe {
+
+        // key0 of an empty slot is 0, application ids start from 1
+        private long[] keys = new long[INITIAL_CAPACITY * KEY_LENGTH];
+        private long[] values = new long[INITIAL_CAPACITY];
+        private int size;
+
+        // swapped with the active table on remove(), so draining does not allocate tables
+        private long[] spareKeys = new long[INITIAL_CAPACITY * KEY_LENGTH];
+        private long[] spareValues = new long[INITIAL_CAPACITY];
+
+        // registry of the ids in the active table
+        private IdRegistry idRegistry;
+
+        private Stripe(IdRegistry idRegistry) {
+            this.idRegistry = idRegistry;
+        }
+
+        private synchronized boolean increment(IdRegistry idRegistry, long key0, long key1, long key2, long key3, int hash, long count) {
+            return increment0(idRegistry, key0, key1, key2, key3, hash, count);
+        }
+
+        private boolean increment0(IdRegistry idRegistry, long key0, long key1, long key2, long key3, int hash, long count) {
+            if (this.idRegistry != idRegistry) {
+                return false;
+            }
+            if ((size + 1) * 2 > values.length) {
+                resize();
+            }
+            final int slot = findSlot(keys, values.length - 1, key0, key1, key2, key3, hash);
+            final int offset = slot * KEY_LENGTH;
+            if (keys[offset] == 0) {
+                keys[offset] = key0;
+                keys[offset + 1] = key1;
+                keys[offset + 2] = key2;
+                keys[offset + 3] = key3;
+                size++;
+            }
+            values[slot] += count;
+            return true;
+        }
+
+        private int findSlot(long[] keys, int mask, long key0, long key1, long key2, long key3, int hash) {
+            int slot = hash & mask;
+            while (true) {
+                final int offset = slot * KEY_LENGTH;
+                final long slotKey0 = keys[offset];
+                if (slotKey0 == 0) {
+                    return slot;
+                }
+                if (slotKey0 == key0 && keys[offset + 1] == key1 && keys[offset + 2] == key2 && keys[offset + 3] == key3) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private void resize() {
+            final long[] oldKeys = this.keys;
+            final long[] oldValues = this.values;
+            final int capacity = oldValues.length * 2;
+            final long[] newKeys = new long[capacity * KEY_LENGTH];
+            final long[] newValues = new long[capacity];
+            final int mask = capacity - 1;
+            for (int i = 0; i < oldValues.length; i++) {
+                final int offset = i * KEY_LENGTH;
+                final long key0 = oldKeys[offset];
+                if (key0 == 0) {
+                    continue;
+                }
+                final long key1 = oldKeys[offset + 1];
+                final long key2 = oldKeys[offset + 2];
+                final long key3 = oldKeys[offset + 3];
+                final int slot = findSlot(newKeys, mask, key0, key1, key2, key3, hash(key0, key1, key2, key3));
+                System.arraycopy(oldKeys, offset, newKeys, slot * KEY_LENGTH, KEY_LENGTH);
+                newValues[slot] = oldValues[i];
+            }
+            this.keys = newKeys;
+            this.values = newValues;
+        }
+
+        private void drainTo(Map<RowInfo, ConcurrentCounterMap.LongAdder> result, IdRegistry nextIdRegistry) {
+            final IdRegistry idRegistry;
+            final long[] keys;
+            final long[] values;
+            synchronized (this) {
+                idRegistry = this.idRegistry;
+                this.idRegistry = nextIdRegistry;
+                if (size == 0) {
+                    return;
+                }
+                keys = this.keys;
+                values = this.values;
+                if (spareValues != null && spareValues.length == values.length) {
+                    this.keys = spareKeys;
+                    this.values = spareValues;
+                } else {
+                    this.keys = new long[values.length * KEY_LENGTH];
+                    this.values = new long[values.length];
+                }
+                this.size = 0;
+                // the drained tables become the spare after being cleared, no increment sees them anymore
+                this.spareKeys = null;
+                this.spareValues = null;
+            }
+
+            for (int i = 0; i < values.length; i++) {
+                final int offset = i * KEY_LENGTH;
+                if (keys[offset] == 0) {
+                    continue;
+                }
+                final RowInfo rowInfo = createRowInfo(idRegistry, keys[offset], keys[offset + 1], keys[offset + 2], keys[offset + 3]);
+                result.put(rowInfo, new ConcurrentCounterMap.LongAdder(values[i]));
+            }
+            Arrays.fill(keys, 0);
+            Arrays.fill(values, 0);
+
+            synchronized (this) {
+                this.spareKeys = keys;
+                this.spareValues = values;
+            }
+        }
+    }
+}
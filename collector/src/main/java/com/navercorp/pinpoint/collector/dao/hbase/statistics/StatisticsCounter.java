@@ -0,0 +1,46 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.dao.hbase.statistics;
+
+/**
+ * {@link RowInfoCounter} of a statistics table and {@link RollupRowInfoCounter} of its rollup tables,
+ * the state a lane aggregates into.
+ */
+public class StatisticsCounter {
+
+    private final RowInfoCounter counter;
+    private final RollupRowInfoCounter rollupCounter;
+
+    public StatisticsCounter(RowInfoCounter counter, RollupRowInfoCounter rollupCounter) {
+        if (counter == null) {
+            throw new NullPointerException("counter must not be null");
+        }
+        if (rollupCounter == null) {
+            throw new NullPointerException("rollupCounter must not be null");
+        }
+        this.counter = counter;
+        this.rollupCounter = rollupCounter;
+    }
+
+    public RowInfoCounter getCounter() {
+        return counter;
+    }
+
+    public RollupRowInfoCounter getRollupCounter() {
+        return rollupCounter;
+    }
+}
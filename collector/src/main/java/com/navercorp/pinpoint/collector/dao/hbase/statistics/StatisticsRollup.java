@@ -0,0 +1,52 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.dao.hbase.statistics;
+
+import com.navercorp.pinpoint.common.hbase.StatisticsResolution;
+
+/**
+ * Rollup resolutions written in addition to the one minute statistics tables.
+ *
+ * @see RollupRowInfoCounter
+ */
+public class StatisticsRollup {
+
+    private static final StatisticsResolution[] EMPTY = new StatisticsResolution[0];
+    private static final StatisticsResolution[] ROLLUP_RESOLUTIONS = {StatisticsResolution.FIVE_MINUTES, StatisticsResolution.ONE_HOUR};
+
+    private final StatisticsResolution[] resolutions;
+
+    public StatisticsRollup(boolean enable) {
+        this.resolutions = enable ? ROLLUP_RESOLUTIONS : EMPTY;
+    }
+
+    public boolean isEnable() {
+        return resolutions.length > 0;
+    }
+
+    public StatisticsResolution[] getResolutions() {
+        return resolutions.clone();
+    }
+
+    public RollupRowInfoCounter newRowInfoCounter() {
+        return newRowInfoCounter(false);
+    }
+
+    public RollupRowInfoCounter newRowInfoCounter(boolean threadConfined) {
+        return new RollupRowInfoCounter(threadConfined, resolutions);
+    }
+}
@@ -16,6 +16,8 @@
 
 package com.navercorp.pinpoint.collector.handler;
 
+import java.util.List;
+
 import org.apache.thrift.TBase;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -68,8 +70,18 @@ public class AgentStatHandler implements Handler {
         }
         String agentId = agentStatBatch.getAgentId();
         long startTimestamp = agentStatBatch.getStartTimestamp();
-        for (TAgentStat agentStat : agentStatBatch.getAgentStats()) {
-            handleAgentStat(agentId, startTimestamp, agentStat);
+        List<TAgentStat> agentStats = agentStatBatch.getAgentStats();
+        if (agentStats == null || agentStats.isEmpty()) {
+            return;
+        }
+        try {
+            for (TAgentStat agentStat : agentStats) {
+                agentStat.setAgentId(agentId);
+                agentStat.setStartTimestamp(startTimestamp);
+            }
+            agentStatDao.insert(agentStats);
+        } catch (Exception e) {
+            logger.warn("AgentStatBatch handle error. Caused:{}", e.getMessage());
         }
     }
 }
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.handler;
+
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.thrift.TBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.navercorp.pinpoint.collector.util.CallStatAgentRegistry;
+import com.navercorp.pinpoint.common.service.ServiceTypeRegistryService;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.thrift.dto.TCallStat;
+import com.navercorp.pinpoint.thrift.dto.TCallStatBatch;
+
+/**
+ * Updates the server map statistics from outgoing calls aggregated by the agent.
+ *
+ * @see SpanHandler
+ */
+@Service("callStatHandler")
+public class CallStatHandler implements Handler {
+
+    private final Logger logger = LoggerFactory.getLogger(CallStatHandler.class.getName());
+
+    @Autowired
+    private StatisticsHandler statisticsHandler;
+
+    @Autowired
+    private CallStatAgentRegistry callStatAgentRegistry;
+
+    @Autowired
+    private ServiceTypeRegistryService registry;
+
+    @Override
+    public void handle(TBase<?, ?> tbase) {
+        if (!(tbase instanceof TCallStatBatch)) {
+            throw new IllegalArgumentException("unexpected tbase:" + tbase + " expected:" + TCallStatBatch.class.getName());
+        }
+
+        final TCallStatBatch callStatBatch = (TCallStatBatch) tbase;
+        if (logger.isDebugEnabled()) {
+            logger.debug("Received CallStats={}", callStatBatch);
+        }
+        try {
+            callStatAgentRegistry.register(callStatBatch.getAgentId(), System.currentTimeMillis());
+
+            final List<TCallStat> callStats = callStatBatch.getCallStats();
+            if (callStats == null) {
+                return;
+            }
+            final String applicationName = callStatBatch.getApplicationName();
+            final ServiceType applicationServiceType = registry.findServiceType(callStatBatch.getApplicationServiceType());
+            for (TCallStat callStat : callStats) {
+                handleCallStat(callStatBatch.getAgentId(), applicationName, applicationServiceType, callStat);
+            }
+        } catch (Exception e) {
+            logger.warn("CallStat handle error. Caused:{}", e.getMessage(), e);
+        }
+    }
+
+    private void handleCallStat(String agentId, String applicationName, ServiceType applicationServiceType, TCallStat callStat) {
+        if (StringUtils.isEmpty(callStat.getDestinationId()) || callStat.getCount() <= 0) {
+            return;
+        }
+        final ServiceType destinationServiceType = registry.findServiceType(callStat.getServiceType());
+        final short slot = callStat.getHistogramSlot();
+        final long count = callStat.getCount();
+
+        // save the information of caller (the spanevent that span called)
+        statisticsHandler.updateCallerSlot(applicationName, applicationServiceType, agentId, callStat.getDestinationId(), destinationServiceType, callStat.getEndPoint(), slot, count);
+
+        // save the information of callee (the span that called spanevent)
+        statisticsHandler.updateCalleeSlot(callStat.getDestinationId(), destinationServiceType, applicationName, applicationServiceType, callStat.getCallerEndPoint(), slot, count);
+    }
+}
@@ -27,6 +27,9 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import com.navercorp.pinpoint.collector.dao.TracesDao;
+import com.navercorp.pinpoint.collector.mapper.thrift.DecodedSpanChunk;
+import com.navercorp.pinpoint.collector.util.CallStatAgentRegistry;
+import com.navercorp.pinpoint.common.bo.SpanEventBo;
 import com.navercorp.pinpoint.common.util.SpanEventUtils;
 import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
 import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
@@ -50,6 +53,9 @@ public class SpanChunkHandler implements SimpleHandler {
     @Autowired
     private ServiceTypeRegistryService registry;
 
+    @Autowired
+    private CallStatAgentRegistry callStatAgentRegistry;
+
     @Override
     public void handleSimple(TBase<?, ?> tbase) {
 
@@ -66,30 +72,30 @@ public class SpanChunkHandler implements SimpleHandler {
 
             traceDao.insertSpanChunk(spanChunk);
 
+            if (callStatAgentRegistry.isRegistered(spanChunk.getAgentId())) {
+                // outgoing calls are aggregated and sent by the agent itself.
+                return;
+            }
+
             final ServiceType applicationServiceType = getApplicationServiceType(spanChunk);
+            if (spanChunk instanceof DecodedSpanChunk) {
+                List<SpanEventBo> spanEventBoList = ((DecodedSpanChunk) spanChunk).getSpanEventBoList();
+                logger.debug("SpanChunk Size:{}", spanEventBoList.size());
+                for (SpanEventBo spanEventBo : spanEventBoList) {
+                    updateSpanEventStat(spanChunk, applicationServiceType, spanEventBo.getServiceType(), spanEventBo.getDestinationId(), spanEventBo.getEndPoint(), spanEventBo.getEndElapsed(), spanEventBo.hasException());
+                }
+                return;
+            }
+
             List<TSpanEvent> spanEventList = spanChunk.getSpanEventList();
             if (spanEventList != null) {
                 logger.debug("SpanChunk Size:{}", spanEventList.size());
                 // TODO need to batch update later.
                 for (TSpanEvent spanEvent : spanEventList) {
-                    final ServiceType spanEventType = registry.findServiceType(spanEvent.getServiceType());
-
-                    if (!spanEventType.isRecordStatistics()) {
-                        continue;
-                    }
-
                     // if terminal update statistics
                     final int elapsed = spanEvent.getEndElapsed();
                     final boolean hasException = SpanEventUtils.hasException(spanEvent);
-
-                    /**
-                     * save information to draw a server map based on statistics
-                     */
-                    // save the information of caller (the spanevent that span called)
-                    statisticsHandler.updateCaller(spanChunk.getApplicationName(), applicationServiceType, spanChunk.getAgentId(), spanEvent.getDestinationId(), spanEventType, spanEvent.getEndPoint(), elapsed, hasException);
-
-                    // save the information of callee (the span that called spanevent)
-                    statisticsHandler.updateCallee(spanEvent.getDestinationId(), spanEventType, spanChunk.getApplicationName(), applicationServiceType, spanChunk.getEndPoint(), elapsed, hasException);
+                    updateSpanEventStat(spanChunk, applicationServiceType, spanEvent.getServiceType(), spanEvent.getDestinationId(), spanEvent.getEndPoint(), elapsed, hasException);
                 }
             }
         } catch (Exception e) {
@@ -97,6 +103,22 @@ public class SpanChunkHandler implements SimpleHandler {
         }
     }
     
+    private void updateSpanEventStat(TSpanChunk spanChunk, ServiceType applicationServiceType, short spanEventServiceType, String destinationId, String endPoint, int elapsed, boolean hasException) {
+        final ServiceType spanEventType = registry.findServiceType(spanEventServiceType);
+        if (!spanEventType.isRecordStatistics()) {
+            return;
+        }
+
+        /**
+         * save information to draw a server map based on statistics
+         */
+        // save the information of caller (the spanevent that span called)
+        statisticsHandler.updateCaller(spanChunk.getApplicationName(), applicationServiceType, spanChunk.getAgentId(), destinationId, spanEventType, endPoint, elapsed, hasException);
+
+        // save the information of callee (the span that called spanevent)
+        statisticsHandler.updateCallee(destinationId, spanEventType, spanChunk.getApplicationName(), applicationServiceType, spanChunk.getEndPoint(), elapsed, hasException);
+    }
+
     private ServiceType getApplicationServiceType(TSpanChunk spanChunk) {
         // Check if applicationServiceType is set. If not, use span's service type. 
         final short applicationServiceTypeCode = spanChunk.isSetApplicationServiceType() ? spanChunk.getApplicationServiceType() : spanChunk.getServiceType();
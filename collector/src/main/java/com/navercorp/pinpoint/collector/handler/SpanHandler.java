@@ -30,6 +30,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import com.navercorp.pinpoint.collector.dao.ApplicationTraceIndexDao;
 import com.navercorp.pinpoint.collector.dao.HostApplicationMapDao;
 import com.navercorp.pinpoint.collector.dao.TracesDao;
+import com.navercorp.pinpoint.collector.mapper.thrift.DecodedSpan;
+import com.navercorp.pinpoint.collector.util.CallStatAgentRegistry;
+import com.navercorp.pinpoint.common.bo.SpanEventBo;
 import com.navercorp.pinpoint.common.util.SpanEventUtils;
 import com.navercorp.pinpoint.thrift.dto.TSpan;
 import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
@@ -60,6 +63,9 @@ public class SpanHandler implements SimpleHandler {
     @Autowired
     private ServiceTypeRegistryService registry;
 
+    @Autowired
+    private CallStatAgentRegistry callStatAgentRegistry;
+
     public void handleSimple(TBase<?, ?> tbase) {
 
         if (!(tbase instanceof TSpan)) {
@@ -122,6 +128,15 @@ public class SpanHandler implements SimpleHandler {
     }
 
     private void insertSpanEventStat(TSpan span) {
+        if (callStatAgentRegistry.isRegistered(span.getAgentId())) {
+            // outgoing calls are aggregated and sent by the agent itself.
+            return;
+        }
+
+        if (span instanceof DecodedSpan) {
+            insertSpanEventBoStat(span, ((DecodedSpan) span).getSpanBo().getSpanEventBoList());
+            return;
+        }
 
         final List<TSpanEvent> spanEventList = span.getSpanEventList();
         if (CollectionUtils.isEmpty(spanEventList)) {
@@ -133,24 +148,40 @@ public class SpanHandler implements SimpleHandler {
         logger.debug("handle spanEvent size:{}", spanEventList.size());
         // TODO need to batch update later.
         for (TSpanEvent spanEvent : spanEventList) {
-            final ServiceType spanEventType = registry.findServiceType(spanEvent.getServiceType());
-            if (!spanEventType.isRecordStatistics()) {
-                continue;
-            }
-
             // if terminal update statistics
             final int elapsed = spanEvent.getEndElapsed();
             final boolean hasException = SpanEventUtils.hasException(spanEvent);
+            updateSpanEventStat(span, applicationServiceType, spanEvent.getServiceType(), spanEvent.getDestinationId(), spanEvent.getEndPoint(), elapsed, hasException);
+        }
+    }
 
-            /**
-             * save information to draw a server map based on statistics
-             */
-            // save the information of caller (the spanevent that span called )
-            statisticsHandler.updateCaller(span.getApplicationName(), applicationServiceType, span.getAgentId(), spanEvent.getDestinationId(), spanEventType, spanEvent.getEndPoint(), elapsed, hasException);
+    private void insertSpanEventBoStat(TSpan span, List<SpanEventBo> spanEventBoList) {
+        if (CollectionUtils.isEmpty(spanEventBoList)) {
+            return;
+        }
+
+        final ServiceType applicationServiceType = getApplicationServiceType(span);
+
+        logger.debug("handle spanEvent size:{}", spanEventBoList.size());
+        for (SpanEventBo spanEventBo : spanEventBoList) {
+            updateSpanEventStat(span, applicationServiceType, spanEventBo.getServiceType(), spanEventBo.getDestinationId(), spanEventBo.getEndPoint(), spanEventBo.getEndElapsed(), spanEventBo.hasException());
+        }
+    }
 
-            // save the information of callee (the span that called spanevent)
-            statisticsHandler.updateCallee(spanEvent.getDestinationId(), spanEventType, span.getApplicationName(), applicationServiceType, span.getEndPoint(), elapsed, hasException);
+    private void updateSpanEventStat(TSpan span, ServiceType applicationServiceType, short spanEventServiceType, String destinationId, String endPoint, int elapsed, boolean hasException) {
+        final ServiceType spanEventType = registry.findServiceType(spanEventServiceType);
+        if (!spanEventType.isRecordStatistics()) {
+            return;
         }
+
+        /**
+         * save information to draw a server map based on statistics
+         */
+        // save the information of caller (the spanevent that span called )
+        statisticsHandler.updateCaller(span.getApplicationName(), applicationServiceType, span.getAgentId(), destinationId, spanEventType, endPoint, elapsed, hasException);
+
+        // save the information of callee (the span that called spanevent)
+        statisticsHandler.updateCallee(destinationId, spanEventType, span.getApplicationName(), applicationServiceType, span.getEndPoint(), elapsed, hasException);
     }
 
     private void insertAcceptorHost(TSpan span) {
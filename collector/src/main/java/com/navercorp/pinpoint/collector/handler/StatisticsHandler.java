@@ -77,6 +77,20 @@ public class StatisticsHandler {
         mapStatisticsCalleeDao.update(calleeApplicationName, calleeServiceType, callerApplicationName, callerServiceType, callerHost, elapsed, isError);
     }
 
+    /**
+     * Same as {@link #updateCaller(String, ServiceType, String, String, ServiceType, String, int, boolean)} for calls already counted per histogram slot.
+     */
+    public void updateCallerSlot(String callerApplicationName, ServiceType callerServiceType, String callerAgentId, String calleeApplicationName, ServiceType calleeServiceType, String calleeHost, short slotNumber, long count) {
+        mapStatisticsCallerDao.updateSlot(callerApplicationName, callerServiceType, callerAgentId, calleeApplicationName, calleeServiceType, calleeHost, slotNumber, count);
+    }
+
+    /**
+     * Same as {@link #updateCallee(String, ServiceType, String, ServiceType, String, int, boolean)} for calls already counted per histogram slot.
+     */
+    public void updateCalleeSlot(String calleeApplicationName, ServiceType calleeServiceType, String callerApplicationName, ServiceType callerServiceType, String callerHost, short slotNumber, long count) {
+        mapStatisticsCalleeDao.updateSlot(calleeApplicationName, calleeServiceType, callerApplicationName, callerServiceType, callerHost, slotNumber, count);
+    }
+
     public void updateResponseTime(String applicationName, ServiceType serviceType, String agentId, int elapsed, boolean isError) {
         mapResponseTimeDao.received(applicationName, serviceType, agentId, elapsed, isError);
     }
@@ -16,8 +16,15 @@
 
 package com.navercorp.pinpoint.collector.manage;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.navercorp.pinpoint.collector.receiver.AdmissionController;
 
 /**
  * @author Taejin Koo
@@ -28,6 +35,16 @@ public class HandlerManager extends AbstractCollectorManager implements HandlerM
 
     private volatile boolean enable = true;
 
+    @Autowired(required = false)
+    private AdmissionController admissionController;
+
+    public HandlerManager() {
+    }
+
+    public HandlerManager(AdmissionController admissionController) {
+        this.admissionController = admissionController;
+    }
+
     @Override
     public void enableAccess() {
         logger.warn("Enable access to manager.");
@@ -45,4 +62,53 @@ public class HandlerManager extends AbstractCollectorManager implements HandlerM
         return enable;
     }
 
+    @Override
+    public long getAdmittedMessageCount() {
+        if (admissionController == null) {
+            return 0;
+        }
+        return admissionController.getAdmittedCount();
+    }
+
+    @Override
+    public long getRejectedMessageCount() {
+        if (admissionController == null) {
+            return 0;
+        }
+        return admissionController.getRejectedCount();
+    }
+
+    @Override
+    public long getAgentAdmittedMessageCount(String agentId) {
+        if (admissionController == null) {
+            return 0;
+        }
+        return admissionController.getAgentAdmittedCount(agentId);
+    }
+
+    @Override
+    public long getAgentRejectedMessageCount(String agentId) {
+        if (admissionController == null) {
+            return 0;
+        }
+        return admissionController.getAgentRejectedCount(agentId);
+    }
+
+    @Override
+    public String[] getAgentAdmissionStatistics() {
+        if (admissionController == null) {
+            return new String[0];
+        }
+        final List<String> agentIdList = new ArrayList<String>(admissionController.getAgentIds());
+        Collections.sort(agentIdList);
+
+        final String[] statistics = new String[agentIdList.size()];
+        for (int i = 0; i < statistics.length; i++) {
+            final String agentId = agentIdList.get(i);
+            statistics[i] = agentId + " admitted=" + admissionController.getAgentAdmittedCount(agentId)
+                    + ", rejected=" + admissionController.getAgentRejectedCount(agentId);
+        }
+        return statistics;
+    }
+
 }
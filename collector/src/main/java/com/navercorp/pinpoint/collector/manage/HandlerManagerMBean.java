@@ -27,4 +27,14 @@ public interface HandlerManagerMBean {
 
     boolean isEnable();
 
+    long getAdmittedMessageCount();
+
+    long getRejectedMessageCount();
+
+    long getAgentAdmittedMessageCount(String agentId);
+
+    long getAgentRejectedMessageCount(String agentId);
+
+    String[] getAgentAdmissionStatistics();
+
 }
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.mapper.thrift;
+
+import com.navercorp.pinpoint.common.bo.SpanBo;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+
+/**
+ * {@link TSpan} read by {@link StreamingSpanDecoder}.
+ * Only the scalar fields of the span are set. Annotations and span events are decoded into {@link #getSpanBo()} instead.
+ */
+public class DecodedSpan extends TSpan {
+
+    private SpanBo spanBo;
+
+    DecodedSpan() {
+    }
+
+    public SpanBo getSpanBo() {
+        return spanBo;
+    }
+
+    void setSpanBo(SpanBo spanBo) {
+        this.spanBo = spanBo;
+    }
+}
@@ -0,0 +1,645 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.mapper.thrift;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.thrift.TBase;
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TField;
+import org.apache.thrift.protocol.TList;
+import org.apache.thrift.protocol.TProtocol;
+import org.apache.thrift.protocol.TProtocolUtil;
+import org.apache.thrift.protocol.TType;
+import org.apache.thrift.transport.TMemoryInputTransport;
+
+import com.navercorp.pinpoint.common.bo.AnnotationBo;
+import com.navercorp.pinpoint.common.bo.SpanBo;
+import com.navercorp.pinpoint.common.bo.SpanEventBo;
+import com.navercorp.pinpoint.common.util.AnnotationTranscoder;
+import com.navercorp.pinpoint.common.util.TransactionId;
+import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.thrift.dto.TIntStringValue;
+import com.navercorp.pinpoint.thrift.io.Header;
+
+/**
+ * Reads spans and span chunks field by field from the received bytes into {@link SpanBo} and {@link SpanEventBo}.
+ * TSpanEvent, TAnnotation and TAnnotationValue are never created, and annotation strings are copied as encoded bytes.
+ * Field ids and types must follow Trace.thrift.
+ * <p>
+ * not thread safe
+ */
+public class StreamingSpanDecoder {
+
+    // header types of DefaultTBaseLocator
+    private static final short SPAN = 40;
+    private static final short SPANCHUNK = 70;
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    private final AnnotationTranscoder transcoder = new AnnotationTranscoder();
+
+    private final TMemoryInputTransport trans;
+    private final TProtocol protocol;
+
+    public StreamingSpanDecoder() {
+        this.trans = new TMemoryInputTransport();
+        this.protocol = new TCompactProtocol(trans);
+    }
+
+    /**
+     * @return {@link DecodedSpan} or {@link DecodedSpanChunk}. null if the message is not a span or a span chunk
+     */
+    public TBase<?, ?> decode(byte[] bytes, int offset, int length) throws TException {
+        if (length < Header.HEADER_SIZE || bytes[offset] != Header.SIGNATURE) {
+            return null;
+        }
+        final short type = (short) (((bytes[offset + 2] & 0xff) << 8) | (bytes[offset + 3] & 0xff));
+        if (type != SPAN && type != SPANCHUNK) {
+            return null;
+        }
+        trans.reset(bytes, offset + Header.HEADER_SIZE, length - Header.HEADER_SIZE);
+        try {
+            if (type == SPAN) {
+                return readSpan();
+            }
+            return readSpanChunk();
+        } finally {
+            trans.clear();
+            protocol.reset();
+        }
+    }
+
+    private DecodedSpan readSpan() throws TException {
+        final DecodedSpan span = new DecodedSpan();
+        List<AnnotationBo> annotationBoList = null;
+        List<SpanEventBo> spanEventBoList = null;
+
+        protocol.readStructBegin();
+        while (true) {
+            final TField field = protocol.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case 1:
+                    if (isType(field, TType.STRING)) {
+                        span.setAgentId(protocol.readString());
+                    }
+                    break;
+                case 2:
+                    if (isType(field, TType.STRING)) {
+                        span.setApplicationName(protocol.readString());
+                    }
+                    break;
+                case 3:
+                    if (isType(field, TType.I64)) {
+                        span.setAgentStartTime(protocol.readI64());
+                    }
+                    break;
+                case 4:
+                    if (isType(field, TType.STRING)) {
+                        span.setTransactionId(readBytes());
+                    }
+                    break;
+                case 7:
+                    if (isType(field, TType.I64)) {
+                        span.setSpanId(protocol.readI64());
+                    }
+                    break;
+                case 8:
+                    if (isType(field, TType.I64)) {
+                        span.setParentSpanId(protocol.readI64());
+                    }
+                    break;
+                case 9:
+                    if (isType(field, TType.I64)) {
+                        span.setStartTime(protocol.readI64());
+                    }
+                    break;
+                case 10:
+                    if (isType(field, TType.I32)) {
+                        span.setElapsed(protocol.readI32());
+                    }
+                    break;
+                case 11:
+                    if (isType(field, TType.STRING)) {
+                        span.setRpc(protocol.readString());
+                    }
+                    break;
+                case 12:
+                    if (isType(field, TType.I16)) {
+                        span.setServiceType(protocol.readI16());
+                    }
+                    break;
+                case 13:
+                    if (isType(field, TType.STRING)) {
+                        span.setEndPoint(protocol.readString());
+                    }
+                    break;
+                case 14:
+                    if (isType(field, TType.STRING)) {
+                        span.setRemoteAddr(protocol.readString());
+                    }
+                    break;
+                case 15:
+                    if (isType(field, TType.LIST)) {
+                        annotationBoList = readAnnotationList();
+                    }
+                    break;
+                case 16:
+                    if (isType(field, TType.I16)) {
+                        span.setFlag(protocol.readI16());
+                    }
+                    break;
+                case 17:
+                    if (isType(field, TType.I32)) {
+                        span.setErr(protocol.readI32());
+                    }
+                    break;
+                case 18:
+                    if (isType(field, TType.LIST)) {
+                        spanEventBoList = readSpanEventList();
+                    }
+                    break;
+                case 19:
+                    if (isType(field, TType.STRING)) {
+                        span.setParentApplicationName(protocol.readString());
+                    }
+                    break;
+                case 20:
+                    if (isType(field, TType.I16)) {
+                        span.setParentApplicationType(protocol.readI16());
+                    }
+                    break;
+                case 21:
+                    if (isType(field, TType.STRING)) {
+                        span.setAcceptorHost(protocol.readString());
+                    }
+                    break;
+                case 25:
+                    if (isType(field, TType.I32)) {
+                        span.setApiId(protocol.readI32());
+                    }
+                    break;
+                case 26:
+                    if (isType(field, TType.STRUCT)) {
+                        span.setExceptionInfo(readIntStringValue());
+                    }
+                    break;
+                case 30:
+                    if (isType(field, TType.I16)) {
+                        span.setApplicationServiceType(protocol.readI16());
+                    }
+                    break;
+                case 31:
+                    if (isType(field, TType.BYTE)) {
+                        span.setLoggingTransactionInfo(protocol.readByte());
+                    }
+                    break;
+                default:
+                    TProtocolUtil.skip(protocol, field.type);
+            }
+            protocol.readFieldEnd();
+        }
+        protocol.readStructEnd();
+
+        // the span has no annotations and no span events, so only its scalar fields are mapped here
+        final SpanBo spanBo = new SpanBo(span);
+        spanBo.setAnnotationBoList(annotationBoList);
+        if (spanEventBoList != null) {
+            for (SpanEventBo spanEventBo : spanEventBoList) {
+                spanEventBo.setAgentId(spanBo.getAgentId());
+                spanEventBo.setApplicationId(spanBo.getApplicationId());
+                spanEventBo.setAgentStartTime(spanBo.getAgentStartTime());
+                spanEventBo.setTraceAgentId(spanBo.getTraceAgentId());
+                spanEventBo.setTraceAgentStartTime(spanBo.getTraceAgentStartTime());
+                spanEventBo.setTraceTransactionSequence(spanBo.getTraceTransactionSequence());
+                spanEventBo.setSpanId(spanBo.getSpanId());
+                spanBo.addSpanEvent(spanEventBo);
+            }
+        }
+        span.setSpanBo(spanBo);
+        return span;
+    }
+
+    private DecodedSpanChunk readSpanChunk() throws TException {
+        final DecodedSpanChunk spanChunk = new DecodedSpanChunk();
+        List<SpanEventBo> spanEventBoList = null;
+
+        protocol.readStructBegin();
+        while (true) {
+            final TField field = protocol.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case 1:
+                    if (isType(field, TType.STRING)) {
+                        spanChunk.setAgentId(protocol.readString());
+                    }
+                    break;
+                case 2:
+                    if (isType(field, TType.STRING)) {
+                        spanChunk.setApplicationName(protocol.readString());
+                    }
+                    break;
+                case 3:
+                    if (isType(field, TType.I64)) {
+                        spanChunk.setAgentStartTime(protocol.readI64());
+                    }
+                    break;
+                case 4:
+                    if (isType(field, TType.I16)) {
+                        spanChunk.setServiceType(protocol.readI16());
+                    }
+                    break;
+                case 5:
+                    if (isType(field, TType.STRING)) {
+                        spanChunk.setTransactionId(readBytes());
+                    }
+                    break;
+                case 8:
+                    if (isType(field, TType.I64)) {
+                        spanChunk.setSpanId(protocol.readI64());
+                    }
+                    break;
+                case 9:
+                    if (isType(field, TType.STRING)) {
+                        spanChunk.setEndPoint(protocol.readString());
+                    }
+                    break;
+                case 10:
+                    if (isType(field, TType.LIST)) {
+                        spanEventBoList = readSpanEventList();
+                    }
+                    break;
+                case 11:
+                    if (isType(field, TType.I16)) {
+                        spanChunk.setApplicationServiceType(protocol.readI16());
+                    }
+                    break;
+                default:
+                    TProtocolUtil.skip(protocol, field.type);
+            }
+            protocol.readFieldEnd();
+        }
+        protocol.readStructEnd();
+
+        if (spanEventBoList == null) {
+            spanEventBoList = new ArrayList<SpanEventBo>(0);
+        }
+        final TransactionId transactionId = TransactionIdUtils.parseTransactionId(spanChunk.getTransactionId());
+        String traceAgentId = transactionId.getAgentId();
+        if (traceAgentId == null) {
+            traceAgentId = spanChunk.getAgentId();
+        }
+        for (SpanEventBo spanEventBo : spanEventBoList) {
+            spanEventBo.setAgentId(spanChunk.getAgentId());
+            spanEventBo.setApplicationId(spanChunk.getApplicationName());
+            spanEventBo.setAgentStartTime(spanChunk.getAgentStartTime());
+            spanEventBo.setTraceAgentId(traceAgentId);
+            spanEventBo.setTraceAgentStartTime(transactionId.getAgentStartTime());
+            spanEventBo.setTraceTransactionSequence(transactionId.getTransactionSequence());
+            spanEventBo.setSpanId(spanChunk.getSpanId());
+        }
+        spanChunk.setSpanEventBoList(spanEventBoList);
+        return spanChunk;
+    }
+
+    private List<SpanEventBo> readSpanEventList() throws TException {
+        final TList list = protocol.readListBegin();
+        final List<SpanEventBo> spanEventBoList = new ArrayList<SpanEventBo>(list.size);
+        for (int i = 0; i < list.size; i++) {
+            spanEventBoList.add(readSpanEvent());
+        }
+        protocol.readListEnd();
+        return spanEventBoList;
+    }
+
+    private SpanEventBo readSpanEvent() throws TException {
+        final SpanEventBo spanEventBo = new SpanEventBo();
+
+        protocol.readStructBegin();
+        while (true) {
+            final TField field = protocol.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case 8:
+                    if (isType(field, TType.I16)) {
+                        spanEventBo.setSequence(protocol.readI16());
+                    }
+                    break;
+                case 9:
+                    if (isType(field, TType.I32)) {
+                        spanEventBo.setStartElapsed(protocol.readI32());
+                    }
+                    break;
+                case 10:
+                    if (isType(field, TType.I32)) {
+                        spanEventBo.setEndElapsed(protocol.readI32());
+                    }
+                    break;
+                case 11:
+                    if (isType(field, TType.STRING)) {
+                        spanEventBo.setRpc(protocol.readString());
+                    }
+                    break;
+                case 12:
+                    if (isType(field, TType.I16)) {
+                        spanEventBo.setServiceType(protocol.readI16());
+                    }
+                    break;
+                case 13:
+                    if (isType(field, TType.STRING)) {
+                        spanEventBo.setEndPoint(protocol.readString());
+                    }
+                    break;
+                case 14:
+                    if (isType(field, TType.LIST)) {
+                        spanEventBo.setAnnotationBoList(readAnnotationList());
+                    }
+                    break;
+                case 15:
+                    if (isType(field, TType.I32)) {
+                        spanEventBo.setDepth(protocol.readI32());
+                    }
+                    break;
+                case 16:
+                    if (isType(field, TType.I64)) {
+                        spanEventBo.setNextSpanId(protocol.readI64());
+                    }
+                    break;
+                case 20:
+                    if (isType(field, TType.STRING)) {
+                        spanEventBo.setDestinationId(protocol.readString());
+                    }
+                    break;
+                case 25:
+                    if (isType(field, TType.I32)) {
+                        spanEventBo.setApiId(protocol.readI32());
+                    }
+                    break;
+                case 26:
+                    if (isType(field, TType.STRUCT)) {
+                        final TIntStringValue exceptionInfo = readIntStringValue();
+                        spanEventBo.setExceptionInfo(exceptionInfo.getIntValue(), exceptionInfo.getStringValue());
+                    }
+                    break;
+                case 30:
+                    if (isType(field, TType.I32)) {
+                        spanEventBo.setAsyncId(protocol.readI32());
+                    }
+                    break;
+                case 31:
+                    if (isType(field, TType.I32)) {
+                        spanEventBo.setNextAsyncId(protocol.readI32());
+                    }
+                    break;
+                case 32:
+                    if (isType(field, TType.I16)) {
+                        spanEventBo.setAsyncSequence(protocol.readI16());
+                    }
+                    break;
+                default:
+                    // spanId(7) of the span event is not stored, the span id of the span or the span chunk is used
+                    TProtocolUtil.skip(protocol, field.type);
+            }
+            protocol.readFieldEnd();
+        }
+        protocol.readStructEnd();
+        return spanEventBo;
+    }
+
+    private List<AnnotationBo> readAnnotationList() throws TException {
+        final TList list = protocol.readListBegin();
+        final List<AnnotationBo> annotationBoList = new ArrayList<AnnotationBo>(list.size);
+        for (int i = 0; i < list.size; i++) {
+            annotationBoList.add(readAnnotation());
+        }
+        protocol.readListEnd();
+        return annotationBoList;
+    }
+
+    private AnnotationBo readAnnotation() throws TException {
+        final AnnotationBo annotationBo = new AnnotationBo();
+        // same as a TAnnotation without a value
+        annotationBo.setValueType(AnnotationTranscoder.CODE_NULL);
+
+        protocol.readStructBegin();
+        while (true) {
+            final TField field = protocol.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case 1:
+                    if (isType(field, TType.I32)) {
+                        annotationBo.setKey(protocol.readI32());
+                    }
+                    break;
+                case 2:
+                    if (isType(field, TType.STRUCT)) {
+                        readAnnotationValue(annotationBo);
+                    }
+                    break;
+                default:
+                    TProtocolUtil.skip(protocol, field.type);
+            }
+            protocol.readFieldEnd();
+        }
+        protocol.readStructEnd();
+        return annotationBo;
+    }
+
+    /**
+     * encodes the TAnnotationValue union the same way as {@link AnnotationBo#AnnotationBo(com.navercorp.pinpoint.thrift.dto.TAnnotation)}
+     */
+    private void readAnnotationValue(AnnotationBo annotationBo) throws TException {
+        protocol.readStructBegin();
+        while (true) {
+            final TField field = protocol.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case 1:
+                    if (isType(field, TType.STRING)) {
+                        // the thrift string is already utf-8 encoded
+                        setAnnotationValue(annotationBo, AnnotationTranscoder.CODE_STRING, readBytes());
+                    }
+                    break;
+                case 2:
+                    if (isType(field, TType.BOOL)) {
+                        final byte typeCode = protocol.readBool() ? AnnotationTranscoder.CODE_BOOLEAN_TRUE : AnnotationTranscoder.CODE_BOOLEAN_FALSE;
+                        setAnnotationValue(annotationBo, typeCode, EMPTY_BYTES);
+                    }
+                    break;
+                case 3:
+                    if (isType(field, TType.I32)) {
+                        setAnnotationValue(annotationBo, protocol.readI32());
+                    }
+                    break;
+                case 4:
+                    if (isType(field, TType.I64)) {
+                        setAnnotationValue(annotationBo, protocol.readI64());
+                    }
+                    break;
+                case 5:
+                    if (isType(field, TType.I16)) {
+                        setAnnotationValue(annotationBo, protocol.readI16());
+                    }
+                    break;
+                case 6:
+                    if (isType(field, TType.DOUBLE)) {
+                        setAnnotationValue(annotationBo, protocol.readDouble());
+                    }
+                    break;
+                case 7:
+                    if (isType(field, TType.STRING)) {
+                        setAnnotationValue(annotationBo, AnnotationTranscoder.CODE_BYTEARRAY, readBytes());
+                    }
+                    break;
+                case 8:
+                    if (isType(field, TType.BYTE)) {
+                        setAnnotationValue(annotationBo, protocol.readByte());
+                    }
+                    break;
+                case 9:
+                    if (isType(field, TType.STRUCT)) {
+                        setAnnotationValue(annotationBo, AnnotationTranscoder.CODE_INT_STRING, readIntStringValueBytes(false));
+                    }
+                    break;
+                case 10:
+                    if (isType(field, TType.STRUCT)) {
+                        setAnnotationValue(annotationBo, AnnotationTranscoder.CODE_INT_STRING_STRING, readIntStringValueBytes(true));
+                    }
+                    break;
+                default:
+                    TProtocolUtil.skip(protocol, field.type);
+            }
+            protocol.readFieldEnd();
+        }
+        protocol.readStructEnd();
+    }
+
+    private void setAnnotationValue(AnnotationBo annotationBo, Object value) {
+        final byte typeCode = transcoder.getTypeCode(value);
+        setAnnotationValue(annotationBo, typeCode, transcoder.encode(value, typeCode));
+    }
+
+    private void setAnnotationValue(AnnotationBo annotationBo, byte typeCode, byte[] byteValue) {
+        annotationBo.setValueType(typeCode);
+        annotationBo.setByteValue(byteValue);
+    }
+
+    /**
+     * reads TIntStringValue or TIntStringStringValue into the encoding of {@link AnnotationTranscoder}
+     */
+    private byte[] readIntStringValueBytes(boolean intStringString) throws TException {
+        int intValue = 0;
+        byte[] stringValue1 = null;
+        byte[] stringValue2 = null;
+
+        protocol.readStructBegin();
+        while (true) {
+            final TField field = protocol.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case 1:
+                    if (isType(field, TType.I32)) {
+                        intValue = protocol.readI32();
+                    }
+                    break;
+                case 2:
+                    if (isType(field, TType.STRING)) {
+                        stringValue1 = readBytes();
+                    }
+                    break;
+                case 3:
+                    if (isType(field, TType.STRING)) {
+                        stringValue2 = readBytes();
+                    }
+                    break;
+                default:
+                    TProtocolUtil.skip(protocol, field.type);
+            }
+            protocol.readFieldEnd();
+        }
+        protocol.readStructEnd();
+
+        if (intStringString) {
+            return transcoder.encodeIntStringStringValue(intValue, stringValue1, stringValue2);
+        }
+        return transcoder.encodeIntStringValue(intValue, stringValue1);
+    }
+
+    private TIntStringValue readIntStringValue() throws TException {
+        final TIntStringValue intStringValue = new TIntStringValue();
+
+        protocol.readStructBegin();
+        while (true) {
+            final TField field = protocol.readFieldBegin();
+            if (field.type == TType.STOP) {
+                break;
+            }
+            switch (field.id) {
+                case 1:
+                    if (isType(field, TType.I32)) {
+                        intStringValue.setIntValue(protocol.readI32());
+                    }
+                    break;
+                case 2:
+                    if (isType(field, TType.STRING)) {
+                        intStringValue.setStringValue(protocol.readString());
+                    }
+                    break;
+                default:
+                    TProtocolUtil.skip(protocol, field.type);
+            }
+            protocol.readFieldEnd();
+        }
+        protocol.readStructEnd();
+        return intStringValue;
+    }
+
+    /**
+     * copies a binary field out of the receive buffer, the buffer is reused after decoding
+     */
+    private byte[] readBytes() throws TException {
+        final ByteBuffer byteBuffer = protocol.readBinary();
+        final byte[] bytes = new byte[byteBuffer.remaining()];
+        byteBuffer.get(bytes);
+        return bytes;
+    }
+
+    private boolean isType(TField field, byte type) throws TException {
+        if (field.type == type) {
+            return true;
+        }
+        TProtocolUtil.skip(protocol, field.type);
+        return false;
+    }
+}
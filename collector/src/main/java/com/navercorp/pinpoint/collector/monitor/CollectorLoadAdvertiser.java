@@ -0,0 +1,198 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.monitor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.apache.thrift.TException;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.navercorp.pinpoint.collector.config.CollectorConfiguration;
+import com.navercorp.pinpoint.collector.receiver.tcp.AgentHandshakePropertyType;
+import com.navercorp.pinpoint.collector.receiver.udp.UDPReceiver;
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import com.navercorp.pinpoint.rpc.server.PinpointServer;
+import com.navercorp.pinpoint.rpc.server.PinpointServerAcceptor;
+import com.navercorp.pinpoint.thrift.dto.command.TCmdCollectorLoad;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
+import com.navercorp.pinpoint.thrift.io.TCommandRegistry;
+import com.navercorp.pinpoint.thrift.io.TCommandTypeVersion;
+
+/**
+ * Periodically measures how full the udp receive queues are and sends the resulting load level
+ * to the connected agents as a {@link TCmdCollectorLoad}.
+ * The load level goes from 0 (normal) to 100 (saturated, packets are being dropped).
+ * A changed level is sent at once, a non-zero level is repeated every check so that newly connected agents pick it up.
+ */
+public class CollectorLoadAdvertiser {
+
+    public static final int MAX_LOAD_LEVEL = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final PinpointServerAcceptor serverAcceptor;
+    private final List<UDPReceiver> receiverList;
+
+    private final boolean enable;
+    private final long interval;
+    private final int threshold;
+
+    private final HeaderTBaseSerializer serializer;
+
+    private ScheduledExecutorService executor;
+
+    private long lastDropCount;
+    private int lastLoadLevel;
+
+    public CollectorLoadAdvertiser(CollectorConfiguration configuration, PinpointServerAcceptor serverAcceptor, List<UDPReceiver> receiverList) {
+        if (configuration == null) {
+            throw new NullPointerException("configuration must not be null");
+        }
+        if (serverAcceptor == null) {
+            throw new NullPointerException("serverAcceptor must not be null");
+        }
+        if (receiverList == null) {
+            throw new NullPointerException("receiverList must not be null");
+        }
+        if (configuration.getLoadAdvertiseInterval() <= 0) {
+            throw new IllegalArgumentException("loadAdvertiseInterval must be greater than 0");
+        }
+        if (configuration.getLoadAdvertiseThreshold() < 0 || configuration.getLoadAdvertiseThreshold() >= 100) {
+            throw new IllegalArgumentException("loadAdvertiseThreshold must be between 0 and 99");
+        }
+        this.serverAcceptor = serverAcceptor;
+        this.receiverList = receiverList;
+        this.enable = configuration.isLoadAdvertiseEnable();
+        this.interval = configuration.getLoadAdvertiseInterval();
+        this.threshold = configuration.getLoadAdvertiseThreshold();
+
+        final TCommandRegistry commandRegistry = new TCommandRegistry(TCommandTypeVersion.V_1_5_0_SNAPSHOT);
+        this.serializer = new HeaderTBaseSerializerFactory(true, HeaderTBaseSerializerFactory.DEFAULT_STREAM_SIZE, new TCompactProtocol.Factory(), commandRegistry).createSerializer();
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enable) {
+            logger.info("CollectorLoadAdvertiser disabled.");
+            return;
+        }
+        this.executor = Executors.newSingleThreadScheduledExecutor(new PinpointThreadFactory("Pinpoint-CollectorLoadAdvertiser", true));
+        this.executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    advertise();
+                } catch (Throwable th) {
+                    logger.warn("CollectorLoadAdvertiser failed. Caused:{}", th.getMessage(), th);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+        logger.info("CollectorLoadAdvertiser started. interval:{} threshold:{}", interval, threshold);
+    }
+
+    private void advertise() {
+        final int loadLevel = measureLoadLevel();
+        if (loadLevel == 0 && lastLoadLevel == 0) {
+            return;
+        }
+        if (loadLevel != lastLoadLevel) {
+            logger.info("collector load level changed. {} -> {}", lastLoadLevel, loadLevel);
+        }
+        lastLoadLevel = loadLevel;
+        send(new TCmdCollectorLoad(loadLevel));
+    }
+
+    int measureLoadLevel() {
+        int queueUsage = 0;
+        long dropCount = 0;
+        for (UDPReceiver receiver : receiverList) {
+            queueUsage = Math.max(queueUsage, receiver.getQueueUsage());
+            dropCount += receiver.getDropCount();
+        }
+        final boolean dropped = dropCount > lastDropCount;
+        lastDropCount = dropCount;
+        if (dropped) {
+            return MAX_LOAD_LEVEL;
+        }
+        return toLoadLevel(queueUsage, threshold);
+    }
+
+    static int toLoadLevel(int queueUsage, int threshold) {
+        if (queueUsage <= threshold) {
+            return 0;
+        }
+        final int loadLevel = (queueUsage - threshold) * MAX_LOAD_LEVEL / (100 - threshold);
+        return Math.min(loadLevel, MAX_LOAD_LEVEL);
+    }
+
+    private void send(TCmdCollectorLoad command) {
+        final byte[] payload;
+        try {
+            payload = serializer.serialize(command);
+        } catch (TException e) {
+            logger.warn("{} serialize failed. Caused:{}", command, e.getMessage(), e);
+            return;
+        }
+        int sendCount = 0;
+        for (PinpointServer pinpointServer : serverAcceptor.getWritableServerList()) {
+            if (!isSupportCommand(pinpointServer, command)) {
+                continue;
+            }
+            pinpointServer.send(payload);
+            sendCount++;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("{} sent to {} agents.", command, sendCount);
+        }
+    }
+
+    private boolean isSupportCommand(PinpointServer pinpointServer, TCmdCollectorLoad command) {
+        final Map<Object, Object> properties = pinpointServer.getChannelProperties();
+        if (properties == null) {
+            return false;
+        }
+        final Object version = properties.get(AgentHandshakePropertyType.VERSION.getName());
+        if (!(version instanceof String)) {
+            return false;
+        }
+        return TCommandTypeVersion.getVersion((String) version).isSupportCommand(command);
+    }
+
+    @PreDestroy
+    public void stop() {
+        final ScheduledExecutorService executor = this.executor;
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            executor.awaitTermination(3000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.navercorp.pinpoint.collector.monitor;
 
+import com.codahale.metrics.JmxReporter;
 import com.codahale.metrics.JvmAttributeGaugeSet;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.ScheduledReporter;
@@ -27,6 +28,7 @@ import com.navercorp.pinpoint.collector.util.LoggerUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
@@ -41,6 +43,8 @@ public class CollectorMetric {
 
     public static final String REPORTER_LOGGER_NAME = "com.navercorp.pinpoint.collector.StateReport";
 
+    public static final String JMX_DOMAIN = "pinpoint.collector";
+
     private final Logger reporterLogger = LoggerFactory.getLogger(REPORTER_LOGGER_NAME);
 
     @Autowired
@@ -48,6 +52,11 @@ public class CollectorMetric {
 
     private ScheduledReporter reporter;
 
+    @Value("#{pinpoint_collector_properties['collector.metric.jmx.enable'] ?: false}")
+    private boolean jmxEnable;
+
+    private JmxReporter jmxReporter;
+
     private final boolean isEnable = isEnable0(REPORTER_LOGGER_NAME);
 
 
@@ -88,11 +97,24 @@ public class CollectorMetric {
         reporter = builder.build();
 
         reporter.start(60, TimeUnit.SECONDS); // print every 1 min.
+
+        if (jmxEnable) {
+            JmxReporter.Builder jmxBuilder = JmxReporter.forRegistry(metricRegistry);
+            jmxBuilder.inDomain(JMX_DOMAIN);
+            jmxBuilder.convertRatesTo(TimeUnit.SECONDS);
+            jmxBuilder.convertDurationsTo(TimeUnit.MILLISECONDS);
+            jmxReporter = jmxBuilder.build();
+            jmxReporter.start();
+        }
     }
 
 
     @PreDestroy
     private void shutdown() {
+        if (jmxReporter != null) {
+            jmxReporter.stop();
+            jmxReporter = null;
+        }
         if (reporter == null) {
             return;
         }
@@ -0,0 +1,74 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.monitor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+/**
+ * Throughput and latency of the handlers, and throughput of every received message type.
+ * Registered as {@code handler.<handler class>} timers and {@code message.<message class>} meters.
+ */
+public class HandlerMetric {
+
+    private static final String HANDLER_PREFIX = "handler.";
+    private static final String MESSAGE_PREFIX = "message.";
+
+    private final MetricRegistry metricRegistry;
+
+    private final ConcurrentMap<Class<?>, Timer> handlerTimers = new ConcurrentHashMap<Class<?>, Timer>();
+    private final ConcurrentMap<Class<?>, Meter> messageMeters = new ConcurrentHashMap<Class<?>, Meter>();
+
+    public HandlerMetric(MetricRegistry metricRegistry) {
+        if (metricRegistry == null) {
+            throw new NullPointerException("metricRegistry must not be null");
+        }
+        this.metricRegistry = metricRegistry;
+    }
+
+    public void record(Object handler, Object message, long elapsedNanos) {
+        getHandlerTimer(handler.getClass()).update(elapsedNanos, TimeUnit.NANOSECONDS);
+        getMessageMeter(message.getClass()).mark();
+    }
+
+    private Timer getHandlerTimer(Class<?> handlerClass) {
+        final Timer timer = handlerTimers.get(handlerClass);
+        if (timer != null) {
+            return timer;
+        }
+        // MetricRegistry returns the registered timer on a race
+        final Timer newTimer = metricRegistry.timer(HANDLER_PREFIX + handlerClass.getSimpleName());
+        handlerTimers.put(handlerClass, newTimer);
+        return newTimer;
+    }
+
+    private Meter getMessageMeter(Class<?> messageClass) {
+        final Meter meter = messageMeters.get(messageClass);
+        if (meter != null) {
+            return meter;
+        }
+        final Meter newMeter = metricRegistry.meter(MESSAGE_PREFIX + messageClass.getSimpleName());
+        messageMeters.put(messageClass, newMeter);
+        return newMeter;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.monitor;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.navercorp.pinpoint.common.hbase.TableCallListener;
+
+/**
+ * Latency of the HBase calls per table.
+ * Registered as {@code hbase.<table>} timers and {@code hbase.<table>-failed} counters.
+ */
+public class HbaseTableMetric implements TableCallListener {
+
+    private static final String PREFIX = "hbase.";
+
+    private final MetricRegistry metricRegistry;
+
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<String, Timer>();
+    private final ConcurrentMap<String, Counter> failedCounters = new ConcurrentHashMap<String, Counter>();
+
+    public HbaseTableMetric(MetricRegistry metricRegistry) {
+        if (metricRegistry == null) {
+            throw new NullPointerException("metricRegistry must not be null");
+        }
+        this.metricRegistry = metricRegistry;
+    }
+
+    @Override
+    public void onCall(String tableName, long elapsedNanos, boolean success) {
+        getTimer(tableName).update(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (!success) {
+            getFailedCounter(tableName).inc();
+        }
+    }
+
+    private Timer getTimer(String tableName) {
+        final Timer timer = timers.get(tableName);
+        if (timer != null) {
+            return timer;
+        }
+        final Timer newTimer = metricRegistry.timer(PREFIX + tableName);
+        timers.put(tableName, newTimer);
+        return newTimer;
+    }
+
+    private Counter getFailedCounter(String tableName) {
+        final Counter counter = failedCounters.get(tableName);
+        if (counter != null) {
+            return counter;
+        }
+        final Counter newCounter = metricRegistry.counter(PREFIX + tableName + "-failed");
+        failedCounters.put(tableName, newCounter);
+        return newCounter;
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.monitor;
+
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.context.support.WebApplicationContextUtils;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.servlets.MetricsServlet;
+
+/**
+ * Hands the collector's {@link MetricRegistry} to {@link MetricsServlet}.
+ * Must be declared after the ContextLoaderListener.
+ */
+public class MetricServletContextListener extends MetricsServlet.ContextListener {
+
+    private MetricRegistry metricRegistry;
+
+    @Override
+    public void contextInitialized(ServletContextEvent event) {
+        final ServletContext servletContext = event.getServletContext();
+        final WebApplicationContext context = WebApplicationContextUtils.getRequiredWebApplicationContext(servletContext);
+        this.metricRegistry = context.getBean("metricRegistry", MetricRegistry.class);
+        super.contextInitialized(event);
+    }
+
+    @Override
+    protected MetricRegistry getMetricRegistry() {
+        return metricRegistry;
+    }
+}
@@ -24,6 +24,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import com.navercorp.pinpoint.collector.handler.Handler;
 import com.navercorp.pinpoint.collector.handler.RequestResponseHandler;
 import com.navercorp.pinpoint.collector.handler.SimpleHandler;
+import com.navercorp.pinpoint.collector.monitor.HandlerMetric;
 import com.navercorp.pinpoint.collector.util.AcceptedTimeService;
 
 /**
@@ -37,6 +38,9 @@ public abstract class AbstractDispatchHandler implements DispatchHandler {
     @Autowired
     private AcceptedTimeService acceptedTimeService;
 
+    @Autowired(required = false)
+    private HandlerMetric handlerMetric;
+
     public AbstractDispatchHandler() {
     }
 
@@ -53,7 +57,9 @@ public abstract class AbstractDispatchHandler implements DispatchHandler {
             if (logger.isTraceEnabled()) {
                 logger.trace("simpleHandler name:{}", simpleHandler.getClass().getName());
             }
+            final long startTime = System.nanoTime();
             simpleHandler.handleSimple(tBase);
+            record(simpleHandler, tBase, startTime);
             return;
         }
 
@@ -62,7 +68,9 @@ public abstract class AbstractDispatchHandler implements DispatchHandler {
             if (logger.isTraceEnabled()) {
                 logger.trace("handler name:{}", handler.getClass().getName());
             }
+            final long startTime = System.nanoTime();
             handler.handle(tBase);
+            record(handler, tBase, startTime);
             return;
         }
 
@@ -78,12 +86,22 @@ public abstract class AbstractDispatchHandler implements DispatchHandler {
             if (logger.isTraceEnabled()) {
                 logger.trace("requestResponseHandler name:{}", requestResponseHandler.getClass().getName());
             }
-            return requestResponseHandler.handleRequest(tBase);
+            final long startTime = System.nanoTime();
+            final TBase response = requestResponseHandler.handleRequest(tBase);
+            record(requestResponseHandler, tBase, startTime);
+            return response;
         }
 
         throw new UnsupportedOperationException("Handler not found. Unknown type of data received. tBase=" + tBase);
     }
 
+    private void record(Object handler, TBase<?, ?> tBase, long startTime) {
+        final HandlerMetric handlerMetric = this.handlerMetric;
+        if (handlerMetric != null) {
+            handlerMetric.record(handler, tBase, System.nanoTime() - startTime);
+        }
+    }
+
     Handler getHandler(TBase<?, ?> tBase) {
         return null;
     }
@@ -0,0 +1,372 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.thrift.TBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.navercorp.pinpoint.collector.util.TokenBucket;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TAgentStatBatch;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
+
+/**
+ * Token bucket admission of spans, span chunks and agent stats in front of the handlers.
+ * Each agent is limited to its own rate, and the applications share a total rate by weight.
+ * The share of an application is recalculated every second from the demand of the active applications (weighted max-min fairness),
+ * so the rate left unused by a quiet application goes to the busy ones.
+ * Other messages (agent info, meta data, ...) are always admitted.
+ * Applications and agents that stopped sending are forgotten.
+ */
+public class AdmissionController {
+
+    private static final long REBALANCE_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+    private static final long IDLE_TIMEOUT = TimeUnit.SECONDS.toNanos(10);
+    // longer than the send interval of agent stats, which are admitted by the application name of their agent
+    private static final long AGENT_IDLE_TIMEOUT = TimeUnit.MINUTES.toNanos(5);
+    private static final int DEFAULT_WEIGHT = 1;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final int agentRate;
+    private final int agentBurst;
+    private final int applicationTotalRate;
+    private final Map<String, Integer> applicationWeightMap;
+
+    private final ConcurrentMap<String, AgentState> agentMap = new ConcurrentHashMap<String, AgentState>();
+    private final ConcurrentMap<String, ApplicationState> applicationMap = new ConcurrentHashMap<String, ApplicationState>();
+
+    private final AtomicLong admittedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private final AtomicLong nextRebalanceTime;
+    private long lastRebalanceTime;
+    private volatile long activeWeight;
+
+    public AdmissionController(int agentRate, int agentBurst, int applicationTotalRate, String applicationWeights) {
+        if (agentRate < 0) {
+            throw new IllegalArgumentException("negative agentRate:" + agentRate);
+        }
+        if (applicationTotalRate < 0) {
+            throw new IllegalArgumentException("negative applicationTotalRate:" + applicationTotalRate);
+        }
+        this.agentRate = agentRate;
+        this.agentBurst = agentBurst > 0 ? agentBurst : agentRate;
+        this.applicationTotalRate = applicationTotalRate;
+        this.applicationWeightMap = parseWeights(applicationWeights);
+
+        final long currentTime = System.nanoTime();
+        this.lastRebalanceTime = currentTime;
+        this.nextRebalanceTime = new AtomicLong(currentTime + REBALANCE_INTERVAL);
+    }
+
+    static Map<String, Integer> parseWeights(String applicationWeights) {
+        final Map<String, Integer> weightMap = new HashMap<String, Integer>();
+        for (String entry : StringUtils.split(StringUtils.defaultString(applicationWeights), ',')) {
+            final String[] pair = StringUtils.split(entry, ':');
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("invalid application weight:" + entry);
+            }
+            final int weight = NumberUtils.toInt(pair[1].trim(), -1);
+            if (weight <= 0) {
+                throw new IllegalArgumentException("invalid application weight:" + entry);
+            }
+            weightMap.put(pair[0].trim(), weight);
+        }
+        return weightMap;
+    }
+
+    public boolean isEnable() {
+        return agentRate > 0 || applicationTotalRate > 0;
+    }
+
+    public boolean admit(TBase<?, ?> tBase) {
+        if (!isEnable()) {
+            return true;
+        }
+        if (tBase instanceof TSpan) {
+            final TSpan span = (TSpan) tBase;
+            return admit(span.getApplicationName(), span.getAgentId(), System.nanoTime());
+        }
+        if (tBase instanceof TSpanChunk) {
+            final TSpanChunk spanChunk = (TSpanChunk) tBase;
+            return admit(spanChunk.getApplicationName(), spanChunk.getAgentId(), System.nanoTime());
+        }
+        // agent stats do not carry the application name, it is looked up from the spans of the agent
+        if (tBase instanceof TAgentStatBatch) {
+            return admit(null, ((TAgentStatBatch) tBase).getAgentId(), System.nanoTime());
+        }
+        if (tBase instanceof TAgentStat) {
+            return admit(null, ((TAgentStat) tBase).getAgentId(), System.nanoTime());
+        }
+        return true;
+    }
+
+    boolean admit(String applicationName, String agentId, long currentTime) {
+        maintain(currentTime);
+
+        AgentState agentState = null;
+        if (agentId != null) {
+            agentState = getAgentState(agentId, currentTime);
+            if (applicationName == null) {
+                applicationName = agentState.applicationName;
+            } else if (!applicationName.equals(agentState.applicationName)) {
+                agentState.applicationName = applicationName;
+            }
+        }
+
+        final boolean admitted = tryAcquireAgent(agentState, currentTime) && tryAcquireApplication(applicationName, currentTime);
+        if (admitted) {
+            admittedCount.incrementAndGet();
+            if (agentState != null) {
+                agentState.admittedCount.incrementAndGet();
+            }
+        } else {
+            rejectedCount.incrementAndGet();
+            if (agentState != null) {
+                agentState.rejectedCount.incrementAndGet();
+            }
+        }
+        return admitted;
+    }
+
+    private boolean tryAcquireAgent(AgentState agentState, long currentTime) {
+        if (agentState == null || agentState.bucket == null) {
+            return true;
+        }
+        return agentState.bucket.tryAcquire(currentTime);
+    }
+
+    private boolean tryAcquireApplication(String applicationName, long currentTime) {
+        if (applicationTotalRate <= 0 || applicationName == null) {
+            return true;
+        }
+        final ApplicationState applicationState = getApplicationState(applicationName, currentTime);
+        applicationState.requestCount.incrementAndGet();
+        applicationState.lastRequestTime = currentTime;
+        return applicationState.bucket.tryAcquire(currentTime);
+    }
+
+    private AgentState getAgentState(String agentId, long currentTime) {
+        final AgentState agentState = agentMap.get(agentId);
+        if (agentState != null) {
+            agentState.lastRequestTime = currentTime;
+            return agentState;
+        }
+        final TokenBucket bucket = agentRate > 0 ? new TokenBucket(agentRate, agentBurst, currentTime) : null;
+        final AgentState newState = new AgentState(bucket, currentTime);
+        final AgentState exist = agentMap.putIfAbsent(agentId, newState);
+        if (exist != null) {
+            exist.lastRequestTime = currentTime;
+            return exist;
+        }
+        return newState;
+    }
+
+    private ApplicationState getApplicationState(String applicationName, long currentTime) {
+        final ApplicationState applicationState = applicationMap.get(applicationName);
+        if (applicationState != null) {
+            return applicationState;
+        }
+        final int weight = getWeight(applicationName);
+        // fair share among the applications active until the next rebalance
+        final long rate = Math.max(1, applicationTotalRate * weight / (activeWeight + weight));
+        final ApplicationState newState = new ApplicationState(weight, new TokenBucket(rate, rate, currentTime), currentTime);
+        final ApplicationState exist = applicationMap.putIfAbsent(applicationName, newState);
+        return exist != null ? exist : newState;
+    }
+
+    private int getWeight(String applicationName) {
+        final Integer weight = applicationWeightMap.get(applicationName);
+        if (weight == null) {
+            return DEFAULT_WEIGHT;
+        }
+        return weight;
+    }
+
+    private void maintain(long currentTime) {
+        final long next = nextRebalanceTime.get();
+        if (currentTime - next < 0) {
+            return;
+        }
+        if (!nextRebalanceTime.compareAndSet(next, currentTime + REBALANCE_INTERVAL)) {
+            // done by another thread
+            return;
+        }
+        expireAgents(currentTime);
+        if (applicationTotalRate > 0) {
+            rebalance(currentTime);
+        }
+    }
+
+    private void expireAgents(long currentTime) {
+        int expiredCount = 0;
+        for (Map.Entry<String, AgentState> entry : agentMap.entrySet()) {
+            final AgentState agentState = entry.getValue();
+            if (currentTime - agentState.lastRequestTime > AGENT_IDLE_TIMEOUT) {
+                if (agentMap.remove(entry.getKey(), agentState)) {
+                    expiredCount++;
+                }
+            }
+        }
+        if (expiredCount > 0 && logger.isDebugEnabled()) {
+            logger.debug("expired {} idle agents", expiredCount);
+        }
+    }
+
+    private void rebalance(long currentTime) {
+        final double elapsedSeconds = Math.max(1, currentTime - lastRebalanceTime) / (double) TimeUnit.SECONDS.toNanos(1);
+        this.lastRebalanceTime = currentTime;
+
+        final List<ApplicationState> activeList = new ArrayList<ApplicationState>(applicationMap.size());
+        long totalWeight = 0;
+        final Iterator<ApplicationState> iterator = applicationMap.values().iterator();
+        while (iterator.hasNext()) {
+            final ApplicationState applicationState = iterator.next();
+            final long requestCount = applicationState.requestCount.getAndSet(0);
+            if (currentTime - applicationState.lastRequestTime > IDLE_TIMEOUT) {
+                iterator.remove();
+                continue;
+            }
+            applicationState.demand = requestCount / elapsedSeconds;
+            activeList.add(applicationState);
+            totalWeight += applicationState.weight;
+        }
+        this.activeWeight = totalWeight;
+
+        // the least demanding applications (per weight) first, what they do not use is shared by the rest
+        Collections.sort(activeList, DEMAND_PER_WEIGHT_COMPARATOR);
+        double remainingRate = applicationTotalRate;
+        long remainingWeight = totalWeight;
+        for (ApplicationState applicationState : activeList) {
+            final double share = remainingRate * applicationState.weight / remainingWeight;
+            final long rate = Math.max(1, Math.round(share));
+            applicationState.bucket.setRate(rate, rate);
+
+            remainingRate -= Math.min(share, applicationState.demand);
+            remainingWeight -= applicationState.weight;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("rebalanced {} active applications, totalWeight:{}", activeList.size(), totalWeight);
+        }
+    }
+
+    public long getAdmittedCount() {
+        return admittedCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public Set<String> getAgentIds() {
+        return Collections.unmodifiableSet(agentMap.keySet());
+    }
+
+    public long getAgentAdmittedCount(String agentId) {
+        final AgentState agentState = agentMap.get(agentId);
+        if (agentState == null) {
+            return 0;
+        }
+        return agentState.admittedCount.get();
+    }
+
+    public long getAgentRejectedCount(String agentId) {
+        final AgentState agentState = agentMap.get(agentId);
+        if (agentState == null) {
+            return 0;
+        }
+        return agentState.rejectedCount.get();
+    }
+
+    /**
+     * @return rate currently assigned to the application, -1 if the application is not active
+     */
+    public long getApplicationRate(String applicationName) {
+        final ApplicationState applicationState = applicationMap.get(applicationName);
+        if (applicationState == null) {
+            return -1;
+        }
+        return applicationState.bucket.getRate();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("AdmissionController{");
+        sb.append("agentRate=").append(agentRate);
+        sb.append(", agentBurst=").append(agentBurst);
+        sb.append(", applicationTotalRate=").append(applicationTotalRate);
+        sb.append(", applicationWeightMap=").append(applicationWeightMap);
+        sb.append(", admittedCount=").append(admittedCount);
+        sb.append(", rejectedCount=").append(rejectedCount);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static final Comparator<ApplicationState> DEMAND_PER_WEIGHT_COMPARATOR = new Comparator<ApplicationState>() {
+        @Override
+        public int compare(ApplicationState o1, ApplicationState o2) {
+            return Double.compare(o1.demand / o1.weight, o2.demand / o2.weight);
+        }
+    };
+
+    private static class AgentState {
+        private final TokenBucket bucket;
+        private final AtomicLong admittedCount = new AtomicLong();
+        private final AtomicLong rejectedCount = new AtomicLong();
+        private volatile String applicationName;
+        private volatile long lastRequestTime;
+
+        private AgentState(TokenBucket bucket, long currentTime) {
+            this.bucket = bucket;
+            this.lastRequestTime = currentTime;
+        }
+    }
+
+    private static class ApplicationState {
+        private final int weight;
+        private final TokenBucket bucket;
+        private final AtomicLong requestCount = new AtomicLong();
+        private volatile long lastRequestTime;
+        // requests per second during the last rebalance interval, only accessed by the rebalancing thread
+        private double demand;
+
+        private ApplicationState(int weight, TokenBucket bucket, long currentTime) {
+            this.weight = weight;
+            this.bucket = bucket;
+            this.lastRequestTime = currentTime;
+        }
+    }
+}
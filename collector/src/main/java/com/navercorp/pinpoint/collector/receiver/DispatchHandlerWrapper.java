@@ -36,6 +36,9 @@ public class DispatchHandlerWrapper implements DispatchHandler {
     @Autowired
     private HandlerManager handlerManager;
 
+    @Autowired(required = false)
+    private AdmissionController admissionController;
+
     public DispatchHandlerWrapper(DispatchHandler dispatchHandler) {
         if (dispatchHandler == null) {
             throw new NullPointerException("dispatchHandler may note be null.");
@@ -45,25 +48,36 @@ public class DispatchHandlerWrapper implements DispatchHandler {
 
     @Override
     public void dispatchSendMessage(TBase<?, ?> tBase) {
-        if (checkAvaiable()) {
-            this.delegate.dispatchSendMessage(tBase);
+        if (!checkAvaiable()) {
+            logger.debug("Handler is disabled. Skipping send message {}.", tBase);
+            return;
+        }
+        if (!checkAdmission(tBase)) {
+            logger.debug("Rejected by admission control. Skipping send message {}.", tBase);
+            return;
         }
 
-        logger.debug("Handler is disabled. Skipping send message {}.", tBase);
-        return;
+        this.delegate.dispatchSendMessage(tBase);
     }
 
     @Override
     public TBase dispatchRequestMessage(TBase<?, ?> tBase) {
-        if (checkAvaiable()) {
-            return this.delegate.dispatchRequestMessage(tBase);
+        if (!checkAvaiable()) {
+            logger.debug("Handler is disabled. Skipping request message {}.", tBase);
+
+            TResult result = new TResult(false);
+            result.setMessage("Handler is disabled. Skipping request message.");
+            return result;
         }
+        if (!checkAdmission(tBase)) {
+            logger.debug("Rejected by admission control. Skipping request message {}.", tBase);
 
-        logger.debug("Handler is disabled. Skipping request message {}.", tBase);
-        
-        TResult result = new TResult(false);
-        result.setMessage("Handler is disabled. Skipping request message.");
-        return result;
+            TResult result = new TResult(false);
+            result.setMessage("Rejected by admission control. Skipping request message.");
+            return result;
+        }
+
+        return this.delegate.dispatchRequestMessage(tBase);
     }
     
     private boolean checkAvaiable() {
@@ -78,4 +92,12 @@ public class DispatchHandlerWrapper implements DispatchHandler {
         return false;
     }
 
+    private boolean checkAdmission(TBase<?, ?> tBase) {
+        if (admissionController == null) {
+            return true;
+        }
+
+        return admissionController.admit(tBase);
+    }
+
 }
@@ -0,0 +1,369 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.receiver;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.navercorp.pinpoint.collector.util.LaneContext;
+import com.navercorp.pinpoint.common.util.ExecutorFactory;
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import com.navercorp.pinpoint.common.util.TransactionId;
+import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.thrift.dto.*;
+
+import org.apache.thrift.TBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes send messages on a fixed set of single threaded lanes.
+ * Spans and span chunks are hashed by transaction id (agent id, start time, sequence), other messages by agent id,
+ * so everything of a transaction is handled in order by the same thread.
+ * Request messages need a response and are executed on the calling thread.
+ * <p>
+ * Each lane has a {@link LaneContext}, so handlers can aggregate into
+ * {@link com.navercorp.pinpoint.collector.util.LaneLocal} values without locking.
+ * The lane flushes them every lane flush period, and after its last message on stop.
+ * With a lane count of 0, messages are passed to the delegate as they are.
+ */
+public class PartitionedDispatchHandler implements DispatchHandler {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String name;
+    private final DispatchHandler delegate;
+    private final int laneCount;
+    private final int laneQueueSize;
+    private long laneFlushPeriod = 1000;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    private Lane[] lanes;
+    private ScheduledExecutorService flushTimer;
+
+    private final AtomicInteger roundRobin = new AtomicInteger();
+
+    public PartitionedDispatchHandler(String name, DispatchHandler delegate, int laneCount, int laneQueueSize) {
+        if (name == null) {
+            throw new NullPointerException("name must not be null");
+        }
+        if (delegate == null) {
+            throw new NullPointerException("delegate must not be null");
+        }
+        if (laneCount < 0) {
+            throw new IllegalArgumentException("negative laneCount:" + laneCount);
+        }
+        if (laneCount > 0 && laneQueueSize <= 0) {
+            throw new IllegalArgumentException("laneQueueSize must be greater than 0");
+        }
+        this.name = name;
+        this.delegate = delegate;
+        this.laneCount = laneCount;
+        this.laneQueueSize = laneQueueSize;
+    }
+
+    public void setLaneFlushPeriod(long laneFlushPeriod) {
+        if (laneFlushPeriod <= 0) {
+            throw new IllegalArgumentException("laneFlushPeriod must be greater than 0");
+        }
+        this.laneFlushPeriod = laneFlushPeriod;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isPartitioned()) {
+            return;
+        }
+        final Lane[] lanes = new Lane[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            lanes[i] = new Lane(name + "-Lane" + i);
+        }
+        this.lanes = lanes;
+        this.flushTimer = Executors.newSingleThreadScheduledExecutor(new PinpointThreadFactory(name + "-FlushTimer", true));
+        this.flushTimer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                for (Lane lane : lanes) {
+                    lane.requestFlush();
+                }
+            }
+        }, laneFlushPeriod, laneFlushPeriod, TimeUnit.MILLISECONDS);
+        logger.info("{} started. laneCount:{} laneQueueSize:{} laneFlushPeriod:{}", name, laneCount, laneQueueSize, laneFlushPeriod);
+    }
+
+    @PreDestroy
+    public void stop() {
+        final Lane[] lanes = this.lanes;
+        if (lanes == null) {
+            return;
+        }
+        flushTimer.shutdown();
+        for (Lane lane : lanes) {
+            lane.shutdown();
+        }
+        for (Lane lane : lanes) {
+            lane.awaitTermination();
+        }
+        for (Lane lane : lanes) {
+            lane.flushTerminated();
+        }
+        logger.info("{} stopped.", name);
+    }
+
+    public boolean isPartitioned() {
+        return laneCount > 0;
+    }
+
+    @Override
+    public void dispatchSendMessage(final TBase<?, ?> tBase) {
+        final Lane[] lanes = this.lanes;
+        if (lanes == null) {
+            delegate.dispatchSendMessage(tBase);
+            return;
+        }
+        final int laneIndex = getLaneIndex(tBase, lanes.length);
+        lanes[laneIndex].execute(tBase);
+    }
+
+    @Override
+    public TBase dispatchRequestMessage(TBase<?, ?> tBase) {
+        return delegate.dispatchRequestMessage(tBase);
+    }
+
+    int getLaneIndex(TBase<?, ?> tBase, int laneCount) {
+        final int hash = partitionHash(tBase);
+        return (hash & Integer.MAX_VALUE) % laneCount;
+    }
+
+    private int partitionHash(TBase<?, ?> tBase) {
+        if (tBase instanceof TSpan) {
+            return hash(((TSpan) tBase).getTransactionId(), ((TSpan) tBase).getAgentId());
+        }
+        if (tBase instanceof TSpanChunk) {
+            return hash(((TSpanChunk) tBase).getTransactionId(), ((TSpanChunk) tBase).getAgentId());
+        }
+        final String agentId = getAgentId(tBase);
+        if (agentId != null) {
+            return agentId.hashCode();
+        }
+        return roundRobin.getAndIncrement();
+    }
+
+    private int hash(byte[] transactionId, String agentId) {
+        if (transactionId != null) {
+            final TransactionId parsedTransactionId = parseTransactionId(transactionId);
+            if (parsedTransactionId != null) {
+                // the agent leaves its own id out of the transaction ids it starts
+                final String transactionAgentId = parsedTransactionId.getAgentId() != null ? parsedTransactionId.getAgentId() : agentId;
+                return hash(transactionAgentId, parsedTransactionId.getAgentStartTime(), parsedTransactionId.getTransactionSequence());
+            }
+            return Arrays.hashCode(transactionId);
+        }
+        if (agentId != null) {
+            return agentId.hashCode();
+        }
+        return roundRobin.getAndIncrement();
+    }
+
+    private int hash(String agentId, long agentStartTime, long transactionSequence) {
+        int result = agentId != null ? agentId.hashCode() : 0;
+        result = 31 * result + (int) (agentStartTime ^ (agentStartTime >>> 32));
+        result = 31 * result + (int) (transactionSequence ^ (transactionSequence >>> 32));
+        return result;
+    }
+
+    private TransactionId parseTransactionId(byte[] transactionId) {
+        try {
+            return TransactionIdUtils.parseTransactionId(transactionId);
+        } catch (Exception e) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("invalid transactionId. Caused:{}", e.getMessage());
+            }
+            return null;
+        }
+    }
+
+    private String getAgentId(TBase<?, ?> tBase) {
+        if (tBase instanceof TAgentStatBatch) {
+            return ((TAgentStatBatch) tBase).getAgentId();
+        }
+        if (tBase instanceof TAgentStat) {
+            return ((TAgentStat) tBase).getAgentId();
+        }
+        if (tBase instanceof TCallStatBatch) {
+            return ((TCallStatBatch) tBase).getAgentId();
+        }
+        if (tBase instanceof TAgentInfo) {
+            return ((TAgentInfo) tBase).getAgentId();
+        }
+        if (tBase instanceof TSqlMetaData) {
+            return ((TSqlMetaData) tBase).getAgentId();
+        }
+        if (tBase instanceof TApiMetaData) {
+            return ((TApiMetaData) tBase).getAgentId();
+        }
+        if (tBase instanceof TStringMetaData) {
+            return ((TStringMetaData) tBase).getAgentId();
+        }
+        return null;
+    }
+
+    public int getLaneCount() {
+        return laneCount;
+    }
+
+    public int getLaneDepth(int laneIndex) {
+        final Lane[] lanes = this.lanes;
+        if (lanes == null) {
+            return 0;
+        }
+        return lanes[laneIndex].getDepth();
+    }
+
+    public long getLaneRejectedCount(int laneIndex) {
+        final Lane[] lanes = this.lanes;
+        if (lanes == null) {
+            return 0;
+        }
+        return lanes[laneIndex].rejectedCounter.getCount();
+    }
+
+    private class Lane {
+
+        private final String laneName;
+        private final ThreadPoolExecutor executor;
+        // used by the lane thread only
+        private final LaneContext laneContext;
+        private long nextFlushTime;
+
+        private final Timer timer;
+        private final Timer waitTimer;
+        private final Timer laneFlushTimer;
+        private final Counter rejectedCounter;
+
+        private Lane(String laneName) {
+            this.laneName = laneName;
+            this.executor = ExecutorFactory.newFixedThreadPool(1, laneQueueSize, laneName, true);
+            this.laneContext = new LaneContext(laneName);
+            this.nextFlushTime = System.currentTimeMillis() + laneFlushPeriod;
+            this.timer = metricRegistry.timer(laneName + "-timer");
+            this.waitTimer = metricRegistry.timer(laneName + "-wait");
+            this.laneFlushTimer = metricRegistry.timer(laneName + "-flush");
+            this.rejectedCounter = metricRegistry.counter(laneName + "-rejected");
+            metricRegistry.register(laneName + "-depth", new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return getDepth();
+                }
+            });
+        }
+
+        private void execute(final TBase<?, ?> tBase) {
+            // measured from enqueue, the latency includes the time spent waiting in the lane
+            final Timer.Context time = timer.time();
+            final long enqueueTime = System.nanoTime();
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        waitTimer.update(System.nanoTime() - enqueueTime, TimeUnit.NANOSECONDS);
+                        laneContext.attach();
+                        try {
+                            delegate.dispatchSendMessage(tBase);
+                        } finally {
+                            time.stop();
+                        }
+                        // a busy lane may not get the flush requests of the timer
+                        if (System.currentTimeMillis() >= nextFlushTime) {
+                            flush();
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException ree) {
+                rejectedCounter.inc();
+                final long error = rejectedCounter.getCount();
+                if ((error % 100) == 0) {
+                    logger.warn("{} RejectedExecutionCount={}", laneName, error);
+                }
+            }
+        }
+
+        private void requestFlush() {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        laneContext.attach();
+                        flush();
+                    }
+                });
+            } catch (RejectedExecutionException ree) {
+                // the queue is full, the lane flushes after its next message
+            }
+        }
+
+        private void flush() {
+            this.nextFlushTime = System.currentTimeMillis() + laneFlushPeriod;
+            final Timer.Context time = laneFlushTimer.time();
+            try {
+                laneContext.flush();
+            } finally {
+                time.stop();
+            }
+        }
+
+        private void flushTerminated() {
+            if (!executor.isTerminated()) {
+                logger.warn("{} is not terminated, lane values are not flushed", laneName);
+                return;
+            }
+            laneContext.flush();
+        }
+
+        private int getDepth() {
+            return executor.getQueue().size();
+        }
+
+        private void shutdown() {
+            executor.shutdown();
+        }
+
+        private void awaitTermination() {
+            try {
+                executor.awaitTermination(1000 * 10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                logger.info("{}.shutdown() Interrupted", laneName, e);
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -16,6 +16,7 @@
 
 package com.navercorp.pinpoint.collector.receiver.udp;
 
+import com.navercorp.pinpoint.collector.mapper.thrift.StreamingSpanDecoder;
 import com.navercorp.pinpoint.collector.receiver.DispatchHandler;
 import com.navercorp.pinpoint.collector.util.PacketUtils;
 import com.navercorp.pinpoint.thrift.io.*;
@@ -37,13 +38,29 @@ public class BaseUDPHandlerFactory<T extends DatagramPacket> implements PacketHa
 
     private final DeserializerFactory<HeaderTBaseDeserializer> deserializerFactory = new ThreadLocalHeaderTBaseDeserializerFactory<HeaderTBaseDeserializer>(new HeaderTBaseDeserializerFactory());
 
+    private final ThreadLocal<StreamingSpanDecoder> spanDecoder = new ThreadLocal<StreamingSpanDecoder>() {
+        @Override
+        protected StreamingSpanDecoder initialValue() {
+            return new StreamingSpanDecoder();
+        }
+    };
+
     private final DispatchHandler dispatchHandler;
 
     private final TBaseFilter<SocketAddress> filter;
 
+    private final boolean streamingDecode;
+
     private final PacketHandler<T> dispatchPacket = new DispatchPacket();
 
     public BaseUDPHandlerFactory(DispatchHandler dispatchHandler, TBaseFilter<SocketAddress> filter) {
+        this(dispatchHandler, filter, false);
+    }
+
+    /**
+     * @param streamingDecode decode spans and span chunks with {@link StreamingSpanDecoder}
+     */
+    public BaseUDPHandlerFactory(DispatchHandler dispatchHandler, TBaseFilter<SocketAddress> filter, boolean streamingDecode) {
         if (dispatchHandler == null) {
             throw new NullPointerException("dispatchHandler must not be null");
         }
@@ -52,6 +69,7 @@ public class BaseUDPHandlerFactory<T extends DatagramPacket> implements PacketHa
         }
         this.dispatchHandler = dispatchHandler;
         this.filter = filter;
+        this.streamingDecode = streamingDecode;
     }
 
     @Override
@@ -67,11 +85,10 @@ public class BaseUDPHandlerFactory<T extends DatagramPacket> implements PacketHa
 
         @Override
         public void receive(T packet) {
-            final HeaderTBaseDeserializer deserializer = deserializerFactory.createDeserializer();
             TBase<?, ?> tBase = null;
             SocketAddress socketAddress = packet.getSocketAddress();
             try {
-                tBase = deserializer.deserialize(packet.getData());
+                tBase = deserialize(packet);
                 if (filter.filter(tBase, socketAddress) == TBaseFilter.BREAK) {
                     return;
                 }
@@ -94,6 +111,17 @@ public class BaseUDPHandlerFactory<T extends DatagramPacket> implements PacketHa
                 }
             }
         }
+
+        private TBase<?, ?> deserialize(T packet) throws TException {
+            if (streamingDecode) {
+                final TBase<?, ?> decoded = spanDecoder.get().decode(packet.getData(), packet.getOffset(), packet.getLength());
+                if (decoded != null) {
+                    return decoded;
+                }
+            }
+            final HeaderTBaseDeserializer deserializer = deserializerFactory.createDeserializer();
+            return deserializer.deserialize(packet.getData());
+        }
     }
 
 }
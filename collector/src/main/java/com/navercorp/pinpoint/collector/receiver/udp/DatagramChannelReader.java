@@ -0,0 +1,257 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.Timer;
+import com.navercorp.pinpoint.collector.util.DatagramPacketFactory;
+import com.navercorp.pinpoint.collector.util.ObjectPool;
+import com.navercorp.pinpoint.collector.util.PooledObject;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Receive loop of a single {@link DatagramChannel}.
+ * Packets are read into a direct buffer owned by the reader and copied once into a pooled {@link DatagramPacket}.
+ * The packet is handled on the reader thread itself, or by a single consumer thread when a queue size is given.
+ */
+public class DatagramChannelReader {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String name;
+    private final DatagramChannel channel;
+    private final ObjectPool<DatagramPacket> datagramPacketPool;
+    private final PacketHandlerFactory<DatagramPacket> packetHandlerFactory;
+
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(DatagramPacketFactory.UDP_MAX_PACKET_LENGTH);
+    // null : handle the packet on the reader thread
+    private final BlockingQueue<PooledObject<DatagramPacket>> queue;
+
+    private final Meter packetMeter;
+    private final Counter dropCounter;
+    private final Timer timer;
+
+    private final AtomicBoolean state = new AtomicBoolean(true);
+
+    public DatagramChannelReader(String name, DatagramChannel channel, ObjectPool<DatagramPacket> datagramPacketPool, PacketHandlerFactory<DatagramPacket> packetHandlerFactory,
+                                 int queueSize, Meter packetMeter, Counter dropCounter, Timer timer) {
+        if (name == null) {
+            throw new NullPointerException("name must not be null");
+        }
+        if (channel == null) {
+            throw new NullPointerException("channel must not be null");
+        }
+        if (datagramPacketPool == null) {
+            throw new NullPointerException("datagramPacketPool must not be null");
+        }
+        if (packetHandlerFactory == null) {
+            throw new NullPointerException("packetHandlerFactory must not be null");
+        }
+        if (packetMeter == null) {
+            throw new NullPointerException("packetMeter must not be null");
+        }
+        if (dropCounter == null) {
+            throw new NullPointerException("dropCounter must not be null");
+        }
+        this.name = name;
+        this.channel = channel;
+        this.datagramPacketPool = datagramPacketPool;
+        this.packetHandlerFactory = packetHandlerFactory;
+        if (queueSize > 0) {
+            this.queue = new ArrayBlockingQueue<PooledObject<DatagramPacket>>(queueSize);
+        } else {
+            this.queue = null;
+        }
+        this.packetMeter = packetMeter;
+        this.dropCounter = dropCounter;
+        // optional
+        this.timer = timer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public boolean isQueued() {
+        return queue != null;
+    }
+
+    public Runnable getReadTask() {
+        return new Runnable() {
+            @Override
+            public void run() {
+                read();
+            }
+        };
+    }
+
+    public Runnable getConsumeTask() {
+        if (queue == null) {
+            throw new IllegalStateException("packets are handled on the reader thread");
+        }
+        return new Runnable() {
+            @Override
+            public void run() {
+                consume();
+            }
+        };
+    }
+
+    private void read() {
+        logger.info("start reader:{} IoThread:{}", name, Thread.currentThread().getName());
+        while (state.get()) {
+            final PooledObject<DatagramPacket> pooledPacket = read0();
+            if (pooledPacket == null) {
+                continue;
+            }
+            if (queue == null) {
+                handle(pooledPacket);
+                continue;
+            }
+            if (!queue.offer(pooledPacket)) {
+                pooledPacket.returnObject();
+                drop();
+            }
+        }
+        logger.info("stop reader:{} IoThread:{}", name, Thread.currentThread().getName());
+    }
+
+    private PooledObject<DatagramPacket> read0() {
+        final ByteBuffer readBuffer = this.readBuffer;
+        readBuffer.clear();
+        final SocketAddress socketAddress;
+        try {
+            socketAddress = channel.receive(readBuffer);
+        } catch (ClosedChannelException e) {
+            // shutdown
+            state.set(false);
+            return null;
+        } catch (IOException e) {
+            if (state.get()) {
+                logger.error("IoError reader:{}, Caused:{}", name, e.getMessage(), e);
+            }
+            return null;
+        }
+        if (socketAddress == null) {
+            return null;
+        }
+        readBuffer.flip();
+        final int length = readBuffer.remaining();
+        if (length == 0) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("length is 0 SocketAddress:{}", socketAddress);
+            }
+            return null;
+        }
+        packetMeter.mark();
+
+        final PooledObject<DatagramPacket> pooledPacket = datagramPacketPool.getObject();
+        if (pooledPacket == null) {
+            logger.error("datagramPacketPool is empty");
+            drop();
+            return null;
+        }
+        final DatagramPacket packet = pooledPacket.getObject();
+        readBuffer.get(packet.getData(), 0, length);
+        packet.setLength(length);
+        packet.setSocketAddress(socketAddress);
+        if (logger.isDebugEnabled()) {
+            logger.debug("DatagramChannel reader:{} SocketAddress:{} read size:{}", name, socketAddress, length);
+        }
+        return pooledPacket;
+    }
+
+    private void consume() {
+        logger.info("start consumer:{} Thread:{}", name, Thread.currentThread().getName());
+        while (state.get() || !queue.isEmpty()) {
+            final PooledObject<DatagramPacket> pooledPacket;
+            try {
+                pooledPacket = queue.poll(1000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (pooledPacket != null) {
+                handle(pooledPacket);
+            }
+        }
+        logger.info("stop consumer:{} Thread:{}", name, Thread.currentThread().getName());
+    }
+
+    private void handle(PooledObject<DatagramPacket> pooledPacket) {
+        final PacketHandler<DatagramPacket> packetHandler = packetHandlerFactory.createPacketHandler();
+        Runnable execution = new PooledPacketWrap(packetHandler, pooledPacket);
+        if (timer != null) {
+            execution = new TimingWrap(timer, execution);
+        }
+        try {
+            execution.run();
+        } catch (Exception e) {
+            logger.warn("packet handle error. reader:{} Caused:{}", name, e.getMessage(), e);
+        }
+    }
+
+    private void drop() {
+        dropCounter.inc();
+        final long dropCount = dropCounter.getCount();
+        if ((dropCount % 100) == 0) {
+            logger.warn("reader:{} DropCount={}", name, dropCount);
+        }
+    }
+
+    public long getPacketCount() {
+        return packetMeter.getCount();
+    }
+
+    public double getPacketsPerSecond() {
+        return packetMeter.getOneMinuteRate();
+    }
+
+    public long getDropCount() {
+        return dropCounter.getCount();
+    }
+
+    public int getQueueDepth() {
+        if (queue == null) {
+            return 0;
+        }
+        return queue.size();
+    }
+
+    public void stop() {
+        state.set(false);
+    }
+
+    @Override
+    public String toString() {
+        return "DatagramChannelReader{name=" + name + ", queued=" + isQueued() + ", packetCount=" + getPacketCount() + ", dropCount=" + getDropCount() + '}';
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * Reads the number of datagrams the kernel dropped because the socket receive buffer was full.
+ * Only available on Linux, where every udp socket is listed with its drop count in /proc/net/udp and /proc/net/udp6.
+ * Sockets sharing a port through SO_REUSEPORT are summed up.
+ */
+public class KernelUDPDropCounter {
+
+    private static final String[] PROC_NET_UDP = {"/proc/net/udp", "/proc/net/udp6"};
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String portSuffix;
+
+    public KernelUDPDropCounter(int port) {
+        if (port < 0 || port > 0xFFFF) {
+            throw new IllegalArgumentException("invalid port:" + port);
+        }
+        // local_address is written as hex ip:port
+        this.portSuffix = String.format(":%04X", port);
+    }
+
+    public static boolean isSupported() {
+        return new File(PROC_NET_UDP[0]).canRead();
+    }
+
+    /**
+     * @return drop count, -1 if unknown
+     */
+    public long getDropCount() {
+        long dropCount = -1;
+        for (String path : PROC_NET_UDP) {
+            final File file = new File(path);
+            if (!file.canRead()) {
+                continue;
+            }
+            try {
+                final long count = read(file);
+                dropCount = (dropCount == -1) ? count : dropCount + count;
+            } catch (IOException e) {
+                logger.debug("{} read fail. Caused:{}", path, e.getMessage(), e);
+            }
+        }
+        return dropCount;
+    }
+
+    private long read(File file) throws IOException {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "ASCII"));
+        try {
+            long dropCount = 0;
+            // skip header
+            String line = reader.readLine();
+            while ((line = reader.readLine()) != null) {
+                dropCount += parseDropCount(line);
+            }
+            return dropCount;
+        } finally {
+            reader.close();
+        }
+    }
+
+    long parseDropCount(String line) {
+        // sl local_address rem_address st tx_queue:rx_queue tr:tm->when retrnsmt uid timeout inode ref pointer drops
+        final String[] columns = line.trim().split("\\s+");
+        if (columns.length < 13) {
+            return 0;
+        }
+        if (!columns[1].endsWith(portSuffix)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(columns[columns.length - 1]);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -31,6 +31,8 @@ import java.net.SocketAddress;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
 
 /**
  * @author Taejin Koo
@@ -46,6 +48,16 @@ public class SpanStreamUDPPacketHandlerFactory<T extends DatagramPacket> impleme
     private final TBaseFilter<SocketAddress>  filter;
     private final PacketHandler<T> dispatchPacket = new DispatchPacket();
 
+    // a compressed packet must fit in a single datagram before compression
+    private static final int MAX_UNCOMPRESSED_LENGTH = 0xFFFF;
+
+    private final ThreadLocal<Inflater> inflaterHolder = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater();
+        }
+    };
+
     public SpanStreamUDPPacketHandlerFactory(DispatchHandler dispatchHandler, TBaseFilter<SocketAddress>  filter) {
         if (dispatchHandler == null) {
             throw new NullPointerException("dispatchHandler must not be null");
@@ -90,6 +102,13 @@ public class SpanStreamUDPPacketHandlerFactory<T extends DatagramPacket> impleme
             SocketAddress socketAddress = packet.getSocketAddress();
             
             try {
+                if ((version & SpanStreamConstants.Protocol.SPAN_STREAM_COMPRESSED_FLAG) != 0) {
+                    requestBuffer = decompress(packet, requestBuffer);
+                    if (requestBuffer == null) {
+                        return;
+                    }
+                }
+
                 for (int i = 0; i < chunkSize; i++) {
                     byte[] componentData = getComponentData(requestBuffer, deserializer);
                     if (componentData == null) {
@@ -126,6 +145,37 @@ public class SpanStreamUDPPacketHandlerFactory<T extends DatagramPacket> impleme
         }
     }
 
+    private ByteBuffer decompress(DatagramPacket packet, ByteBuffer buffer) throws DataFormatException {
+        if (buffer.remaining() < SpanStreamConstants.COMPRESSED_LENGTH_BUFFER_SIZE) {
+            logger.warn("Can't available {} fixed buffer.", SpanStreamConstants.COMPRESSED_LENGTH_BUFFER_SIZE);
+            return null;
+        }
+        final int uncompressedLength = buffer.getInt();
+        if (uncompressedLength <= 0 || uncompressedLength > MAX_UNCOMPRESSED_LENGTH) {
+            logger.warn("Invalid uncompressed length:{}", uncompressedLength);
+            return null;
+        }
+
+        final int compressedOffset = buffer.position();
+        final int compressedLength = packet.getOffset() + packet.getLength() - compressedOffset;
+        if (compressedLength <= 0) {
+            logger.warn("Can't available {} compressed buffer.", compressedLength);
+            return null;
+        }
+
+        final Inflater inflater = inflaterHolder.get();
+        inflater.reset();
+        inflater.setInput(packet.getData(), compressedOffset, compressedLength);
+
+        final byte[] uncompressed = new byte[uncompressedLength];
+        final int inflatedLength = inflater.inflate(uncompressed);
+        if (inflatedLength != uncompressedLength || !inflater.finished()) {
+            logger.warn("Failed to decompress span stream. expected:{}, actual:{}", uncompressedLength, inflatedLength);
+            return null;
+        }
+        return ByteBuffer.wrap(uncompressed);
+    }
+
     private byte[] getComponentData(ByteBuffer buffer, HeaderTBaseDeserializer deserializer) {
         if (buffer.remaining() < 2) {
             logger.warn("Can't available {} fixed buffer.", 2);
@@ -17,6 +17,7 @@
 package com.navercorp.pinpoint.collector.receiver.udp;
 
 import com.codahale.metrics.Counter;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.Timer;
 import com.navercorp.pinpoint.collector.receiver.DataReceiver;
@@ -34,7 +35,12 @@ import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 
 import java.io.IOException;
+import java.lang.reflect.Method;
 import java.net.*;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -60,6 +66,7 @@ public class UDPReceiver implements DataReceiver {
     private final boolean enableCollectorMetric;
 
     private Timer timer;
+    private Timer waitTimer;
     private Counter rejectedCounter;
 
     // increasing ioThread size wasn't very effective
@@ -79,6 +86,13 @@ public class UDPReceiver implements DataReceiver {
 
     private final DatagramSocket socket;
 
+    // DatagramChannel mode, used when socketCount > 0
+    private final int socketCount;
+    private final int socketQueueSize;
+    private final int receiveBufferSize;
+    private final List<DatagramChannel> channels = new ArrayList<DatagramChannel>();
+    private final List<DatagramChannelReader> channelReaders = new ArrayList<DatagramChannelReader>();
+
     private final PacketHandlerFactory<DatagramPacket> packetHandlerFactory;
 
     private final AtomicInteger rejectedExecutionCount = new AtomicInteger(0);
@@ -87,6 +101,15 @@ public class UDPReceiver implements DataReceiver {
 
 
     public UDPReceiver(String receiverName, PacketHandlerFactory<DatagramPacket> packetHandlerFactory, String bindAddress, int port, int receiverBufferSize, int workerThreadSize, int workerThreadQueueSize,  boolean enableCollectorMetric) {
+        this(receiverName, packetHandlerFactory, bindAddress, port, receiverBufferSize, workerThreadSize, workerThreadQueueSize, enableCollectorMetric, 0, 0);
+    }
+
+    /**
+     * @param socketCount number of DatagramChannels, each with its own reader thread. 0 uses a single DatagramSocket and the worker pool.
+     * @param socketQueueSize capacity of the queue between a reader and its consumer thread. 0 handles packets on the reader thread.
+     */
+    public UDPReceiver(String receiverName, PacketHandlerFactory<DatagramPacket> packetHandlerFactory, String bindAddress, int port, int receiverBufferSize, int workerThreadSize, int workerThreadQueueSize,  boolean enableCollectorMetric,
+                       int socketCount, int socketQueueSize) {
         if (receiverName != null) {
             this.logger = LoggerFactory.getLogger(receiverName);
         } else {
@@ -100,10 +123,25 @@ public class UDPReceiver implements DataReceiver {
         }
 
 
+        if (socketCount < 0) {
+            throw new IllegalArgumentException("negative socketCount:" + socketCount);
+        }
+        if (socketQueueSize < 0) {
+            throw new IllegalArgumentException("negative socketQueueSize:" + socketQueueSize);
+        }
+
+
         this.receiverName = receiverName;
         this.bindAddress = bindAddress;
         this.port = port;
-        this.socket = createSocket(receiverBufferSize);
+        this.socketCount = socketCount;
+        this.socketQueueSize = socketQueueSize;
+        this.receiveBufferSize = receiverBufferSize;
+        if (isChannelMode()) {
+            this.socket = null;
+        } else {
+            this.socket = createSocket(receiverBufferSize);
+        }
 
         this.workerThreadSize = workerThreadSize;
         this.workerThreadQueueSize = workerThreadQueueSize;
@@ -116,12 +154,27 @@ public class UDPReceiver implements DataReceiver {
         Assert.notNull(metricRegistry, "metricRegistry must not be null");
         Assert.notNull(packetHandlerFactory, "packetHandlerFactory must not be null");
 
+        this.timer = metricRegistry.timer(receiverName + "-timer");
+        if (isChannelMode()) {
+            final int packetPoolSize = socketCount * (socketQueueSize + 2);
+            this.datagramPacketPool = new DefaultObjectPool<DatagramPacket>(new DatagramPacketFactory(), packetPoolSize);
+            this.io = (ThreadPoolExecutor) Executors.newCachedThreadPool(new PinpointThreadFactory(receiverName + "-Io", true));
+            return;
+        }
+
         final int packetPoolSize = getPacketPoolSize(workerThreadSize, workerThreadQueueSize);
         this.datagramPacketPool = new DefaultObjectPool<DatagramPacket>(new DatagramPacketFactory(), packetPoolSize);
         this.worker = ExecutorFactory.newFixedThreadPool(workerThreadSize, workerThreadQueueSize, receiverName + "-Worker", true);
 
-        this.timer = metricRegistry.timer(receiverName + "-timer");
         this.rejectedCounter = metricRegistry.counter(receiverName + "-rejected");
+        this.waitTimer = metricRegistry.timer(receiverName + "-wait");
+        final ThreadPoolExecutor worker = this.worker;
+        metricRegistry.register(receiverName + "-depth", new Gauge<Integer>() {
+            @Override
+            public Integer getValue() {
+                return worker.getQueue().size();
+            }
+        });
         this.io = (ThreadPoolExecutor) Executors.newCachedThreadPool(new PinpointThreadFactory(receiverName + "-Io", true));
     }
 
@@ -171,9 +224,11 @@ public class UDPReceiver implements DataReceiver {
     }
 
     private Runnable wrapDispatchTask(final PooledObject<DatagramPacket> pooledPacket) {
+        final long enqueueTime = System.nanoTime();
         final Runnable lazyExecution = new Runnable() {
             @Override
             public void run() {
+                waitTimer.update(System.nanoTime() - enqueueTime, TimeUnit.NANOSECONDS);
                 PacketHandler<DatagramPacket> dispatchPacket = packetHandlerFactory.createPacketHandler();
                 PooledPacketWrap pooledPacketWrap = new PooledPacketWrap(dispatchPacket, pooledPacket);
                 Runnable execution = pooledPacketWrap;
@@ -257,11 +312,170 @@ public class UDPReceiver implements DataReceiver {
         return workerThreadSize + workerThreadQueueSize + ioThreadSize;
     }
 
+    private boolean isChannelMode() {
+        return socketCount > 0;
+    }
+
+    private DatagramChannel createChannel(boolean reusePort) {
+        DatagramChannel channel = null;
+        try {
+            channel = DatagramChannel.open();
+            final DatagramSocket socket = channel.socket();
+            socket.setReceiveBufferSize(receiveBufferSize);
+            if (logger.isWarnEnabled()) {
+                final int checkReceiveBufferSize = socket.getReceiveBufferSize();
+                if (receiveBufferSize != checkReceiveBufferSize) {
+                    logger.warn("DatagramChannel setReceiveBufferSize() error. {}!={}", receiveBufferSize, checkReceiveBufferSize);
+                }
+            }
+            if (reusePort && !setReusePort(channel)) {
+                throw new IllegalStateException("SO_REUSEPORT not supported");
+            }
+            bindSocket(socket, bindAddress, port);
+            return channel;
+        } catch (IOException ex) {
+            closeChannel(channel);
+            throw new IllegalStateException("DatagramChannel create Fail. port:" + port + " Caused:" + ex.getMessage(), ex);
+        } catch (RuntimeException ex) {
+            closeChannel(channel);
+            throw ex;
+        }
+    }
+
+    /**
+     * StandardSocketOptions.SO_REUSEPORT is only available from java 9 and on some platforms, so it is looked up reflectively.
+     */
+    private boolean setReusePort(DatagramChannel channel) {
+        try {
+            final Class<?> socketOptionClass = Class.forName("java.net.SocketOption");
+            final Object reusePort = Class.forName("java.net.StandardSocketOptions").getField("SO_REUSEPORT").get(null);
+            final Method supportedOptions = DatagramChannel.class.getMethod("supportedOptions");
+            if (!((Set<?>) supportedOptions.invoke(channel)).contains(reusePort)) {
+                return false;
+            }
+            final Method setOption = DatagramChannel.class.getMethod("setOption", socketOptionClass, Object.class);
+            setOption.invoke(channel, reusePort, Boolean.TRUE);
+            return true;
+        } catch (Exception e) {
+            logger.debug("SO_REUSEPORT not available. Caused:{}", e.getMessage());
+            return false;
+        }
+    }
+
+    private void closeChannel(DatagramChannel channel) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            logger.warn("DatagramChannel close fail. Caused:{}", e.getMessage(), e);
+        }
+    }
+
+    private void startChannels() {
+        boolean reusePort = false;
+        if (socketCount > 1) {
+            try {
+                channels.add(createChannel(true));
+                reusePort = true;
+            } catch (IllegalStateException e) {
+                logger.warn("SO_REUSEPORT bind fail, {} readers share a single DatagramChannel. Caused:{}", socketCount, e.getMessage());
+            }
+        }
+        if (reusePort) {
+            for (int i = 1; i < socketCount; i++) {
+                channels.add(createChannel(true));
+            }
+        } else {
+            channels.add(createChannel(false));
+        }
+
+        for (int i = 0; i < socketCount; i++) {
+            final DatagramChannel channel = channels.get(i % channels.size());
+            final String readerName = receiverName + "-socket" + i;
+            final Timer readerTimer = enableCollectorMetric ? timer : null;
+            final DatagramChannelReader reader = new DatagramChannelReader(readerName, channel, datagramPacketPool, packetHandlerFactory, socketQueueSize,
+                    metricRegistry.meter(readerName + "-packets"), metricRegistry.counter(readerName + "-dropped"), readerTimer);
+            channelReaders.add(reader);
+            if (reader.isQueued()) {
+                metricRegistry.register(readerName + "-depth", new Gauge<Integer>() {
+                    @Override
+                    public Integer getValue() {
+                        return reader.getQueueDepth();
+                    }
+                });
+            }
+        }
+
+        final KernelUDPDropCounter kernelDropCounter = new KernelUDPDropCounter(port);
+        if (KernelUDPDropCounter.isSupported()) {
+            metricRegistry.register(receiverName + "-kernel-dropped", new Gauge<Long>() {
+                @Override
+                public Long getValue() {
+                    return kernelDropCounter.getDropCount();
+                }
+            });
+        }
+
+        logger.info("UDP DatagramChannel reader:{} channel:{} reusePort:{} queueSize:{} started.", socketCount, channels.size(), reusePort, socketQueueSize);
+        for (DatagramChannelReader reader : channelReaders) {
+            io.execute(reader.getReadTask());
+            if (reader.isQueued()) {
+                io.execute(reader.getConsumeTask());
+            }
+        }
+    }
+
+    public List<DatagramChannelReader> getChannelReaders() {
+        return new ArrayList<DatagramChannelReader>(channelReaders);
+    }
+
+    /**
+     * @return usage of the fullest receive queue in percent
+     */
+    public int getQueueUsage() {
+        if (isChannelMode()) {
+            if (socketQueueSize == 0) {
+                return 0;
+            }
+            int maxDepth = 0;
+            for (DatagramChannelReader reader : channelReaders) {
+                maxDepth = Math.max(maxDepth, reader.getQueueDepth());
+            }
+            return (int) (maxDepth * 100L / socketQueueSize);
+        }
+        final ThreadPoolExecutor worker = this.worker;
+        if (worker == null) {
+            return 0;
+        }
+        return (int) (worker.getQueue().size() * 100L / workerThreadQueueSize);
+    }
+
+    /**
+     * @return packets dropped because the receive queues were full
+     */
+    public long getDropCount() {
+        long dropCount = 0;
+        final Counter rejectedCounter = this.rejectedCounter;
+        if (rejectedCounter != null) {
+            dropCount += rejectedCounter.getCount();
+        }
+        for (DatagramChannelReader reader : channelReaders) {
+            dropCount += reader.getDropCount();
+        }
+        return dropCount;
+    }
+
     @PostConstruct
     @Override
     public void start() {
         logger.info("{} start.", receiverName);
         afterPropertiesSet();
+        if (isChannelMode()) {
+            startChannels();
+            return;
+        }
         final DatagramSocket socket = this.socket;
         if (socket == null) {
             throw new IllegalStateException("socket is null.");
@@ -289,8 +503,16 @@ public class UDPReceiver implements DataReceiver {
         if (socket != null) {
             socket.close();
         }
+        for (DatagramChannelReader reader : channelReaders) {
+            reader.stop();
+        }
+        for (DatagramChannel channel : channels) {
+            closeChannel(channel);
+        }
         shutdownExecutor(io, "IoExecutor");
-        shutdownExecutor(worker, "WorkerExecutor");
+        if (worker != null) {
+            shutdownExecutor(worker, "WorkerExecutor");
+        }
     }
 
     private void shutdownExecutor(ExecutorService executor, String executorName) {
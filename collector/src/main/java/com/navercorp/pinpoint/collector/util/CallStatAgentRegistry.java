@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers the agents that aggregate their own outgoing call statistics.
+ * Span events of those agents must not be counted again when spans are received.
+ * An agent is forgotten when no call statistics were received from it for {@link #EXPIRE_TIME_MILLIS}.
+ */
+@Component
+public class CallStatAgentRegistry {
+
+    public static final long EXPIRE_TIME_MILLIS = 60 * 1000L;
+
+    private final ConcurrentMap<String, Long> lastReceivedTime = new ConcurrentHashMap<String, Long>();
+
+    public void register(String agentId, long receivedTime) {
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        lastReceivedTime.put(agentId, receivedTime);
+    }
+
+    public boolean isRegistered(String agentId) {
+        if (agentId == null) {
+            return false;
+        }
+        final Long receivedTime = lastReceivedTime.get(agentId);
+        if (receivedTime == null) {
+            return false;
+        }
+        if (System.currentTimeMillis() - receivedTime > EXPIRE_TIME_MILLIS) {
+            lastReceivedTime.remove(agentId, receivedTime);
+            return false;
+        }
+        return true;
+    }
+}
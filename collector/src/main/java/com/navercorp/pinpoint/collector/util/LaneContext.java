@@ -0,0 +1,87 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Holds the {@link LaneLocal} values of a single threaded lane.
+ * The lane thread attaches the context before handling a message, and flushes it periodically.
+ */
+public class LaneContext {
+
+    private static final ThreadLocal<LaneContext> CURRENT = new ThreadLocal<LaneContext>();
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String name;
+    private final Map<LaneLocal<?>, Object> values = new IdentityHashMap<LaneLocal<?>, Object>();
+
+    public LaneContext(String name) {
+        if (name == null) {
+            throw new NullPointerException("name must not be null");
+        }
+        this.name = name;
+    }
+
+    static LaneContext current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Binds this context to the current thread, which must be the only thread of the lane.
+     */
+    public void attach() {
+        CURRENT.set(this);
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T get(LaneLocal<T> laneLocal) {
+        T value = (T) values.get(laneLocal);
+        if (value == null) {
+            value = laneLocal.initialValue();
+            values.put(laneLocal, value);
+        }
+        return value;
+    }
+
+    /**
+     * Flushes every value of the lane. Called on the lane thread, or once the lane thread has terminated.
+     */
+    public void flush() {
+        for (Map.Entry<LaneLocal<?>, Object> entry : values.entrySet()) {
+            try {
+                flush(entry.getKey(), entry.getValue());
+            } catch (Exception e) {
+                logger.warn("{} flush failed. Caused:{}", name, e.getMessage(), e);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void flush(LaneLocal<T> laneLocal, Object value) {
+        laneLocal.flush((T) value);
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.util;
+
+/**
+ * A value per lane of {@link com.navercorp.pinpoint.collector.receiver.PartitionedDispatchHandler},
+ * like a {@link ThreadLocal} of the lane threads. The value is only used by its lane thread, so it needs no locking.
+ * <p>
+ * {@link #flush(Object)} is called on the lane thread every lane flush period,
+ * and once more after the lane has stopped.
+ */
+public abstract class LaneLocal<T> {
+
+    protected abstract T initialValue();
+
+    /**
+     * Writes what the value has gathered since the last flush.
+     */
+    protected abstract void flush(T value);
+
+    /**
+     * @return value of the lane of the current thread, null if the current thread is not a lane thread
+     */
+    public T get() {
+        final LaneContext laneContext = LaneContext.current();
+        if (laneContext == null) {
+            return null;
+        }
+        return laneContext.get(this);
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket refilled continuously at a fixed rate per second.
+ * Callers pass the current {@link System#nanoTime()} so that the refill can be tested.
+ */
+public class TokenBucket {
+
+    private static final double NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private double rate;
+    private double capacity;
+
+    private double tokens;
+    private long lastRefillTime;
+
+    public TokenBucket(long rate, long capacity, long currentTime) {
+        setRate(rate, capacity);
+        this.tokens = this.capacity;
+        this.lastRefillTime = currentTime;
+    }
+
+    public synchronized boolean tryAcquire(long currentTime) {
+        refill(currentTime);
+        if (tokens >= 1) {
+            tokens -= 1;
+            return true;
+        }
+        return false;
+    }
+
+    public synchronized void setRate(long rate, long capacity) {
+        if (rate <= 0) {
+            throw new IllegalArgumentException("rate must be greater than 0");
+        }
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        this.rate = rate;
+        this.capacity = capacity;
+        if (tokens > capacity) {
+            tokens = capacity;
+        }
+    }
+
+    public synchronized long getRate() {
+        return (long) rate;
+    }
+
+    private void refill(long currentTime) {
+        final long elapsed = currentTime - lastRefillTime;
+        if (elapsed <= 0) {
+            return;
+        }
+        lastRefillTime = currentTime;
+        tokens = Math.min(capacity, tokens + elapsed * rate / NANOS_PER_SECOND);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "TokenBucket{rate=" + rate + ", capacity=" + capacity + ", tokens=" + tokens + '}';
+    }
+}
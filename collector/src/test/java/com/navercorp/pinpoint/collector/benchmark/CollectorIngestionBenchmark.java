@@ -0,0 +1,340 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.benchmark;
+
+import static org.mockito.Mockito.*;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.client.Put;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import com.navercorp.pinpoint.collector.config.CollectorConfiguration;
+import com.navercorp.pinpoint.common.hbase.HBaseAdminTemplate;
+import com.navercorp.pinpoint.common.hbase.HBaseTables;
+import com.navercorp.pinpoint.common.util.BytesUtils;
+import com.navercorp.pinpoint.profiler.sender.TcpDataSender;
+import com.navercorp.pinpoint.profiler.sender.UdpDataSender;
+import com.navercorp.pinpoint.rpc.client.PinpointSocket;
+import com.navercorp.pinpoint.rpc.client.PinpointSocketFactory;
+
+/**
+ * Drives synthetic agents through the real {@link UdpDataSender}s and {@link TcpDataSender}s against a collector
+ * started in the same JVM with in-memory tables, see applicationContext-collector-benchmark.xml.
+ * Reports the sustained message rate, the latency from sending a span to its put reaching the table,
+ * drops and GC, so collector changes can be compared offline.
+ * <pre>
+ * mvn -pl collector test-compile
+ * java -cp "collector/target/test-classes:collector/target/classes:..." -Dbenchmark.agentCount=50 -Dbenchmark.spanEventCount=20 \
+ *     com.navercorp.pinpoint.collector.benchmark.CollectorIngestionBenchmark
+ * </pre>
+ * The collector reads pinpoint-collector.properties and hbase.properties as deployed.
+ * The load is shaped by the {@code benchmark.*} system properties, see {@link LoadProfile}.
+ */
+public class CollectorIngestionBenchmark {
+
+    private static final long AGENT_STAT_COLLECT_INTERVAL = 5000;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final LoadProfile profile;
+
+    private final ConcurrentMap<Long, Long> sendTimes = new ConcurrentHashMap<Long, Long>();
+    private final LatencyRecorder latencyRecorder = new LatencyRecorder(1000000);
+    private final AtomicLong transactionSequence = new AtomicLong();
+    private final AtomicLong storedSpanCount = new AtomicLong();
+    private final AtomicLong storedSpanEventCount = new AtomicLong();
+
+    private final List<SimulatedAgent> agents = new ArrayList<SimulatedAgent>();
+    private final List<UdpDataSender> udpDataSenders = new ArrayList<UdpDataSender>();
+    private final List<TcpDataSender> tcpDataSenders = new ArrayList<TcpDataSender>();
+    private final List<PinpointSocket> sockets = new ArrayList<PinpointSocket>();
+
+    private volatile boolean running = true;
+
+    public CollectorIngestionBenchmark(LoadProfile profile) {
+        if (profile == null) {
+            throw new NullPointerException("profile must not be null");
+        }
+        this.profile = profile;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final LoadProfile profile = new LoadProfile(System.getProperties());
+        final ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("applicationContext-collector-benchmark.xml");
+        try {
+            new CollectorIngestionBenchmark(profile).run(context);
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Only the SqlMetaData_Ver2 table exists, as in a fresh installation.
+     */
+    public static HBaseAdminTemplate newHBaseAdminTemplate() {
+        final HBaseAdminTemplate hBaseAdminTemplate = mock(HBaseAdminTemplate.class);
+        when(hBaseAdminTemplate.tableExists(HBaseTables.SQL_METADATA_VER2)).thenReturn(true);
+        return hBaseAdminTemplate;
+    }
+
+    public void run(ClassPathXmlApplicationContext context) throws Exception {
+        logger.info("start benchmark. {}", profile);
+        final InMemoryHTableFactory tableFactory = context.getBean(InMemoryHTableFactory.class);
+        tableFactory.setPutListener(new InMemoryHTableFactory.PutListener() {
+            @Override
+            public void onPut(String tableName, Put put) {
+                if (HBaseTables.TRACES.equals(tableName)) {
+                    recordTracesPut(put);
+                }
+            }
+        });
+
+        final PinpointSocketFactory socketFactory = new PinpointSocketFactory();
+        socketFactory.setTimeoutMillis(1000 * 5);
+        try {
+            createAgents(context.getBean(CollectorConfiguration.class), socketFactory);
+            for (SimulatedAgent agent : agents) {
+                agent.sendAgentInfoAndMetaData();
+            }
+
+            final CountDownLatch stopLatch = startGenerators();
+
+            final Snapshot start = warmup();
+            Snapshot last = start;
+            final long endTime = start.time + profile.getDurationMillis();
+            while (System.currentTimeMillis() < endTime) {
+                Thread.sleep(Math.min(profile.getReportIntervalMillis(), Math.max(1, endTime - System.currentTimeMillis())));
+                final Snapshot current = new Snapshot();
+                report("interval", last, current, false);
+                last = current;
+            }
+            final Snapshot end = new Snapshot();
+            running = false;
+            stopLatch.await();
+            waitForDrain();
+
+            report("total", start, end, true);
+            for (InMemoryHTableFactory.TableStat tableStat : tableFactory.getTableStats()) {
+                logger.info("table {}", tableStat);
+            }
+        } finally {
+            close(socketFactory);
+        }
+    }
+
+    private void recordTracesPut(Put put) {
+        final List<Cell> spanCells = put.getFamilyCellMap().get(HBaseTables.TRACES_CF_SPAN);
+        if (spanCells != null) {
+            storedSpanCount.addAndGet(spanCells.size());
+            final byte[] row = put.getRow();
+            // the row ends with the transaction sequence
+            final long sequence = BytesUtils.bytesToLong(row, row.length - BytesUtils.LONG_BYTE_LENGTH);
+            final Long sendTime = sendTimes.remove(sequence);
+            if (sendTime != null) {
+                latencyRecorder.record(System.nanoTime() - sendTime);
+            }
+        }
+        final List<Cell> spanEventCells = put.getFamilyCellMap().get(HBaseTables.TRACES_CF_TERMINALSPAN);
+        if (spanEventCells != null) {
+            storedSpanEventCount.addAndGet(spanEventCells.size());
+        }
+    }
+
+    private void createAgents(CollectorConfiguration configuration, PinpointSocketFactory socketFactory) {
+        final String host = "127.0.0.1";
+        final SimulatedAgent.TransactionListener transactionListener = new SimulatedAgent.TransactionListener() {
+            @Override
+            public void onSend(long transactionSequence, long sendNanoTime) {
+                sendTimes.put(transactionSequence, sendNanoTime);
+            }
+        };
+        for (int i = 0; i < profile.getAgentCount(); i++) {
+            final UdpDataSender spanSender = new UdpDataSender(host, configuration.getUdpSpanListenPort(), "Benchmark-UdpSpanSender-" + i,
+                    profile.getSenderQueueSize());
+            final UdpDataSender statSender = new UdpDataSender(host, configuration.getUdpStatListenPort(), "Benchmark-UdpStatSender-" + i,
+                    profile.getSenderQueueSize());
+            udpDataSenders.add(spanSender);
+            udpDataSenders.add(statSender);
+
+            final PinpointSocket socket = socketFactory.connect(host, configuration.getTcpListenPort());
+            sockets.add(socket);
+            final TcpDataSender tcpSender = new TcpDataSender(socket);
+            tcpDataSenders.add(tcpSender);
+
+            agents.add(new SimulatedAgent(profile, i, spanSender, statSender, tcpSender, transactionListener));
+        }
+    }
+
+    private CountDownLatch startGenerators() {
+        final int threadCount = Math.min(profile.getThreadCount(), agents.size());
+        final CountDownLatch stopLatch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            final List<SimulatedAgent> assigned = new ArrayList<SimulatedAgent>();
+            for (int agentIndex = i; agentIndex < agents.size(); agentIndex += threadCount) {
+                assigned.add(agents.get(agentIndex));
+            }
+            final Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        generate(assigned);
+                    } finally {
+                        stopLatch.countDown();
+                    }
+                }
+            }, "Benchmark-Generator-" + i);
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return stopLatch;
+    }
+
+    private void generate(List<SimulatedAgent> assigned) {
+        final int transactionsPerSecond = profile.getTransactionsPerSecond();
+        final long roundNanos = transactionsPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / transactionsPerSecond : 0;
+        long nextRound = System.nanoTime();
+        long nextStatCollectTime = System.currentTimeMillis();
+        while (running) {
+            for (SimulatedAgent agent : assigned) {
+                agent.runTransaction(transactionSequence.incrementAndGet());
+            }
+            final long now = System.currentTimeMillis();
+            if (now >= nextStatCollectTime) {
+                for (SimulatedAgent agent : assigned) {
+                    agent.collectAgentStat(now);
+                }
+                nextStatCollectTime = now + AGENT_STAT_COLLECT_INTERVAL;
+            }
+            if (roundNanos > 0) {
+                nextRound += roundNanos;
+                final long sleepNanos = nextRound - System.nanoTime();
+                if (sleepNanos > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private Snapshot warmup() throws InterruptedException {
+        logger.info("warmup {}ms", profile.getWarmupMillis());
+        Thread.sleep(profile.getWarmupMillis());
+        latencyRecorder.reset();
+        return new Snapshot();
+    }
+
+    private void waitForDrain() throws InterruptedException {
+        // puts may be held by the write-behind buffers of the collector
+        long last = -1;
+        for (int i = 0; i < 30; i++) {
+            final long stored = storedSpanCount.get() + storedSpanEventCount.get();
+            if (stored == last) {
+                return;
+            }
+            last = stored;
+            Thread.sleep(1000);
+        }
+    }
+
+    private void report(String name, Snapshot from, Snapshot to, boolean detail) {
+        final double seconds = Math.max(1, to.time - from.time) / 1000.0;
+        final long sentSpan = to.sentSpanCount - from.sentSpanCount;
+        final long sentMessage = to.sentMessageCount - from.sentMessageCount;
+        final long storedSpan = to.storedSpanCount - from.storedSpanCount;
+        logger.info("{} {}s sent:{}/s (span:{}/s) stored span:{}/s span event:{}/s dropped:{} latency p50:{}ms p99:{}ms gc:{} ({}ms)",
+                name, format(seconds), format(sentMessage / seconds), format(sentSpan / seconds), format(storedSpan / seconds),
+                format((to.storedSpanEventCount - from.storedSpanEventCount) / seconds), to.droppedCount - from.droppedCount,
+                format(latencyRecorder.getPercentileNanos(50) / 1000000.0), format(latencyRecorder.getPercentileNanos(99) / 1000000.0),
+                to.gcCount - from.gcCount, to.gcTimeMillis - from.gcTimeMillis);
+        if (detail) {
+            // spans sent during the measurement which were not stored after the drain
+            final long lostSpan = sentSpan - (storedSpanCount.get() - from.storedSpanCount);
+            logger.info("{} span sent:{} lost:{} span chunk sent:{} span event sent:{} stored:{} agent stat batch sent:{} metadata sent:{} " +
+                            "sender dropped:{} latency max:{}ms samples:{}",
+                    name, sentSpan, Math.max(0, lostSpan), to.sentSpanChunkCount - from.sentSpanChunkCount, to.sentSpanEventCount - from.sentSpanEventCount,
+                    storedSpanEventCount.get() - from.storedSpanEventCount, to.sentAgentStatCount - from.sentAgentStatCount,
+                    to.sentMetaDataCount - from.sentMetaDataCount, to.droppedCount - from.droppedCount,
+                    format(latencyRecorder.getMaxNanos() / 1000000.0), latencyRecorder.getCount());
+        }
+    }
+
+    private static String format(double value) {
+        return String.format("%.1f", value);
+    }
+
+    private void close(PinpointSocketFactory socketFactory) {
+        running = false;
+        for (UdpDataSender udpDataSender : udpDataSenders) {
+            udpDataSender.stop();
+        }
+        for (TcpDataSender tcpDataSender : tcpDataSenders) {
+            tcpDataSender.stop();
+        }
+        for (PinpointSocket socket : sockets) {
+            socket.close();
+        }
+        socketFactory.release();
+    }
+
+    private class Snapshot {
+        private final long time = System.currentTimeMillis();
+        private long sentSpanCount;
+        private long sentSpanChunkCount;
+        private long sentSpanEventCount;
+        private long sentAgentStatCount;
+        private long sentMetaDataCount;
+        private long sentMessageCount;
+        private long droppedCount;
+        private final long storedSpanCount = CollectorIngestionBenchmark.this.storedSpanCount.get();
+        private final long storedSpanEventCount = CollectorIngestionBenchmark.this.storedSpanEventCount.get();
+        private long gcCount;
+        private long gcTimeMillis;
+
+        private Snapshot() {
+            for (SimulatedAgent agent : agents) {
+                sentSpanCount += agent.getSentSpanCount();
+                sentSpanChunkCount += agent.getSentSpanChunkCount();
+                sentSpanEventCount += agent.getSentSpanEventCount();
+                sentAgentStatCount += agent.getSentAgentStatCount();
+                sentMetaDataCount += agent.getSentMetaDataCount();
+                droppedCount += agent.getDroppedCount();
+            }
+            sentMessageCount = sentSpanCount + sentSpanChunkCount + sentAgentStatCount + sentMetaDataCount;
+            for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gcCount += Math.max(0, gc.getCollectionCount());
+                gcTimeMillis += Math.max(0, gc.getCollectionTime());
+            }
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.benchmark;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTableInterfaceFactory;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * {@link HTableInterfaceFactory} whose tables only count the mutations they receive.
+ * Plugged into {@link com.navercorp.pinpoint.common.hbase.HbaseTemplate2} it gives an in-memory {@link com.navercorp.pinpoint.common.hbase.HbaseOperations2}
+ * which runs the whole collector write path except the HBase rpc.
+ * Reads return empty results.
+ */
+public class InMemoryHTableFactory implements HTableInterfaceFactory {
+
+    private static final Result EMPTY_RESULT = Result.create(Collections.<Cell>emptyList());
+
+    private final ConcurrentMap<String, TableStat> tableStats = new ConcurrentHashMap<String, TableStat>();
+
+    private volatile PutListener putListener;
+
+    public void setPutListener(PutListener putListener) {
+        this.putListener = putListener;
+    }
+
+    @Override
+    public HTableInterface createHTableInterface(Configuration config, byte[] tableName) {
+        final String name = Bytes.toString(tableName);
+        final InvocationHandler handler = new TableInvocationHandler(name, getTableStat(name));
+        return (HTableInterface) Proxy.newProxyInstance(HTableInterface.class.getClassLoader(), new Class[]{HTableInterface.class}, handler);
+    }
+
+    @Override
+    public void releaseHTableInterface(HTableInterface table) throws IOException {
+    }
+
+    private TableStat getTableStat(String tableName) {
+        final TableStat tableStat = tableStats.get(tableName);
+        if (tableStat != null) {
+            return tableStat;
+        }
+        final TableStat newTableStat = new TableStat(tableName);
+        final TableStat exist = tableStats.putIfAbsent(tableName, newTableStat);
+        if (exist != null) {
+            return exist;
+        }
+        return newTableStat;
+    }
+
+    public List<TableStat> getTableStats() {
+        return new ArrayList<TableStat>(tableStats.values());
+    }
+
+    public interface PutListener {
+        void onPut(String tableName, Put put);
+    }
+
+    public static class TableStat {
+        private final String tableName;
+        private final AtomicLong rpcCount = new AtomicLong();
+        private final AtomicLong mutationCount = new AtomicLong();
+        private final AtomicLong cellCount = new AtomicLong();
+        private final AtomicLong heapSize = new AtomicLong();
+
+        private TableStat(String tableName) {
+            this.tableName = tableName;
+        }
+
+        private void recordPut(Put put) {
+            mutationCount.incrementAndGet();
+            cellCount.addAndGet(put.size());
+            heapSize.addAndGet(put.heapSize());
+        }
+
+        private void recordIncrement(Increment increment) {
+            mutationCount.incrementAndGet();
+            cellCount.addAndGet(increment.size());
+            heapSize.addAndGet(increment.heapSize());
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public long getRpcCount() {
+            return rpcCount.get();
+        }
+
+        public long getMutationCount() {
+            return mutationCount.get();
+        }
+
+        public long getCellCount() {
+            return cellCount.get();
+        }
+
+        public long getHeapSize() {
+            return heapSize.get();
+        }
+
+        @Override
+        public String toString() {
+            return tableName + "{rpc=" + rpcCount + ", mutation=" + mutationCount + ", cell=" + cellCount + ", heapSize=" + heapSize + '}';
+        }
+    }
+
+    private class TableInvocationHandler implements InvocationHandler {
+        private final String tableName;
+        private final TableStat tableStat;
+
+        private TableInvocationHandler(String tableName, TableStat tableStat) {
+            this.tableName = tableName;
+            this.tableStat = tableStat;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            final String name = method.getName();
+            if ("put".equals(name)) {
+                tableStat.rpcCount.incrementAndGet();
+                if (args[0] instanceof Put) {
+                    put((Put) args[0]);
+                } else {
+                    for (Object put : (List<?>) args[0]) {
+                        put((Put) put);
+                    }
+                }
+                return null;
+            }
+            if ("batch".equals(name) && args.length == 2 && args[1] instanceof Object[]) {
+                tableStat.rpcCount.incrementAndGet();
+                final List<?> actions = (List<?>) args[0];
+                final Object[] results = (Object[]) args[1];
+                for (int i = 0; i < actions.size(); i++) {
+                    mutate(actions.get(i));
+                    results[i] = EMPTY_RESULT;
+                }
+                return null;
+            }
+            if ("increment".equals(name)) {
+                tableStat.rpcCount.incrementAndGet();
+                tableStat.recordIncrement((Increment) args[0]);
+                return EMPTY_RESULT;
+            }
+            if ("incrementColumnValue".equals(name)) {
+                tableStat.rpcCount.incrementAndGet();
+                tableStat.mutationCount.incrementAndGet();
+                tableStat.cellCount.incrementAndGet();
+                return args[3];
+            }
+            if ("get".equals(name)) {
+                if (args[0] instanceof List) {
+                    final Result[] results = new Result[((List<?>) args[0]).size()];
+                    Arrays.fill(results, EMPTY_RESULT);
+                    return results;
+                }
+                return EMPTY_RESULT;
+            }
+            if ("getScanner".equals(name)) {
+                return emptyScanner();
+            }
+            if ("getTableName".equals(name) || "getName".equals(name)) {
+                return method.getReturnType() == byte[].class ? Bytes.toBytes(tableName) : null;
+            }
+            if ("toString".equals(name)) {
+                return "InMemoryHTable{" + tableName + '}';
+            }
+            if ("hashCode".equals(name)) {
+                return System.identityHashCode(proxy);
+            }
+            if ("equals".equals(name)) {
+                return proxy == args[0];
+            }
+            return defaultValue(method.getReturnType());
+        }
+
+        private void put(Put put) {
+            tableStat.recordPut(put);
+            final PutListener putListener = InMemoryHTableFactory.this.putListener;
+            if (putListener != null) {
+                putListener.onPut(tableName, put);
+            }
+        }
+
+        private void mutate(Object action) {
+            if (action instanceof Put) {
+                put((Put) action);
+            } else if (action instanceof Increment) {
+                tableStat.recordIncrement((Increment) action);
+            }
+        }
+    }
+
+    private static ResultScanner emptyScanner() {
+        return (ResultScanner) Proxy.newProxyInstance(ResultScanner.class.getClassLoader(), new Class[]{ResultScanner.class}, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                final String name = method.getName();
+                if ("next".equals(name)) {
+                    return args == null ? null : new Result[0];
+                }
+                if ("iterator".equals(name)) {
+                    return Collections.<Result>emptyList().iterator();
+                }
+                return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        if (!type.isPrimitive() || type == void.class) {
+            return null;
+        }
+        if (type == boolean.class) {
+            return Boolean.FALSE;
+        }
+        if (type == long.class) {
+            return 0L;
+        }
+        if (type == int.class) {
+            return 0;
+        }
+        if (type == short.class) {
+            return (short) 0;
+        }
+        if (type == byte.class) {
+            return (byte) 0;
+        }
+        if (type == char.class) {
+            return (char) 0;
+        }
+        if (type == float.class) {
+            return 0f;
+        }
+        return 0d;
+    }
+}
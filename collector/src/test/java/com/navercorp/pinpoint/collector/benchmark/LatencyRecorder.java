@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the first {@code capacity} latencies of a measurement to compute exact percentiles.
+ * Latencies beyond the capacity are only counted.
+ */
+public class LatencyRecorder {
+
+    private final long[] samples;
+    private final AtomicInteger sampleCount = new AtomicInteger();
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyRecorder(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be greater than 0");
+        }
+        this.samples = new long[capacity];
+    }
+
+    public void record(long latencyNanos) {
+        count.incrementAndGet();
+        final int index = sampleCount.getAndIncrement();
+        if (index < samples.length) {
+            samples[index] = latencyNanos;
+        }
+        long current;
+        while (latencyNanos > (current = max.get())) {
+            if (max.compareAndSet(current, latencyNanos)) {
+                break;
+            }
+        }
+    }
+
+    public void reset() {
+        sampleCount.set(0);
+        count.set(0);
+        max.set(0);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * @param percentile 0 ~ 100
+     * @return latency in nanoseconds, 0 if nothing was recorded
+     */
+    public long getPercentileNanos(double percentile) {
+        final long[] sorted = snapshot();
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+        return sorted[Math.min(Math.max(index, 0), sorted.length - 1)];
+    }
+
+    private long[] snapshot() {
+        final int size = Math.min(sampleCount.get(), samples.length);
+        final long[] copy = Arrays.copyOf(samples, size);
+        Arrays.sort(copy);
+        return copy;
+    }
+}
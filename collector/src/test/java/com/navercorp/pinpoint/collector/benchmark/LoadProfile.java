@@ -0,0 +1,180 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.benchmark;
+
+import java.util.Properties;
+
+/**
+ * Shape of the load generated by {@link CollectorIngestionBenchmark}, read from {@code benchmark.*} properties.
+ */
+public class LoadProfile {
+
+    private final int agentCount;
+    private final int threadCount;
+    private final int transactionsPerSecond;
+    private final int samplingRate;
+    private final int spanEventCount;
+    private final int spanChunkSize;
+    private final int annotationSize;
+    private final int apiCount;
+    private final int sqlCount;
+    private final int stringCount;
+    private final int statBatchSize;
+    private final long statSendIntervalMillis;
+    private final int senderQueueSize;
+    private final long warmupMillis;
+    private final long durationMillis;
+    private final long reportIntervalMillis;
+
+    public LoadProfile(Properties properties) {
+        this.agentCount = readInt(properties, "benchmark.agentCount", 10);
+        this.threadCount = readInt(properties, "benchmark.threadCount", Math.min(agentCount, 8));
+        // per agent, 0 : as fast as possible
+        this.transactionsPerSecond = readInt(properties, "benchmark.transactionsPerSecond", 100);
+        // 1 out of n transactions is traced
+        this.samplingRate = readInt(properties, "benchmark.samplingRate", 1);
+        this.spanEventCount = readInt(properties, "benchmark.spanEventCount", 10);
+        // span events are sent in span chunks of this size, the rest with the span. 0 : all with the span
+        this.spanChunkSize = readInt(properties, "benchmark.spanChunkSize", 0);
+        this.annotationSize = readInt(properties, "benchmark.annotationSize", 64);
+        this.apiCount = readInt(properties, "benchmark.apiCount", 100);
+        this.sqlCount = readInt(properties, "benchmark.sqlCount", 50);
+        this.stringCount = readInt(properties, "benchmark.stringCount", 20);
+        this.statBatchSize = readInt(properties, "benchmark.statBatchSize", 6);
+        this.statSendIntervalMillis = readLong(properties, "benchmark.statSendInterval", 30000);
+        this.senderQueueSize = readInt(properties, "benchmark.senderQueueSize", 1024 * 5);
+        this.warmupMillis = readLong(properties, "benchmark.warmup", 10000);
+        this.durationMillis = readLong(properties, "benchmark.duration", 60000);
+        this.reportIntervalMillis = readLong(properties, "benchmark.reportInterval", 5000);
+
+        if (agentCount <= 0) {
+            throw new IllegalArgumentException("benchmark.agentCount must be greater than 0");
+        }
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("benchmark.threadCount must be greater than 0");
+        }
+        if (samplingRate <= 0) {
+            throw new IllegalArgumentException("benchmark.samplingRate must be greater than 0");
+        }
+        if (apiCount <= 0 || sqlCount <= 0 || stringCount <= 0) {
+            throw new IllegalArgumentException("metadata count must be greater than 0");
+        }
+    }
+
+    private static int readInt(Properties properties, String key, int defaultValue) {
+        final String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        return Integer.parseInt(value.trim());
+    }
+
+    private static long readLong(Properties properties, String key, long defaultValue) {
+        final String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        return Long.parseLong(value.trim());
+    }
+
+    public int getAgentCount() {
+        return agentCount;
+    }
+
+    public int getThreadCount() {
+        return threadCount;
+    }
+
+    public int getTransactionsPerSecond() {
+        return transactionsPerSecond;
+    }
+
+    public int getSamplingRate() {
+        return samplingRate;
+    }
+
+    public int getSpanEventCount() {
+        return spanEventCount;
+    }
+
+    public int getSpanChunkSize() {
+        return spanChunkSize;
+    }
+
+    public int getAnnotationSize() {
+        return annotationSize;
+    }
+
+    public int getApiCount() {
+        return apiCount;
+    }
+
+    public int getSqlCount() {
+        return sqlCount;
+    }
+
+    public int getStringCount() {
+        return stringCount;
+    }
+
+    public int getStatBatchSize() {
+        return statBatchSize;
+    }
+
+    public long getStatSendIntervalMillis() {
+        return statSendIntervalMillis;
+    }
+
+    public int getSenderQueueSize() {
+        return senderQueueSize;
+    }
+
+    public long getWarmupMillis() {
+        return warmupMillis;
+    }
+
+    public long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public long getReportIntervalMillis() {
+        return reportIntervalMillis;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("LoadProfile{");
+        sb.append("agentCount=").append(agentCount);
+        sb.append(", threadCount=").append(threadCount);
+        sb.append(", transactionsPerSecond=").append(transactionsPerSecond);
+        sb.append(", samplingRate=").append(samplingRate);
+        sb.append(", spanEventCount=").append(spanEventCount);
+        sb.append(", spanChunkSize=").append(spanChunkSize);
+        sb.append(", annotationSize=").append(annotationSize);
+        sb.append(", apiCount=").append(apiCount);
+        sb.append(", sqlCount=").append(sqlCount);
+        sb.append(", stringCount=").append(stringCount);
+        sb.append(", statBatchSize=").append(statBatchSize);
+        sb.append(", statSendIntervalMillis=").append(statSendIntervalMillis);
+        sb.append(", senderQueueSize=").append(senderQueueSize);
+        sb.append(", warmupMillis=").append(warmupMillis);
+        sb.append(", durationMillis=").append(durationMillis);
+        sb.append('}');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,337 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.thrift.TBase;
+
+import com.navercorp.pinpoint.common.trace.AnnotationKey;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.profiler.sender.DataSender;
+import com.navercorp.pinpoint.profiler.sender.EnhancedDataSender;
+import com.navercorp.pinpoint.thrift.dto.TAgentInfo;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TAgentStatBatch;
+import com.navercorp.pinpoint.thrift.dto.TAnnotation;
+import com.navercorp.pinpoint.thrift.dto.TAnnotationValue;
+import com.navercorp.pinpoint.thrift.dto.TApiMetaData;
+import com.navercorp.pinpoint.thrift.dto.TCpuLoad;
+import com.navercorp.pinpoint.thrift.dto.TIntStringStringValue;
+import com.navercorp.pinpoint.thrift.dto.TJvmGc;
+import com.navercorp.pinpoint.thrift.dto.TJvmGcType;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+import com.navercorp.pinpoint.thrift.dto.TSqlMetaData;
+import com.navercorp.pinpoint.thrift.dto.TStringMetaData;
+
+/**
+ * Builds the span, span chunk, agent stat and metadata stream of a single agent and sends it
+ * with the profiler's {@link DataSender}s.
+ * Not thread safe, an agent is driven by a single thread at a time.
+ */
+public class SimulatedAgent {
+
+    private static final short SERVICE_TYPE = ServiceType.STAND_ALONE.getCode();
+
+    private final LoadProfile profile;
+    private final String agentId;
+    private final String applicationName;
+    private final long agentStartTime;
+
+    private final DataSender spanSender;
+    private final DataSender statSender;
+    private final EnhancedDataSender tcpSender;
+    private final TransactionListener transactionListener;
+
+    private final Random random;
+    private final String annotationValue;
+
+    private long transactionCount;
+    private final List<TAgentStat> agentStats = new ArrayList<TAgentStat>();
+    private long lastStatSendTime;
+
+    private final AtomicLong sentSpanCount = new AtomicLong();
+    private final AtomicLong sentSpanChunkCount = new AtomicLong();
+    private final AtomicLong sentSpanEventCount = new AtomicLong();
+    private final AtomicLong sentAgentStatCount = new AtomicLong();
+    private final AtomicLong sentMetaDataCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    public SimulatedAgent(LoadProfile profile, int agentIndex, DataSender spanSender, DataSender statSender, EnhancedDataSender tcpSender,
+                          TransactionListener transactionListener) {
+        if (profile == null) {
+            throw new NullPointerException("profile must not be null");
+        }
+        this.profile = profile;
+        this.applicationName = "BENCHMARK-APP-" + (agentIndex % 10);
+        this.agentId = "benchmark-" + agentIndex;
+        this.agentStartTime = System.currentTimeMillis();
+        this.spanSender = spanSender;
+        this.statSender = statSender;
+        this.tcpSender = tcpSender;
+        this.transactionListener = transactionListener;
+        this.random = new Random(agentIndex);
+
+        final char[] chars = new char[profile.getAnnotationSize()];
+        Arrays.fill(chars, 'a');
+        this.annotationValue = new String(chars);
+        this.lastStatSendTime = System.currentTimeMillis();
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public long getAgentStartTime() {
+        return agentStartTime;
+    }
+
+    /**
+     * Sends the agent info and every api, sql and string metadata, as an agent does while it warms up.
+     */
+    public void sendAgentInfoAndMetaData() {
+        final TAgentInfo agentInfo = new TAgentInfo();
+        agentInfo.setAgentId(agentId);
+        agentInfo.setApplicationName(applicationName);
+        agentInfo.setHostname(agentId);
+        agentInfo.setIp("127.0.0.1");
+        agentInfo.setPorts("");
+        agentInfo.setServiceType(SERVICE_TYPE);
+        agentInfo.setPid(1);
+        agentInfo.setAgentVersion("benchmark");
+        agentInfo.setStartTimestamp(agentStartTime);
+        request(agentInfo);
+
+        for (int apiId = 1; apiId <= profile.getApiCount(); apiId++) {
+            final TApiMetaData apiMetaData = new TApiMetaData();
+            apiMetaData.setAgentId(agentId);
+            apiMetaData.setAgentStartTime(agentStartTime);
+            apiMetaData.setApiId(apiId);
+            apiMetaData.setApiInfo("com.navercorp.benchmark.Service" + (apiId % 10) + ".method" + apiId + "(java.lang.String, int)");
+            apiMetaData.setLine(apiId);
+            request(apiMetaData);
+        }
+        for (int sqlId = 1; sqlId <= profile.getSqlCount(); sqlId++) {
+            final TSqlMetaData sqlMetaData = new TSqlMetaData();
+            sqlMetaData.setAgentId(agentId);
+            sqlMetaData.setAgentStartTime(agentStartTime);
+            sqlMetaData.setSqlId(sqlId);
+            sqlMetaData.setSql("SELECT id, name, value FROM benchmark_table_" + sqlId + " WHERE id = ? AND status = ?");
+            request(sqlMetaData);
+        }
+        for (int stringId = 1; stringId <= profile.getStringCount(); stringId++) {
+            final TStringMetaData stringMetaData = new TStringMetaData();
+            stringMetaData.setAgentId(agentId);
+            stringMetaData.setAgentStartTime(agentStartTime);
+            stringMetaData.setStringId(stringId);
+            stringMetaData.setStringValue("benchmark.string." + stringId);
+            request(stringMetaData);
+        }
+    }
+
+    private void request(TBase<?, ?> data) {
+        if (tcpSender.request(data)) {
+            sentMetaDataCount.incrementAndGet();
+        } else {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Runs a single transaction, which is traced by the sampling rate.
+     */
+    public void runTransaction(long transactionSequence) {
+        final long transactionCount = this.transactionCount++;
+        if (transactionCount % profile.getSamplingRate() != 0) {
+            return;
+        }
+
+        final long startTime = System.currentTimeMillis();
+        final byte[] transactionId = TransactionIdUtils.formatBytes(agentId, agentStartTime, transactionSequence);
+        final long spanId = random.nextLong();
+        final List<TSpanEvent> spanEventList = newSpanEventList();
+
+        if (transactionListener != null) {
+            transactionListener.onSend(transactionSequence, System.nanoTime());
+        }
+        // span chunks go before the span as the profiler flushes them while the transaction is running
+        final int chunkSize = profile.getSpanChunkSize();
+        int sent = 0;
+        if (chunkSize > 0) {
+            while (spanEventList.size() - sent >= chunkSize) {
+                final TSpanChunk spanChunk = newSpanChunk(transactionId, spanId, spanEventList.subList(sent, sent + chunkSize));
+                send(spanSender, spanChunk, sentSpanChunkCount, chunkSize);
+                sent += chunkSize;
+            }
+        }
+
+        final TSpan span = new TSpan();
+        span.setAgentId(agentId);
+        span.setApplicationName(applicationName);
+        span.setAgentStartTime(agentStartTime);
+        span.setTransactionId(transactionId);
+        span.setSpanId(spanId);
+        span.setParentSpanId(-1);
+        span.setStartTime(startTime);
+        span.setElapsed(random.nextInt(500));
+        final int apiId = (int) (transactionSequence % profile.getApiCount()) + 1;
+        span.setRpc("/benchmark/api/" + apiId);
+        span.setServiceType(SERVICE_TYPE);
+        span.setApplicationServiceType(SERVICE_TYPE);
+        span.setEndPoint(agentId + ":8080");
+        span.setRemoteAddr("10.0.0." + random.nextInt(256));
+        span.setApiId(apiId);
+        span.setAnnotations(newAnnotationList(AnnotationKey.HTTP_URL.getCode()));
+        final List<TSpanEvent> rest = spanEventList.subList(sent, spanEventList.size());
+        if (!rest.isEmpty()) {
+            span.setSpanEventList(new ArrayList<TSpanEvent>(rest));
+        }
+        send(spanSender, span, sentSpanCount, rest.size());
+    }
+
+    private List<TSpanEvent> newSpanEventList() {
+        final int spanEventCount = profile.getSpanEventCount();
+        final List<TSpanEvent> spanEventList = new ArrayList<TSpanEvent>(spanEventCount);
+        for (int i = 0; i < spanEventCount; i++) {
+            final TSpanEvent spanEvent = new TSpanEvent();
+            spanEvent.setSequence((short) i);
+            spanEvent.setDepth(1 + i % 3);
+            spanEvent.setStartElapsed(i);
+            spanEvent.setEndElapsed(1 + random.nextInt(20));
+            spanEvent.setApiId(1 + random.nextInt(profile.getApiCount()));
+            if (i % 3 == 2) {
+                spanEvent.setServiceType(ServiceType.UNKNOWN_DB_EXECUTE_QUERY.getCode());
+                spanEvent.setDestinationId("BENCHMARK_DB");
+                spanEvent.setEndPoint("benchmark-db:3306");
+                final TIntStringStringValue sql = new TIntStringStringValue(1 + random.nextInt(profile.getSqlCount()));
+                sql.setStringValue2("1, 'ready'");
+                final TAnnotation annotation = new TAnnotation(AnnotationKey.SQL_ID.getCode());
+                annotation.setValue(TAnnotationValue.intStringStringValue(sql));
+                final List<TAnnotation> annotations = new ArrayList<TAnnotation>(1);
+                annotations.add(annotation);
+                spanEvent.setAnnotations(annotations);
+            } else {
+                spanEvent.setServiceType(ServiceType.INTERNAL_METHOD.getCode());
+                spanEvent.setAnnotations(newAnnotationList(AnnotationKey.ARGS0.getCode()));
+            }
+            spanEventList.add(spanEvent);
+        }
+        return spanEventList;
+    }
+
+    private List<TAnnotation> newAnnotationList(int key) {
+        final TAnnotation annotation = new TAnnotation(key);
+        annotation.setValue(TAnnotationValue.stringValue(annotationValue));
+        final List<TAnnotation> annotations = new ArrayList<TAnnotation>(1);
+        annotations.add(annotation);
+        return annotations;
+    }
+
+    private TSpanChunk newSpanChunk(byte[] transactionId, long spanId, List<TSpanEvent> spanEventList) {
+        final TSpanChunk spanChunk = new TSpanChunk();
+        spanChunk.setAgentId(agentId);
+        spanChunk.setApplicationName(applicationName);
+        spanChunk.setAgentStartTime(agentStartTime);
+        spanChunk.setServiceType(SERVICE_TYPE);
+        spanChunk.setApplicationServiceType(SERVICE_TYPE);
+        spanChunk.setTransactionId(transactionId);
+        spanChunk.setSpanId(spanId);
+        spanChunk.setEndPoint(agentId + ":8080");
+        spanChunk.setSpanEventList(new ArrayList<TSpanEvent>(spanEventList));
+        return spanChunk;
+    }
+
+    /**
+     * Collects an agent stat, and sends the collected stats once the send interval has passed.
+     */
+    public void collectAgentStat(long now) {
+        final TAgentStat agentStat = new TAgentStat();
+        agentStat.setAgentId(agentId);
+        agentStat.setStartTimestamp(agentStartTime);
+        agentStat.setTimestamp(now);
+        final TJvmGc gc = new TJvmGc();
+        gc.setType(TJvmGcType.CMS);
+        gc.setJvmMemoryHeapUsed(random.nextInt(1024) * 1024L * 1024L);
+        gc.setJvmMemoryHeapMax(1024L * 1024L * 1024L);
+        gc.setJvmMemoryNonHeapUsed(random.nextInt(128) * 1024L * 1024L);
+        gc.setJvmMemoryNonHeapMax(256L * 1024L * 1024L);
+        gc.setJvmGcOldCount(transactionCount / 10000);
+        gc.setJvmGcOldTime(transactionCount / 1000);
+        agentStat.setGc(gc);
+        final TCpuLoad cpuLoad = new TCpuLoad();
+        cpuLoad.setJvmCpuLoad(random.nextDouble());
+        cpuLoad.setSystemCpuLoad(random.nextDouble());
+        agentStat.setCpuLoad(cpuLoad);
+        agentStats.add(agentStat);
+
+        if (agentStats.size() < profile.getStatBatchSize() && now - lastStatSendTime < profile.getStatSendIntervalMillis()) {
+            return;
+        }
+        final TAgentStatBatch agentStatBatch = new TAgentStatBatch();
+        agentStatBatch.setAgentId(agentId);
+        agentStatBatch.setStartTimestamp(agentStartTime);
+        agentStatBatch.setAgentStats(new ArrayList<TAgentStat>(agentStats));
+        send(statSender, agentStatBatch, sentAgentStatCount, 0);
+        agentStats.clear();
+        lastStatSendTime = now;
+    }
+
+    private void send(DataSender sender, TBase<?, ?> data, AtomicLong counter, int spanEventCount) {
+        if (sender.send(data)) {
+            counter.incrementAndGet();
+            sentSpanEventCount.addAndGet(spanEventCount);
+        } else {
+            droppedCount.incrementAndGet();
+        }
+    }
+
+    public long getSentSpanCount() {
+        return sentSpanCount.get();
+    }
+
+    public long getSentSpanChunkCount() {
+        return sentSpanChunkCount.get();
+    }
+
+    public long getSentSpanEventCount() {
+        return sentSpanEventCount.get();
+    }
+
+    public long getSentAgentStatCount() {
+        return sentAgentStatCount.get();
+    }
+
+    public long getSentMetaDataCount() {
+        return sentMetaDataCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public interface TransactionListener {
+        void onSend(long transactionSequence, long sendNanoTime);
+    }
+}
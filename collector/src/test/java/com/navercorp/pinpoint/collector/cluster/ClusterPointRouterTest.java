@@ -0,0 +1,118 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.cluster;
+
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+
+import org.jboss.netty.channel.Channel;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.navercorp.pinpoint.collector.cluster.route.DefaultRouteFilterChain;
+import com.navercorp.pinpoint.collector.cluster.route.DefaultRouteHandler;
+import com.navercorp.pinpoint.collector.cluster.route.RequestEvent;
+import com.navercorp.pinpoint.collector.cluster.route.ResponseEvent;
+import com.navercorp.pinpoint.collector.cluster.route.StreamRouteHandler;
+import com.navercorp.pinpoint.common.Version;
+import com.navercorp.pinpoint.rpc.DefaultFuture;
+import com.navercorp.pinpoint.rpc.ResponseMessage;
+import com.navercorp.pinpoint.rpc.packet.RequestPacket;
+import com.navercorp.pinpoint.rpc.packet.ResponsePacket;
+import com.navercorp.pinpoint.thrift.dto.command.TCmdActiveThreadCount;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransfer;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransferBatch;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransferBatchResponse;
+import com.navercorp.pinpoint.thrift.dto.command.TRouteResult;
+import com.navercorp.pinpoint.thrift.io.CommandHeaderTBaseDeserializerFactory;
+import com.navercorp.pinpoint.thrift.io.CommandHeaderTBaseSerializerFactory;
+import com.navercorp.pinpoint.thrift.util.SerializationUtils;
+
+public class ClusterPointRouterTest {
+
+    private static final String APPLICATION_NAME = "application";
+    private static final long START_TIME = 1451606400000L;
+
+    private final CommandHeaderTBaseSerializerFactory serializerFactory = new CommandHeaderTBaseSerializerFactory(Version.VERSION);
+    private final CommandHeaderTBaseDeserializerFactory deserializerFactory = new CommandHeaderTBaseDeserializerFactory(Version.VERSION);
+
+    private ClusterPointRepository<TargetClusterPoint> clusterPointRepository;
+    private ClusterPointRouter router;
+
+    @Before
+    public void setUp() {
+        clusterPointRepository = new ClusterPointRepository<TargetClusterPoint>();
+        DefaultRouteHandler routeHandler = new DefaultRouteHandler(clusterPointRepository, new DefaultRouteFilterChain<RequestEvent>(), new DefaultRouteFilterChain<ResponseEvent>());
+        router = new ClusterPointRouter(clusterPointRepository, routeHandler, mock(StreamRouteHandler.class));
+        ReflectionTestUtils.setField(router, "commandSerializerFactory", serializerFactory);
+        ReflectionTestUtils.setField(router, "commandDeserializerFactory", deserializerFactory);
+    }
+
+    @Test
+    public void handleRouteBatchRequest() throws Exception {
+        addClusterPoint("agent1", "response1");
+        addClusterPoint("agent3", "response3");
+
+        TCommandTransferBatch batch = new TCommandTransferBatch();
+        batch.setPayload(SerializationUtils.serialize(new TCmdActiveThreadCount(), serializerFactory));
+        batch.setTransferList(Arrays.asList(newTransfer("agent1"), newTransfer("agent2"), newTransfer("agent3")));
+
+        Channel channel = mock(Channel.class);
+        router.handleRequest(new RequestPacket(10, SerializationUtils.serialize(batch, serializerFactory)), channel);
+
+        ArgumentCaptor<ResponsePacket> captor = ArgumentCaptor.forClass(ResponsePacket.class);
+        verify(channel).write(captor.capture());
+        ResponsePacket responsePacket = captor.getValue();
+        Assert.assertEquals(10, responsePacket.getRequestId());
+
+        TCommandTransferBatchResponse response = (TCommandTransferBatchResponse) SerializationUtils.deserialize(responsePacket.getPayload(), deserializerFactory);
+        Assert.assertEquals(3, response.getResponseListSize());
+        Assert.assertEquals(TRouteResult.OK, response.getResponseList().get(0).getRouteResult());
+        Assert.assertEquals("response1", new String(response.getResponseList().get(0).getPayload()));
+        Assert.assertEquals(TRouteResult.NOT_FOUND, response.getResponseList().get(1).getRouteResult());
+        Assert.assertEquals(TRouteResult.OK, response.getResponseList().get(2).getRouteResult());
+        Assert.assertEquals("response3", new String(response.getResponseList().get(2).getPayload()));
+    }
+
+    private void addClusterPoint(String agentId, String response) {
+        ResponseMessage responseMessage = new ResponseMessage();
+        responseMessage.setMessage(response.getBytes());
+        DefaultFuture<ResponseMessage> future = new DefaultFuture<ResponseMessage>(1000);
+        future.setResult(responseMessage);
+
+        TargetClusterPoint clusterPoint = mock(TargetClusterPoint.class);
+        when(clusterPoint.getApplicationName()).thenReturn(APPLICATION_NAME);
+        when(clusterPoint.getAgentId()).thenReturn(agentId);
+        when(clusterPoint.getStartTimeStamp()).thenReturn(START_TIME);
+        when(clusterPoint.gerVersion()).thenReturn(Version.VERSION);
+        when(clusterPoint.request(any(byte[].class))).thenReturn(future);
+        clusterPointRepository.addClusterPoint(clusterPoint);
+    }
+
+    private TCommandTransfer newTransfer(String agentId) {
+        TCommandTransfer transfer = new TCommandTransfer();
+        transfer.setApplicationName(APPLICATION_NAME);
+        transfer.setAgentId(agentId);
+        transfer.setStartTime(START_TIME);
+        return transfer;
+    }
+}
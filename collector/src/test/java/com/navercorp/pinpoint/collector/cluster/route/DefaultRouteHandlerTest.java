@@ -0,0 +1,162 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.cluster.route;
+
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jboss.netty.channel.Channel;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.navercorp.pinpoint.collector.cluster.ClusterPointRepository;
+import com.navercorp.pinpoint.collector.cluster.TargetClusterPoint;
+import com.navercorp.pinpoint.collector.cluster.route.filter.RouteFilter;
+import com.navercorp.pinpoint.common.Version;
+import com.navercorp.pinpoint.rpc.DefaultFuture;
+import com.navercorp.pinpoint.rpc.Future;
+import com.navercorp.pinpoint.rpc.ResponseMessage;
+import com.navercorp.pinpoint.thrift.dto.command.TCmdActiveThreadCount;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransfer;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransferResponse;
+import com.navercorp.pinpoint.thrift.dto.command.TRouteResult;
+
+public class DefaultRouteHandlerTest {
+
+    private static final String APPLICATION_NAME = "application";
+    private static final long START_TIME = 1451606400000L;
+
+    private ClusterPointRepository<TargetClusterPoint> clusterPointRepository;
+    private DefaultRouteHandler routeHandler;
+    private final List<String> respondedAgentIdList = new ArrayList<String>();
+
+    @Before
+    public void setUp() {
+        clusterPointRepository = new ClusterPointRepository<TargetClusterPoint>();
+        routeHandler = new DefaultRouteHandler(clusterPointRepository, new DefaultRouteFilterChain<RequestEvent>(), new DefaultRouteFilterChain<ResponseEvent>());
+        routeHandler.addResponseFilter(new RouteFilter<ResponseEvent>() {
+            @Override
+            public void doEvent(ResponseEvent event) {
+                respondedAgentIdList.add(event.getDeliveryCommand().getAgentId());
+            }
+        });
+    }
+
+    @Test
+    public void routeBatch() {
+        final DefaultFuture<ResponseMessage> agent1Future = new DefaultFuture<ResponseMessage>(1000);
+        final TargetClusterPoint agent1 = addClusterPoint("agent1", Version.VERSION);
+        when(agent1.request(any(byte[].class))).thenReturn(agent1Future);
+
+        // agent1 answers only once agent3 has been requested, so every request must be sent before waiting
+        final TargetClusterPoint agent3 = addClusterPoint("agent3", Version.VERSION);
+        when(agent3.request(any(byte[].class))).thenAnswer(new Answer<Future>() {
+            @Override
+            public Future answer(InvocationOnMock invocation) throws Throwable {
+                agent1Future.setResult(newResponseMessage("agent1"));
+                final DefaultFuture<ResponseMessage> future = new DefaultFuture<ResponseMessage>(1000);
+                future.setResult(newResponseMessage("agent3"));
+                return future;
+            }
+        });
+
+        // does not know the active thread count command
+        final TargetClusterPoint agent4 = addClusterPoint("agent4", "1.0.2");
+
+        final List<RequestEvent> eventList = Arrays.asList(newRequestEvent("agent1"), newRequestEvent("agent2"), newRequestEvent("agent3"), newRequestEvent("agent4"));
+        final List<TCommandTransferResponse> responseList = routeHandler.onRoute(eventList);
+
+        Assert.assertEquals(4, responseList.size());
+        assertResponse(TRouteResult.OK, "agent1", responseList.get(0));
+        assertResponse(TRouteResult.NOT_FOUND, "", responseList.get(1));
+        assertResponse(TRouteResult.OK, "agent3", responseList.get(2));
+        assertResponse(TRouteResult.NOT_SUPPORTED_REQUEST, "", responseList.get(3));
+        verify(agent4, never()).request(any(byte[].class));
+
+        Assert.assertEquals(Arrays.asList("agent1", "agent2", "agent3", "agent4"), respondedAgentIdList);
+    }
+
+    @Test
+    public void routeBatchWithHungAgent() {
+        addAnsweringClusterPoint("agent1");
+        // never answers
+        final TargetClusterPoint agent2 = addClusterPoint("agent2", Version.VERSION);
+        when(agent2.request(any(byte[].class))).thenReturn(new DefaultFuture<ResponseMessage>(60000));
+        addAnsweringClusterPoint("agent3");
+
+        final List<RequestEvent> eventList = Arrays.asList(newRequestEvent("agent1"), newRequestEvent("agent2"), newRequestEvent("agent3"));
+        final long startTime = System.currentTimeMillis();
+        final List<TCommandTransferResponse> responseList = routeHandler.onRoute(eventList, 200);
+        final long elapsed = System.currentTimeMillis() - startTime;
+
+        Assert.assertTrue("elapsed:" + elapsed, elapsed < 5000);
+        assertResponse(TRouteResult.OK, "agent1", responseList.get(0));
+        assertResponse(TRouteResult.TIMEOUT, "", responseList.get(1));
+        assertResponse(TRouteResult.OK, "agent3", responseList.get(2));
+        Assert.assertEquals(Arrays.asList("agent1", "agent2", "agent3"), respondedAgentIdList);
+    }
+
+    @Test
+    public void routeEmptyBatch() {
+        Assert.assertTrue(routeHandler.onRoute(new ArrayList<RequestEvent>()).isEmpty());
+    }
+
+    private TargetClusterPoint addAnsweringClusterPoint(String agentId) {
+        final TargetClusterPoint clusterPoint = addClusterPoint(agentId, Version.VERSION);
+        final DefaultFuture<ResponseMessage> future = new DefaultFuture<ResponseMessage>(1000);
+        future.setResult(newResponseMessage(agentId));
+        when(clusterPoint.request(any(byte[].class))).thenReturn(future);
+        return clusterPoint;
+    }
+
+    private TargetClusterPoint addClusterPoint(String agentId, String version) {
+        final TargetClusterPoint clusterPoint = mock(TargetClusterPoint.class);
+        when(clusterPoint.getApplicationName()).thenReturn(APPLICATION_NAME);
+        when(clusterPoint.getAgentId()).thenReturn(agentId);
+        when(clusterPoint.getStartTimeStamp()).thenReturn(START_TIME);
+        when(clusterPoint.gerVersion()).thenReturn(version);
+        clusterPointRepository.addClusterPoint(clusterPoint);
+        return clusterPoint;
+    }
+
+    private RequestEvent newRequestEvent(String agentId) {
+        final TCommandTransfer transfer = new TCommandTransfer();
+        transfer.setApplicationName(APPLICATION_NAME);
+        transfer.setAgentId(agentId);
+        transfer.setStartTime(START_TIME);
+        transfer.setPayload(new byte[] {1});
+        return new RequestEvent(transfer, mock(Channel.class), 1, new TCmdActiveThreadCount());
+    }
+
+    private ResponseMessage newResponseMessage(String message) {
+        final ResponseMessage responseMessage = new ResponseMessage();
+        responseMessage.setMessage(message.getBytes());
+        return responseMessage;
+    }
+
+    private void assertResponse(TRouteResult routeResult, String payload, TCommandTransferResponse response) {
+        Assert.assertEquals(routeResult, response.getRouteResult());
+        Assert.assertEquals(payload, new String(response.getPayload()));
+    }
+}
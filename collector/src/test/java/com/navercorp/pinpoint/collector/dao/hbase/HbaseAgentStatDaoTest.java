@@ -0,0 +1,153 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase;
+
+import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.navercorp.pinpoint.collector.mapper.thrift.AgentStatCpuLoadBoMapper;
+import com.navercorp.pinpoint.collector.mapper.thrift.AgentStatMemoryGcBoMapper;
+import com.navercorp.pinpoint.common.bo.AgentStatBlockBo;
+import com.navercorp.pinpoint.common.hbase.BufferedPutWriter;
+import com.navercorp.pinpoint.common.util.RowKeyUtils;
+import com.navercorp.pinpoint.common.util.TimeUtils;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TCpuLoad;
+import com.navercorp.pinpoint.thrift.dto.TJvmGc;
+import com.navercorp.pinpoint.thrift.dto.TJvmGcType;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+
+public class HbaseAgentStatDaoTest {
+
+    private static final String AGENT_ID = "agentId";
+    private static final long START_TIMESTAMP = 1451606000000L;
+    private static final long BLOCK_TIMESTAMP = 1451606400000L;
+
+    @Mock
+    private BufferedPutWriter putWriter;
+
+    @Mock
+    private AbstractRowKeyDistributor rowKeyDistributor;
+
+    @InjectMocks
+    private HbaseAgentStatDao agentStatDao = new HbaseAgentStatDao();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(rowKeyDistributor.getDistributedKey(any(byte[].class))).thenAnswer(new Answer<byte[]>() {
+            @Override
+            public byte[] answer(InvocationOnMock invocation) throws Throwable {
+                return (byte[]) invocation.getArguments()[0];
+            }
+        });
+        ReflectionTestUtils.setField(agentStatDao, "agentStatMemoryGcBoMapper", new AgentStatMemoryGcBoMapper());
+        ReflectionTestUtils.setField(agentStatDao, "agentStatCpuLoadBoMapper", new AgentStatCpuLoadBoMapper());
+        ReflectionTestUtils.setField(agentStatDao, "blockEnable", true);
+    }
+
+    @Test
+    public void insertBatchSpanningTwoBlocks() {
+        final long nextBlockTimestamp = BLOCK_TIMESTAMP + AGENT_STAT_BLOCK_SIZE;
+        // out of order on purpose, samples are sorted before being split into blocks
+        List<TAgentStat> agentStats = Arrays.asList(createAgentStat(nextBlockTimestamp + 5000), createAgentStat(BLOCK_TIMESTAMP + 290000),
+                createAgentStat(nextBlockTimestamp), createAgentStat(BLOCK_TIMESTAMP + 295000));
+
+        agentStatDao.insert(agentStats);
+
+        ArgumentCaptor<Put> captor = ArgumentCaptor.forClass(Put.class);
+        verify(putWriter, times(2)).put(eq(AGENT_STAT), captor.capture());
+        List<Put> puts = captor.getAllValues();
+        assertBlock(puts.get(0), BLOCK_TIMESTAMP, 290000, BLOCK_TIMESTAMP + 290000, BLOCK_TIMESTAMP + 295000);
+        assertBlock(puts.get(1), nextBlockTimestamp, 0, nextBlockTimestamp, nextBlockTimestamp + 5000);
+    }
+
+    @Test
+    public void insertWithoutBlock() {
+        ReflectionTestUtils.setField(agentStatDao, "blockEnable", false);
+        agentStatDao.insert(Arrays.asList(createAgentStat(BLOCK_TIMESTAMP), createAgentStat(BLOCK_TIMESTAMP + 5000)));
+
+        ArgumentCaptor<Put> captor = ArgumentCaptor.forClass(Put.class);
+        verify(putWriter, times(2)).put(eq(AGENT_STAT), captor.capture());
+        Put put = captor.getAllValues().get(1);
+        Assert.assertArrayEquals(getRowKey(BLOCK_TIMESTAMP + 5000), put.getRow());
+        Assert.assertEquals(1, put.get(AGENT_STAT_CF_STATISTICS, AGENT_STAT_CF_STATISTICS_MEMORY_GC).size());
+        Assert.assertEquals(1, put.get(AGENT_STAT_CF_STATISTICS, AGENT_STAT_CF_STATISTICS_CPU_LOAD).size());
+    }
+
+    private void assertBlock(Put put, long blockTimestamp, int offset, long... timestamps) {
+        Assert.assertArrayEquals(getRowKey(blockTimestamp), put.getRow());
+
+        List<Cell> cells = put.get(AGENT_STAT_CF_STATISTICS, Bytes.add(AGENT_STAT_CF_STATISTICS_BLOCK, Bytes.toBytes(offset)));
+        Assert.assertEquals(1, cells.size());
+        Cell cell = cells.get(0);
+        Assert.assertEquals(timestamps[timestamps.length - 1], cell.getTimestamp());
+
+        AgentStatBlockBo agentStatBlockBo = AgentStatBlockBo.readValue(CellUtil.cloneValue(cell));
+        Assert.assertEquals(AGENT_ID, agentStatBlockBo.getAgentId());
+        Assert.assertEquals(START_TIMESTAMP, agentStatBlockBo.getStartTimestamp());
+        Assert.assertEquals(timestamps.length, agentStatBlockBo.size());
+        for (int i = 0; i < timestamps.length; i++) {
+            Assert.assertEquals(timestamps[i], agentStatBlockBo.getMemoryGcBos().get(i).getTimestamp());
+            Assert.assertEquals(timestamps[i] / 1000, agentStatBlockBo.getMemoryGcBos().get(i).getJvmMemoryHeapUsed());
+            Assert.assertEquals(timestamps[i], agentStatBlockBo.getCpuLoadBos().get(i).getTimestamp());
+        }
+    }
+
+    private byte[] getRowKey(long timestamp) {
+        return RowKeyUtils.concatFixedByteAndLong(Bytes.toBytes(AGENT_ID), AGENT_NAME_MAX_LEN, TimeUtils.reverseTimeMillis(timestamp));
+    }
+
+    private TAgentStat createAgentStat(long timestamp) {
+        TJvmGc gc = new TJvmGc();
+        gc.setType(TJvmGcType.PARALLEL);
+        gc.setJvmMemoryHeapUsed(timestamp / 1000);
+        gc.setJvmMemoryHeapMax(2048L);
+
+        TCpuLoad cpuLoad = new TCpuLoad();
+        cpuLoad.setJvmCpuLoad(0.5D);
+        cpuLoad.setSystemCpuLoad(0.25D);
+
+        TAgentStat agentStat = new TAgentStat();
+        agentStat.setAgentId(AGENT_ID);
+        agentStat.setStartTimestamp(START_TIMESTAMP);
+        agentStat.setTimestamp(timestamp);
+        agentStat.setGc(gc);
+        agentStat.setCpuLoad(cpuLoad);
+        return agentStat;
+    }
+}
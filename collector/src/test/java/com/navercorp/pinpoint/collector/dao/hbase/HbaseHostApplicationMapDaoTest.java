@@ -16,18 +16,34 @@
 
 package com.navercorp.pinpoint.collector.dao.hbase;
 
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.apache.hadoop.hbase.client.Put;
 import org.junit.Assert;
+import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.navercorp.pinpoint.collector.util.AcceptedTimeService;
 import com.navercorp.pinpoint.common.buffer.Buffer;
 import com.navercorp.pinpoint.common.buffer.FixedBuffer;
 import com.navercorp.pinpoint.common.hbase.HBaseTables;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
 import com.navercorp.pinpoint.common.trace.ServiceType;
 import com.navercorp.pinpoint.common.util.DefaultTimeSlot;
 import com.navercorp.pinpoint.common.util.TimeSlot;
 import com.navercorp.pinpoint.common.util.TimeUtils;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
 
 
 public class HbaseHostApplicationMapDaoTest {
@@ -36,6 +52,81 @@ public class HbaseHostApplicationMapDaoTest {
 
     private final TimeSlot timeSlot = new DefaultTimeSlot();
 
+    @Mock
+    private HbaseOperations2 hbaseTemplate;
+
+    @Mock
+    private AcceptedTimeService acceptedTimeService;
+
+    @Mock
+    private TimeSlot mockTimeSlot;
+
+    @Mock
+    private AbstractRowKeyDistributor rowKeyDistributor;
+
+    @InjectMocks
+    private HbaseHostApplicationMapDao hostApplicationMapDao = new HbaseHostApplicationMapDao();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        when(rowKeyDistributor.getDistributedKey(any(byte[].class))).thenAnswer(new Answer<byte[]>() {
+            @Override
+            public byte[] answer(InvocationOnMock invocation) throws Throwable {
+                return (byte[]) invocation.getArguments()[0];
+            }
+        });
+        setAcceptedTime(60000L);
+    }
+
+    private void setAcceptedTime(long acceptedTime) {
+        when(acceptedTimeService.getAcceptedTime()).thenReturn(acceptedTime);
+        when(mockTimeSlot.getTimeSlot(acceptedTime)).thenReturn(timeSlot.getTimeSlot(acceptedTime));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void flushDistinctTuples() {
+        final short serviceType = ServiceType.STAND_ALONE.getCode();
+        for (int i = 0; i < 100; i++) {
+            hostApplicationMapDao.insert("host", "app", serviceType, "parentApp", serviceType);
+            hostApplicationMapDao.insert("host2", "app", serviceType, "parentApp", serviceType);
+            hostApplicationMapDao.insert("host", "app", serviceType, "parentApp2", serviceType);
+        }
+        verifyZeroInteractions(hbaseTemplate);
+
+        hostApplicationMapDao.flushAll();
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(hbaseTemplate).put(eq(HBaseTables.HOST_APPLICATION_MAP_VER2), captor.capture());
+        // a row per parent application
+        List<Put> putList = captor.getValue();
+        Assert.assertEquals(2, putList.size());
+        Assert.assertEquals(3, putList.get(0).size() + putList.get(1).size());
+
+        // already written in this slot
+        hostApplicationMapDao.insert("host", "app", serviceType, "parentApp", serviceType);
+        hostApplicationMapDao.flushAll();
+        verify(hbaseTemplate, times(1)).put(anyString(), any(List.class));
+
+        // written again in the next slot
+        setAcceptedTime(120000L);
+        hostApplicationMapDao.insert("host", "app", serviceType, "parentApp", serviceType);
+        hostApplicationMapDao.flushAll();
+        verify(hbaseTemplate, times(2)).put(anyString(), any(List.class));
+    }
+
+    @Test
+    public void evictOldSlots() {
+        final short serviceType = ServiceType.STAND_ALONE.getCode();
+        for (int i = 1; i <= 5; i++) {
+            setAcceptedTime(60000L * i);
+            hostApplicationMapDao.insert("host", "app", serviceType, "parentApp", serviceType);
+        }
+        Assert.assertEquals(5, hostApplicationMapDao.getSlotSize());
+        hostApplicationMapDao.flushAll();
+        Assert.assertEquals(2, hostApplicationMapDao.getSlotSize());
+    }
+
     @Test
     public void testCreateRowKey() throws Exception {
         HbaseHostApplicationMapDao dao = new HbaseHostApplicationMapDao();
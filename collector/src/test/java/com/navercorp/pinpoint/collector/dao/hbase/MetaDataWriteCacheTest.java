@@ -0,0 +1,72 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.dao.hbase;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MetaDataWriteCacheTest {
+
+    @Test
+    public void duplicatedWrite() {
+        MetaDataWriteCache cache = new MetaDataWriteCache(100);
+
+        Assert.assertFalse(cache.isWritten(MetaDataWriteCache.Type.API, "agent", 1000, 1, 10));
+        cache.putWritten(MetaDataWriteCache.Type.API, "agent", 1000, 1, 10);
+
+        Assert.assertTrue(cache.isWritten(MetaDataWriteCache.Type.API, "agent", 1000, 1, 10));
+        // changed value
+        Assert.assertFalse(cache.isWritten(MetaDataWriteCache.Type.API, "agent", 1000, 1, 11));
+        // restarted agent
+        Assert.assertFalse(cache.isWritten(MetaDataWriteCache.Type.API, "agent", 2000, 1, 10));
+        // other metadata with the same id
+        Assert.assertFalse(cache.isWritten(MetaDataWriteCache.Type.SQL, "agent", 1000, 1, 10));
+        Assert.assertFalse(cache.isWritten(MetaDataWriteCache.Type.API, "agent2", 1000, 1, 10));
+
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(5, cache.getMissCount());
+    }
+
+    @Test
+    public void notWrittenUntilPut() {
+        MetaDataWriteCache cache = new MetaDataWriteCache(100);
+
+        // a failed write is not remembered
+        Assert.assertFalse(cache.isWritten(MetaDataWriteCache.Type.STRING, "agent", 1000, 1, 10));
+        Assert.assertFalse(cache.isWritten(MetaDataWriteCache.Type.STRING, "agent", 1000, 1, 10));
+    }
+
+    @Test
+    public void bounded() {
+        MetaDataWriteCache cache = new MetaDataWriteCache(10);
+        for (int i = 0; i < 1000; i++) {
+            cache.putWritten(MetaDataWriteCache.Type.SQL, "agent", 1000, i, i);
+        }
+        Assert.assertTrue(cache.size() <= 10);
+    }
+
+    @Test
+    public void disabled() {
+        MetaDataWriteCache cache = new MetaDataWriteCache(0);
+        Assert.assertFalse(cache.isEnable());
+
+        cache.putWritten(MetaDataWriteCache.Type.AGENT_INFO, "agent", 1000, 0, 10);
+        Assert.assertFalse(cache.isWritten(MetaDataWriteCache.Type.AGENT_INFO, "agent", 1000, 0, 10));
+        Assert.assertEquals(0, cache.size());
+    }
+}
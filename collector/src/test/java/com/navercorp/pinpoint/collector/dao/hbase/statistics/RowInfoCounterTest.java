@@ -0,0 +1,134 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.dao.hbase.statistics;
+
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.collector.util.ConcurrentCounterMap;
+
+public class RowInfoCounterTest {
+
+    private static final byte[] FAMILY = Bytes.toBytes("C");
+
+    @Test
+    public void sameIncrementAsConcurrentCounterMap() {
+        assertSameIncrement(new RowInfoCounter(), 3000);
+    }
+
+    @Test
+    public void threadConfined() {
+        assertSameIncrement(new RowInfoCounter(true), 3000);
+    }
+
+    @Test
+    public void overflow() {
+        // most of the keys can not be interned
+        assertSameIncrement(new RowInfoCounter(2, 5), 500);
+    }
+
+    @Test
+    public void removeResets() {
+        RowInfoCounter counter = new RowInfoCounter();
+        counter.incrementResponse("app", (short) 1000, 60000, "agent", (short) 100, 1);
+        Assert.assertEquals(1, counter.remove().size());
+        Assert.assertTrue(counter.remove().isEmpty());
+
+        counter.incrementResponse("app", (short) 1000, 60000, "agent", (short) 100, 2);
+        Map<RowInfo, ConcurrentCounterMap.LongAdder> remove = counter.remove();
+        Assert.assertEquals(1, remove.size());
+        Assert.assertEquals(2, remove.values().iterator().next().get());
+    }
+
+    @Test
+    public void overflowEveryFlush() {
+        RowInfoCounter counter = new RowInfoCounter(2, 5);
+        for (int i = 0; i < 3; i++) {
+            assertSameIncrement(counter, 500);
+        }
+    }
+
+    @Test
+    public void idRegistryReplacedOnRemove() {
+        RowInfoCounter counter = new RowInfoCounter(2, 4);
+        for (int i = 0; i < 10; i++) {
+            counter.incrementResponse("app", (short) 1000, 60000, "agent" + i, (short) 100, 1);
+        }
+        Assert.assertEquals(10, counter.remove().size());
+        final long overflowCount = counter.getOverflowCount();
+        Assert.assertTrue(overflowCount > 0);
+
+        // the full registry is dropped, new names are interned again
+        counter.incrementResponse("app", (short) 1000, 60000, "newAgent", (short) 100, 1);
+        Assert.assertEquals(overflowCount, counter.getOverflowCount());
+        Map<RowInfo, ConcurrentCounterMap.LongAdder> remove = counter.remove();
+        Assert.assertEquals(1, remove.size());
+        Assert.assertEquals(new DefaultRowInfo(new CallRowKey("app", (short) 1000, 60000), new ResponseColumnName("newAgent", (short) 100)),
+                remove.keySet().iterator().next());
+    }
+
+    private void assertSameIncrement(RowInfoCounter counter, int callCount) {
+        ConcurrentCounterMap<RowInfo> expected = new ConcurrentCounterMap<RowInfo>();
+        for (int i = 0; i < callCount; i++) {
+            String application = "app" + (i % 7);
+            short serviceType = (short) (1000 + i % 3);
+            long timeSlot = 60000L * (i % 2);
+            String agentId = "agent" + (i % 11);
+            String host = "host" + (i % 13);
+            short slot = (short) (100 * (i % 5));
+
+            counter.incrementCallee(application, serviceType, timeSlot, agentId, (short) 2100, "db" + (i % 3), host, slot, 1);
+            expected.increment(new DefaultRowInfo(new CallRowKey(application, serviceType, timeSlot),
+                    new CalleeColumnName(agentId, (short) 2100, "db" + (i % 3), host, slot)), 1L);
+
+            counter.incrementCaller(application, serviceType, timeSlot, (short) 1010, "caller" + (i % 5), host, slot, 2);
+            expected.increment(new DefaultRowInfo(new CallRowKey(application, serviceType, timeSlot),
+                    new CallerColumnName((short) 1010, "caller" + (i % 5), host, slot)), 2L);
+
+            counter.incrementResponse(application, serviceType, timeSlot, agentId, slot, 1);
+            expected.increment(new DefaultRowInfo(new CallRowKey(application, serviceType, timeSlot),
+                    new ResponseColumnName(agentId, slot)), 1L);
+        }
+
+        RowKeyMerge rowKeyMerge = new RowKeyMerge(FAMILY);
+        Map<String, Long> actualCells = toCells(rowKeyMerge.createBulkIncrement(counter.remove()));
+        Map<String, Long> expectedCells = toCells(rowKeyMerge.createBulkIncrement(expected.remove()));
+        Assert.assertFalse(expectedCells.isEmpty());
+        Assert.assertEquals(expectedCells, actualCells);
+    }
+
+    private Map<String, Long> toCells(List<Increment> increments) {
+        Map<String, Long> cells = new TreeMap<String, Long>();
+        for (Increment increment : increments) {
+            String row = Bytes.toStringBinary(increment.getRow());
+            for (Map.Entry<byte[], NavigableMap<byte[], Long>> family : increment.getFamilyMapOfLongs().entrySet()) {
+                for (Map.Entry<byte[], Long> column : family.getValue().entrySet()) {
+                    String cell = row + "/" + Bytes.toStringBinary(family.getKey()) + ":" + Bytes.toStringBinary(column.getKey());
+                    Assert.assertNull("duplicated cell " + cell, cells.put(cell, column.getValue()));
+                }
+            }
+        }
+        return cells;
+    }
+}
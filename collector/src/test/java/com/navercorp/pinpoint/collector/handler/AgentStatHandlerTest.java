@@ -24,6 +24,7 @@ import java.util.List;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -74,7 +75,10 @@ public class AgentStatHandlerTest {
         // When
         agentStatHandler.handle(agentStatBatch);
         // Then
-        verify(agentStatDao, times(numBatches)).insert(any(TAgentStat.class));
+        ArgumentCaptor<List> captor = ArgumentCaptor.forClass(List.class);
+        verify(agentStatDao).insert(captor.capture());
+        verify(agentStatDao, never()).insert(any(TAgentStat.class));
+        assertEquals(numBatches, captor.getValue().size());
     }
 
     @Test(expected=IllegalArgumentException.class)
@@ -19,6 +19,9 @@ package com.navercorp.pinpoint.collector.manage;
 import org.junit.Assert;
 import org.junit.Test;
 
+import com.navercorp.pinpoint.collector.receiver.AdmissionController;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+
 /**
  * @author Taejin Koo
  */
@@ -44,4 +47,24 @@ public class HandlerManagerTest {
         Assert.assertEquals("HandlerManager", name);
     }
 
+    @Test
+    public void admissionStatisticsTest() {
+        HandlerManager handlerManager = new HandlerManager();
+        Assert.assertEquals(0, handlerManager.getRejectedMessageCount());
+        Assert.assertEquals(0, handlerManager.getAgentAdmissionStatistics().length);
+
+        AdmissionController admissionController = new AdmissionController(1, 1, 0, null);
+        handlerManager = new HandlerManager(admissionController);
+        TSpan span = new TSpan();
+        span.setAgentId("agent");
+        span.setApplicationName("app");
+        Assert.assertTrue(admissionController.admit(span));
+        Assert.assertFalse(admissionController.admit(span));
+
+        Assert.assertEquals(1, handlerManager.getAdmittedMessageCount());
+        Assert.assertEquals(1, handlerManager.getRejectedMessageCount());
+        Assert.assertEquals(1, handlerManager.getAgentRejectedMessageCount("agent"));
+        Assert.assertArrayEquals(new String[] {"agent admitted=1, rejected=1"}, handlerManager.getAgentAdmissionStatistics());
+    }
+
 }
@@ -0,0 +1,226 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.mapper.thrift;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.thrift.TBase;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.common.bo.AnnotationBo;
+import com.navercorp.pinpoint.common.bo.AnnotationBoList;
+import com.navercorp.pinpoint.common.bo.SpanBo;
+import com.navercorp.pinpoint.common.bo.SpanEventBo;
+import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.thrift.dto.TAgentStat;
+import com.navercorp.pinpoint.thrift.dto.TAnnotation;
+import com.navercorp.pinpoint.thrift.dto.TAnnotationValue;
+import com.navercorp.pinpoint.thrift.dto.TIntStringStringValue;
+import com.navercorp.pinpoint.thrift.dto.TIntStringValue;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
+
+public class StreamingSpanDecoderTest {
+
+    private final HeaderTBaseSerializer serializer = new HeaderTBaseSerializerFactory().createSerializer();
+
+    @Test
+    public void decodeSpan() throws Exception {
+        TSpan span = new TSpan();
+        span.setAgentId("agent");
+        span.setApplicationName("application");
+        span.setAgentStartTime(1000);
+        span.setTransactionId(TransactionIdUtils.formatBytes("traceAgent", 900, 10));
+        span.setSpanId(12);
+        span.setStartTime(2000);
+        span.setElapsed(30);
+        span.setRpc("/rpc");
+        span.setServiceType((short) 1010);
+        span.setEndPoint("localhost:8080");
+        span.setRemoteAddr("127.0.0.1");
+        span.setFlag((short) 1);
+        span.setErr(1);
+        span.setParentApplicationName("parent");
+        span.setParentApplicationType((short) 1000);
+        span.setAcceptorHost("acceptor");
+        span.setApiId(5);
+        span.setExceptionInfo(newIntStringValue(7, "exception"));
+        span.setApplicationServiceType((short) 1011);
+        span.setLoggingTransactionInfo((byte) 1);
+        span.setAnnotations(newAnnotations());
+
+        List<TSpanEvent> spanEventList = new ArrayList<TSpanEvent>();
+        spanEventList.add(newSpanEvent(0));
+        TSpanEvent asyncEvent = newSpanEvent(1);
+        asyncEvent.setDepth(2);
+        asyncEvent.setNextSpanId(13);
+        asyncEvent.setExceptionInfo(newIntStringValue(8, null));
+        asyncEvent.setAsyncId(3);
+        asyncEvent.setNextAsyncId(4);
+        asyncEvent.setAsyncSequence((short) 5);
+        spanEventList.add(asyncEvent);
+        span.setSpanEventList(spanEventList);
+
+        DecodedSpan decoded = (DecodedSpan) decode(span);
+        Assert.assertEquals(span.getAgentId(), decoded.getAgentId());
+        Assert.assertEquals(span.getParentApplicationName(), decoded.getParentApplicationName());
+        Assert.assertEquals(span.getAcceptorHost(), decoded.getAcceptorHost());
+        Assert.assertArrayEquals(span.getTransactionId(), decoded.getTransactionId());
+        Assert.assertNull(decoded.getSpanEventList());
+
+        SpanBo expected = new SpanBo(span);
+        SpanBo actual = decoded.getSpanBo();
+        Assert.assertArrayEquals(expected.writeValue(), actual.writeValue());
+        assertAnnotations(expected.getAnnotationBoList(), actual.getAnnotationBoList());
+
+        Assert.assertEquals(spanEventList.size(), actual.getSpanEventBoList().size());
+        for (int i = 0; i < spanEventList.size(); i++) {
+            assertSpanEvent(new SpanEventBo(span, spanEventList.get(i)), actual.getSpanEventBoList().get(i));
+        }
+    }
+
+    @Test
+    public void decodeRootSpan() throws Exception {
+        TSpan span = new TSpan();
+        span.setAgentId("agent");
+        span.setApplicationName("application");
+        span.setTransactionId(TransactionIdUtils.formatBytes(null, 900, 10));
+        span.setSpanId(12);
+
+        DecodedSpan decoded = (DecodedSpan) decode(span);
+        Assert.assertEquals(-1, decoded.getParentSpanId());
+        Assert.assertFalse(decoded.isSetApplicationServiceType());
+
+        SpanBo actual = decoded.getSpanBo();
+        Assert.assertEquals("agent", actual.getTraceAgentId());
+        Assert.assertArrayEquals(new SpanBo(span).writeValue(), actual.writeValue());
+        Assert.assertNull(actual.getAnnotationBoList());
+        Assert.assertNull(actual.getSpanEventBoList());
+    }
+
+    @Test
+    public void decodeSpanChunk() throws Exception {
+        TSpanChunk spanChunk = new TSpanChunk();
+        spanChunk.setAgentId("agent");
+        spanChunk.setApplicationName("application");
+        spanChunk.setAgentStartTime(1000);
+        spanChunk.setServiceType((short) 1010);
+        spanChunk.setTransactionId(TransactionIdUtils.formatBytes("traceAgent", 900, 10));
+        spanChunk.setSpanId(12);
+        spanChunk.setEndPoint("localhost:8080");
+        spanChunk.setApplicationServiceType((short) 1011);
+        List<TSpanEvent> spanEventList = new ArrayList<TSpanEvent>();
+        spanEventList.add(newSpanEvent(0));
+        spanEventList.add(newSpanEvent(1));
+        spanChunk.setSpanEventList(spanEventList);
+
+        DecodedSpanChunk decoded = (DecodedSpanChunk) decode(spanChunk);
+        Assert.assertEquals(spanChunk.getAgentId(), decoded.getAgentId());
+        Assert.assertEquals(spanChunk.getEndPoint(), decoded.getEndPoint());
+        Assert.assertEquals(spanChunk.getApplicationServiceType(), decoded.getApplicationServiceType());
+        Assert.assertNull(decoded.getSpanEventList());
+
+        Assert.assertEquals(spanEventList.size(), decoded.getSpanEventBoList().size());
+        for (int i = 0; i < spanEventList.size(); i++) {
+            assertSpanEvent(new SpanEventBo(spanChunk, spanEventList.get(i)), decoded.getSpanEventBoList().get(i));
+        }
+    }
+
+    @Test
+    public void notSpan() throws Exception {
+        TAgentStat agentStat = new TAgentStat();
+        agentStat.setAgentId("agent");
+
+        Assert.assertNull(decode(agentStat));
+    }
+
+    private TBase<?, ?> decode(TBase<?, ?> tBase) throws Exception {
+        byte[] bytes = serializer.serialize(tBase);
+        // decode from the middle of a larger buffer, like a pooled packet
+        byte[] packet = new byte[bytes.length + 20];
+        System.arraycopy(bytes, 0, packet, 10, bytes.length);
+        return new StreamingSpanDecoder().decode(packet, 10, bytes.length);
+    }
+
+    private void assertSpanEvent(SpanEventBo expected, SpanEventBo actual) {
+        Assert.assertArrayEquals(expected.writeValue(), actual.writeValue());
+        Assert.assertEquals(expected.getSpanId(), actual.getSpanId());
+        Assert.assertEquals(expected.getSequence(), actual.getSequence());
+        Assert.assertEquals(expected.getAsyncId(), actual.getAsyncId());
+        Assert.assertEquals(expected.getAsyncSequence(), actual.getAsyncSequence());
+        assertAnnotations(expected.getAnnotationBoList(), actual.getAnnotationBoList());
+    }
+
+    private void assertAnnotations(List<AnnotationBo> expected, List<AnnotationBo> actual) {
+        Assert.assertEquals(expected.size(), actual.size());
+        Assert.assertArrayEquals(new AnnotationBoList(expected).writeValue(), new AnnotationBoList(actual).writeValue());
+    }
+
+    private TSpanEvent newSpanEvent(int sequence) {
+        TSpanEvent spanEvent = new TSpanEvent();
+        spanEvent.setSequence((short) sequence);
+        spanEvent.setStartElapsed(sequence);
+        spanEvent.setEndElapsed(10);
+        spanEvent.setRpc("/event");
+        spanEvent.setServiceType((short) 2100);
+        spanEvent.setEndPoint("db:3306");
+        spanEvent.setDestinationId("db");
+        spanEvent.setApiId(6);
+        spanEvent.setAnnotations(newAnnotations());
+        return spanEvent;
+    }
+
+    private List<TAnnotation> newAnnotations() {
+        List<TAnnotation> annotations = new ArrayList<TAnnotation>();
+        annotations.add(newAnnotation(1, TAnnotationValue.stringValue("string \uD55C\uAE00")));
+        annotations.add(newAnnotation(2, TAnnotationValue.boolValue(true)));
+        annotations.add(newAnnotation(3, TAnnotationValue.boolValue(false)));
+        annotations.add(newAnnotation(4, TAnnotationValue.intValue(-100)));
+        annotations.add(newAnnotation(5, TAnnotationValue.longValue(Long.MAX_VALUE)));
+        annotations.add(newAnnotation(6, TAnnotationValue.shortValue((short) 12)));
+        annotations.add(newAnnotation(7, TAnnotationValue.doubleValue(1.5)));
+        annotations.add(newAnnotation(8, TAnnotationValue.binaryValue(new byte[] {1, 2, 3})));
+        annotations.add(newAnnotation(9, TAnnotationValue.byteValue((byte) 9)));
+        annotations.add(newAnnotation(10, TAnnotationValue.intStringValue(newIntStringValue(11, "sql"))));
+        annotations.add(newAnnotation(11, TAnnotationValue.intStringValue(newIntStringValue(12, null))));
+        TIntStringStringValue intStringStringValue = new TIntStringStringValue(13);
+        intStringStringValue.setStringValue1("sql");
+        intStringStringValue.setStringValue2("bind");
+        annotations.add(newAnnotation(12, TAnnotationValue.intStringStringValue(intStringStringValue)));
+        // without value
+        annotations.add(new TAnnotation(13));
+        return annotations;
+    }
+
+    private TAnnotation newAnnotation(int key, TAnnotationValue value) {
+        TAnnotation annotation = new TAnnotation(key);
+        annotation.setValue(value);
+        return annotation;
+    }
+
+    private TIntStringValue newIntStringValue(int intValue, String stringValue) {
+        TIntStringValue intStringValue = new TIntStringValue(intValue);
+        intStringValue.setStringValue(stringValue);
+        return intStringValue;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.monitor;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CollectorLoadAdvertiserTest {
+
+    @Test
+    public void toLoadLevel() {
+        Assert.assertEquals(0, CollectorLoadAdvertiser.toLoadLevel(0, 50));
+        Assert.assertEquals(0, CollectorLoadAdvertiser.toLoadLevel(50, 50));
+        Assert.assertEquals(50, CollectorLoadAdvertiser.toLoadLevel(75, 50));
+        Assert.assertEquals(100, CollectorLoadAdvertiser.toLoadLevel(100, 50));
+        Assert.assertEquals(10, CollectorLoadAdvertiser.toLoadLevel(10, 0));
+    }
+}
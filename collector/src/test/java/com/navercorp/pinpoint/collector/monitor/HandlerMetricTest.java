@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.monitor;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.MetricRegistry;
+
+public class HandlerMetricTest {
+
+    @Test
+    public void record() {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        HandlerMetric handlerMetric = new HandlerMetric(metricRegistry);
+
+        handlerMetric.record(new StringBuilder(), "message", TimeUnit.MILLISECONDS.toNanos(1));
+        handlerMetric.record(new StringBuilder(), "message", TimeUnit.MILLISECONDS.toNanos(3));
+        handlerMetric.record(new StringBuilder(), 1, TimeUnit.MILLISECONDS.toNanos(2));
+
+        Assert.assertEquals(3, metricRegistry.timer("handler.StringBuilder").getCount());
+        Assert.assertEquals(2, metricRegistry.meter("message.String").getCount());
+        Assert.assertEquals(1, metricRegistry.meter("message.Integer").getCount());
+    }
+
+    @Test
+    public void hbaseTable() {
+        MetricRegistry metricRegistry = new MetricRegistry();
+        HbaseTableMetric hbaseTableMetric = new HbaseTableMetric(metricRegistry);
+
+        hbaseTableMetric.onCall("Traces", 100, true);
+        hbaseTableMetric.onCall("Traces", 200, false);
+        hbaseTableMetric.onCall("AgentInfo", 300, true);
+
+        Assert.assertEquals(2, metricRegistry.timer("hbase.Traces").getCount());
+        Assert.assertEquals(1, metricRegistry.counter("hbase.Traces-failed").getCount());
+        Assert.assertEquals(1, metricRegistry.timer("hbase.AgentInfo").getCount());
+        Assert.assertEquals(0, metricRegistry.counter("hbase.AgentInfo-failed").getCount());
+    }
+}
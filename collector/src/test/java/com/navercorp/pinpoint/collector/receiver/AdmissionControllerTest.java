@@ -0,0 +1,146 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AdmissionControllerTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void disabled() {
+        AdmissionController admissionController = new AdmissionController(0, 0, 0, "");
+        Assert.assertFalse(admissionController.isEnable());
+    }
+
+    @Test
+    public void agentRate() {
+        AdmissionController admissionController = new AdmissionController(10, 20, 0, null);
+        final long currentTime = System.nanoTime();
+
+        Assert.assertEquals(20, admit(admissionController, "app", "agent1", 100, currentTime));
+        Assert.assertEquals(20, admissionController.getAgentAdmittedCount("agent1"));
+        Assert.assertEquals(80, admissionController.getAgentRejectedCount("agent1"));
+
+        // another agent is not affected
+        Assert.assertEquals(20, admit(admissionController, "app", "agent2", 100, currentTime));
+
+        // refilled at 10 per second
+        Assert.assertEquals(5, admit(admissionController, "app", "agent1", 100, currentTime + SECOND / 2));
+
+        Assert.assertEquals(45, admissionController.getAdmittedCount());
+        Assert.assertEquals(255, admissionController.getRejectedCount());
+    }
+
+    @Test
+    public void agentStatFollowsApplicationOfAgent() {
+        AdmissionController admissionController = new AdmissionController(0, 0, 10, null);
+        final long currentTime = System.nanoTime();
+
+        Assert.assertEquals(10, admit(admissionController, "app", "agent", 10, currentTime));
+        // agent stats have no application name
+        Assert.assertFalse(admissionController.admit(null, "agent", currentTime));
+        Assert.assertTrue(admissionController.admit(null, "unknownAgent", currentTime));
+    }
+
+    @Test
+    public void weightedShare() {
+        AdmissionController admissionController = new AdmissionController(0, 0, 400, "heavy:3");
+        long currentTime = System.nanoTime();
+
+        admit(admissionController, "heavy", "agent1", 1000, currentTime);
+        admit(admissionController, "light", "agent2", 1000, currentTime);
+
+        currentTime += SECOND;
+        admit(admissionController, "heavy", "agent1", 1, currentTime);
+        Assert.assertEquals(300, admissionController.getApplicationRate("heavy"));
+        Assert.assertEquals(100, admissionController.getApplicationRate("light"));
+
+        currentTime += SECOND / 2;
+        Assert.assertEquals(300, admit(admissionController, "heavy", "agent1", 1000, currentTime));
+        Assert.assertEquals(100, admit(admissionController, "light", "agent2", 1000, currentTime));
+    }
+
+    @Test
+    public void unusedShareGoesToBusyApplication() {
+        AdmissionController admissionController = new AdmissionController(0, 0, 400, null);
+        long currentTime = System.nanoTime();
+
+        admit(admissionController, "busy", "agent1", 1000, currentTime);
+        admit(admissionController, "quiet", "agent2", 10, currentTime);
+
+        currentTime += SECOND;
+        admit(admissionController, "busy", "agent1", 1, currentTime);
+        // the quiet application keeps its fair share, the busy one gets what the quiet one does not use
+        Assert.assertEquals(200, admissionController.getApplicationRate("quiet"));
+        Assert.assertEquals(390, admissionController.getApplicationRate("busy"));
+    }
+
+    @Test
+    public void idleApplicationRemoved() {
+        AdmissionController admissionController = new AdmissionController(0, 0, 100, null);
+        long currentTime = System.nanoTime();
+
+        admit(admissionController, "app1", "agent1", 1, currentTime);
+        admit(admissionController, "app2", "agent2", 1, currentTime);
+
+        currentTime += 11 * SECOND;
+        admit(admissionController, "app1", "agent1", 1, currentTime);
+        Assert.assertEquals(-1, admissionController.getApplicationRate("app2"));
+        Assert.assertEquals(100, admissionController.getApplicationRate("app1"));
+    }
+
+    @Test
+    public void idleAgentRemoved() {
+        AdmissionController admissionController = new AdmissionController(10, 10, 0, null);
+        long currentTime = System.nanoTime();
+
+        admit(admissionController, "app", "agent1", 1, currentTime);
+        admit(admissionController, "app", "agent2", 1, currentTime);
+        Assert.assertEquals(2, admissionController.getAgentIds().size());
+
+        // agent stats keep the agent active
+        currentTime += 200 * SECOND;
+        admissionController.admit(null, "agent1", currentTime);
+
+        currentTime += 200 * SECOND;
+        admissionController.admit(null, "agent1", currentTime);
+        Assert.assertEquals(1, admissionController.getAgentIds().size());
+        Assert.assertTrue(admissionController.getAgentIds().contains("agent1"));
+        Assert.assertEquals(0, admissionController.getAgentAdmittedCount("agent2"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidWeight() {
+        new AdmissionController(0, 0, 100, "app1:0");
+    }
+
+    private int admit(AdmissionController admissionController, String applicationName, String agentId, int count, long currentTime) {
+        int admitted = 0;
+        for (int i = 0; i < count; i++) {
+            if (admissionController.admit(applicationName, agentId, currentTime)) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.receiver;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.thrift.TBase;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.codahale.metrics.MetricRegistry;
+import com.navercorp.pinpoint.collector.util.LaneLocal;
+import com.navercorp.pinpoint.common.util.TransactionId;
+import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanChunk;
+
+public class PartitionedDispatchHandlerTest {
+
+    private static final long AGENT_START_TIME = 1451606400000L;
+
+    @Test
+    public void sameTransactionSameLane() throws Exception {
+        final int transactionCount = 20;
+        final int messagePerTransaction = 10;
+        final CountDownLatch latch = new CountDownLatch(transactionCount * messagePerTransaction);
+        final Map<String, List<String>> threadByTransaction = new ConcurrentHashMap<String, List<String>>();
+
+        DispatchHandler recorder = new DispatchHandler() {
+            @Override
+            public void dispatchSendMessage(TBase<?, ?> tBase) {
+                List<String> threads = threadByTransaction.get(transactionKey(tBase));
+                threads.add(Thread.currentThread().getName());
+                latch.countDown();
+            }
+
+            @Override
+            public TBase dispatchRequestMessage(TBase<?, ?> tBase) {
+                return null;
+            }
+        };
+
+        PartitionedDispatchHandler handler = new PartitionedDispatchHandler("test", recorder, 4, 1024);
+        ReflectionTestUtils.setField(handler, "metricRegistry", new MetricRegistry());
+        handler.start();
+        try {
+            for (int i = 0; i < transactionCount; i++) {
+                threadByTransaction.put(TransactionIdUtils.formatString(originAgentId(i), AGENT_START_TIME, i), new ArrayList<String>());
+            }
+            for (int j = 0; j < messagePerTransaction; j++) {
+                for (int i = 0; i < transactionCount; i++) {
+                    // the origin agent and the agents called by the transaction, spans and span chunks
+                    final String agentId = (j % 4 < 2) ? originAgentId(i) : "remote-agent" + j;
+                    if (j % 2 == 0) {
+                        handler.dispatchSendMessage(newSpan(agentId, originAgentId(i), i));
+                    } else {
+                        handler.dispatchSendMessage(newSpanChunk(agentId, originAgentId(i), i));
+                    }
+                }
+            }
+            Assert.assertTrue(latch.await(5000, TimeUnit.MILLISECONDS));
+        } finally {
+            handler.stop();
+        }
+
+        for (List<String> threads : threadByTransaction.values()) {
+            Assert.assertEquals(messagePerTransaction, threads.size());
+            for (String thread : threads) {
+                Assert.assertEquals(threads.get(0), thread);
+            }
+        }
+    }
+
+    @Test
+    public void laneLocalFlushedByLane() throws Exception {
+        final int messageCount = 100;
+        final List<String> flushed = Collections.synchronizedList(new ArrayList<String>());
+        final LaneLocal<List<String>> laneLocal = new LaneLocal<List<String>>() {
+            @Override
+            protected List<String> initialValue() {
+                return new ArrayList<String>();
+            }
+
+            @Override
+            protected void flush(List<String> value) {
+                // gathered and flushed by the same lane thread
+                for (String thread : value) {
+                    Assert.assertEquals(Thread.currentThread().getName(), thread);
+                }
+                flushed.addAll(value);
+                value.clear();
+            }
+        };
+        DispatchHandler aggregator = new DispatchHandler() {
+            @Override
+            public void dispatchSendMessage(TBase<?, ?> tBase) {
+                laneLocal.get().add(Thread.currentThread().getName());
+            }
+
+            @Override
+            public TBase dispatchRequestMessage(TBase<?, ?> tBase) {
+                return null;
+            }
+        };
+
+        PartitionedDispatchHandler handler = new PartitionedDispatchHandler("test", aggregator, 4, 1024);
+        handler.setLaneFlushPeriod(10);
+        ReflectionTestUtils.setField(handler, "metricRegistry", new MetricRegistry());
+        handler.start();
+        try {
+            for (int i = 0; i < messageCount; i++) {
+                handler.dispatchSendMessage(newSpan("agent" + i, "agent" + i, i));
+            }
+            for (int i = 0; i < 500 && flushed.size() < messageCount; i++) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(messageCount, flushed.size());
+            Assert.assertNull(laneLocal.get());
+        } finally {
+            handler.stop();
+        }
+        Assert.assertEquals(messageCount, flushed.size());
+    }
+
+    @Test
+    public void crossAgentTransactionSameLane() {
+        PartitionedDispatchHandler handler = new PartitionedDispatchHandler("test", new NoopDispatchHandler(), 7, 1024);
+        for (int i = 0; i < 100; i++) {
+            // encoded without the agent id by the origin agent, with it by the remote agent
+            final int originLane = handler.getLaneIndex(newSpan("origin-agent", "origin-agent", i), 7);
+            Assert.assertEquals(originLane, handler.getLaneIndex(newSpan("remote-agent", "origin-agent", i), 7));
+            Assert.assertEquals(originLane, handler.getLaneIndex(newSpanChunk("origin-agent", "origin-agent", i), 7));
+            Assert.assertEquals(originLane, handler.getLaneIndex(newSpanChunk("remote-agent", "origin-agent", i), 7));
+        }
+    }
+
+    private static String originAgentId(int transactionIndex) {
+        return "origin-agent" + (transactionIndex % 3);
+    }
+
+    private static byte[] transactionId(String agentId, String originAgentId, long transactionSequence) {
+        final String encodedAgentId = agentId.equals(originAgentId) ? null : originAgentId;
+        return TransactionIdUtils.formatBytes(encodedAgentId, AGENT_START_TIME, transactionSequence);
+    }
+
+    private static TSpan newSpan(String agentId, String originAgentId, long transactionSequence) {
+        TSpan span = new TSpan();
+        span.setAgentId(agentId);
+        span.setTransactionId(ByteBuffer.wrap(transactionId(agentId, originAgentId, transactionSequence)));
+        return span;
+    }
+
+    private static TSpanChunk newSpanChunk(String agentId, String originAgentId, long transactionSequence) {
+        TSpanChunk spanChunk = new TSpanChunk();
+        spanChunk.setAgentId(agentId);
+        spanChunk.setTransactionId(ByteBuffer.wrap(transactionId(agentId, originAgentId, transactionSequence)));
+        return spanChunk;
+    }
+
+    private static String transactionKey(TBase<?, ?> tBase) {
+        final String agentId = (tBase instanceof TSpan) ? ((TSpan) tBase).getAgentId() : ((TSpanChunk) tBase).getAgentId();
+        final byte[] transactionId = (tBase instanceof TSpan) ? ((TSpan) tBase).getTransactionId() : ((TSpanChunk) tBase).getTransactionId();
+        final TransactionId parsedTransactionId = TransactionIdUtils.parseTransactionId(transactionId);
+        final String originAgentId = parsedTransactionId.getAgentId() != null ? parsedTransactionId.getAgentId() : agentId;
+        return TransactionIdUtils.formatString(originAgentId, parsedTransactionId.getAgentStartTime(), parsedTransactionId.getTransactionSequence());
+    }
+
+    private static class NoopDispatchHandler implements DispatchHandler {
+        @Override
+        public void dispatchSendMessage(TBase<?, ?> tBase) {
+        }
+
+        @Override
+        public TBase dispatchRequestMessage(TBase<?, ?> tBase) {
+            return null;
+        }
+    }
+
+    @Test
+    public void notPartitioned() {
+        final List<TBase<?, ?>> dispatched = new ArrayList<TBase<?, ?>>();
+        DispatchHandler recorder = new DispatchHandler() {
+            @Override
+            public void dispatchSendMessage(TBase<?, ?> tBase) {
+                dispatched.add(tBase);
+            }
+
+            @Override
+            public TBase dispatchRequestMessage(TBase<?, ?> tBase) {
+                return null;
+            }
+        };
+
+        PartitionedDispatchHandler handler = new PartitionedDispatchHandler("test", recorder, 0, 0);
+        handler.start();
+        TSpan span = new TSpan();
+        handler.dispatchSendMessage(span);
+        handler.stop();
+
+        Assert.assertEquals(1, dispatched.size());
+        Assert.assertSame(span, dispatched.get(0));
+    }
+}
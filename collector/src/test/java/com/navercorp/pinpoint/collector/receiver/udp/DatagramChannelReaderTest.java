@@ -0,0 +1,116 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.util.Arrays;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.navercorp.pinpoint.collector.util.DatagramPacketFactory;
+import com.navercorp.pinpoint.collector.util.DefaultObjectPool;
+
+public class DatagramChannelReaderTest {
+
+    @Test
+    public void inline() throws Exception {
+        receive(0);
+    }
+
+    @Test
+    public void queued() throws Exception {
+        receive(16);
+    }
+
+    private void receive(int queueSize) throws Exception {
+        final int packetCount = 10;
+        final CountDownLatch latch = new CountDownLatch(packetCount);
+        final CopyOnWriteArrayList<byte[]> received = new CopyOnWriteArrayList<byte[]>();
+        final PacketHandler<DatagramPacket> packetHandler = new PacketHandler<DatagramPacket>() {
+            @Override
+            public void receive(DatagramPacket packet) {
+                received.add(Arrays.copyOf(packet.getData(), packet.getLength()));
+                latch.countDown();
+            }
+        };
+
+        DatagramChannel channel = DatagramChannel.open();
+        channel.socket().bind(new InetSocketAddress("127.0.0.1", 0));
+        DatagramChannelReader reader = new DatagramChannelReader("test", channel, new DefaultObjectPool<DatagramPacket>(new DatagramPacketFactory(), 4),
+                new PacketHandlerFactory<DatagramPacket>() {
+                    @Override
+                    public PacketHandler<DatagramPacket> createPacketHandler() {
+                        return packetHandler;
+                    }
+                }, queueSize, new Meter(), new Counter(), null);
+
+        start(reader.getReadTask());
+        if (reader.isQueued()) {
+            start(reader.getConsumeTask());
+        }
+
+        DatagramSocket sender = new DatagramSocket();
+        try {
+            for (int i = 0; i < packetCount; i++) {
+                byte[] data = new byte[i + 1];
+                Arrays.fill(data, (byte) i);
+                sender.send(new DatagramPacket(data, data.length, channel.socket().getLocalSocketAddress()));
+            }
+            Assert.assertTrue(latch.await(5000, TimeUnit.MILLISECONDS));
+        } finally {
+            sender.close();
+            reader.stop();
+            close(channel);
+        }
+
+        Assert.assertEquals(packetCount, reader.getPacketCount());
+        Assert.assertEquals(0, reader.getDropCount());
+        for (byte[] data : received) {
+            Assert.assertEquals(data[0] + 1, data.length);
+        }
+    }
+
+    @Test
+    public void parseKernelDropCount() {
+        KernelUDPDropCounter dropCounter = new KernelUDPDropCounter(9995);
+        String line = " 1234: 00000000:270B 00000000:0000 07 00000000:00000000 00:00000000 00000000     0        0 8123 2 ffff8800b8f1c000 42";
+        Assert.assertEquals(42, dropCounter.parseDropCount(line));
+
+        String otherPort = " 1234: 00000000:270C 00000000:0000 07 00000000:00000000 00:00000000 00000000     0        0 8123 2 ffff8800b8f1c000 42";
+        Assert.assertEquals(0, dropCounter.parseDropCount(otherPort));
+    }
+
+    private void start(Runnable task) {
+        Thread thread = new Thread(task);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void close(DatagramChannel channel) throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.collector.receiver.udp;
+
+import static org.mockito.Mockito.*;
+
+import java.net.DatagramPacket;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import org.apache.thrift.TBase;
+import org.apache.thrift.TException;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import com.navercorp.pinpoint.collector.receiver.DispatchHandler;
+import com.navercorp.pinpoint.profiler.sender.SpanStreamPacketCompressor;
+import com.navercorp.pinpoint.profiler.sender.SpanStreamSendData;
+import com.navercorp.pinpoint.profiler.sender.SpanStreamUdpSender;
+import com.navercorp.pinpoint.thrift.dto.TSpan;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
+import com.navercorp.pinpoint.thrift.io.SpanStreamConstants;
+
+public class SpanStreamUDPPacketHandlerFactoryTest {
+
+    private static final int SPAN_COUNT = 3;
+    private static final int SPAN_EVENT_COUNT = 4;
+
+    @Test
+    public void receive() throws Exception {
+        DispatchHandler dispatchHandler = mock(DispatchHandler.class);
+        byte[] packet = toBytes(createSendData().getSendBuffers());
+
+        receive(dispatchHandler, packet);
+
+        assertSpans(dispatchHandler);
+    }
+
+    @Test
+    public void receiveCompressed() throws Exception {
+        DispatchHandler dispatchHandler = mock(DispatchHandler.class);
+        SpanStreamPacketCompressor compressor = new SpanStreamPacketCompressor();
+        byte[] packet = toBytes(compressor.compress(createSendData().getSendBuffers()));
+        compressor.close();
+        Assert.assertTrue((packet[1] & SpanStreamConstants.Protocol.SPAN_STREAM_COMPRESSED_FLAG) != 0);
+
+        // the inflater of the thread is reused
+        receive(dispatchHandler, packet);
+        receive(dispatchHandler, packet);
+
+        verify(dispatchHandler, times(SPAN_COUNT * 2)).dispatchRequestMessage(any(TSpan.class));
+    }
+
+    @Test
+    public void receiveCompressedWithOffset() throws Exception {
+        DispatchHandler dispatchHandler = mock(DispatchHandler.class);
+        SpanStreamPacketCompressor compressor = new SpanStreamPacketCompressor();
+        byte[] packet = toBytes(compressor.compress(createSendData().getSendBuffers()));
+        compressor.close();
+
+        // the receive buffer is larger than the packet
+        byte[] receiveBuffer = new byte[packet.length + 100];
+        System.arraycopy(packet, 0, receiveBuffer, 0, packet.length);
+        SpanStreamUDPPacketHandlerFactory<DatagramPacket> factory = new SpanStreamUDPPacketHandlerFactory<DatagramPacket>(dispatchHandler, TBaseFilter.CONTINUE_FILTER);
+        factory.createPacketHandler().receive(new DatagramPacket(receiveBuffer, 0, packet.length));
+
+        assertSpans(dispatchHandler);
+    }
+
+    @Test
+    public void corruptedCompressedPacket() throws Exception {
+        DispatchHandler dispatchHandler = mock(DispatchHandler.class);
+        SpanStreamPacketCompressor compressor = new SpanStreamPacketCompressor();
+        byte[] packet = toBytes(compressor.compress(createSendData().getSendBuffers()));
+        compressor.close();
+
+        byte[] truncated = new byte[packet.length / 2];
+        System.arraycopy(packet, 0, truncated, 0, truncated.length);
+        receive(dispatchHandler, truncated);
+
+        byte[] invalidLength = packet.clone();
+        ByteBuffer.wrap(invalidLength).putInt(SpanStreamConstants.START_PROTOCOL_BUFFER_SIZE, -1);
+        receive(dispatchHandler, invalidLength);
+
+        verifyZeroInteractions(dispatchHandler);
+    }
+
+    private void receive(DispatchHandler dispatchHandler, byte[] packet) {
+        SpanStreamUDPPacketHandlerFactory<DatagramPacket> factory = new SpanStreamUDPPacketHandlerFactory<DatagramPacket>(dispatchHandler, TBaseFilter.CONTINUE_FILTER);
+        factory.createPacketHandler().receive(new DatagramPacket(packet, packet.length));
+    }
+
+    private void assertSpans(DispatchHandler dispatchHandler) {
+        ArgumentCaptor<TBase> captor = ArgumentCaptor.forClass(TBase.class);
+        verify(dispatchHandler, times(SPAN_COUNT)).dispatchRequestMessage(captor.capture());
+        List<TBase> spans = captor.getAllValues();
+        for (int i = 0; i < SPAN_COUNT; i++) {
+            TSpan span = (TSpan) spans.get(i);
+            Assert.assertEquals("/api/" + i, span.getRpc());
+            Assert.assertEquals(SPAN_EVENT_COUNT, span.getSpanEventListSize());
+            Assert.assertEquals(SPAN_EVENT_COUNT - 1, span.getSpanEventList().get(SPAN_EVENT_COUNT - 1).getSequence());
+        }
+    }
+
+    private SpanStreamSendData createSendData() throws TException {
+        HeaderTBaseSerializer serializer = new HeaderTBaseSerializerFactory().createSerializer();
+        SpanStreamSendData sendData = new SpanStreamSendData(SpanStreamUdpSender.DEFAULT_BUFFER_SIZE, 64, null);
+        for (int i = 0; i < SPAN_COUNT; i++) {
+            ByteBuffer[] buffers = new ByteBuffer[SPAN_EVENT_COUNT + 1];
+            for (int j = 0; j < SPAN_EVENT_COUNT; j++) {
+                TSpanEvent spanEvent = new TSpanEvent();
+                spanEvent.setSequence((short) j);
+                spanEvent.setDestinationId("MYSQL_DB");
+                spanEvent.setEndPoint("10.0.0.1:3306");
+                buffers[j] = ByteBuffer.wrap(serializer.serialize(spanEvent));
+            }
+            TSpan span = new TSpan();
+            span.setAgentId("agentId");
+            span.setApplicationName("applicationName");
+            span.setRpc("/api/" + i);
+            buffers[SPAN_EVENT_COUNT] = ByteBuffer.wrap(serializer.serialize(span));
+            Assert.assertTrue(sendData.addBuffer(buffers));
+        }
+        return sendData;
+    }
+
+    private byte[] toBytes(ByteBuffer[] buffers) {
+        int length = 0;
+        for (ByteBuffer buffer : buffers) {
+            length += buffer.remaining();
+        }
+        byte[] bytes = new byte[length];
+        int offset = 0;
+        for (ByteBuffer buffer : buffers) {
+            ByteBuffer duplicate = buffer.duplicate();
+            int remaining = duplicate.remaining();
+            duplicate.get(bytes, offset, remaining);
+            offset += remaining;
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,684 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase;
+
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import org.apache.hadoop.hbase.client.Put;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Write-behind buffer for {@link Put}s.
+ * Puts are gathered per table and written with {@link HbaseOperations2#put(String, List)} once a batch
+ * reaches its size limit or gets older than the flush interval.
+ * Batches are written by a bounded number of flush threads and retried a limited number of times.
+ * <p>
+ * The bytes of buffered and in-flight puts are bounded. When the limit is reached, callers wait for
+ * flushes to complete, and write synchronously if the wait times out, which slows down the receivers
+ * instead of growing the heap.
+ * If disabled, every put is written synchronously.
+ * <p>
+ * With a {@link PutSpool}, puts that would be written synchronously and batches that failed after the retries
+ * are appended to the spool instead. While the spool holds puts, new puts are appended behind them, and the spool
+ * is replayed in order once the puts buffered before them are written, so an older spooled put does not overwrite
+ * a newer one. Replay reads the spool in batches spread over the flush threads by row, so the puts of a row keep their
+ * order, and a batch is committed once all of its puts are written. Once the spool is full, new puts are buffered again
+ * and ordering is not kept until it is drained.
+ * Puts of a batch that is retried or spooled after failing can also be written after newer puts of the same row,
+ * for those the last write wins. Replay backs off while HBase fails.
+ */
+public class BufferedPutWriter implements InitializingBean, DisposableBean {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final HbaseOperations2 hbaseTemplate;
+
+    private final boolean enable;
+    private final int maxBatchSize;
+    private final long flushIntervalMillis;
+    private final int flushThreadSize;
+    private final long maxPendingBytes;
+    private final long pendingWaitMillis;
+    private final int maxRetry;
+
+    private final ConcurrentMap<String, TableBuffer> tableBuffers = new ConcurrentHashMap<String, TableBuffer>();
+
+    private final Object pendingLock = new Object();
+    private long pendingBytes;
+
+    private PutSpool spool;
+    private int spoolReplayBatchSize = 1000;
+    private long spoolReplayIntervalMillis = 100;
+    private long replayBackoffMillis;
+    private long nextReplayTime;
+
+    private ThreadPoolExecutor flushExecutor;
+    private ScheduledExecutorService flushTimer;
+    private ScheduledExecutorService replayTimer;
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushedPutCount = new AtomicLong();
+    private final AtomicLong flushTimeMillis = new AtomicLong();
+    private final AtomicLong maxFlushTimeMillis = new AtomicLong();
+    private final AtomicLong retryCount = new AtomicLong();
+    private final AtomicLong failedPutCount = new AtomicLong();
+    private final AtomicLong synchronousPutCount = new AtomicLong();
+    private final AtomicLong spooledPutCount = new AtomicLong();
+    private final AtomicLong replayedPutCount = new AtomicLong();
+
+    public BufferedPutWriter(HbaseOperations2 hbaseTemplate, boolean enable, int maxBatchSize, long flushIntervalMillis, int flushThreadSize, long maxPendingBytes,
+                             long pendingWaitMillis, int maxRetry) {
+        if (hbaseTemplate == null) {
+            throw new NullPointerException("hbaseTemplate must not be null");
+        }
+        if (enable) {
+            if (maxBatchSize <= 0) {
+                throw new IllegalArgumentException("maxBatchSize must be greater than 0");
+            }
+            if (flushIntervalMillis <= 0) {
+                throw new IllegalArgumentException("flushIntervalMillis must be greater than 0");
+            }
+            if (flushThreadSize <= 0) {
+                throw new IllegalArgumentException("flushThreadSize must be greater than 0");
+            }
+            if (maxPendingBytes <= 0) {
+                throw new IllegalArgumentException("maxPendingBytes must be greater than 0");
+            }
+            if (maxRetry < 0) {
+                throw new IllegalArgumentException("negative maxRetry:" + maxRetry);
+            }
+        }
+        this.hbaseTemplate = hbaseTemplate;
+        this.enable = enable;
+        this.maxBatchSize = maxBatchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.flushThreadSize = flushThreadSize;
+        this.maxPendingBytes = maxPendingBytes;
+        this.pendingWaitMillis = pendingWaitMillis;
+        this.maxRetry = maxRetry;
+    }
+
+    public void setSpool(PutSpool spool) {
+        this.spool = spool;
+    }
+
+    public void setSpoolReplayBatchSize(int spoolReplayBatchSize) {
+        if (spoolReplayBatchSize <= 0) {
+            throw new IllegalArgumentException("spoolReplayBatchSize must be greater than 0");
+        }
+        this.spoolReplayBatchSize = spoolReplayBatchSize;
+    }
+
+    public void setSpoolReplayIntervalMillis(long spoolReplayIntervalMillis) {
+        if (spoolReplayIntervalMillis <= 0) {
+            throw new IllegalArgumentException("spoolReplayIntervalMillis must be greater than 0");
+        }
+        this.spoolReplayIntervalMillis = spoolReplayIntervalMillis;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enable) {
+            logger.info("BufferedPutWriter disabled.");
+            return;
+        }
+        this.flushExecutor = new ThreadPoolExecutor(flushThreadSize, flushThreadSize, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<Runnable>(), new PinpointThreadFactory("Pinpoint-HbaseFlush", true));
+        this.flushTimer = Executors.newSingleThreadScheduledExecutor(new PinpointThreadFactory("Pinpoint-HbaseFlushTimer", true));
+        final long period = Math.max(1, flushIntervalMillis / 2);
+        this.flushTimer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flushExpired();
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+        if (isSpoolEnable()) {
+            this.replayTimer = Executors.newSingleThreadScheduledExecutor(new PinpointThreadFactory("Pinpoint-HbaseSpoolReplay", true));
+            this.replayTimer.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    replaySpool();
+                }
+            }, spoolReplayIntervalMillis, spoolReplayIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+        logger.info("BufferedPutWriter started. maxBatchSize:{} flushInterval:{}ms flushThread:{} maxPendingBytes:{} maxRetry:{}",
+                maxBatchSize, flushIntervalMillis, flushThreadSize, maxPendingBytes, maxRetry);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (!enable) {
+            return;
+        }
+        logger.info("BufferedPutWriter.destroy() pendingBytes:{}", getPendingBytes());
+        if (replayTimer != null) {
+            replayTimer.shutdown();
+            try {
+                replayTimer.awaitTermination(10000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushTimer.shutdown();
+        flushAll();
+        flushExecutor.shutdown();
+        try {
+            flushExecutor.awaitTermination(10000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        logger.info("BufferedPutWriter stopped. {}", this);
+    }
+
+    public boolean isEnable() {
+        return enable;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void put(String tableName, Put put) {
+        if (tableName == null) {
+            throw new NullPointerException("tableName must not be null");
+        }
+        if (put == null) {
+            throw new NullPointerException("put must not be null");
+        }
+        if (!enable) {
+            hbaseTemplate.put(tableName, put);
+            return;
+        }
+
+        if (isSpoolEnable() && spool.appendIfNotEmpty(tableName, put)) {
+            // older puts are waiting in the spool
+            spooledPutCount.incrementAndGet();
+            return;
+        }
+
+        final long size = put.heapSize();
+        if (!acquire(size)) {
+            if (spool(tableName, put)) {
+                return;
+            }
+            // backpressure : the caller pays for the rpc itself
+            synchronousPutCount.incrementAndGet();
+            hbaseTemplate.put(tableName, put);
+            return;
+        }
+
+        final TableBuffer tableBuffer = getTableBuffer(tableName);
+        final Batch fullBatch = tableBuffer.add(put, size);
+        if (fullBatch != null) {
+            submit(fullBatch);
+        }
+    }
+
+    /**
+     * Writes puts the caller has gathered itself as batches of up to the batch size,
+     * without going through the per table buffers.
+     */
+    public void put(String tableName, List<Put> puts) {
+        if (tableName == null) {
+            throw new NullPointerException("tableName must not be null");
+        }
+        if (puts == null) {
+            throw new NullPointerException("puts must not be null");
+        }
+        if (puts.isEmpty()) {
+            return;
+        }
+        if (!enable) {
+            hbaseTemplate.put(tableName, puts);
+            return;
+        }
+
+        for (int from = 0; from < puts.size(); from += maxBatchSize) {
+            final List<Put> batchPuts = new ArrayList<Put>(puts.subList(from, Math.min(puts.size(), from + maxBatchSize)));
+            if (isSpoolEnable() && !spool.isEmpty()) {
+                // older puts are waiting in the spool
+                for (Put put : batchPuts) {
+                    put(tableName, put);
+                }
+                continue;
+            }
+            long bytes = 0;
+            for (Put put : batchPuts) {
+                bytes += put.heapSize();
+            }
+            if (!acquire(bytes)) {
+                final List<Put> unspooled = new ArrayList<Put>(batchPuts.size());
+                for (Put put : batchPuts) {
+                    if (!spool(tableName, put)) {
+                        unspooled.add(put);
+                    }
+                }
+                if (!unspooled.isEmpty()) {
+                    // backpressure : the caller pays for the rpc itself
+                    synchronousPutCount.addAndGet(unspooled.size());
+                    hbaseTemplate.put(tableName, unspooled);
+                }
+                continue;
+            }
+            submit(new Batch(tableName, batchPuts, bytes));
+        }
+    }
+
+    private boolean acquire(long size) {
+        synchronized (pendingLock) {
+            if (pendingBytes + size <= maxPendingBytes || pendingBytes == 0) {
+                pendingBytes += size;
+                return true;
+            }
+            final long deadline = System.currentTimeMillis() + pendingWaitMillis;
+            long wait = pendingWaitMillis;
+            while (wait > 0) {
+                try {
+                    pendingLock.wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                if (pendingBytes + size <= maxPendingBytes) {
+                    pendingBytes += size;
+                    return true;
+                }
+                wait = deadline - System.currentTimeMillis();
+            }
+            return false;
+        }
+    }
+
+    private void release(long size) {
+        synchronized (pendingLock) {
+            pendingBytes -= size;
+            pendingLock.notifyAll();
+        }
+    }
+
+    private TableBuffer getTableBuffer(String tableName) {
+        final TableBuffer tableBuffer = tableBuffers.get(tableName);
+        if (tableBuffer != null) {
+            return tableBuffer;
+        }
+        final TableBuffer newTableBuffer = new TableBuffer(tableName);
+        final TableBuffer exist = tableBuffers.putIfAbsent(tableName, newTableBuffer);
+        if (exist != null) {
+            return exist;
+        }
+        return newTableBuffer;
+    }
+
+    private void flushExpired() {
+        final long now = System.currentTimeMillis();
+        for (TableBuffer tableBuffer : tableBuffers.values()) {
+            final Batch batch = tableBuffer.takeIfExpired(now);
+            if (batch != null) {
+                submit(batch);
+            }
+        }
+    }
+
+    public void flushAll() {
+        if (!enable) {
+            return;
+        }
+        for (TableBuffer tableBuffer : tableBuffers.values()) {
+            final Batch batch = tableBuffer.takeIfExpired(Long.MAX_VALUE);
+            if (batch != null) {
+                submit(batch);
+            }
+        }
+    }
+
+    private void submit(final Batch batch) {
+        try {
+            flushExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    flush(batch);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // shutting down
+            flush(batch);
+        }
+    }
+
+    private void flush(Batch batch) {
+        final int size = batch.puts.size();
+        try {
+            for (int attempt = 0; ; attempt++) {
+                final long startTime = System.currentTimeMillis();
+                try {
+                    hbaseTemplate.put(batch.tableName, batch.puts);
+                    recordFlush(size, System.currentTimeMillis() - startTime);
+                    return;
+                } catch (Exception e) {
+                    if (attempt >= maxRetry) {
+                        if (spool(batch)) {
+                            logger.warn("{} put batch failed after {} retries. spooled puts:{} Caused:{}", batch.tableName, attempt, size, e.getMessage());
+                            return;
+                        }
+                        failedPutCount.addAndGet(size);
+                        logger.error("{} put batch failed after {} retries. dropped puts:{} Caused:{}", batch.tableName, attempt, size, e.getMessage(), e);
+                        return;
+                    }
+                    retryCount.incrementAndGet();
+                    logger.warn("{} put batch failed, retry:{} Caused:{}", batch.tableName, attempt + 1, e.getMessage());
+                    if (!backoff(attempt)) {
+                        failedPutCount.addAndGet(size);
+                        return;
+                    }
+                }
+            }
+        } finally {
+            release(batch.bytes);
+        }
+    }
+
+    private boolean isSpoolEnable() {
+        return spool != null && spool.isEnable();
+    }
+
+    private boolean spool(String tableName, Put put) {
+        if (!isSpoolEnable()) {
+            return false;
+        }
+        if (spool.append(tableName, put)) {
+            spooledPutCount.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean spool(Batch batch) {
+        if (!isSpoolEnable()) {
+            return false;
+        }
+        int spooled = 0;
+        for (Put put : batch.puts) {
+            if (spool.append(batch.tableName, put)) {
+                spooled++;
+            } else {
+                failedPutCount.incrementAndGet();
+            }
+        }
+        spooledPutCount.addAndGet(spooled);
+        return spooled > 0;
+    }
+
+    private void replaySpool() {
+        if (spool.isEmpty()) {
+            return;
+        }
+        // appended records are written to the disk every interval
+        spool.force();
+        final long now = System.currentTimeMillis();
+        if (now < nextReplayTime) {
+            return;
+        }
+        while (!spool.isEmpty() && !replayTimer.isShutdown()) {
+            final long pendingBytes = getPendingBytes();
+            if (pendingBytes > 0) {
+                // puts buffered before the spooled ones are written first.
+                // a full spool lets new puts into the buffer, then only wait until the writer is not backed up
+                if (pendingBytes > maxPendingBytes / 2 || !spool.isFull()) {
+                    return;
+                }
+            }
+            if (!replaySpoolBatch(now)) {
+                return;
+            }
+        }
+    }
+
+    private boolean replaySpoolBatch(long now) {
+        try {
+            final PutSpool.ReadBatch batch = spool.read(spoolReplayBatchSize * flushThreadSize);
+            if (batch.getRecords().isEmpty()) {
+                spool.commit(batch);
+                return false;
+            }
+            // the puts of a row go to the same flush thread in the spooled order
+            final List<Map<String, List<Put>>> partitions = new ArrayList<Map<String, List<Put>>>(flushThreadSize);
+            for (int i = 0; i < flushThreadSize; i++) {
+                partitions.add(new LinkedHashMap<String, List<Put>>());
+            }
+            for (PutSpool.Record record : batch.getRecords()) {
+                final Put put = record.getPut();
+                final int partition = (Arrays.hashCode(put.getRow()) & Integer.MAX_VALUE) % flushThreadSize;
+                final Map<String, List<Put>> tablePuts = partitions.get(partition);
+                List<Put> puts = tablePuts.get(record.getTableName());
+                if (puts == null) {
+                    puts = new ArrayList<Put>();
+                    tablePuts.put(record.getTableName(), puts);
+                }
+                puts.add(put);
+            }
+            final List<Future<?>> futures = new ArrayList<Future<?>>(flushThreadSize);
+            for (final Map<String, List<Put>> tablePuts : partitions) {
+                if (tablePuts.isEmpty()) {
+                    continue;
+                }
+                futures.add(flushExecutor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        for (Map.Entry<String, List<Put>> entry : tablePuts.entrySet()) {
+                            hbaseTemplate.put(entry.getKey(), entry.getValue());
+                        }
+                        return null;
+                    }
+                }));
+            }
+            // the batch is committed only once every partition is written
+            Exception failure = null;
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            spool.commit(batch);
+            replayedPutCount.addAndGet(batch.getRecords().size());
+            this.replayBackoffMillis = 0;
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            this.replayBackoffMillis = Math.min(Math.max(replayBackoffMillis * 2, spoolReplayIntervalMillis), 10000L);
+            this.nextReplayTime = now + replayBackoffMillis;
+            logger.warn("spool replay failed, retry after {}ms. Caused:{}", replayBackoffMillis, e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean backoff(int attempt) {
+        try {
+            Thread.sleep(Math.min(100L << attempt, 5000L));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void recordFlush(int batchSize, long elapsed) {
+        flushCount.incrementAndGet();
+        flushedPutCount.addAndGet(batchSize);
+        flushTimeMillis.addAndGet(elapsed);
+        long max;
+        while (elapsed > (max = maxFlushTimeMillis.get())) {
+            if (maxFlushTimeMillis.compareAndSet(max, elapsed)) {
+                break;
+            }
+        }
+    }
+
+    public long getPendingBytes() {
+        synchronized (pendingLock) {
+            return pendingBytes;
+        }
+    }
+
+    public long getFlushCount() {
+        return flushCount.get();
+    }
+
+    public long getFlushedPutCount() {
+        return flushedPutCount.get();
+    }
+
+    public double getAverageBatchSize() {
+        final long flushCount = this.flushCount.get();
+        if (flushCount == 0) {
+            return 0;
+        }
+        return (double) flushedPutCount.get() / flushCount;
+    }
+
+    public double getAverageFlushTimeMillis() {
+        final long flushCount = this.flushCount.get();
+        if (flushCount == 0) {
+            return 0;
+        }
+        return (double) flushTimeMillis.get() / flushCount;
+    }
+
+    public long getMaxFlushTimeMillis() {
+        return maxFlushTimeMillis.get();
+    }
+
+    public long getRetryCount() {
+        return retryCount.get();
+    }
+
+    public long getFailedPutCount() {
+        return failedPutCount.get();
+    }
+
+    public long getSynchronousPutCount() {
+        return synchronousPutCount.get();
+    }
+
+    public long getSpooledPutCount() {
+        return spooledPutCount.get();
+    }
+
+    public long getReplayedPutCount() {
+        return replayedPutCount.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("BufferedPutWriter{");
+        sb.append("enable=").append(enable);
+        sb.append(", pendingBytes=").append(getPendingBytes());
+        sb.append(", flushCount=").append(getFlushCount());
+        sb.append(", averageBatchSize=").append(getAverageBatchSize());
+        sb.append(", averageFlushTimeMillis=").append(getAverageFlushTimeMillis());
+        sb.append(", maxFlushTimeMillis=").append(getMaxFlushTimeMillis());
+        sb.append(", retryCount=").append(getRetryCount());
+        sb.append(", failedPutCount=").append(getFailedPutCount());
+        sb.append(", synchronousPutCount=").append(getSynchronousPutCount());
+        sb.append(", spooledPutCount=").append(getSpooledPutCount());
+        sb.append(", replayedPutCount=").append(getReplayedPutCount());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static class Batch {
+        private final String tableName;
+        private final List<Put> puts;
+        private final long bytes;
+
+        private Batch(String tableName, List<Put> puts, long bytes) {
+            this.tableName = tableName;
+            this.puts = puts;
+            this.bytes = bytes;
+        }
+    }
+
+    private class TableBuffer {
+        private final String tableName;
+
+        private List<Put> puts;
+        private long bytes;
+        private long firstPutTime;
+
+        private TableBuffer(String tableName) {
+            this.tableName = tableName;
+            this.puts = new ArrayList<Put>(maxBatchSize);
+        }
+
+        private synchronized Batch add(Put put, long size) {
+            if (puts.isEmpty()) {
+                firstPutTime = System.currentTimeMillis();
+            }
+            puts.add(put);
+            bytes += size;
+            if (puts.size() >= maxBatchSize) {
+                return take();
+            }
+            return null;
+        }
+
+        private synchronized Batch takeIfExpired(long now) {
+            if (puts.isEmpty()) {
+                return null;
+            }
+            if (now - firstPutTime < flushIntervalMillis) {
+                return null;
+            }
+            return take();
+        }
+
+        private Batch take() {
+            final Batch batch = new Batch(tableName, puts, bytes);
+            this.puts = new ArrayList<Put>(maxBatchSize);
+            this.bytes = 0;
+            return batch;
+        }
+    }
+}
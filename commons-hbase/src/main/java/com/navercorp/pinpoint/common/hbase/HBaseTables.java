@@ -38,6 +38,8 @@ public final class HBaseTables {
     public static final byte[] AGENT_STAT_CF_STATISTICS_V1 = Bytes.toBytes("V1"); // qualifier
     public static final byte[] AGENT_STAT_CF_STATISTICS_MEMORY_GC = Bytes.toBytes("Gc"); // qualifier for Heap Memory/Gc statistics
     public static final byte[] AGENT_STAT_CF_STATISTICS_CPU_LOAD = Bytes.toBytes("Cpu"); // qualifier for CPU load statistics
+    public static final byte[] AGENT_STAT_CF_STATISTICS_BLOCK = Bytes.toBytes("B"); // qualifier prefix for delta encoded samples, followed by the offset of the first sample in the block
+    public static final long AGENT_STAT_BLOCK_SIZE = 5 * 60 * 1000; // time range of the samples of a block row
     public static final int AGENT_STAT_ROW_DISTRIBUTE_SIZE = 1; // agent statistics hash size
 
     public static final String TRACES = "Traces";
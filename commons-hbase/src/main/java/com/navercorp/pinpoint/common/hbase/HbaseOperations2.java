@@ -97,9 +97,10 @@ public interface HbaseOperations2 extends HbaseOperations {
     Result increment(String tableName, final Increment increment);
 
     /**
-     * Exception throwing can partially happen in case of incrementList. you will be accepted the last Exception.
-     * If you want to retry something with catching a specific exception,
-     * There is a limitation that you can't know which exception throws due to throwing always last exception.
+     * Increments are submitted as a single batch, grouped by region server.
+     * Exception throwing can partially happen in case of incrementList, the increments that succeeded are applied.
+     * A partial failure is thrown as a {@link org.springframework.dao.DataAccessException} whose cause is a
+     * {@link RetriesExhaustedWithDetailsException}, which tells the row, server and cause of every failed increment.
      *
      * @param tableName
      * @param incrementList
@@ -16,11 +16,13 @@
 
 package com.navercorp.pinpoint.common.hbase;
 
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
 import com.navercorp.pinpoint.common.util.StopWatch;
 import com.sematext.hbase.wd.AbstractRowKeyDistributor;
 import com.sematext.hbase.wd.DistributedScanner;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.client.*;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.DisposableBean;
@@ -44,10 +46,19 @@ import java.util.concurrent.TimeUnit;
  */
 public class HbaseTemplate2 extends HbaseTemplate implements HbaseOperations2, InitializingBean, DisposableBean {
 
+    // failed increments logged one by one per batch
+    private static final int MAX_INCREMENT_FAILURE_LOG_SIZE = 10;
+
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
 
     private final ExecutorService executor = newCachedThreadPool();
 
+    private volatile TableCallListener tableCallListener;
+
+    private boolean parallelScanEnable = false;
+    private int parallelScanMaxThreads = 64;
+    private ExecutorService parallelScanExecutor;
+
     public HbaseTemplate2() {
     }
 
@@ -72,11 +83,50 @@ public class HbaseTemplate2 extends HbaseTemplate implements HbaseOperations2, I
 
 
 
+    public void setTableCallListener(TableCallListener tableCallListener) {
+        this.tableCallListener = tableCallListener;
+    }
+
+    /**
+     * open and read the buckets of a distributed scan in parallel, see {@link ParallelResultScanner}
+     */
+    public void setParallelScanEnable(boolean parallelScanEnable) {
+        this.parallelScanEnable = parallelScanEnable;
+    }
+
+    public void setParallelScanMaxThreads(int parallelScanMaxThreads) {
+        this.parallelScanMaxThreads = parallelScanMaxThreads;
+    }
+
+    @Override
+    public <T> T execute(String tableName, TableCallback<T> action) {
+        final TableCallListener tableCallListener = this.tableCallListener;
+        if (tableCallListener == null) {
+            return super.execute(tableName, action);
+        }
+        final long startTime = System.nanoTime();
+        boolean success = false;
+        try {
+            final T result = super.execute(tableName, action);
+            success = true;
+            return result;
+        } finally {
+            tableCallListener.onCall(tableName, System.nanoTime() - startTime, success);
+        }
+    }
+
     @Override
     public void afterPropertiesSet() {
         Configuration configuration = getConfiguration();
         Assert.notNull(configuration, "configuration is required");
         Assert.notNull(getTableFactory(), "tableFactory is required");
+        if (parallelScanEnable) {
+            Assert.isTrue(parallelScanMaxThreads > 0, "parallelScanMaxThreads must be greater than 0");
+            final ThreadPoolExecutor parallelScanExecutor = new ThreadPoolExecutor(parallelScanMaxThreads, parallelScanMaxThreads,
+                    60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), PinpointThreadFactory.createThreadFactory("Pinpoint-HBase-ParallelScan", true));
+            parallelScanExecutor.allowCoreThreadTimeOut(true);
+            this.parallelScanExecutor = parallelScanExecutor;
+        }
     }
 
     @Override
@@ -91,6 +141,10 @@ public class HbaseTemplate2 extends HbaseTemplate implements HbaseOperations2, I
                 Thread.currentThread().interrupt();
             }
         }
+        final ExecutorService parallelScanExecutor = this.parallelScanExecutor;
+        if (parallelScanExecutor != null) {
+            parallelScanExecutor.shutdownNow();
+        }
     }
 
     @Override
@@ -472,6 +526,10 @@ public class HbaseTemplate2 extends HbaseTemplate implements HbaseOperations2, I
     }
 
     public ResultScanner createDistributeScanner(HTableInterface htable, Scan originalScan, AbstractRowKeyDistributor rowKeyDistributor) throws IOException {
+        final ExecutorService parallelScanExecutor = this.parallelScanExecutor;
+        if (parallelScanExecutor != null) {
+            return new ParallelResultScanner(parallelScanExecutor, htable, originalScan, rowKeyDistributor);
+        }
 
         Scan[] scans = rowKeyDistributor.getDistributedScans(originalScan);
         final int length = scans.length;
@@ -523,26 +581,40 @@ public class HbaseTemplate2 extends HbaseTemplate implements HbaseOperations2, I
         return execute(tableName, new TableCallback<List<Result>>() {
             @Override
             public List<Result> doInTable(HTableInterface htable) throws Throwable {
-                final List<Result> resultList = new ArrayList<Result>(incrementList.size());
+                // batch() groups the increments by region server and sends them in parallel
+                final Object[] results = new Object[incrementList.size()];
+                try {
+                    htable.batch(incrementList, results);
+                } catch (RetriesExhaustedWithDetailsException e) {
+                    // wrapped by execute(), the cause tells the failed increments
+                    logIncrementFailure(tableName, incrementList.size(), e);
+                    throw e;
+                }
 
-                Exception lastException = null;
-                for (Increment increment : incrementList) {
-                    try {
-                        Result result = htable.increment(increment);
-                        resultList.add(result);
-                    } catch (IOException e) {
-                        logger.warn("{} increment error Caused:{}", tableName, e.getMessage(), e);
-                        lastException = e;
+                final List<Result> resultList = new ArrayList<Result>(results.length);
+                for (Object result : results) {
+                    if (result instanceof Result) {
+                        resultList.add((Result) result);
                     }
                 }
-                if (lastException != null) {
-                    throw lastException;
-                }
                 return resultList;
             }
         });
     }
 
+    private void logIncrementFailure(String tableName, int incrementSize, RetriesExhaustedWithDetailsException e) {
+        final int failed = e.getNumExceptions();
+        logger.warn("{} increment failed {}/{}. Caused:{}", tableName, failed, incrementSize, e.getMessage());
+        final int logged = Math.min(failed, MAX_INCREMENT_FAILURE_LOG_SIZE);
+        for (int i = 0; i < logged; i++) {
+            logger.warn("{} increment failed row:{} server:{} Caused:{}", tableName, Bytes.toStringBinary(e.getRow(i).getRow()), e.getHostnamePort(i),
+                    e.getCause(i).getMessage());
+        }
+        if (failed > logged) {
+            logger.warn("{} increment failed, {} more failures are not logged", tableName, failed - logged);
+        }
+    }
+
     public long incrementColumnValue(String tableName, final byte[] rowName, final byte[] familyName, final byte[] qualifier, final long amount) {
         return execute(tableName, new TableCallback<Long>() {
             @Override
@@ -0,0 +1,408 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+
+/**
+ * Scans the buckets of a salted table in parallel.
+ * <ul>
+ *     <li>the scanners of all buckets are opened concurrently on the executor</li>
+ *     <li>the next batch of each bucket is fetched in the background while the current one is consumed</li>
+ *     <li>results are merged in the order of their original (unsalted) row key, like {@link com.sematext.hbase.wd.DistributedScanner}</li>
+ * </ul>
+ * Closing the scanner stops all prefetching, so a caller that stops at its limit does not read the remaining buckets.
+ * Not thread safe, like any other {@link ResultScanner}.
+ */
+public class ParallelResultScanner implements ResultScanner {
+
+    private static final Result[] EMPTY_RESULTS = new Result[0];
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String scanId;
+    private final AbstractRowKeyDistributor rowKeyDistributor;
+    private final ExecutorService executor;
+    private final Bucket[] buckets;
+    private final PriorityQueue<Bucket> mergeQueue;
+    private final long startTime = System.nanoTime();
+
+    private boolean initialized = false;
+    private boolean closed = false;
+
+    public ParallelResultScanner(ExecutorService executor, HTableInterface htable, Scan originalScan, AbstractRowKeyDistributor rowKeyDistributor) throws IOException {
+        if (executor == null) {
+            throw new NullPointerException("executor must not be null");
+        }
+        if (htable == null) {
+            throw new NullPointerException("htable must not be null");
+        }
+        if (originalScan == null) {
+            throw new NullPointerException("originalScan must not be null");
+        }
+        if (rowKeyDistributor == null) {
+            throw new NullPointerException("rowKeyDistributor must not be null");
+        }
+        this.scanId = originalScan.getId();
+        this.rowKeyDistributor = rowKeyDistributor;
+        this.executor = executor;
+
+        final Scan[] scans = rowKeyDistributor.getDistributedScans(originalScan);
+        // a batch of each bucket is held in memory, fetch the rows of a single scan rpc
+        final int batchSize = originalScan.getCaching() > 0 ? originalScan.getCaching() : 1;
+        this.buckets = new Bucket[scans.length];
+        for (int i = 0; i < scans.length; i++) {
+            final Scan scan = scans[i];
+            scan.setId(originalScan.getId() + "-" + i);
+            scan.setCaching(originalScan.getCaching());
+            buckets[i] = new Bucket(i, htable, scan, batchSize);
+        }
+        this.mergeQueue = new PriorityQueue<Bucket>(Math.max(scans.length, 1), new Comparator<Bucket>() {
+            @Override
+            public int compare(Bucket o1, Bucket o2) {
+                return Bytes.compareTo(o1.headKey, o2.headKey);
+            }
+        });
+
+        boolean success = false;
+        try {
+            open();
+            success = true;
+        } finally {
+            if (!success) {
+                close();
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        for (Bucket bucket : buckets) {
+            bucket.future = executor.submit(bucket.openTask());
+        }
+        for (Bucket bucket : buckets) {
+            bucket.awaitFetch();
+        }
+    }
+
+    @Override
+    public Result next() throws IOException {
+        if (closed) {
+            return null;
+        }
+        if (!initialized) {
+            // the first batch of every bucket was requested together when the scanners were opened
+            for (Bucket bucket : buckets) {
+                if (bucket.advance()) {
+                    mergeQueue.add(bucket);
+                }
+            }
+            initialized = true;
+        }
+
+        final Bucket bucket = mergeQueue.poll();
+        if (bucket == null) {
+            return null;
+        }
+        final Result result = bucket.head;
+        if (bucket.advance()) {
+            mergeQueue.add(bucket);
+        }
+        return result;
+    }
+
+    @Override
+    public Result[] next(int nbRows) throws IOException {
+        final List<Result> resultList = new ArrayList<Result>(nbRows);
+        for (int i = 0; i < nbRows; i++) {
+            final Result result = next();
+            if (result == null) {
+                break;
+            }
+            resultList.add(result);
+        }
+        return resultList.toArray(new Result[resultList.size()]);
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Bucket bucket : buckets) {
+            if (bucket != null) {
+                bucket.close();
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logLatency();
+        }
+    }
+
+    private void logLatency() {
+        final long scanTime = System.nanoTime() - startTime;
+        Bucket slowest = null;
+        for (Bucket bucket : buckets) {
+            if (bucket == null) {
+                continue;
+            }
+            logger.debug("{} bucket:{} open:{}ms fetch:{} rows:{} fetchTime:{}ms maxFetchTime:{}ms", scanId, bucket.index,
+                    toMillis(bucket.openNanos), bucket.fetchCount, bucket.rowCount, toMillis(bucket.fetchNanos), toMillis(bucket.maxFetchNanos));
+            if (slowest == null || bucket.openNanos + bucket.fetchNanos > slowest.openNanos + slowest.fetchNanos) {
+                slowest = bucket;
+            }
+        }
+        if (slowest != null) {
+            logger.debug("{} buckets:{} scanTime:{}ms slowest bucket:{} {}ms", scanId, buckets.length, toMillis(scanTime),
+                    slowest.index, toMillis(slowest.openNanos + slowest.fetchNanos));
+        }
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    @Override
+    public Iterator<Result> iterator() {
+        return new Iterator<Result>() {
+            private Result next = null;
+
+            @Override
+            public boolean hasNext() {
+                if (next == null) {
+                    try {
+                        next = ParallelResultScanner.this.next();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return next != null;
+            }
+
+            @Override
+            public Result next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final Result result = next;
+                next = null;
+                return result;
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private class Bucket {
+
+        private final int index;
+        private final HTableInterface htable;
+        private final Scan scan;
+        private final int batchSize;
+
+        // owned by the caller thread
+        private Future<Result[]> future;
+        private Result[] batch = EMPTY_RESULTS;
+        private int batchIndex = 0;
+        private boolean exhausted = false;
+        private Result head;
+        private byte[] headKey;
+
+        // shared with the fetch task
+        private ResultScanner scanner;
+        private boolean running = false;
+        private boolean closed = false;
+
+        // written by the fetch task, read after the future completed
+        private volatile long openNanos;
+        private volatile long fetchNanos;
+        private volatile long maxFetchNanos;
+        private volatile int fetchCount;
+        private volatile int rowCount;
+
+        private Bucket(int index, HTableInterface htable, Scan scan, int batchSize) {
+            this.index = index;
+            this.htable = htable;
+            this.scan = scan;
+            this.batchSize = batchSize;
+        }
+
+        private Callable<Result[]> openTask() {
+            return new Callable<Result[]>() {
+                @Override
+                public Result[] call() throws Exception {
+                    if (!begin()) {
+                        return EMPTY_RESULTS;
+                    }
+                    final long startTime = System.nanoTime();
+                    ResultScanner scanner = null;
+                    try {
+                        scanner = htable.getScanner(scan);
+                    } finally {
+                        openNanos = System.nanoTime() - startTime;
+                        end(scanner);
+                    }
+                    return fetch();
+                }
+            };
+        }
+
+        private Callable<Result[]> fetchTask() {
+            return new Callable<Result[]>() {
+                @Override
+                public Result[] call() throws Exception {
+                    return fetch();
+                }
+            };
+        }
+
+        private Result[] fetch() throws IOException {
+            if (!begin()) {
+                return EMPTY_RESULTS;
+            }
+            final long startTime = System.nanoTime();
+            try {
+                final Result[] results = scanner.next(batchSize);
+                rowCount += results.length;
+                return results;
+            } finally {
+                final long elapsed = System.nanoTime() - startTime;
+                fetchNanos += elapsed;
+                maxFetchNanos = Math.max(maxFetchNanos, elapsed);
+                fetchCount++;
+                end(scanner);
+            }
+        }
+
+        private synchronized boolean begin() {
+            if (closed) {
+                return false;
+            }
+            running = true;
+            return true;
+        }
+
+        private void end(ResultScanner scanner) {
+            synchronized (this) {
+                this.scanner = scanner;
+                running = false;
+                if (!closed) {
+                    return;
+                }
+            }
+            // closed while the scanner was in use
+            closeScanner(scanner);
+        }
+
+        private void awaitFetch() throws IOException {
+            final Future<Result[]> future = this.future;
+            this.future = null;
+            try {
+                this.batch = future.get();
+                this.batchIndex = 0;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("interrupted while scanning " + scan.getId());
+            } catch (ExecutionException e) {
+                final Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                throw new IOException(scan.getId() + " scan failed. Caused:" + cause.getMessage(), cause);
+            }
+            if (batch.length == 0) {
+                exhausted = true;
+            } else {
+                // fetch the next batch while this one is merged
+                this.future = executor.submit(fetchTask());
+            }
+        }
+
+        /**
+         * moves to the next result of the bucket
+         * @return false if the bucket has no more results
+         */
+        private boolean advance() throws IOException {
+            if (batchIndex >= batch.length) {
+                if (exhausted || future == null) {
+                    return false;
+                }
+                awaitFetch();
+                if (exhausted) {
+                    return false;
+                }
+            }
+            head = batch[batchIndex++];
+            headKey = rowKeyDistributor.getOriginalKey(head.getRow());
+            return true;
+        }
+
+        private void close() {
+            final Future<Result[]> future = this.future;
+            this.future = null;
+            final ResultScanner scanner;
+            synchronized (this) {
+                closed = true;
+                if (running) {
+                    // the fetch task closes the scanner when it is done
+                    return;
+                }
+                scanner = this.scanner;
+            }
+            if (future != null) {
+                future.cancel(false);
+            }
+            closeScanner(scanner);
+        }
+
+        private void closeScanner(ResultScanner scanner) {
+            if (scanner == null) {
+                return;
+            }
+            try {
+                scanner.close();
+            } catch (Exception e) {
+                logger.warn("Scanner.close() error Caused:{}", e.getMessage(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,354 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.hbase;
+
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.client.Put;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Holds {@link Put}s for a short window and merges the ones targeting the same row into a single {@link Put}
+ * before handing them to the {@link BufferedPutWriter}.
+ * Spans and span chunks of a transaction arrive from many agents within a short time and are written to the same row,
+ * so merging them reduces the number of mutations per row.
+ * <p>
+ * A row is written once its first put is older than the window. The bytes held by the window are bounded,
+ * the oldest rows are written early when the limit is reached.
+ * If disabled, every put is handed to the {@link BufferedPutWriter} as is.
+ * <p>
+ * Expired rows are handed over by a single timer thread, so the {@link BufferedPutWriter} must be enabled,
+ * otherwise every row would be a synchronous rpc on that thread.
+ */
+public class PutAssemblyWindow implements InitializingBean, DisposableBean {
+
+    private static final int STRIPE_SIZE = 16;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final BufferedPutWriter putWriter;
+
+    private final boolean enable;
+    private final long windowMillis;
+    private final long maxBytes;
+
+    private final Stripe[] stripes;
+
+    private ScheduledExecutorService windowTimer;
+
+    private final AtomicLong receivedPutCount = new AtomicLong();
+    private final AtomicLong mergedPutCount = new AtomicLong();
+    private final AtomicLong writtenPutCount = new AtomicLong();
+    private final AtomicLong evictedPutCount = new AtomicLong();
+
+    public PutAssemblyWindow(BufferedPutWriter putWriter, boolean enable, long windowMillis, long maxBytes) {
+        if (putWriter == null) {
+            throw new NullPointerException("putWriter must not be null");
+        }
+        if (enable) {
+            if (windowMillis <= 0) {
+                throw new IllegalArgumentException("windowMillis must be greater than 0");
+            }
+            if (maxBytes <= 0) {
+                throw new IllegalArgumentException("maxBytes must be greater than 0");
+            }
+        }
+        this.putWriter = putWriter;
+        this.enable = enable;
+        this.windowMillis = windowMillis;
+        this.maxBytes = maxBytes;
+        this.stripes = new Stripe[STRIPE_SIZE];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe(Math.max(1, maxBytes / STRIPE_SIZE));
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!enable) {
+            logger.info("PutAssemblyWindow disabled.");
+            return;
+        }
+        if (!putWriter.isEnable()) {
+            throw new IllegalStateException("PutAssemblyWindow requires an enabled BufferedPutWriter, set hbase.client.async.enable=true");
+        }
+        this.windowTimer = Executors.newSingleThreadScheduledExecutor(new PinpointThreadFactory("Pinpoint-PutAssemblyWindow", true));
+        final long period = Math.max(1, windowMillis / 4);
+        this.windowTimer.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                writeExpired(System.currentTimeMillis());
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+        logger.info("PutAssemblyWindow started. window:{}ms maxBytes:{}", windowMillis, maxBytes);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (!enable) {
+            return;
+        }
+        windowTimer.shutdown();
+        try {
+            windowTimer.awaitTermination(10000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        writeAll();
+        logger.info("PutAssemblyWindow stopped. {}", this);
+    }
+
+    public boolean isEnable() {
+        return enable;
+    }
+
+    public void put(String tableName, Put put) {
+        if (tableName == null) {
+            throw new NullPointerException("tableName must not be null");
+        }
+        if (put == null) {
+            throw new NullPointerException("put must not be null");
+        }
+        if (!enable) {
+            putWriter.put(tableName, put);
+            return;
+        }
+        receivedPutCount.incrementAndGet();
+
+        final RowKey rowKey = new RowKey(tableName, put.getRow());
+        final Stripe stripe = stripes[(rowKey.hashCode() & Integer.MAX_VALUE) % stripes.length];
+        final List<Row> evicted = stripe.add(rowKey, put, System.currentTimeMillis());
+        if (evicted != null) {
+            evictedPutCount.addAndGet(evicted.size());
+            write(evicted);
+        }
+    }
+
+    void writeExpired(long now) {
+        final long expireTime = now - windowMillis;
+        for (Stripe stripe : stripes) {
+            final List<Row> expired = stripe.takeOlderThan(expireTime);
+            if (expired != null) {
+                write(expired);
+            }
+        }
+    }
+
+    public void writeAll() {
+        if (!enable) {
+            return;
+        }
+        writeExpired(Long.MAX_VALUE);
+    }
+
+    private void write(List<Row> rows) {
+        // handed over as batches, a full writer costs a synchronous rpc per batch instead of per row
+        final Map<String, List<Put>> tablePuts = new LinkedHashMap<String, List<Put>>();
+        for (Row row : rows) {
+            List<Put> puts = tablePuts.get(row.rowKey.tableName);
+            if (puts == null) {
+                puts = new ArrayList<Put>();
+                tablePuts.put(row.rowKey.tableName, puts);
+            }
+            puts.add(row.put);
+        }
+        for (Map.Entry<String, List<Put>> entry : tablePuts.entrySet()) {
+            try {
+                putWriter.put(entry.getKey(), entry.getValue());
+                writtenPutCount.addAndGet(entry.getValue().size());
+            } catch (Exception e) {
+                logger.error("{} put failed. Caused:{}", entry.getKey(), e.getMessage(), e);
+            }
+        }
+    }
+
+    public long getBufferedBytes() {
+        long bytes = 0;
+        for (Stripe stripe : stripes) {
+            bytes += stripe.getBytes();
+        }
+        return bytes;
+    }
+
+    public long getReceivedPutCount() {
+        return receivedPutCount.get();
+    }
+
+    public long getMergedPutCount() {
+        return mergedPutCount.get();
+    }
+
+    public long getWrittenPutCount() {
+        return writtenPutCount.get();
+    }
+
+    public long getEvictedPutCount() {
+        return evictedPutCount.get();
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("PutAssemblyWindow{");
+        sb.append("enable=").append(enable);
+        sb.append(", bufferedBytes=").append(getBufferedBytes());
+        sb.append(", receivedPutCount=").append(getReceivedPutCount());
+        sb.append(", mergedPutCount=").append(getMergedPutCount());
+        sb.append(", writtenPutCount=").append(getWrittenPutCount());
+        sb.append(", evictedPutCount=").append(getEvictedPutCount());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static class RowKey {
+        private final String tableName;
+        private final byte[] row;
+        private final int hashCode;
+
+        private RowKey(String tableName, byte[] row) {
+            this.tableName = tableName;
+            this.row = row;
+            this.hashCode = 31 * tableName.hashCode() + Arrays.hashCode(row);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            RowKey rowKey = (RowKey) o;
+
+            if (hashCode != rowKey.hashCode) return false;
+            if (!tableName.equals(rowKey.tableName)) return false;
+            return Arrays.equals(row, rowKey.row);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static class Row {
+        private final RowKey rowKey;
+        private final Put put;
+        private final long firstPutTime;
+        private long bytes;
+
+        private Row(RowKey rowKey, Put put, long firstPutTime, long bytes) {
+            this.rowKey = rowKey;
+            this.put = put;
+            this.firstPutTime = firstPutTime;
+            this.bytes = bytes;
+        }
+    }
+
+    private class Stripe {
+        private final long maxBytes;
+
+        // insertion order is the order of the first put of each row
+        private final LinkedHashMap<RowKey, Row> rows = new LinkedHashMap<RowKey, Row>();
+        private long bytes;
+
+        private Stripe(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        private synchronized List<Row> add(RowKey rowKey, Put put, long now) {
+            final long size = put.heapSize();
+            final Row row = rows.get(rowKey);
+            if (row == null) {
+                rows.put(rowKey, new Row(rowKey, put, now, size));
+            } else if (merge(row.put, put)) {
+                row.bytes += size;
+                mergedPutCount.incrementAndGet();
+            } else {
+                // not mergeable, written as is
+                List<Row> single = new ArrayList<Row>(1);
+                single.add(new Row(rowKey, put, now, size));
+                return single;
+            }
+            bytes += size;
+
+            if (bytes <= maxBytes) {
+                return null;
+            }
+            final List<Row> evicted = new ArrayList<Row>();
+            final Iterator<Row> iterator = rows.values().iterator();
+            while (bytes > maxBytes && iterator.hasNext()) {
+                final Row eldest = iterator.next();
+                iterator.remove();
+                bytes -= eldest.bytes;
+                evicted.add(eldest);
+            }
+            return evicted;
+        }
+
+        private boolean merge(Put target, Put put) {
+            try {
+                for (List<Cell> cells : put.getFamilyCellMap().values()) {
+                    for (Cell cell : cells) {
+                        target.add(cell);
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+        private synchronized List<Row> takeOlderThan(long expireTime) {
+            if (rows.isEmpty()) {
+                return null;
+            }
+            List<Row> expired = null;
+            final Iterator<Map.Entry<RowKey, Row>> iterator = rows.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Row row = iterator.next().getValue();
+                if (row.firstPutTime > expireTime) {
+                    break;
+                }
+                iterator.remove();
+                bytes -= row.bytes;
+                if (expired == null) {
+                    expired = new ArrayList<Row>();
+                }
+                expired.add(row);
+            }
+            return expired;
+        }
+
+        private synchronized long getBytes() {
+            return bytes;
+        }
+    }
+}
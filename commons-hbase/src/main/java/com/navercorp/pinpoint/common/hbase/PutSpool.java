@@ -0,0 +1,680 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase;
+
+import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
+import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Put;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only write-ahead log of {@link Put}s, used by {@link BufferedPutWriter} while HBase is backed up.
+ * <p>
+ * The log is a sequence of fixed size memory-mapped segment files. A record is
+ * {@code [int length][int crc32][table name, row, cells]}, and a zero length marks the end of a segment.
+ * The replay position is kept in a checkpoint file, and fully replayed segments are deleted.
+ * Appends are rejected once the segments would exceed the disk quota.
+ * <p>
+ * On open, records after the checkpoint are replayed again, so delivery is at least once.
+ * A torn record at the end of the last segment is cleared on open. A corrupted record is skipped if its length is intact,
+ * otherwise the rest of its segment is skipped, and appends continue in a new segment if it was the last one.
+ * Only the row, family, qualifier, timestamp and value of the cells are kept.
+ */
+public class PutSpool implements InitializingBean, DisposableBean {
+
+    private static final String SEGMENT_PREFIX = "spool-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE_NAME = "spool.checkpoint";
+
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final boolean enable;
+    private final File directory;
+    private final int segmentSize;
+    private final long maxSpoolBytes;
+
+    private final Object lock = new Object();
+    private final LinkedList<Segment> segments = new LinkedList<Segment>();
+    // offset in the first segment
+    private int readOffset;
+    private boolean dirty;
+    private boolean open;
+    // updated under the lock, read without it
+    private volatile boolean empty = true;
+
+    private final AtomicLong appendCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong corruptedCount = new AtomicLong();
+
+    public PutSpool(boolean enable, String directory, int segmentSize, long maxSpoolBytes) {
+        if (enable) {
+            if (directory == null || directory.isEmpty()) {
+                throw new IllegalArgumentException("directory must not be empty");
+            }
+            if (!new File(directory).isAbsolute()) {
+                // a relative path would depend on the working directory of the container
+                throw new IllegalArgumentException("directory must be an absolute path:" + directory);
+            }
+            if (segmentSize <= RECORD_HEADER_SIZE) {
+                throw new IllegalArgumentException("segmentSize must be greater than " + RECORD_HEADER_SIZE);
+            }
+            if (maxSpoolBytes < segmentSize) {
+                throw new IllegalArgumentException("maxSpoolBytes must not be less than segmentSize");
+            }
+        }
+        this.enable = enable;
+        this.directory = enable ? new File(directory) : null;
+        this.segmentSize = segmentSize;
+        this.maxSpoolBytes = maxSpoolBytes;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!enable) {
+            logger.info("PutSpool disabled.");
+            return;
+        }
+        synchronized (lock) {
+            open();
+        }
+        logger.info("PutSpool started. directory:{} segmentSize:{} maxSpoolBytes:{} segments:{} usedBytes:{}",
+                directory, segmentSize, maxSpoolBytes, getSegmentCount(), getUsedBytes());
+    }
+
+    private void open() throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can not create spool directory " + directory);
+        }
+        final long[] checkpoint = readCheckpoint();
+        final long checkpointSegmentId = checkpoint[0];
+
+        for (long segmentId : listSegmentIds()) {
+            final File file = getSegmentFile(segmentId);
+            if (segmentId < checkpointSegmentId) {
+                // replayed, but not deleted before the last shutdown
+                deleteFile(file);
+                continue;
+            }
+            segments.addLast(new Segment(segmentId, file));
+        }
+
+        if (segments.isEmpty()) {
+            segments.addLast(new Segment(Math.max(checkpointSegmentId, 0), getSegmentFile(Math.max(checkpointSegmentId, 0))));
+            this.readOffset = 0;
+        } else if (segments.getFirst().id == checkpointSegmentId) {
+            this.readOffset = (int) checkpoint[1];
+        } else {
+            this.readOffset = 0;
+        }
+
+        // recover the write position of the last segment and clear a torn record
+        final Segment last = segments.getLast();
+        final int end = scan(last.buffer, 0, segmentSize);
+        if (end + RECORD_HEADER_SIZE <= segmentSize && last.buffer.getInt(end) != 0) {
+            corruptedCount.incrementAndGet();
+            logger.warn("corrupted record. segment:{} offset:{}", last.file, end);
+        }
+        for (int i = end; i < segmentSize; i++) {
+            last.buffer.put(i, (byte) 0);
+        }
+        last.writePosition = end;
+        if (segments.size() == 1 && readOffset > end) {
+            this.readOffset = end;
+        }
+        this.open = true;
+        this.empty = isEmpty0();
+    }
+
+    @Override
+    public void destroy() {
+        if (!enable) {
+            return;
+        }
+        synchronized (lock) {
+            if (!open) {
+                return;
+            }
+            this.open = false;
+            this.empty = true;
+            for (Segment segment : segments) {
+                segment.buffer.force();
+                segment.close();
+            }
+            segments.clear();
+        }
+        logger.info("PutSpool stopped. {}", this);
+    }
+
+    public boolean isEnable() {
+        return enable;
+    }
+
+    /**
+     * @return false if the spool is disabled or full
+     */
+    public boolean append(String tableName, Put put) {
+        if (tableName == null) {
+            throw new NullPointerException("tableName must not be null");
+        }
+        if (put == null) {
+            throw new NullPointerException("put must not be null");
+        }
+        if (!enable) {
+            return false;
+        }
+        return append0(tableName, put, false);
+    }
+
+    /**
+     * Appends the put behind the records not replayed yet, so it is replayed after them.
+     *
+     * @return false if the spool is empty, disabled or full
+     */
+    public boolean appendIfNotEmpty(String tableName, Put put) {
+        if (tableName == null) {
+            throw new NullPointerException("tableName must not be null");
+        }
+        if (put == null) {
+            throw new NullPointerException("put must not be null");
+        }
+        if (!enable || empty) {
+            return false;
+        }
+        return append0(tableName, put, true);
+    }
+
+    private boolean append0(String tableName, Put put, boolean ifNotEmpty) {
+        final byte[] payload = encode(tableName, put);
+        final int recordSize = RECORD_HEADER_SIZE + payload.length;
+        if (recordSize > segmentSize) {
+            rejectedCount.incrementAndGet();
+            logger.warn("record too large. size:{} segmentSize:{}", recordSize, segmentSize);
+            return false;
+        }
+        final int crc = crc(payload, 0, payload.length);
+
+        synchronized (lock) {
+            if (ifNotEmpty && empty) {
+                return false;
+            }
+            if (!open) {
+                rejectedCount.incrementAndGet();
+                return false;
+            }
+            Segment last = segments.getLast();
+            if (last.writePosition + recordSize > segmentSize) {
+                if ((segments.size() + 1L) * segmentSize > maxSpoolBytes) {
+                    rejectedCount.incrementAndGet();
+                    return false;
+                }
+                last.buffer.force();
+                try {
+                    last = new Segment(last.id + 1, getSegmentFile(last.id + 1));
+                } catch (IOException e) {
+                    rejectedCount.incrementAndGet();
+                    logger.warn("can not create segment. Caused:{}", e.getMessage(), e);
+                    return false;
+                }
+                segments.addLast(last);
+            }
+            final int offset = last.writePosition;
+            final ByteBuffer buffer = last.buffer.duplicate();
+            buffer.position(offset + RECORD_HEADER_SIZE);
+            buffer.put(payload);
+            buffer.putInt(offset + 4, crc);
+            // the length is written last, a record without length is the end of the segment
+            buffer.putInt(offset, payload.length);
+            last.writePosition = offset + recordSize;
+            this.dirty = true;
+            this.empty = false;
+        }
+        appendCount.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Reads records from the replay position without moving it. Only a single reader is supported.
+     */
+    public ReadBatch read(int maxCount) {
+        if (maxCount <= 0) {
+            throw new IllegalArgumentException("maxCount must be greater than 0");
+        }
+        synchronized (lock) {
+            if (!open) {
+                return new ReadBatch(Collections.<Record>emptyList(), -1, 0);
+            }
+            final List<Record> records = new ArrayList<Record>();
+            int segmentIndex = 0;
+            Segment segment = segments.get(segmentIndex);
+            int offset = readOffset;
+            while (records.size() < maxCount) {
+                final boolean lastSegment = segmentIndex == segments.size() - 1;
+                final int limit = lastSegment ? segment.writePosition : segmentSize;
+                final int length = (offset + RECORD_HEADER_SIZE <= limit) ? segment.buffer.getInt(offset) : 0;
+                if (length == 0 && (!lastSegment || offset >= limit)) {
+                    // end of segment
+                    if (lastSegment) {
+                        break;
+                    }
+                    segment = segments.get(++segmentIndex);
+                    offset = 0;
+                    continue;
+                }
+                if (length <= 0 || offset + RECORD_HEADER_SIZE + length > limit) {
+                    // the next record can not be found, skip the rest of the segment
+                    corrupted(segment, offset, "skip the rest of the segment");
+                    // appends to the last segment would never be read, continue them in a new segment
+                    if (lastSegment && !addSegment()) {
+                        break;
+                    }
+                    segment = segments.get(++segmentIndex);
+                    offset = 0;
+                    continue;
+                }
+                final Record record = readRecord(segment, offset, length);
+                if (record == null) {
+                    corrupted(segment, offset, "skip the record");
+                } else {
+                    records.add(record);
+                }
+                offset += RECORD_HEADER_SIZE + length;
+            }
+            return new ReadBatch(records, segment.id, offset);
+        }
+    }
+
+    private boolean addSegment() {
+        // exceeds the quota until the corrupted segment is deleted by the next commit
+        final long segmentId = segments.getLast().id + 1;
+        try {
+            segments.addLast(new Segment(segmentId, getSegmentFile(segmentId)));
+            return true;
+        } catch (IOException e) {
+            logger.warn("can not create segment. Caused:{}", e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * @return null if the record is corrupted
+     */
+    private Record readRecord(Segment segment, int offset, int length) {
+        final byte[] payload = new byte[length];
+        final ByteBuffer buffer = segment.buffer.duplicate();
+        buffer.position(offset + RECORD_HEADER_SIZE);
+        buffer.get(payload);
+        if (crc(payload, 0, length) != segment.buffer.getInt(offset + 4)) {
+            return null;
+        }
+        try {
+            return decode(payload);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private void corrupted(Segment segment, int offset, String action) {
+        corruptedCount.incrementAndGet();
+        logger.warn("corrupted record, {}. segment:{} offset:{}", action, segment.file, offset);
+    }
+
+    /**
+     * Moves the replay position after the records of the batch and deletes replayed segments.
+     */
+    public void commit(ReadBatch batch) {
+        if (batch == null) {
+            throw new NullPointerException("batch must not be null");
+        }
+        synchronized (lock) {
+            if (!open || batch.segmentId < 0) {
+                return;
+            }
+            final Segment first = segments.getFirst();
+            if (first.id == batch.segmentId && readOffset == batch.offset) {
+                return;
+            }
+            while (segments.size() > 1 && segments.getFirst().id < batch.segmentId) {
+                final Segment replayed = segments.removeFirst();
+                replayed.close();
+                deleteFile(replayed.file);
+            }
+            this.readOffset = batch.offset;
+            this.empty = isEmpty0();
+            try {
+                writeCheckpoint(batch.segmentId, batch.offset);
+            } catch (IOException e) {
+                logger.warn("checkpoint write failed. Caused:{}", e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * Writes appended records to the disk.
+     */
+    public void force() {
+        synchronized (lock) {
+            if (!open || !dirty) {
+                return;
+            }
+            segments.getLast().buffer.force();
+            this.dirty = false;
+        }
+    }
+
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    private boolean isEmpty0() {
+        return segments.size() == 1 && readOffset >= segments.getFirst().writePosition;
+    }
+
+    /**
+     * @return true if there is no room for another segment
+     */
+    public boolean isFull() {
+        synchronized (lock) {
+            return !open || (segments.size() + 1L) * segmentSize > maxSpoolBytes;
+        }
+    }
+
+    /**
+     * @return bytes of the records not replayed yet, including the unused tail of full segments
+     */
+    public long getUsedBytes() {
+        synchronized (lock) {
+            if (!open) {
+                return 0;
+            }
+            return (segments.size() - 1L) * segmentSize + segments.getLast().writePosition - readOffset;
+        }
+    }
+
+    public int getSegmentCount() {
+        synchronized (lock) {
+            return segments.size();
+        }
+    }
+
+    public long getAppendCount() {
+        return appendCount.get();
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    public long getCorruptedCount() {
+        return corruptedCount.get();
+    }
+
+    private int scan(ByteBuffer buffer, int offset, int limit) {
+        while (offset + RECORD_HEADER_SIZE <= limit) {
+            final int length = buffer.getInt(offset);
+            if (length <= 0 || offset + RECORD_HEADER_SIZE + length > limit) {
+                return offset;
+            }
+            final byte[] payload = new byte[length];
+            final ByteBuffer duplicate = buffer.duplicate();
+            duplicate.position(offset + RECORD_HEADER_SIZE);
+            duplicate.get(payload);
+            if (crc(payload, 0, length) != buffer.getInt(offset + 4)) {
+                return offset;
+            }
+            offset += RECORD_HEADER_SIZE + length;
+        }
+        return offset;
+    }
+
+    private List<Long> listSegmentIds() {
+        final List<Long> segmentIds = new ArrayList<Long>();
+        final String[] names = directory.list();
+        if (names == null) {
+            return segmentIds;
+        }
+        for (String name : names) {
+            if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                final String id = name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length());
+                try {
+                    segmentIds.add(Long.parseLong(id));
+                } catch (NumberFormatException e) {
+                    logger.warn("unknown file in spool directory. {}", name);
+                }
+            }
+        }
+        Collections.sort(segmentIds);
+        return segmentIds;
+    }
+
+    private File getSegmentFile(long segmentId) {
+        return new File(directory, String.format("%s%020d%s", SEGMENT_PREFIX, segmentId, SEGMENT_SUFFIX));
+    }
+
+    private long[] readCheckpoint() {
+        final File file = new File(directory, CHECKPOINT_FILE_NAME);
+        if (!file.exists()) {
+            return new long[] {-1, 0};
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new FileInputStream(file));
+            final long segmentId = in.readLong();
+            final int offset = in.readInt();
+            final long crc = in.readLong();
+            if (crc != checkpointCrc(segmentId, offset) || offset < 0 || offset > segmentSize) {
+                logger.warn("invalid checkpoint, replay all segments. {}", file);
+                return new long[] {-1, 0};
+            }
+            return new long[] {segmentId, offset};
+        } catch (IOException e) {
+            logger.warn("checkpoint read failed, replay all segments. Caused:{}", e.getMessage(), e);
+            return new long[] {-1, 0};
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    private void writeCheckpoint(long segmentId, int offset) throws IOException {
+        final File temp = new File(directory, CHECKPOINT_FILE_NAME + ".tmp");
+        final FileOutputStream fileOut = new FileOutputStream(temp);
+        try {
+            final DataOutputStream out = new DataOutputStream(fileOut);
+            out.writeLong(segmentId);
+            out.writeInt(offset);
+            out.writeLong(checkpointCrc(segmentId, offset));
+            out.flush();
+            fileOut.getFD().sync();
+        } finally {
+            closeQuietly(fileOut);
+        }
+        if (!temp.renameTo(new File(directory, CHECKPOINT_FILE_NAME))) {
+            throw new IOException("can not rename " + temp);
+        }
+    }
+
+    private long checkpointCrc(long segmentId, int offset) {
+        final CRC32 crc32 = new CRC32();
+        final ByteBuffer buffer = ByteBuffer.allocate(12);
+        buffer.putLong(segmentId);
+        buffer.putInt(offset);
+        crc32.update(buffer.array());
+        return crc32.getValue();
+    }
+
+    private void deleteFile(File file) {
+        if (!file.delete()) {
+            logger.warn("can not delete {}", file);
+        }
+    }
+
+    private void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignore) {
+            // skip
+        }
+    }
+
+    private static int crc(byte[] bytes, int offset, int length) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(bytes, offset, length);
+        return (int) crc32.getValue();
+    }
+
+    static byte[] encode(String tableName, Put put) {
+        final Buffer buffer = new AutomaticBuffer(128);
+        buffer.putPrefixedString(tableName);
+        buffer.putPrefixedBytes(put.getRow());
+        buffer.putVar(put.size());
+        for (Map.Entry<byte[], List<Cell>> entry : put.getFamilyCellMap().entrySet()) {
+            for (Cell cell : entry.getValue()) {
+                buffer.putPrefixedBytes(CellUtil.cloneFamily(cell));
+                buffer.putPrefixedBytes(CellUtil.cloneQualifier(cell));
+                buffer.put(cell.getTimestamp());
+                buffer.putPrefixedBytes(CellUtil.cloneValue(cell));
+            }
+        }
+        return buffer.getBuffer();
+    }
+
+    static Record decode(byte[] payload) {
+        final Buffer buffer = new FixedBuffer(payload);
+        final String tableName = buffer.readPrefixedString();
+        final Put put = new Put(buffer.readPrefixedBytes());
+        final int cellCount = buffer.readVarInt();
+        for (int i = 0; i < cellCount; i++) {
+            final byte[] family = buffer.readPrefixedBytes();
+            final byte[] qualifier = buffer.readPrefixedBytes();
+            final long timestamp = buffer.readLong();
+            final byte[] value = buffer.readPrefixedBytes();
+            put.addColumn(family, qualifier, timestamp, value);
+        }
+        return new Record(tableName, put, payload.length);
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("PutSpool{");
+        sb.append("enable=").append(enable);
+        sb.append(", directory=").append(directory);
+        sb.append(", segmentCount=").append(getSegmentCount());
+        sb.append(", usedBytes=").append(getUsedBytes());
+        sb.append(", appendCount=").append(getAppendCount());
+        sb.append(", rejectedCount=").append(getRejectedCount());
+        sb.append(", corruptedCount=").append(getCorruptedCount());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    public static class Record {
+        private final String tableName;
+        private final Put put;
+        private final int size;
+
+        private Record(String tableName, Put put, int size) {
+            this.tableName = tableName;
+            this.put = put;
+            this.size = size;
+        }
+
+        public String getTableName() {
+            return tableName;
+        }
+
+        public Put getPut() {
+            return put;
+        }
+    }
+
+    public static class ReadBatch {
+        private final List<Record> records;
+        private final long segmentId;
+        private final int offset;
+
+        private ReadBatch(List<Record> records, long segmentId, int offset) {
+            this.records = records;
+            this.segmentId = segmentId;
+            this.offset = offset;
+        }
+
+        public List<Record> getRecords() {
+            return records;
+        }
+
+        public boolean isEmpty() {
+            return records.isEmpty();
+        }
+    }
+
+    private class Segment {
+        private final long id;
+        private final File file;
+        private final RandomAccessFile randomAccessFile;
+        private final MappedByteBuffer buffer;
+        private int writePosition;
+
+        private Segment(long id, File file) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.randomAccessFile = new RandomAccessFile(file, "rw");
+            boolean success = false;
+            try {
+                final FileChannel channel = randomAccessFile.getChannel();
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+                success = true;
+            } finally {
+                if (!success) {
+                    closeQuietly(randomAccessFile);
+                }
+            }
+        }
+
+        private void close() {
+            closeQuietly(randomAccessFile);
+        }
+    }
+}
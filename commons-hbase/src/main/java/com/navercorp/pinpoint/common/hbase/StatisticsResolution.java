@@ -0,0 +1,63 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase;
+
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.common.util.DefaultTimeSlot;
+import com.navercorp.pinpoint.common.util.TimeSlot;
+
+/**
+ * Row time slot resolutions of the application map statistics tables.
+ * Rollups use the same row key, column families and qualifiers as the one minute table,
+ * and are stored in a separate table named with the resolution suffix.
+ * Each resolution is a multiple of the finer ones.
+ */
+public enum StatisticsResolution {
+
+    ONE_MINUTE(TimeUnit.MINUTES.toMillis(1), ""),
+    FIVE_MINUTES(TimeUnit.MINUTES.toMillis(5), "_5M"),
+    ONE_HOUR(TimeUnit.HOURS.toMillis(1), "_1H");
+
+    private final long resolution;
+    private final String tableNameSuffix;
+    private final TimeSlot timeSlot;
+
+    StatisticsResolution(long resolution, String tableNameSuffix) {
+        this.resolution = resolution;
+        this.tableNameSuffix = tableNameSuffix;
+        this.timeSlot = new DefaultTimeSlot(resolution);
+    }
+
+    public long getResolution() {
+        return resolution;
+    }
+
+    public TimeSlot getTimeSlot() {
+        return timeSlot;
+    }
+
+    /**
+     * @param tableName one of {@link HBaseTables#MAP_STATISTICS_CALLER}, {@link HBaseTables#MAP_STATISTICS_CALLEE}, {@link HBaseTables#MAP_STATISTICS_SELF}
+     */
+    public String getTableName(String tableName) {
+        if (tableName == null) {
+            throw new NullPointerException("tableName must not be null");
+        }
+        return tableName + tableNameSuffix;
+    }
+}
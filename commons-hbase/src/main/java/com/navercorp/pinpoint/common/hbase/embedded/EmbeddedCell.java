@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase.embedded;
+
+/**
+ * A column of a row in an {@link EmbeddedTable}.
+ */
+public class EmbeddedCell {
+
+    private final byte[] family;
+    private final byte[] qualifier;
+    private final long timestamp;
+    private final byte[] value;
+
+    public EmbeddedCell(byte[] family, byte[] qualifier, long timestamp, byte[] value) {
+        if (family == null) {
+            throw new NullPointerException("family must not be null");
+        }
+        if (qualifier == null) {
+            throw new NullPointerException("qualifier must not be null");
+        }
+        if (value == null) {
+            throw new NullPointerException("value must not be null");
+        }
+        this.family = family;
+        this.qualifier = qualifier;
+        this.timestamp = timestamp;
+        this.value = value;
+    }
+
+    public byte[] getFamily() {
+        return family;
+    }
+
+    public byte[] getQualifier() {
+        return qualifier;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public byte[] getValue() {
+        return value;
+    }
+}
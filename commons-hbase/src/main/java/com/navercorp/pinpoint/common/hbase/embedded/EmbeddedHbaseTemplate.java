@@ -0,0 +1,591 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase.embedded;
+
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.LimitEventHandler;
+import com.navercorp.pinpoint.common.hbase.LimitRowMapperResultsExtractor;
+import com.navercorp.pinpoint.common.hbase.RowMapperResultsExtractor;
+import com.navercorp.pinpoint.common.hbase.ValueMapper;
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+import com.sematext.hbase.wd.DistributedScanner;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.hadoop.hbase.HbaseSystemException;
+import org.springframework.data.hadoop.hbase.ResultsExtractor;
+import org.springframework.data.hadoop.hbase.RowMapper;
+import org.springframework.data.hadoop.hbase.TableCallback;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link HbaseOperations2} on local {@link EmbeddedTable}s, for a single node deployment or a performance test
+ * environment without an HBase cluster. The DAOs run unchanged, with the row keys, distributors, time ranges,
+ * reversed scans and limits they use against HBase.
+ * <p>
+ * A table is a directory under the store directory, opened on first use. Only one process writes the store;
+ * the web opens it read only and follows the segments appended by the collector.
+ * The cells of a table are kept for the retention of the table, or the default retention.
+ * <p>
+ * Not supported : {@link #execute(String, TableCallback)}, filters, multiple versions and deletes of a version.
+ */
+public class EmbeddedHbaseTemplate implements HbaseOperations2, InitializingBean, DisposableBean {
+
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private static final long FORCE_INTERVAL = 1000;
+    private static final long REFRESH_INTERVAL = 1000;
+    private static final long PURGE_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final File directory;
+    private final boolean readOnly;
+    private final int segmentSize;
+    private final long retentionSeconds;
+    private Map<String, Long> tableRetentionSeconds = Collections.emptyMap();
+
+    private final ConcurrentMap<String, EmbeddedTable> tables = new ConcurrentHashMap<String, EmbeddedTable>();
+    private ScheduledExecutorService maintenanceExecutor;
+
+    public EmbeddedHbaseTemplate(String directory, boolean readOnly, int segmentSize, long retentionSeconds) {
+        if (directory == null || directory.isEmpty()) {
+            throw new IllegalArgumentException("directory must not be empty");
+        }
+        if (retentionSeconds <= 0) {
+            throw new IllegalArgumentException("retentionSeconds must be greater than 0");
+        }
+        this.directory = new File(directory);
+        this.readOnly = readOnly;
+        this.segmentSize = segmentSize;
+        this.retentionSeconds = retentionSeconds;
+    }
+
+    /**
+     * @param tableRetentionSeconds retention of the tables kept longer or shorter than the default retention
+     */
+    public void setTableRetentionSeconds(Map<String, Long> tableRetentionSeconds) {
+        if (tableRetentionSeconds == null) {
+            throw new NullPointerException("tableRetentionSeconds must not be null");
+        }
+        this.tableRetentionSeconds = new HashMap<String, Long>(tableRetentionSeconds);
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!readOnly && !directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("can not create store directory " + directory);
+        }
+        // tables not used since the restart are expired as well
+        final File[] tableDirectories = directory.listFiles();
+        if (tableDirectories != null) {
+            for (File tableDirectory : tableDirectories) {
+                if (tableDirectory.isDirectory()) {
+                    getTable(tableDirectory.getName());
+                }
+            }
+        }
+
+        this.maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(new PinpointThreadFactory("Pinpoint-EmbeddedHbase-Maintenance", true));
+        if (readOnly) {
+            maintenanceExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    refresh();
+                }
+            }, REFRESH_INTERVAL, REFRESH_INTERVAL, TimeUnit.MILLISECONDS);
+        } else {
+            maintenanceExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    force();
+                }
+            }, FORCE_INTERVAL, FORCE_INTERVAL, TimeUnit.MILLISECONDS);
+            maintenanceExecutor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    purge();
+                }
+            }, 0, PURGE_INTERVAL, TimeUnit.MILLISECONDS);
+        }
+        logger.info("EmbeddedHbaseTemplate started. directory:{} readOnly:{} segmentSize:{} retentionSeconds:{} tables:{}",
+                directory, readOnly, segmentSize, retentionSeconds, tables.keySet());
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        final ScheduledExecutorService maintenanceExecutor = this.maintenanceExecutor;
+        if (maintenanceExecutor != null) {
+            maintenanceExecutor.shutdown();
+            try {
+                maintenanceExecutor.awaitTermination(3000, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (EmbeddedTable table : tables.values()) {
+            table.close();
+        }
+        logger.info("EmbeddedHbaseTemplate stopped. directory:{}", directory);
+    }
+
+    void refresh() {
+        for (EmbeddedTable table : tables.values()) {
+            try {
+                table.refresh();
+            } catch (Exception e) {
+                logger.warn("{} refresh failed. Caused:{}", table.getTableName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    void force() {
+        for (EmbeddedTable table : tables.values()) {
+            try {
+                table.force();
+            } catch (Exception e) {
+                logger.warn("{} force failed. Caused:{}", table.getTableName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    void purge() {
+        final long now = System.currentTimeMillis();
+        for (EmbeddedTable table : tables.values()) {
+            final Long tableRetention = tableRetentionSeconds.get(table.getTableName());
+            final long retention = tableRetention != null ? tableRetention : retentionSeconds;
+            try {
+                table.purge(now - TimeUnit.SECONDS.toMillis(retention));
+            } catch (Exception e) {
+                logger.warn("{} purge failed. Caused:{}", table.getTableName(), e.getMessage(), e);
+            }
+        }
+    }
+
+    EmbeddedTable getTable(String tableName) {
+        if (tableName == null) {
+            throw new NullPointerException("tableName must not be null");
+        }
+        final EmbeddedTable table = tables.get(tableName);
+        if (table != null) {
+            return table;
+        }
+        synchronized (tables) {
+            final EmbeddedTable exist = tables.get(tableName);
+            if (exist != null) {
+                return exist;
+            }
+            final EmbeddedTable newTable = new EmbeddedTable(tableName, new File(directory, tableName), segmentSize, readOnly);
+            try {
+                newTable.open();
+            } catch (IOException e) {
+                throw new HbaseSystemException(e);
+            }
+            tables.put(tableName, newTable);
+            return newTable;
+        }
+    }
+
+    @Override
+    public <T> T execute(String tableName, TableCallback<T> action) {
+        throw new UnsupportedOperationException("execute is not supported by the embedded store");
+    }
+
+    @Override
+    public <T> T find(String tableName, String family, final ResultsExtractor<T> action) {
+        Scan scan = new Scan();
+        scan.addFamily(family.getBytes(CHARSET));
+        return find(tableName, scan, action);
+    }
+
+    @Override
+    public <T> T find(String tableName, String family, String qualifier, final ResultsExtractor<T> action) {
+        Scan scan = new Scan();
+        scan.addColumn(family.getBytes(CHARSET), qualifier.getBytes(CHARSET));
+        return find(tableName, scan, action);
+    }
+
+    @Override
+    public <T> T find(String tableName, final Scan scan, final ResultsExtractor<T> action) {
+        final ResultScanner scanner = getScanner(getTable(tableName), scan);
+        try {
+            return action.extractData(scanner);
+        } catch (Exception e) {
+            throw convert(e);
+        } finally {
+            scanner.close();
+        }
+    }
+
+    @Override
+    public <T> List<T> find(String tableName, String family, final RowMapper<T> action) {
+        Scan scan = new Scan();
+        scan.addFamily(family.getBytes(CHARSET));
+        return find(tableName, scan, action);
+    }
+
+    @Override
+    public <T> List<T> find(String tableName, String family, String qualifier, final RowMapper<T> action) {
+        Scan scan = new Scan();
+        scan.addColumn(family.getBytes(CHARSET), qualifier.getBytes(CHARSET));
+        return find(tableName, scan, action);
+    }
+
+    @Override
+    public <T> List<T> find(String tableName, final Scan scan, final RowMapper<T> action) {
+        return find(tableName, scan, new RowMapperResultsExtractor<T>(action));
+    }
+
+    @Override
+    public <T> List<T> find(String tableName, final List<Scan> scanList, final ResultsExtractor<T> action) {
+        final EmbeddedTable table = getTable(tableName);
+        final List<T> result = new ArrayList<T>(scanList.size());
+        for (Scan scan : scanList) {
+            final ResultScanner scanner = getScanner(table, scan);
+            try {
+                result.add(action.extractData(scanner));
+            } catch (Exception e) {
+                throw convert(e);
+            } finally {
+                scanner.close();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public <T> List<List<T>> find(String tableName, List<Scan> scanList, RowMapper<T> action) {
+        return find(tableName, scanList, new RowMapperResultsExtractor<T>(action));
+    }
+
+    @Override
+    public <T> List<T> find(String tableName, final Scan scan, final AbstractRowKeyDistributor rowKeyDistributor, final RowMapper<T> action) {
+        return find(tableName, scan, rowKeyDistributor, new RowMapperResultsExtractor<T>(action));
+    }
+
+    @Override
+    public <T> List<T> find(String tableName, final Scan scan, final AbstractRowKeyDistributor rowKeyDistributor, int limit, final RowMapper<T> action) {
+        return find(tableName, scan, rowKeyDistributor, new LimitRowMapperResultsExtractor<T>(action, limit));
+    }
+
+    @Override
+    public <T> List<T> find(String tableName, final Scan scan, final AbstractRowKeyDistributor rowKeyDistributor, int limit, final RowMapper<T> action, final LimitEventHandler limitEventHandler) {
+        return find(tableName, scan, rowKeyDistributor, new LimitRowMapperResultsExtractor<T>(action, limit, limitEventHandler));
+    }
+
+    @Override
+    public <T> T find(String tableName, final Scan scan, final AbstractRowKeyDistributor rowKeyDistributor, final ResultsExtractor<T> action) {
+        final EmbeddedTable table = getTable(tableName);
+        final Scan[] scans = rowKeyDistributor.getDistributedScans(scan);
+        final ResultScanner[] scanners = new ResultScanner[scans.length];
+        for (int i = 0; i < scans.length; i++) {
+            scanners[i] = getScanner(table, scans[i]);
+        }
+        try {
+            // merged in the order of the original row key, like the scan of HbaseTemplate2
+            final ResultScanner scanner = new DistributedScanner(rowKeyDistributor, scanners);
+            try {
+                return action.extractData(scanner);
+            } finally {
+                scanner.close();
+            }
+        } catch (Exception e) {
+            throw convert(e);
+        }
+    }
+
+    private ResultScanner getScanner(EmbeddedTable table, Scan scan) {
+        if (scan.getFilter() != null) {
+            throw new UnsupportedOperationException("filter is not supported by the embedded store");
+        }
+        return new EmbeddedResultScanner(table.scan(scan.getStartRow(), scan.getStopRow(), scan.isReversed(), scan.getFamilyMap()));
+    }
+
+    @Override
+    public <T> T get(String tableName, String rowName, final RowMapper<T> mapper) {
+        return get(tableName, rowName, null, null, mapper);
+    }
+
+    @Override
+    public <T> T get(String tableName, String rowName, String familyName, final RowMapper<T> mapper) {
+        return get(tableName, rowName, familyName, null, mapper);
+    }
+
+    @Override
+    public <T> T get(String tableName, final String rowName, final String familyName, final String qualifier, final RowMapper<T> mapper) {
+        final byte[] family = familyName == null ? null : familyName.getBytes(CHARSET);
+        final byte[] qualifierBytes = qualifier == null ? null : qualifier.getBytes(CHARSET);
+        return get(tableName, rowName.getBytes(CHARSET), family, qualifierBytes, mapper);
+    }
+
+    @Override
+    public <T> T get(String tableName, byte[] rowName, RowMapper<T> mapper) {
+        return get(tableName, rowName, null, null, mapper);
+    }
+
+    @Override
+    public <T> T get(String tableName, byte[] rowName, byte[] familyName, RowMapper<T> mapper) {
+        return get(tableName, rowName, familyName, null, mapper);
+    }
+
+    @Override
+    public <T> T get(String tableName, final byte[] rowName, final byte[] familyName, final byte[] qualifier, final RowMapper<T> mapper) {
+        Get get = new Get(rowName);
+        if (familyName != null) {
+            if (qualifier != null) {
+                get.addColumn(familyName, qualifier);
+            } else {
+                get.addFamily(familyName);
+            }
+        }
+        return get(tableName, get, mapper);
+    }
+
+    @Override
+    public <T> T get(String tableName, final Get get, final RowMapper<T> mapper) {
+        final Result result = get(getTable(tableName), get);
+        return mapRow(mapper, result, 0);
+    }
+
+    @Override
+    public <T> List<T> get(String tableName, final List<Get> getList, final RowMapper<T> mapper) {
+        final EmbeddedTable table = getTable(tableName);
+        final List<T> list = new ArrayList<T>(getList.size());
+        for (int i = 0; i < getList.size(); i++) {
+            final Result result = get(table, getList.get(i));
+            list.add(mapRow(mapper, result, i));
+        }
+        return list;
+    }
+
+    private Result get(EmbeddedTable table, Get get) {
+        if (get.getFilter() != null) {
+            throw new UnsupportedOperationException("filter is not supported by the embedded store");
+        }
+        final EmbeddedRow row = table.get(get.getRow(), get.getFamilyMap());
+        if (row == null) {
+            return Result.create(new ArrayList<Cell>(0));
+        }
+        return EmbeddedResultScanner.toResult(row);
+    }
+
+    private <T> T mapRow(RowMapper<T> mapper, Result result, int rowNum) {
+        try {
+            return mapper.mapRow(result, rowNum);
+        } catch (Exception e) {
+            throw convert(e);
+        }
+    }
+
+    public void put(String tableName, final String rowName, final String familyName, final String qualifier, final byte[] value) {
+        put(tableName, rowName.getBytes(CHARSET), familyName.getBytes(CHARSET), qualifier.getBytes(CHARSET), value);
+    }
+
+    @Override
+    public void put(String tableName, final byte[] rowName, final byte[] familyName, final byte[] qualifier, final byte[] value) {
+        put(tableName, rowName, familyName, qualifier, null, value);
+    }
+
+    @Override
+    public void put(String tableName, final byte[] rowName, final byte[] familyName, final byte[] qualifier, final Long timestamp, final byte[] value) {
+        Put put = new Put(rowName);
+        if (familyName != null) {
+            if (timestamp == null) {
+                put.addColumn(familyName, qualifier, value);
+            } else {
+                put.addColumn(familyName, qualifier, timestamp, value);
+            }
+        }
+        put(tableName, put);
+    }
+
+    @Override
+    public <T> void put(String tableName, final byte[] rowName, final byte[] familyName, final byte[] qualifier, final T value, final ValueMapper<T> mapper) {
+        put(tableName, rowName, familyName, qualifier, null, value, mapper);
+    }
+
+    @Override
+    public <T> void put(String tableName, final byte[] rowName, final byte[] familyName, final byte[] qualifier, final Long timestamp, final T value, final ValueMapper<T> mapper) {
+        put(tableName, rowName, familyName, qualifier, timestamp, mapper.mapValue(value));
+    }
+
+    @Override
+    public void put(String tableName, final Put put) {
+        put(getTable(tableName), put);
+    }
+
+    @Override
+    public void put(String tableName, final List<Put> puts) {
+        final EmbeddedTable table = getTable(tableName);
+        for (Put put : puts) {
+            put(table, put);
+        }
+    }
+
+    private void put(EmbeddedTable table, Put put) {
+        final List<EmbeddedCell> cells = new ArrayList<EmbeddedCell>(put.size());
+        for (List<Cell> cellList : put.getFamilyCellMap().values()) {
+            for (Cell cell : cellList) {
+                cells.add(new EmbeddedCell(CellUtil.cloneFamily(cell), CellUtil.cloneQualifier(cell), cell.getTimestamp(), CellUtil.cloneValue(cell)));
+            }
+        }
+        try {
+            table.put(put.getRow(), cells);
+        } catch (IOException e) {
+            throw new HbaseSystemException(e);
+        }
+    }
+
+    public void delete(String tableName, final String rowName, final String familyName) {
+        delete(tableName, rowName, familyName, null);
+    }
+
+    public void delete(String tableName, final String rowName, final String familyName, final String qualifier) {
+        Delete delete = new Delete(rowName.getBytes(CHARSET));
+        if (qualifier != null) {
+            delete.addColumn(familyName.getBytes(CHARSET), qualifier.getBytes(CHARSET));
+        } else {
+            delete.addFamily(familyName.getBytes(CHARSET));
+        }
+        delete(tableName, delete);
+    }
+
+    @Override
+    public void delete(String tableName, final Delete delete) {
+        delete(getTable(tableName), delete);
+    }
+
+    @Override
+    public void delete(String tableName, final List<Delete> deletes) {
+        final EmbeddedTable table = getTable(tableName);
+        for (Delete delete : deletes) {
+            delete(table, delete);
+        }
+    }
+
+    private void delete(EmbeddedTable table, Delete delete) {
+        final Map<byte[], NavigableSet<byte[]>> familyMap = new TreeMap<byte[], NavigableSet<byte[]>>(Bytes.BYTES_COMPARATOR);
+        for (Map.Entry<byte[], List<Cell>> entry : delete.getFamilyCellMap().entrySet()) {
+            final NavigableSet<byte[]> qualifiers = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+            boolean wholeFamily = false;
+            for (Cell cell : entry.getValue()) {
+                final KeyValue.Type type = KeyValue.Type.codeToType(cell.getTypeByte());
+                if (type == KeyValue.Type.DeleteFamily || type == KeyValue.Type.DeleteFamilyVersion) {
+                    wholeFamily = true;
+                } else {
+                    qualifiers.add(CellUtil.cloneQualifier(cell));
+                }
+            }
+            if (wholeFamily) {
+                qualifiers.clear();
+            }
+            familyMap.put(entry.getKey(), qualifiers);
+        }
+        try {
+            table.delete(delete.getRow(), familyMap);
+        } catch (IOException e) {
+            throw new HbaseSystemException(e);
+        }
+    }
+
+    @Override
+    public Result increment(String tableName, final Increment increment) {
+        return increment(getTable(tableName), increment);
+    }
+
+    @Override
+    public List<Result> increment(String tableName, final List<Increment> incrementList) {
+        final EmbeddedTable table = getTable(tableName);
+        final List<Result> resultList = new ArrayList<Result>(incrementList.size());
+        for (Increment increment : incrementList) {
+            resultList.add(increment(table, increment));
+        }
+        return resultList;
+    }
+
+    private Result increment(EmbeddedTable table, Increment increment) {
+        final List<EmbeddedCell> amounts = new ArrayList<EmbeddedCell>();
+        for (Map.Entry<byte[], NavigableMap<byte[], Long>> familyEntry : increment.getFamilyMapOfLongs().entrySet()) {
+            for (Map.Entry<byte[], Long> entry : familyEntry.getValue().entrySet()) {
+                amounts.add(new EmbeddedCell(familyEntry.getKey(), entry.getKey(), Long.MAX_VALUE, Bytes.toBytes(entry.getValue())));
+            }
+        }
+        try {
+            final List<EmbeddedCell> cells = table.increment(increment.getRow(), amounts);
+            return EmbeddedResultScanner.toResult(new EmbeddedRow(increment.getRow(), cells));
+        } catch (IOException e) {
+            throw new HbaseSystemException(e);
+        }
+    }
+
+    @Override
+    public long incrementColumnValue(String tableName, final byte[] rowName, final byte[] familyName, final byte[] qualifier, final long amount) {
+        final EmbeddedCell cell = new EmbeddedCell(familyName, qualifier, Long.MAX_VALUE, Bytes.toBytes(amount));
+        try {
+            final List<EmbeddedCell> cells = getTable(tableName).increment(rowName, Collections.singletonList(cell));
+            return Bytes.toLong(cells.get(0).getValue());
+        } catch (IOException e) {
+            throw new HbaseSystemException(e);
+        }
+    }
+
+    @Override
+    public long incrementColumnValue(String tableName, final byte[] rowName, final byte[] familyName, final byte[] qualifier, final long amount, final boolean writeToWAL) {
+        return incrementColumnValue(tableName, rowName, familyName, qualifier, amount);
+    }
+
+    private RuntimeException convert(Exception e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        return new HbaseSystemException(e);
+    }
+}
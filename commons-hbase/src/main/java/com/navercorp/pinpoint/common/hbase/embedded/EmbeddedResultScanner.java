@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase.embedded;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+
+/**
+ * {@link ResultScanner} over the rows of an {@link EmbeddedTable} scan. Rows are read as the scanner moves.
+ */
+public class EmbeddedResultScanner implements ResultScanner {
+
+    private final Iterator<EmbeddedRow> rows;
+    private boolean closed = false;
+
+    public EmbeddedResultScanner(Iterator<EmbeddedRow> rows) {
+        if (rows == null) {
+            throw new NullPointerException("rows must not be null");
+        }
+        this.rows = rows;
+    }
+
+    @Override
+    public Result next() {
+        if (closed || !rows.hasNext()) {
+            return null;
+        }
+        return toResult(rows.next());
+    }
+
+    @Override
+    public Result[] next(int nbRows) {
+        final List<Result> resultList = new ArrayList<Result>(nbRows);
+        for (int i = 0; i < nbRows; i++) {
+            final Result result = next();
+            if (result == null) {
+                break;
+            }
+            resultList.add(result);
+        }
+        return resultList.toArray(new Result[resultList.size()]);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    @Override
+    public Iterator<Result> iterator() {
+        return new Iterator<Result>() {
+            @Override
+            public boolean hasNext() {
+                return !closed && rows.hasNext();
+            }
+
+            @Override
+            public Result next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return toResult(rows.next());
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    static Result toResult(EmbeddedRow row) {
+        final List<EmbeddedCell> cells = row.getCells();
+        final List<Cell> cellList = new ArrayList<Cell>(cells.size());
+        for (EmbeddedCell cell : cells) {
+            cellList.add(new KeyValue(row.getRow(), cell.getFamily(), cell.getQualifier(), cell.getTimestamp(), cell.getValue()));
+        }
+        return Result.create(cellList);
+    }
+}
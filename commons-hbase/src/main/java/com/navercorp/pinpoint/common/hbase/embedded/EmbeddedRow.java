@@ -0,0 +1,47 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase.embedded;
+
+import java.util.List;
+
+/**
+ * The selected columns of a row, sorted by family and qualifier.
+ */
+public class EmbeddedRow {
+
+    private final byte[] row;
+    private final List<EmbeddedCell> cells;
+
+    public EmbeddedRow(byte[] row, List<EmbeddedCell> cells) {
+        if (row == null) {
+            throw new NullPointerException("row must not be null");
+        }
+        if (cells == null) {
+            throw new NullPointerException("cells must not be null");
+        }
+        this.row = row;
+        this.cells = cells;
+    }
+
+    public byte[] getRow() {
+        return row;
+    }
+
+    public List<EmbeddedCell> getCells() {
+        return cells;
+    }
+}
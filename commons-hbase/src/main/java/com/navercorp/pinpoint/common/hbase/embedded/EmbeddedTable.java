@@ -0,0 +1,837 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase.embedded;
+
+import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
+import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+import com.navercorp.pinpoint.common.util.BytesUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * A table of the embedded store.
+ * <p>
+ * Mutations are appended to the memory-mapped segment files of the table directory. A record is
+ * {@code [int length][int crc32][type, row, cells]} like {@link com.navercorp.pinpoint.common.hbase.PutSpool},
+ * and a zero length marks the end of a segment.
+ * The latest cell of every column is indexed in a sorted in-memory map, which points at the value in its segment,
+ * so rows are scanned in the order of their key and values are read from the page cache.
+ * <p>
+ * On open, the segments are replayed to rebuild the index, and a torn record ends the last segment.
+ * A read-only table follows the segments appended by the writer process on {@link #refresh()}.
+ * Segments are deleted oldest first once all of their cells are older than the retention, like the TTL of HBase.
+ * <p>
+ * Only the latest version of a column is kept, and a delete removes the columns regardless of their timestamp.
+ * Writes are serialized, reads do not lock.
+ */
+public class EmbeddedTable {
+
+    static final int RECORD_HEADER_SIZE = 8;
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private static final byte TYPE_PUT = 0;
+    private static final byte TYPE_DELETE = 1;
+
+    private static final long LATEST_TIMESTAMP = Long.MAX_VALUE;
+
+    private static final byte[] EMPTY_BYTES = new byte[0];
+
+    static final Comparator<byte[]> BYTES_COMPARATOR = new Comparator<byte[]>() {
+        @Override
+        public int compare(byte[] o1, byte[] o2) {
+            return compareBytes(o1, o2);
+        }
+    };
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final String tableName;
+    private final File directory;
+    private final int segmentSize;
+    private final boolean readOnly;
+
+    private final Object lock = new Object();
+    private final LinkedList<Segment> segments = new LinkedList<Segment>();
+    private final Map<byte[], byte[]> families = new TreeMap<byte[], byte[]>(BYTES_COMPARATOR);
+    private boolean dirty;
+    private boolean open;
+
+    private final ConcurrentSkipListMap<byte[], ConcurrentSkipListMap<ColumnKey, CellRef>> index =
+            new ConcurrentSkipListMap<byte[], ConcurrentSkipListMap<ColumnKey, CellRef>>(BYTES_COMPARATOR);
+
+    private final AtomicLong appendCount = new AtomicLong();
+    private final AtomicLong corruptedCount = new AtomicLong();
+
+    public EmbeddedTable(String tableName, File directory, int segmentSize, boolean readOnly) {
+        if (tableName == null) {
+            throw new NullPointerException("tableName must not be null");
+        }
+        if (directory == null) {
+            throw new NullPointerException("directory must not be null");
+        }
+        if (segmentSize <= RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize must be greater than " + RECORD_HEADER_SIZE);
+        }
+        this.tableName = tableName;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.readOnly = readOnly;
+    }
+
+    public void open() throws IOException {
+        synchronized (lock) {
+            if (open) {
+                return;
+            }
+            if (readOnly) {
+                // the writer may not have created the table yet
+                this.open = true;
+                refresh();
+                return;
+            }
+            if (!directory.isDirectory() && !directory.mkdirs()) {
+                throw new IOException("can not create table directory " + directory);
+            }
+            for (long segmentId : listSegmentIds()) {
+                final Segment segment = new Segment(segmentId, getSegmentFile(segmentId), 0);
+                segments.addLast(segment);
+                replay(segment);
+                segment.sealed = true;
+            }
+            if (segments.isEmpty()) {
+                segments.addLast(new Segment(0, getSegmentFile(0), segmentSize));
+            } else {
+                // recover the write position of the last segment and clear a torn record
+                final Segment last = segments.getLast();
+                last.sealed = false;
+                for (int i = last.position; i < last.capacity; i++) {
+                    last.buffer.put(i, (byte) 0);
+                }
+            }
+            this.open = true;
+        }
+        logger.info("EmbeddedTable opened. {}", this);
+    }
+
+    public void close() {
+        synchronized (lock) {
+            if (!open) {
+                return;
+            }
+            this.open = false;
+            for (Segment segment : segments) {
+                if (!readOnly) {
+                    segment.buffer.force();
+                }
+                segment.close();
+            }
+            segments.clear();
+            index.clear();
+        }
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    public void put(byte[] row, List<EmbeddedCell> cells) throws IOException {
+        if (row == null) {
+            throw new NullPointerException("row must not be null");
+        }
+        if (cells == null) {
+            throw new NullPointerException("cells must not be null");
+        }
+        if (cells.isEmpty()) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        synchronized (lock) {
+            checkWritable();
+            append(encodePut(row, cells, now));
+        }
+    }
+
+    /**
+     * Adds the 8 byte amount in the value of each cell to its column, a missing column is 0.
+     *
+     * @return the cells of the columns after the increment
+     */
+    public List<EmbeddedCell> increment(byte[] row, List<EmbeddedCell> amounts) throws IOException {
+        if (row == null) {
+            throw new NullPointerException("row must not be null");
+        }
+        if (amounts == null) {
+            throw new NullPointerException("amounts must not be null");
+        }
+        final long now = System.currentTimeMillis();
+        final List<EmbeddedCell> cells = new ArrayList<EmbeddedCell>(amounts.size());
+        synchronized (lock) {
+            checkWritable();
+            final Map<ColumnKey, CellRef> rowMap = index.get(row);
+            for (EmbeddedCell amount : amounts) {
+                long value = toLong(amount.getValue());
+                final CellRef current = rowMap == null ? null : rowMap.get(new ColumnKey(amount.getFamily(), amount.getQualifier()));
+                if (current != null) {
+                    value += toLong(current.readValue());
+                }
+                final byte[] valueBytes = new byte[BytesUtils.LONG_BYTE_LENGTH];
+                BytesUtils.writeLong(value, valueBytes, 0);
+                cells.add(new EmbeddedCell(amount.getFamily(), amount.getQualifier(), now, valueBytes));
+            }
+            if (!cells.isEmpty()) {
+                append(encodePut(row, cells, now));
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * @param familyMap families to delete, with the qualifiers to delete or an empty set for the whole family.
+     *                  An empty map deletes the row.
+     */
+    public void delete(byte[] row, Map<byte[], NavigableSet<byte[]>> familyMap) throws IOException {
+        if (row == null) {
+            throw new NullPointerException("row must not be null");
+        }
+        if (familyMap == null) {
+            throw new NullPointerException("familyMap must not be null");
+        }
+        final long now = System.currentTimeMillis();
+        synchronized (lock) {
+            checkWritable();
+            append(encodeDelete(row, familyMap, now));
+        }
+    }
+
+    /**
+     * @param familyMap families to read, with the qualifiers to read or an empty set for the whole family,
+     *                  compared by content like {@code Scan.getFamilyMap()}. An empty map reads all columns.
+     * @return null if none of the columns exists
+     */
+    public EmbeddedRow get(byte[] row, Map<byte[], NavigableSet<byte[]>> familyMap) {
+        if (row == null) {
+            throw new NullPointerException("row must not be null");
+        }
+        final ConcurrentSkipListMap<ColumnKey, CellRef> rowMap = index.get(row);
+        if (rowMap == null) {
+            return null;
+        }
+        return select(row, rowMap, familyMap);
+    }
+
+    /**
+     * Scans the rows from startRow (inclusive) to stopRow (exclusive) with the semantics of an HBase scan.
+     * An empty start or stop row is unbounded, and a reversed scan starts at startRow and moves to smaller rows.
+     * The iterator reads a consistent view of each row, not of the whole range.
+     */
+    public Iterator<EmbeddedRow> scan(byte[] startRow, byte[] stopRow, boolean reversed, Map<byte[], NavigableSet<byte[]>> familyMap) {
+        final boolean hasStart = startRow != null && startRow.length > 0;
+        final boolean hasStop = stopRow != null && stopRow.length > 0;
+        NavigableMap<byte[], ConcurrentSkipListMap<ColumnKey, CellRef>> range = index;
+        if (!reversed) {
+            if (hasStart && hasStop && compareBytes(startRow, stopRow) >= 0) {
+                return Collections.<EmbeddedRow>emptyList().iterator();
+            }
+            if (hasStart) {
+                range = range.tailMap(startRow, true);
+            }
+            if (hasStop) {
+                range = range.headMap(stopRow, false);
+            }
+        } else {
+            if (hasStart && hasStop && compareBytes(startRow, stopRow) <= 0) {
+                return Collections.<EmbeddedRow>emptyList().iterator();
+            }
+            if (hasStart) {
+                range = range.headMap(startRow, true);
+            }
+            if (hasStop) {
+                range = range.tailMap(stopRow, false);
+            }
+            range = range.descendingMap();
+        }
+        return new RowIterator(range.entrySet().iterator(), familyMap);
+    }
+
+    /**
+     * Reads the records appended by the writer process since the last refresh, and drops the segments it deleted.
+     */
+    public void refresh() throws IOException {
+        if (!readOnly) {
+            return;
+        }
+        synchronized (lock) {
+            if (!open) {
+                return;
+            }
+            final Set<Segment> deleted = new HashSet<Segment>();
+            while (!segments.isEmpty() && !segments.getFirst().file.exists()) {
+                final Segment segment = segments.removeFirst();
+                segment.close();
+                deleted.add(segment);
+            }
+            removeCells(deleted);
+
+            final long lastSegmentId = segments.isEmpty() ? -1 : segments.getLast().id;
+            for (long segmentId : listSegmentIds()) {
+                if (segmentId <= lastSegmentId) {
+                    continue;
+                }
+                final File file = getSegmentFile(segmentId);
+                if (file.length() == 0) {
+                    // not mapped by the writer yet
+                    break;
+                }
+                segments.addLast(new Segment(segmentId, file, 0));
+            }
+            final int size = segments.size();
+            int i = 0;
+            for (Segment segment : segments) {
+                final boolean last = ++i == size;
+                if (segment.sealed) {
+                    continue;
+                }
+                replay(segment);
+                // the writer does not append to a segment once it moved to the next one
+                segment.sealed = !last;
+            }
+        }
+    }
+
+    /**
+     * Deletes the oldest segments whose cells are all older than expireTimestamp. The segment being written is kept.
+     *
+     * @return the number of deleted segments
+     */
+    public int purge(long expireTimestamp) {
+        final List<Segment> expired = new ArrayList<Segment>();
+        synchronized (lock) {
+            if (!open || readOnly) {
+                return 0;
+            }
+            while (segments.size() > 1 && segments.getFirst().maxTimestamp < expireTimestamp) {
+                expired.add(segments.removeFirst());
+            }
+            if (expired.isEmpty()) {
+                return 0;
+            }
+            removeCells(new HashSet<Segment>(expired));
+            for (Segment segment : expired) {
+                // values being read stay mapped until the buffer is collected
+                segment.close();
+                if (!segment.file.delete()) {
+                    logger.warn("can not delete {}", segment.file);
+                }
+            }
+        }
+        logger.info("{} expired segments deleted. count:{}", tableName, expired.size());
+        return expired.size();
+    }
+
+    /**
+     * Writes appended records to the disk.
+     */
+    public void force() {
+        synchronized (lock) {
+            if (!open || !dirty) {
+                return;
+            }
+            segments.getLast().buffer.force();
+            this.dirty = false;
+        }
+    }
+
+    public int getSegmentCount() {
+        synchronized (lock) {
+            return segments.size();
+        }
+    }
+
+    public long getUsedBytes() {
+        synchronized (lock) {
+            long usedBytes = 0;
+            for (Segment segment : segments) {
+                usedBytes += segment.position;
+            }
+            return usedBytes;
+        }
+    }
+
+    public long getAppendCount() {
+        return appendCount.get();
+    }
+
+    public long getCorruptedCount() {
+        return corruptedCount.get();
+    }
+
+    private void checkWritable() {
+        if (readOnly) {
+            throw new UnsupportedOperationException(tableName + " is read only");
+        }
+        if (!open) {
+            throw new IllegalStateException(tableName + " is closed");
+        }
+    }
+
+    private void append(byte[] payload) throws IOException {
+        final int recordSize = RECORD_HEADER_SIZE + payload.length;
+        Segment last = segments.getLast();
+        if (last.position + recordSize > last.capacity) {
+            last.buffer.force();
+            last.sealed = true;
+            // a record larger than the segment size gets a segment of its own
+            last = new Segment(last.id + 1, getSegmentFile(last.id + 1), Math.max(segmentSize, recordSize));
+            segments.addLast(last);
+        }
+        final int offset = last.position;
+        final ByteBuffer buffer = last.buffer.duplicate();
+        buffer.position(offset + RECORD_HEADER_SIZE);
+        buffer.put(payload);
+        buffer.putInt(offset + 4, crc(payload));
+        // the length is written last, a record without length is the end of the segment
+        buffer.putInt(offset, payload.length);
+        last.position = offset + recordSize;
+        this.dirty = true;
+
+        apply(last, offset + RECORD_HEADER_SIZE, payload);
+        appendCount.incrementAndGet();
+    }
+
+    private void replay(Segment segment) {
+        int offset = segment.position;
+        while (offset + RECORD_HEADER_SIZE <= segment.capacity) {
+            final int length = segment.buffer.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            if (length < 0 || offset + RECORD_HEADER_SIZE + length > segment.capacity) {
+                corrupted(segment, offset);
+                break;
+            }
+            final byte[] payload = new byte[length];
+            final ByteBuffer buffer = segment.buffer.duplicate();
+            buffer.position(offset + RECORD_HEADER_SIZE);
+            buffer.get(payload);
+            if (crc(payload) != segment.buffer.getInt(offset + 4)) {
+                corrupted(segment, offset);
+                break;
+            }
+            try {
+                apply(segment, offset + RECORD_HEADER_SIZE, payload);
+            } catch (RuntimeException e) {
+                corrupted(segment, offset);
+                break;
+            }
+            offset += RECORD_HEADER_SIZE + length;
+        }
+        segment.position = offset;
+    }
+
+    private void corrupted(Segment segment, int offset) {
+        if (readOnly) {
+            // the writer may be in the middle of the record, read it again on the next refresh
+            return;
+        }
+        corruptedCount.incrementAndGet();
+        logger.warn("corrupted record, skip the rest of the segment. segment:{} offset:{}", segment.file, offset);
+    }
+
+    private void apply(Segment segment, int payloadOffset, byte[] payload) {
+        final Buffer buffer = new FixedBuffer(payload);
+        final byte type = buffer.readByte();
+        final byte[] row = buffer.readPrefixedBytes();
+        if (type == TYPE_PUT) {
+            applyPut(segment, payloadOffset, row, buffer);
+        } else if (type == TYPE_DELETE) {
+            applyDelete(segment, row, buffer);
+        } else {
+            throw new IllegalArgumentException("unknown record type " + type);
+        }
+    }
+
+    private void applyPut(Segment segment, int payloadOffset, byte[] row, Buffer buffer) {
+        ConcurrentSkipListMap<ColumnKey, CellRef> rowMap = index.get(row);
+        if (rowMap == null) {
+            rowMap = new ConcurrentSkipListMap<ColumnKey, CellRef>();
+            index.put(row, rowMap);
+        }
+        final int cellCount = buffer.readVarInt();
+        for (int i = 0; i < cellCount; i++) {
+            final byte[] family = internFamily(buffer.readPrefixedBytes());
+            final byte[] qualifier = buffer.readPrefixedBytes();
+            final long timestamp = buffer.readLong();
+            final int valueLength = buffer.readVarInt();
+            final int valueOffset = buffer.getOffset();
+            buffer.setOffset(valueOffset + valueLength);
+
+            final ColumnKey columnKey = new ColumnKey(family, qualifier);
+            final CellRef current = rowMap.get(columnKey);
+            if (current == null || current.timestamp <= timestamp) {
+                rowMap.put(columnKey, new CellRef(segment, payloadOffset + valueOffset, valueLength, timestamp));
+            }
+            segment.maxTimestamp = Math.max(segment.maxTimestamp, timestamp);
+        }
+    }
+
+    private void applyDelete(Segment segment, byte[] row, Buffer buffer) {
+        final long timestamp = buffer.readLong();
+        segment.maxTimestamp = Math.max(segment.maxTimestamp, timestamp);
+        final int familyCount = buffer.readVarInt();
+        final ConcurrentSkipListMap<ColumnKey, CellRef> rowMap = index.get(row);
+        if (familyCount == 0) {
+            index.remove(row);
+            return;
+        }
+        for (int i = 0; i < familyCount; i++) {
+            final byte[] family = buffer.readPrefixedBytes();
+            final int qualifierCount = buffer.readVarInt();
+            if (rowMap == null) {
+                for (int j = 0; j < qualifierCount; j++) {
+                    buffer.readPrefixedBytes();
+                }
+                continue;
+            }
+            if (qualifierCount == 0) {
+                final Iterator<ColumnKey> iterator = rowMap.keySet().iterator();
+                while (iterator.hasNext()) {
+                    if (compareBytes(iterator.next().family, family) == 0) {
+                        iterator.remove();
+                    }
+                }
+                continue;
+            }
+            for (int j = 0; j < qualifierCount; j++) {
+                rowMap.remove(new ColumnKey(family, buffer.readPrefixedBytes()));
+            }
+        }
+        if (rowMap != null && rowMap.isEmpty()) {
+            index.remove(row, rowMap);
+        }
+    }
+
+    private void removeCells(Set<Segment> removed) {
+        if (removed.isEmpty()) {
+            return;
+        }
+        for (Map.Entry<byte[], ConcurrentSkipListMap<ColumnKey, CellRef>> rowEntry : index.entrySet()) {
+            final ConcurrentSkipListMap<ColumnKey, CellRef> rowMap = rowEntry.getValue();
+            for (Map.Entry<ColumnKey, CellRef> columnEntry : rowMap.entrySet()) {
+                if (removed.contains(columnEntry.getValue().segment)) {
+                    rowMap.remove(columnEntry.getKey(), columnEntry.getValue());
+                }
+            }
+            if (rowMap.isEmpty()) {
+                index.remove(rowEntry.getKey(), rowMap);
+            }
+        }
+    }
+
+    private byte[] internFamily(byte[] family) {
+        final byte[] interned = families.get(family);
+        if (interned != null) {
+            return interned;
+        }
+        families.put(family, family);
+        return family;
+    }
+
+    private static EmbeddedRow select(byte[] row, Map<ColumnKey, CellRef> rowMap, Map<byte[], NavigableSet<byte[]>> familyMap) {
+        final boolean all = familyMap == null || familyMap.isEmpty();
+        List<EmbeddedCell> cells = null;
+        for (Map.Entry<ColumnKey, CellRef> entry : rowMap.entrySet()) {
+            final ColumnKey columnKey = entry.getKey();
+            if (!all) {
+                if (!familyMap.containsKey(columnKey.family)) {
+                    continue;
+                }
+                final NavigableSet<byte[]> qualifiers = familyMap.get(columnKey.family);
+                if (qualifiers != null && !qualifiers.isEmpty() && !qualifiers.contains(columnKey.qualifier)) {
+                    continue;
+                }
+            }
+            if (cells == null) {
+                cells = new ArrayList<EmbeddedCell>();
+            }
+            final CellRef cellRef = entry.getValue();
+            cells.add(new EmbeddedCell(columnKey.family, columnKey.qualifier, cellRef.timestamp, cellRef.readValue()));
+        }
+        if (cells == null) {
+            return null;
+        }
+        return new EmbeddedRow(row, cells);
+    }
+
+    private static byte[] encodePut(byte[] row, List<EmbeddedCell> cells, long now) {
+        final Buffer buffer = new AutomaticBuffer(128);
+        buffer.put(TYPE_PUT);
+        buffer.putPrefixedBytes(row);
+        buffer.putVar(cells.size());
+        for (EmbeddedCell cell : cells) {
+            buffer.putPrefixedBytes(cell.getFamily());
+            buffer.putPrefixedBytes(cell.getQualifier());
+            buffer.put(cell.getTimestamp() == LATEST_TIMESTAMP ? now : cell.getTimestamp());
+            // not prefixed, the value is read in place
+            buffer.putVar(cell.getValue().length);
+            buffer.put(cell.getValue());
+        }
+        return buffer.getBuffer();
+    }
+
+    private static byte[] encodeDelete(byte[] row, Map<byte[], NavigableSet<byte[]>> familyMap, long now) {
+        final Buffer buffer = new AutomaticBuffer(64);
+        buffer.put(TYPE_DELETE);
+        buffer.putPrefixedBytes(row);
+        buffer.put(now);
+        buffer.putVar(familyMap.size());
+        for (Map.Entry<byte[], NavigableSet<byte[]>> entry : familyMap.entrySet()) {
+            buffer.putPrefixedBytes(entry.getKey());
+            final NavigableSet<byte[]> qualifiers = entry.getValue();
+            if (qualifiers == null) {
+                buffer.putVar(0);
+                continue;
+            }
+            buffer.putVar(qualifiers.size());
+            for (byte[] qualifier : qualifiers) {
+                buffer.putPrefixedBytes(qualifier);
+            }
+        }
+        return buffer.getBuffer();
+    }
+
+    private static long toLong(byte[] value) {
+        if (value.length != BytesUtils.LONG_BYTE_LENGTH) {
+            throw new IllegalArgumentException("Attempted to increment field that isn't 64 bits wide");
+        }
+        return BytesUtils.bytesToLong(value, 0);
+    }
+
+    private List<Long> listSegmentIds() {
+        final List<Long> segmentIds = new ArrayList<Long>();
+        final String[] names = directory.list();
+        if (names == null) {
+            return segmentIds;
+        }
+        for (String name : names) {
+            if (name.endsWith(SEGMENT_SUFFIX)) {
+                final String id = name.substring(0, name.length() - SEGMENT_SUFFIX.length());
+                try {
+                    segmentIds.add(Long.parseLong(id));
+                } catch (NumberFormatException e) {
+                    logger.warn("unknown file in table directory. {}", name);
+                }
+            }
+        }
+        Collections.sort(segmentIds);
+        return segmentIds;
+    }
+
+    private File getSegmentFile(long segmentId) {
+        return new File(directory, String.format("%020d%s", segmentId, SEGMENT_SUFFIX));
+    }
+
+    private static int crc(byte[] bytes) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(bytes, 0, bytes.length);
+        return (int) crc32.getValue();
+    }
+
+    static int compareBytes(byte[] left, byte[] right) {
+        final int length = Math.min(left.length, right.length);
+        for (int i = 0; i < length; i++) {
+            final int a = left[i] & 0xff;
+            final int b = right[i] & 0xff;
+            if (a != b) {
+                return a - b;
+            }
+        }
+        return left.length - right.length;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignore) {
+            // skip
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("EmbeddedTable{");
+        sb.append("tableName='").append(tableName).append('\'');
+        sb.append(", directory=").append(directory);
+        sb.append(", readOnly=").append(readOnly);
+        sb.append(", segmentCount=").append(getSegmentCount());
+        sb.append(", usedBytes=").append(getUsedBytes());
+        sb.append(", corruptedCount=").append(getCorruptedCount());
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static class ColumnKey implements Comparable<ColumnKey> {
+        private final byte[] family;
+        private final byte[] qualifier;
+
+        private ColumnKey(byte[] family, byte[] qualifier) {
+            this.family = family;
+            this.qualifier = qualifier == null ? EMPTY_BYTES : qualifier;
+        }
+
+        @Override
+        public int compareTo(ColumnKey other) {
+            final int result = compareBytes(family, other.family);
+            if (result != 0) {
+                return result;
+            }
+            return compareBytes(qualifier, other.qualifier);
+        }
+    }
+
+    private static class CellRef {
+        private final Segment segment;
+        private final int valueOffset;
+        private final int valueLength;
+        private final long timestamp;
+
+        private CellRef(Segment segment, int valueOffset, int valueLength, long timestamp) {
+            this.segment = segment;
+            this.valueOffset = valueOffset;
+            this.valueLength = valueLength;
+            this.timestamp = timestamp;
+        }
+
+        private byte[] readValue() {
+            final byte[] value = new byte[valueLength];
+            final ByteBuffer buffer = segment.buffer.duplicate();
+            buffer.position(valueOffset);
+            buffer.get(value);
+            return value;
+        }
+    }
+
+    private static class RowIterator implements Iterator<EmbeddedRow> {
+        private final Iterator<Map.Entry<byte[], ConcurrentSkipListMap<ColumnKey, CellRef>>> iterator;
+        private final Map<byte[], NavigableSet<byte[]>> familyMap;
+        private EmbeddedRow next;
+
+        private RowIterator(Iterator<Map.Entry<byte[], ConcurrentSkipListMap<ColumnKey, CellRef>>> iterator, Map<byte[], NavigableSet<byte[]>> familyMap) {
+            this.iterator = iterator;
+            this.familyMap = familyMap;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && iterator.hasNext()) {
+                final Map.Entry<byte[], ConcurrentSkipListMap<ColumnKey, CellRef>> entry = iterator.next();
+                // rows without selected columns are skipped, like removed rows
+                next = select(entry.getKey(), entry.getValue(), familyMap);
+            }
+            return next != null;
+        }
+
+        @Override
+        public EmbeddedRow next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            final EmbeddedRow row = next;
+            next = null;
+            return row;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class Segment {
+        private final long id;
+        private final File file;
+        private final RandomAccessFile randomAccessFile;
+        private final MappedByteBuffer buffer;
+        private final int capacity;
+        // write position of the writer, read position of a read-only table
+        private int position;
+        private long maxTimestamp = Long.MIN_VALUE;
+        private boolean sealed;
+
+        /**
+         * @param capacity size of a new segment, 0 to map the whole file
+         */
+        private Segment(long id, File file, int capacity) throws IOException {
+            this.id = id;
+            this.file = file;
+            this.randomAccessFile = new RandomAccessFile(file, readOnly ? "r" : "rw");
+            boolean success = false;
+            try {
+                final long length = randomAccessFile.length();
+                if (capacity == 0) {
+                    // a file not mapped yet before the last shutdown
+                    capacity = length == 0 ? segmentSize : (int) Math.min(length, Integer.MAX_VALUE);
+                }
+                this.capacity = capacity;
+                final FileChannel channel = randomAccessFile.getChannel();
+                final FileChannel.MapMode mapMode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+                this.buffer = channel.map(mapMode, 0, capacity);
+                success = true;
+            } finally {
+                if (!success) {
+                    closeQuietly(randomAccessFile);
+                }
+            }
+        }
+
+        private void close() {
+            closeQuietly(randomAccessFile);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase;
+
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+public class BufferedPutWriterTest {
+
+    private static final String TABLE = "Traces";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void disabled() throws Exception {
+        HbaseOperations2 hbaseTemplate = mock(HbaseOperations2.class);
+        BufferedPutWriter writer = new BufferedPutWriter(hbaseTemplate, false, 0, 0, 0, 0, 0, 0);
+        writer.afterPropertiesSet();
+
+        Put put = newPut(0);
+        writer.put(TABLE, put);
+        verify(hbaseTemplate).put(TABLE, put);
+        writer.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void flushOnBatchSize() throws Exception {
+        HbaseOperations2 hbaseTemplate = mock(HbaseOperations2.class);
+        BufferedPutWriter writer = new BufferedPutWriter(hbaseTemplate, true, 10, 60000, 1, 1024 * 1024, 1000, 0);
+        writer.afterPropertiesSet();
+
+        for (int i = 0; i < 25; i++) {
+            writer.put(TABLE, newPut(i));
+        }
+        verify(hbaseTemplate, timeout(5000).times(2)).put(eq(TABLE), any(List.class));
+        Assert.assertEquals(20, writer.getFlushedPutCount());
+
+        writer.destroy();
+        verify(hbaseTemplate, times(3)).put(eq(TABLE), any(List.class));
+        Assert.assertEquals(25, writer.getFlushedPutCount());
+        Assert.assertEquals(0, writer.getPendingBytes());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void putList() throws Exception {
+        HbaseOperations2 hbaseTemplate = mock(HbaseOperations2.class);
+        BufferedPutWriter writer = new BufferedPutWriter(hbaseTemplate, true, 2, 60000, 1, 1024 * 1024, 1000, 0);
+        writer.afterPropertiesSet();
+
+        List<Put> puts = new ArrayList<Put>();
+        for (int i = 0; i < 5; i++) {
+            puts.add(newPut(i));
+        }
+        writer.put(TABLE, puts);
+        // written as batches of the batch size, without waiting for the flush interval
+        verify(hbaseTemplate, timeout(5000).times(3)).put(eq(TABLE), any(List.class));
+        writer.destroy();
+        Assert.assertEquals(5, writer.getFlushedPutCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void flushOnInterval() throws Exception {
+        HbaseOperations2 hbaseTemplate = mock(HbaseOperations2.class);
+        BufferedPutWriter writer = new BufferedPutWriter(hbaseTemplate, true, 100, 50, 1, 1024 * 1024, 1000, 0);
+        writer.afterPropertiesSet();
+
+        writer.put(TABLE, newPut(0));
+        verify(hbaseTemplate, timeout(5000)).put(eq(TABLE), any(List.class));
+        writer.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void retry() throws Exception {
+        HbaseOperations2 hbaseTemplate = mock(HbaseOperations2.class);
+        doThrow(new RuntimeException("test")).doNothing().when(hbaseTemplate).put(eq(TABLE), any(List.class));
+        BufferedPutWriter writer = new BufferedPutWriter(hbaseTemplate, true, 1, 60000, 1, 1024 * 1024, 1000, 1);
+        writer.afterPropertiesSet();
+
+        writer.put(TABLE, newPut(0));
+        writer.destroy();
+
+        verify(hbaseTemplate, times(2)).put(eq(TABLE), any(List.class));
+        Assert.assertEquals(1, writer.getRetryCount());
+        Assert.assertEquals(0, writer.getFailedPutCount());
+        Assert.assertEquals(1, writer.getFlushedPutCount());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void retryLimit() throws Exception {
+        HbaseOperations2 hbaseTemplate = mock(HbaseOperations2.class);
+        doThrow(new RuntimeException("test")).when(hbaseTemplate).put(eq(TABLE), any(List.class));
+        BufferedPutWriter writer = new BufferedPutWriter(hbaseTemplate, true, 1, 60000, 1, 1024 * 1024, 1000, 1);
+        writer.afterPropertiesSet();
+
+        writer.put(TABLE, newPut(0));
+        writer.destroy();
+
+        Assert.assertEquals(1, writer.getFailedPutCount());
+        Assert.assertEquals(0, writer.getPendingBytes());
+    }
+
+    @Test
+    public void backpressure() throws Exception {
+        HbaseOperations2 hbaseTemplate = mock(HbaseOperations2.class);
+        Put first = newPut(0);
+        // room for a single put, which is never flushed
+        BufferedPutWriter writer = new BufferedPutWriter(hbaseTemplate, true, 100, 60000, 1, first.heapSize(), 10, 0);
+        writer.afterPropertiesSet();
+
+        writer.put(TABLE, first);
+        Put second = newPut(1);
+        writer.put(TABLE, second);
+
+        verify(hbaseTemplate).put(TABLE, second);
+        Assert.assertEquals(1, writer.getSynchronousPutCount());
+        writer.destroy();
+    }
+
+    @Test
+    public void spoolOnBackpressure() throws Exception {
+        HbaseOperations2 hbaseTemplate = mock(HbaseOperations2.class);
+        Put first = newPut(0);
+        PutSpool spool = newSpool();
+        BufferedPutWriter writer = new BufferedPutWriter(hbaseTemplate, true, 100, 60000, 1, first.heapSize(), 10, 0);
+        writer.setSpool(spool);
+        writer.afterPropertiesSet();
+
+        writer.put(TABLE, first);
+        writer.put(TABLE, newPut(1));
+
+        verify(hbaseTemplate, never()).put(eq(TABLE), any(Put.class));
+        Assert.assertEquals(0, writer.getSynchronousPutCount());
+        Assert.assertEquals(1, writer.getSpooledPutCount());
+        Assert.assertFalse(spool.isEmpty());
+        writer.destroy();
+        spool.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void spoolAndReplay() throws Exception {
+        HbaseOperations2 hbaseTemplate = mock(HbaseOperations2.class);
+        // HBase is unavailable for the first batch
+        doThrow(new RuntimeException("test")).doNothing().when(hbaseTemplate).put(eq(TABLE), any(List.class));
+        PutSpool spool = newSpool();
+        BufferedPutWriter writer = new BufferedPutWriter(hbaseTemplate, true, 1, 60000, 1, 1024 * 1024, 1000, 0);
+        writer.setSpool(spool);
+        writer.setSpoolReplayIntervalMillis(10);
+        writer.afterPropertiesSet();
+
+        writer.put(TABLE, newPut(0));
+
+        verify(hbaseTemplate, timeout(5000).times(2)).put(eq(TABLE), any(List.class));
+        for (int i = 0; i < 500 && writer.getReplayedPutCount() == 0; i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, writer.getSpooledPutCount());
+        Assert.assertEquals(1, writer.getReplayedPutCount());
+        Assert.assertEquals(0, writer.getFailedPutCount());
+        Assert.assertTrue(spool.isEmpty());
+        writer.destroy();
+        spool.destroy();
+    }
+
+    @Test
+    public void spoolKeepsOrder() throws Exception {
+        HbaseOperations2 hbaseTemplate = mock(HbaseOperations2.class);
+        PutSpool spool = newSpool();
+        // spooled before the last shutdown
+        spool.append(TABLE, newPut(0));
+        BufferedPutWriter writer = new BufferedPutWriter(hbaseTemplate, true, 1, 60000, 1, 1024 * 1024, 1000, 0);
+        writer.setSpool(spool);
+        writer.setSpoolReplayIntervalMillis(60000);
+        writer.afterPropertiesSet();
+
+        // new puts are not written before the older spooled one
+        writer.put(TABLE, newPut(1));
+        writer.put(TABLE, newPut(2));
+
+        verifyZeroInteractions(hbaseTemplate);
+        Assert.assertEquals(2, writer.getSpooledPutCount());
+        List<PutSpool.Record> records = spool.read(100).getRecords();
+        Assert.assertEquals(3, records.size());
+        for (int i = 0; i < records.size(); i++) {
+            Assert.assertEquals("row" + i, Bytes.toString(records.get(i).getPut().getRow()));
+        }
+        writer.destroy();
+        spool.destroy();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void replayOnFlushThreads() throws Exception {
+        HbaseOperations2 hbaseTemplate = mock(HbaseOperations2.class);
+        final List<String> threadNames = Collections.synchronizedList(new ArrayList<String>());
+        final List<Put> written = Collections.synchronizedList(new ArrayList<Put>());
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                threadNames.add(Thread.currentThread().getName());
+                written.addAll((List<Put>) invocation.getArguments()[1]);
+                return null;
+            }
+        }).when(hbaseTemplate).put(eq(TABLE), any(List.class));
+        PutSpool spool = newSpool();
+        spool.append(TABLE, newPut(0, 0));
+        spool.append(TABLE, newPut(1, 1));
+        spool.append(TABLE, newPut(0, 2));
+        BufferedPutWriter writer = new BufferedPutWriter(hbaseTemplate, true, 1, 60000, 2, 1024 * 1024, 1000, 0);
+        writer.setSpool(spool);
+        writer.setSpoolReplayIntervalMillis(10);
+        writer.afterPropertiesSet();
+
+        for (int i = 0; i < 500 && !spool.isEmpty(); i++) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(spool.isEmpty());
+        Assert.assertEquals(3, writer.getReplayedPutCount());
+        Assert.assertEquals(3, written.size());
+        for (String threadName : threadNames) {
+            Assert.assertTrue(threadName, threadName.startsWith("Pinpoint-HbaseFlush"));
+        }
+        // the puts of a row are replayed in the spooled order
+        List<Integer> row0Values = new ArrayList<Integer>();
+        for (Put put : written) {
+            if ("row0".equals(Bytes.toString(put.getRow()))) {
+                row0Values.add(getValue(put));
+            }
+        }
+        Assert.assertEquals(Arrays.asList(0, 2), row0Values);
+        writer.destroy();
+        spool.destroy();
+    }
+
+    private PutSpool newSpool() throws Exception {
+        PutSpool spool = new PutSpool(true, temporaryFolder.getRoot().getAbsolutePath(), 1024 * 1024, 1024 * 1024);
+        spool.afterPropertiesSet();
+        return spool;
+    }
+
+    private Put newPut(int i) {
+        return newPut(i, i);
+    }
+
+    private Put newPut(int row, int value) {
+        Put put = new Put(Bytes.toBytes("row" + row));
+        put.addColumn(Bytes.toBytes("S"), Bytes.toBytes("q"), Bytes.toBytes(value));
+        return put;
+    }
+
+    private int getValue(Put put) {
+        Cell cell = put.getFamilyCellMap().firstEntry().getValue().get(0);
+        return Bytes.toInt(CellUtil.cloneValue(cell));
+    }
+}
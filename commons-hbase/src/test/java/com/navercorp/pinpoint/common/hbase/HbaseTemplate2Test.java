@@ -0,0 +1,129 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase;
+
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.HTableInterfaceFactory;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.RetriesExhaustedWithDetailsException;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.dao.DataAccessException;
+
+public class HbaseTemplate2Test {
+
+    private static final String TABLE = "ApplicationMapStatisticsSelf_Ver2";
+
+    private HTableInterface table;
+    private HTableInterfaceFactory tableFactory;
+    private HbaseTemplate2 hbaseTemplate;
+
+    @Before
+    public void setUp() throws Exception {
+        table = mock(HTableInterface.class);
+        tableFactory = mock(HTableInterfaceFactory.class);
+        when(tableFactory.createHTableInterface(any(Configuration.class), any(byte[].class))).thenReturn(table);
+
+        hbaseTemplate = new HbaseTemplate2(mock(Configuration.class));
+        hbaseTemplate.setTableFactory(tableFactory);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void increment() throws Exception {
+        final Result result0 = Result.create(new Cell[0]);
+        final Result result1 = Result.create(new Cell[0]);
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) {
+                Object[] results = (Object[]) invocation.getArguments()[1];
+                results[0] = result0;
+                results[1] = result1;
+                return null;
+            }
+        }).when(table).batch(anyList(), any(Object[].class));
+
+        List<Result> resultList = hbaseTemplate.increment(TABLE, newIncrements(2));
+
+        Assert.assertEquals(Arrays.asList(result0, result1), resultList);
+        verify(tableFactory).releaseHTableInterface(table);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void incrementPartialFailure() throws Exception {
+        final List<Increment> increments = newIncrements(3);
+        final Result result0 = Result.create(new Cell[0]);
+        final Result result2 = Result.create(new Cell[0]);
+        final Exception cause = new RuntimeException("region server down");
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                Object[] results = (Object[]) invocation.getArguments()[1];
+                results[0] = result0;
+                results[1] = cause;
+                results[2] = result2;
+                List<Throwable> exceptions = new ArrayList<Throwable>();
+                exceptions.add(cause);
+                List<Row> actions = new ArrayList<Row>();
+                actions.add(increments.get(1));
+                List<String> servers = new ArrayList<String>();
+                servers.add("rs1:60020");
+                throw new RetriesExhaustedWithDetailsException(exceptions, actions, servers);
+            }
+        }).when(table).batch(anyList(), any(Object[].class));
+
+        try {
+            hbaseTemplate.increment(TABLE, increments);
+            Assert.fail("partial failure must be thrown");
+        } catch (DataAccessException e) {
+            // the cause tells the failed increments
+            Assert.assertTrue(e.getCause() instanceof RetriesExhaustedWithDetailsException);
+            RetriesExhaustedWithDetailsException failure = (RetriesExhaustedWithDetailsException) e.getCause();
+            Assert.assertEquals(1, failure.getNumExceptions());
+            Assert.assertSame(increments.get(1), failure.getRow(0));
+            Assert.assertEquals("rs1:60020", failure.getHostnamePort(0));
+            Assert.assertSame(cause, failure.getCause(0));
+        }
+        verify(tableFactory).releaseHTableInterface(table);
+    }
+
+    private List<Increment> newIncrements(int size) {
+        List<Increment> increments = new ArrayList<Increment>(size);
+        for (int i = 0; i < size; i++) {
+            Increment increment = new Increment(Bytes.toBytes("row" + i));
+            increment.addColumn(Bytes.toBytes("C"), Bytes.toBytes("q"), 1L);
+            increments.add(increment);
+        }
+        return increments;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase;
+
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.HTableInterface;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
+
+public class ParallelResultScannerTest {
+
+    private static final int BUCKET_SIZE = 8;
+    private static final byte[] FAMILY = Bytes.toBytes("S");
+
+    private final AbstractRowKeyDistributor rowKeyDistributor = new RowKeyDistributorByHashPrefix(new RowKeyDistributorByHashPrefix.OneByteSimpleHash(BUCKET_SIZE));
+    private final List<FakeScanner> scannerList = new ArrayList<FakeScanner>();
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void mergeInOriginalKeyOrder() throws Exception {
+        HTableInterface htable = newTable(100);
+        ParallelResultScanner scanner = new ParallelResultScanner(executor, htable, newScan(3), rowKeyDistributor);
+
+        List<String> rows = new ArrayList<String>();
+        for (Result result : scanner) {
+            rows.add(Bytes.toString(rowKeyDistributor.getOriginalKey(result.getRow())));
+        }
+        scanner.close();
+
+        Assert.assertEquals(originalRows(100), rows);
+        Assert.assertEquals(BUCKET_SIZE, scannerList.size());
+        for (FakeScanner fakeScanner : scannerList) {
+            Assert.assertTrue(fakeScanner.closed);
+        }
+    }
+
+    @Test
+    public void nextBatch() throws Exception {
+        HTableInterface htable = newTable(10);
+        ParallelResultScanner scanner = new ParallelResultScanner(executor, htable, newScan(1), rowKeyDistributor);
+
+        Assert.assertEquals(4, scanner.next(4).length);
+        Assert.assertEquals(6, scanner.next(100).length);
+        Assert.assertEquals(0, scanner.next(100).length);
+        Assert.assertNull(scanner.next());
+        scanner.close();
+    }
+
+    @Test
+    public void closeBeforeTheEnd() throws Exception {
+        HTableInterface htable = newTable(1000);
+        ParallelResultScanner scanner = new ParallelResultScanner(executor, htable, newScan(10), rowKeyDistributor);
+
+        Assert.assertNotNull(scanner.next());
+        scanner.close();
+        Assert.assertNull(scanner.next());
+
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        int fetched = 0;
+        for (FakeScanner fakeScanner : scannerList) {
+            Assert.assertTrue(fakeScanner.closed);
+            fetched += fakeScanner.fetched;
+        }
+        // the first batch and at most one prefetched batch of each bucket
+        Assert.assertTrue("fetched:" + fetched, fetched <= BUCKET_SIZE * 10 * 2);
+    }
+
+    @Test
+    public void openFailure() throws Exception {
+        HTableInterface htable = mock(HTableInterface.class);
+        final List<Result> empty = new ArrayList<Result>();
+        when(htable.getScanner(any(Scan.class))).thenAnswer(new Answer<ResultScanner>() {
+            @Override
+            public ResultScanner answer(InvocationOnMock invocation) throws Throwable {
+                Scan scan = (Scan) invocation.getArguments()[0];
+                if (scan.getId().endsWith("-3")) {
+                    throw new IOException("region server down");
+                }
+                return newScanner(empty);
+            }
+        });
+
+        try {
+            new ParallelResultScanner(executor, htable, newScan(1), rowKeyDistributor);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertEquals("region server down", e.getMessage());
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+        // buckets not opened yet are cancelled
+        Assert.assertTrue(scannerList.size() < BUCKET_SIZE);
+        for (FakeScanner fakeScanner : scannerList) {
+            Assert.assertTrue(fakeScanner.closed);
+        }
+    }
+
+    private Scan newScan(int caching) {
+        Scan scan = new Scan();
+        scan.setId("test");
+        scan.setCaching(caching);
+        return scan;
+    }
+
+    private List<String> originalRows(int rowCount) {
+        List<String> rows = new ArrayList<String>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            rows.add(String.format("row%04d", i));
+        }
+        return rows;
+    }
+
+    private HTableInterface newTable(int rowCount) throws IOException {
+        final List<List<Result>> buckets = new ArrayList<List<Result>>();
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            buckets.add(new ArrayList<Result>());
+        }
+        for (String row : originalRows(rowCount)) {
+            byte[] distributedKey = rowKeyDistributor.getDistributedKey(Bytes.toBytes(row));
+            Cell cell = new KeyValue(distributedKey, FAMILY, Bytes.toBytes("q"), Bytes.toBytes(row));
+            buckets.get(distributedKey[0]).add(Result.create(Arrays.asList(cell)));
+        }
+
+        HTableInterface htable = mock(HTableInterface.class);
+        when(htable.getScanner(any(Scan.class))).thenAnswer(new Answer<ResultScanner>() {
+            @Override
+            public ResultScanner answer(InvocationOnMock invocation) throws Throwable {
+                Scan scan = (Scan) invocation.getArguments()[0];
+                return newScanner(buckets.get(scan.getStartRow()[0]));
+            }
+        });
+        return htable;
+    }
+
+    private synchronized FakeScanner newScanner(List<Result> results) {
+        FakeScanner scanner = new FakeScanner(results);
+        scannerList.add(scanner);
+        return scanner;
+    }
+
+    private static class FakeScanner implements ResultScanner {
+
+        private final Iterator<Result> iterator;
+        private volatile boolean closed = false;
+        private volatile int fetched = 0;
+
+        private FakeScanner(List<Result> results) {
+            this.iterator = results.iterator();
+        }
+
+        @Override
+        public Result next() throws IOException {
+            Result[] results = next(1);
+            return results.length == 0 ? null : results[0];
+        }
+
+        @Override
+        public Result[] next(int nbRows) throws IOException {
+            if (closed) {
+                throw new IOException("closed");
+            }
+            List<Result> results = new ArrayList<Result>();
+            while (results.size() < nbRows && iterator.hasNext()) {
+                results.add(iterator.next());
+            }
+            fetched += results.size();
+            return results.toArray(new Result[results.size()]);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        @Override
+        public Iterator<Result> iterator() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
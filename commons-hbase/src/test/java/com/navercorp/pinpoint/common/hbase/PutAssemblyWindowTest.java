@@ -0,0 +1,171 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.hbase;
+
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PutAssemblyWindowTest {
+
+    private static final String TABLE = "Traces";
+
+    @Test
+    public void disabled() throws Exception {
+        RecordingPutWriter putWriter = new RecordingPutWriter();
+        PutAssemblyWindow window = new PutAssemblyWindow(putWriter, false, 0, 0);
+        window.afterPropertiesSet();
+
+        Put put = newPut(0, "q");
+        window.put(TABLE, put);
+        Assert.assertEquals(1, putWriter.puts.size());
+        Assert.assertSame(put, putWriter.puts.get(0));
+        window.destroy();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void disabledPutWriter() throws Exception {
+        BufferedPutWriter putWriter = new BufferedPutWriter(mock(HbaseOperations2.class), false, 0, 0, 0, 0, 0, 0);
+        PutAssemblyWindow window = new PutAssemblyWindow(putWriter, true, 60000, 1024 * 1024);
+        window.afterPropertiesSet();
+    }
+
+    @Test
+    public void mergeSameRow() throws Exception {
+        RecordingPutWriter putWriter = new RecordingPutWriter();
+        PutAssemblyWindow window = new PutAssemblyWindow(putWriter, true, 60000, 1024 * 1024);
+        window.afterPropertiesSet();
+
+        window.put(TABLE, newPut(0, "span"));
+        window.put(TABLE, newPut(1, "span"));
+        window.put(TABLE, newPut(0, "chunk1"));
+        window.put(TABLE, newPut(0, "chunk2"));
+        window.put("ApplicationTraceIndex", newPut(0, "index"));
+        Assert.assertTrue(putWriter.puts.isEmpty());
+
+        window.destroy();
+        Assert.assertEquals(3, putWriter.puts.size());
+        Assert.assertEquals(5, window.getReceivedPutCount());
+        Assert.assertEquals(2, window.getMergedPutCount());
+        Assert.assertEquals(3, window.getWrittenPutCount());
+        Assert.assertEquals(0, window.getBufferedBytes());
+
+        Put merged = putWriter.find(TABLE, "row0");
+        Assert.assertEquals(3, merged.size());
+        Assert.assertEquals(1, putWriter.find(TABLE, "row1").size());
+        Assert.assertEquals(1, putWriter.find("ApplicationTraceIndex", "row0").size());
+    }
+
+    @Test
+    public void writeExpired() throws Exception {
+        RecordingPutWriter putWriter = new RecordingPutWriter();
+        PutAssemblyWindow window = new PutAssemblyWindow(putWriter, true, 60000, 1024 * 1024);
+
+        window.put(TABLE, newPut(0, "q"));
+        window.writeExpired(System.currentTimeMillis());
+        Assert.assertTrue(putWriter.puts.isEmpty());
+
+        window.writeExpired(System.currentTimeMillis() + 60000);
+        Assert.assertEquals(1, putWriter.puts.size());
+    }
+
+    @Test
+    public void writeOnWindow() throws Exception {
+        RecordingPutWriter putWriter = new RecordingPutWriter();
+        PutAssemblyWindow window = new PutAssemblyWindow(putWriter, true, 50, 1024 * 1024);
+        window.afterPropertiesSet();
+
+        window.put(TABLE, newPut(0, "q"));
+        final long deadline = System.currentTimeMillis() + 5000;
+        while (putWriter.size() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Assert.assertEquals(1, putWriter.size());
+        window.destroy();
+    }
+
+    @Test
+    public void evictOnMaxBytes() throws Exception {
+        RecordingPutWriter putWriter = new RecordingPutWriter();
+        final long putSize = newPut(0, "q").heapSize();
+        // a single stripe can hold 2 puts
+        PutAssemblyWindow window = new PutAssemblyWindow(putWriter, true, 60000, putSize * 2 * 16);
+
+        for (int i = 0; i < 1000; i++) {
+            window.put(TABLE, newPut(i, "q"));
+        }
+        Assert.assertTrue(window.getEvictedPutCount() > 0);
+        Assert.assertTrue(window.getBufferedBytes() <= putSize * 2 * 16);
+        Assert.assertEquals(window.getEvictedPutCount(), putWriter.size());
+
+        window.writeAll();
+        Assert.assertEquals(1000, putWriter.size());
+    }
+
+    private Put newPut(int row, String qualifier) {
+        Put put = new Put(Bytes.toBytes("row" + row));
+        put.addColumn(Bytes.toBytes("S"), Bytes.toBytes(qualifier), Bytes.toBytes(row));
+        return put;
+    }
+
+    private static class RecordingPutWriter extends BufferedPutWriter {
+        private final List<String> tableNames = new ArrayList<String>();
+        private final List<Put> puts = new ArrayList<Put>();
+
+        private RecordingPutWriter() {
+            super(mock(HbaseOperations2.class), false, 0, 0, 0, 0, 0, 0);
+        }
+
+        @Override
+        public boolean isEnable() {
+            return true;
+        }
+
+        @Override
+        public synchronized void put(String tableName, Put put) {
+            tableNames.add(tableName);
+            puts.add(put);
+        }
+
+        @Override
+        public synchronized void put(String tableName, List<Put> puts) {
+            for (Put put : puts) {
+                put(tableName, put);
+            }
+        }
+
+        private synchronized int size() {
+            return puts.size();
+        }
+
+        private synchronized Put find(String tableName, String row) {
+            for (int i = 0; i < puts.size(); i++) {
+                if (tableNames.get(i).equals(tableName) && Bytes.toString(puts.get(i).getRow()).equals(row)) {
+                    return puts.get(i);
+                }
+            }
+            throw new AssertionError(tableName + " " + row + " not found");
+        }
+    }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PutSpoolTest {
+
+    private static final String TABLE = "Traces";
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void disabled() throws Exception {
+        PutSpool spool = new PutSpool(false, null, 0, 0);
+        spool.afterPropertiesSet();
+
+        Assert.assertFalse(spool.append(TABLE, newPut(0)));
+        Assert.assertTrue(spool.isEmpty());
+        spool.destroy();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void relativeDirectory() {
+        new PutSpool(true, "hbase-spool", 1024, 1024);
+    }
+
+    @Test
+    public void encode() {
+        Put put = newPut(1);
+        put.addColumn(Bytes.toBytes("S"), Bytes.toBytes("q2"), 100L, Bytes.toBytes("value"));
+
+        PutSpool.Record record = PutSpool.decode(PutSpool.encode(TABLE, put));
+        Assert.assertEquals(TABLE, record.getTableName());
+        assertPut(put, record.getPut());
+    }
+
+    @Test
+    public void appendAndCommit() throws Exception {
+        PutSpool spool = newSpool(1024 * 1024, 1024 * 1024);
+        for (int i = 0; i < 10; i++) {
+            Assert.assertTrue(spool.append(TABLE, newPut(i)));
+        }
+        Assert.assertFalse(spool.isEmpty());
+
+        PutSpool.ReadBatch batch = spool.read(4);
+        assertRows(batch, 0, 4);
+        // not committed, read again
+        assertRows(spool.read(4), 0, 4);
+
+        spool.commit(batch);
+        PutSpool.ReadBatch rest = spool.read(100);
+        assertRows(rest, 4, 10);
+        spool.commit(rest);
+        Assert.assertTrue(spool.isEmpty());
+        Assert.assertTrue(spool.read(100).isEmpty());
+        spool.destroy();
+    }
+
+    @Test
+    public void segmentAndQuota() throws Exception {
+        final int recordSize = PutSpool.RECORD_HEADER_SIZE + PutSpool.encode(TABLE, newPut(0)).length;
+        // 3 records per segment, 3 segments
+        PutSpool spool = newSpool(recordSize * 3 + 1, (recordSize * 3 + 1) * 3);
+        int appended = 0;
+        while (spool.append(TABLE, newPut(appended))) {
+            appended++;
+        }
+        Assert.assertEquals(9, appended);
+        Assert.assertEquals(3, spool.getSegmentCount());
+        Assert.assertEquals(1, spool.getRejectedCount());
+
+        PutSpool.ReadBatch batch = spool.read(7);
+        assertRows(batch, 0, 7);
+        spool.commit(batch);
+        Assert.assertEquals(1, spool.getSegmentCount());
+        Assert.assertEquals(2, temporaryFolder.getRoot().list().length);
+
+        // room for new segments
+        Assert.assertTrue(spool.append(TABLE, newPut(9)));
+        Assert.assertTrue(spool.append(TABLE, newPut(10)));
+        assertRows(spool.read(100), 7, 11);
+        spool.destroy();
+    }
+
+    @Test
+    public void recovery() throws Exception {
+        PutSpool spool = newSpool(1024 * 1024, 1024 * 1024);
+        for (int i = 0; i < 5; i++) {
+            spool.append(TABLE, newPut(i));
+        }
+        spool.commit(spool.read(2));
+        spool.force();
+
+        // crash, without destroy()
+        PutSpool recovered = newSpool(1024 * 1024, 1024 * 1024);
+        assertRows(recovered.read(100), 2, 5);
+
+        recovered.append(TABLE, newPut(5));
+        recovered.destroy();
+
+        PutSpool reopened = newSpool(1024 * 1024, 1024 * 1024);
+        assertRows(reopened.read(100), 2, 6);
+        reopened.destroy();
+    }
+
+    @Test
+    public void tornRecord() throws Exception {
+        PutSpool spool = newSpool(1024 * 1024, 1024 * 1024);
+        for (int i = 0; i < 3; i++) {
+            spool.append(TABLE, newPut(i));
+        }
+        spool.destroy();
+
+        // break the payload of the last record
+        final int recordSize = PutSpool.RECORD_HEADER_SIZE + PutSpool.encode(TABLE, newPut(0)).length;
+        File segment = findSegment();
+        RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        try {
+            file.seek(recordSize * 2 + PutSpool.RECORD_HEADER_SIZE + 1);
+            file.write(0x7F);
+        } finally {
+            file.close();
+        }
+
+        PutSpool recovered = newSpool(1024 * 1024, 1024 * 1024);
+        Assert.assertEquals(1, recovered.getCorruptedCount());
+        assertRows(recovered.read(100), 0, 2);
+
+        recovered.append(TABLE, newPut(3));
+        PutSpool.ReadBatch batch = recovered.read(100);
+        Assert.assertEquals(3, batch.getRecords().size());
+        Assert.assertEquals("row3", Bytes.toString(batch.getRecords().get(2).getPut().getRow()));
+        recovered.destroy();
+    }
+
+    @Test
+    public void corruptedRecord() throws Exception {
+        PutSpool spool = newSpool(1024 * 1024, 1024 * 1024);
+        for (int i = 0; i < 3; i++) {
+            spool.append(TABLE, newPut(i));
+        }
+
+        // break the payload of the second record, its length is intact
+        final int recordSize = PutSpool.RECORD_HEADER_SIZE + PutSpool.encode(TABLE, newPut(0)).length;
+        corrupt(recordSize + PutSpool.RECORD_HEADER_SIZE + 1, 0x7F);
+
+        PutSpool.ReadBatch batch = spool.read(100);
+        Assert.assertEquals(1, spool.getCorruptedCount());
+        Assert.assertEquals(2, batch.getRecords().size());
+        Assert.assertEquals("row0", Bytes.toString(batch.getRecords().get(0).getPut().getRow()));
+        Assert.assertEquals("row2", Bytes.toString(batch.getRecords().get(1).getPut().getRow()));
+        spool.commit(batch);
+        Assert.assertTrue(spool.isEmpty());
+        spool.destroy();
+    }
+
+    @Test
+    public void corruptedLength() throws Exception {
+        PutSpool spool = newSpool(1024 * 1024, 1024 * 1024);
+        for (int i = 0; i < 3; i++) {
+            spool.append(TABLE, newPut(i));
+        }
+
+        // break the length of the second record, the rest of the segment is lost
+        final int recordSize = PutSpool.RECORD_HEADER_SIZE + PutSpool.encode(TABLE, newPut(0)).length;
+        corrupt(recordSize, 0x7F);
+
+        PutSpool.ReadBatch batch = spool.read(100);
+        Assert.assertEquals(1, spool.getCorruptedCount());
+        assertRows(batch, 0, 1);
+        spool.commit(batch);
+        Assert.assertTrue(spool.isEmpty());
+
+        // appends continue in a new segment
+        spool.append(TABLE, newPut(3));
+        batch = spool.read(100);
+        Assert.assertEquals(1, batch.getRecords().size());
+        Assert.assertEquals("row3", Bytes.toString(batch.getRecords().get(0).getPut().getRow()));
+        spool.commit(batch);
+        Assert.assertTrue(spool.isEmpty());
+        Assert.assertEquals(1, spool.getCorruptedCount());
+        spool.destroy();
+    }
+
+    @Test
+    public void appendIfNotEmpty() throws Exception {
+        PutSpool spool = newSpool(1024 * 1024, 1024 * 1024);
+        Assert.assertFalse(spool.appendIfNotEmpty(TABLE, newPut(0)));
+        Assert.assertTrue(spool.isEmpty());
+
+        Assert.assertTrue(spool.append(TABLE, newPut(0)));
+        Assert.assertTrue(spool.appendIfNotEmpty(TABLE, newPut(1)));
+        PutSpool.ReadBatch batch = spool.read(100);
+        assertRows(batch, 0, 2);
+
+        spool.commit(batch);
+        Assert.assertFalse(spool.appendIfNotEmpty(TABLE, newPut(2)));
+        Assert.assertTrue(spool.isEmpty());
+        spool.destroy();
+    }
+
+    private PutSpool newSpool(int segmentSize, long maxSpoolBytes) throws Exception {
+        PutSpool spool = new PutSpool(true, temporaryFolder.getRoot().getAbsolutePath(), segmentSize, maxSpoolBytes);
+        spool.afterPropertiesSet();
+        return spool;
+    }
+
+    private File findSegment() {
+        for (File file : temporaryFolder.getRoot().listFiles()) {
+            if (file.getName().endsWith(".seg")) {
+                return file;
+            }
+        }
+        throw new AssertionError("segment not found");
+    }
+
+    private void corrupt(int position, int b) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(findSegment(), "rw");
+        try {
+            file.seek(position);
+            file.write(b);
+        } finally {
+            file.close();
+        }
+    }
+
+    private void assertRows(PutSpool.ReadBatch batch, int from, int to) {
+        List<String> expected = new ArrayList<String>();
+        for (int i = from; i < to; i++) {
+            expected.add("row" + i);
+        }
+        List<String> actual = new ArrayList<String>();
+        for (PutSpool.Record record : batch.getRecords()) {
+            Assert.assertEquals(TABLE, record.getTableName());
+            actual.add(Bytes.toString(record.getPut().getRow()));
+        }
+        Assert.assertEquals(expected, actual);
+    }
+
+    private void assertPut(Put expected, Put actual) {
+        Assert.assertArrayEquals(expected.getRow(), actual.getRow());
+        Assert.assertEquals(expected.size(), actual.size());
+        for (byte[] family : expected.getFamilyCellMap().keySet()) {
+            for (int i = 0; i < expected.getFamilyCellMap().get(family).size(); i++) {
+                Assert.assertTrue(CellUtil.equals(expected.getFamilyCellMap().get(family).get(i), actual.getFamilyCellMap().get(family).get(i)));
+                Assert.assertArrayEquals(CellUtil.cloneValue(expected.getFamilyCellMap().get(family).get(i)),
+                        CellUtil.cloneValue(actual.getFamilyCellMap().get(family).get(i)));
+            }
+        }
+    }
+
+    private Put newPut(int i) {
+        Put put = new Put(Bytes.toBytes("row" + i));
+        put.addColumn(Bytes.toBytes("S"), Bytes.toBytes("q"), Bytes.toBytes(i));
+        return put;
+    }
+}
@@ -0,0 +1,385 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase.embedded;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.data.hadoop.hbase.RowMapper;
+
+import com.navercorp.pinpoint.common.hbase.HBaseTables;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.HbaseTemplate2;
+import com.navercorp.pinpoint.common.hbase.PooledHTableFactory;
+import com.navercorp.pinpoint.common.hbase.distributor.RangeOneByteSimpleHash;
+import com.navercorp.pinpoint.common.util.BytesUtils;
+import com.navercorp.pinpoint.common.util.RowKeyUtils;
+import com.navercorp.pinpoint.common.util.TimeUtils;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
+
+/**
+ * Replays the access patterns of the collector and web DAOs, with their row keys and row key distributors,
+ * on the Traces, ApplicationTraceIndex, ApplicationMapStatisticsCaller and AgentStat tables,
+ * so the {@link EmbeddedHbaseTemplate} and the {@link HbaseTemplate2} can be compared on the same synthetic workload.
+ * The workload is generated from a fixed seed.
+ * <pre>
+ * mvn -pl commons-hbase test-compile
+ * java -cp "commons-hbase/target/test-classes:commons-hbase/target/classes:..." -Dbenchmark.store=embedded \
+ *     com.navercorp.pinpoint.common.hbase.embedded.EmbeddedHbaseTemplateBenchmark
+ * java -cp "..." -Dbenchmark.store=hbase -Dhbase.client.host=localhost -Dhbase.client.port=2181 \
+ *     com.navercorp.pinpoint.common.hbase.embedded.EmbeddedHbaseTemplateBenchmark
+ * </pre>
+ * The hbase store writes into the tables created by scripts/hbase-create.hbase, use a dedicated cluster.
+ * The embedded store writes into {@code benchmark.directory}, a temporary directory by default.
+ */
+public class EmbeddedHbaseTemplateBenchmark {
+
+    private static final int NAME_LENGTH = HBaseTables.AGENT_NAME_MAX_LEN;
+    private static final long TIME_SPAN = TimeUnit.HOURS.toMillis(1);
+    private static final long AGENT_STAT_INTERVAL = 5000;
+    private static final long QUERY_WINDOW = TimeUnit.MINUTES.toMillis(5);
+    private static final long STATISTICS_SLOT = TimeUnit.MINUTES.toMillis(1);
+    private static final int SPAN_SIZE = 300;
+    private static final int AGENT_STAT_SIZE = 150;
+    private static final int TRACE_GET_COUNT = 20;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final AbstractRowKeyDistributor traceDistributor = new RowKeyDistributorByHashPrefix(new RowKeyDistributorByHashPrefix.OneByteSimpleHash(64));
+    private final AbstractRowKeyDistributor applicationTraceIndexDistributor = new RowKeyDistributorByHashPrefix(new RowKeyDistributorByHashPrefix.OneByteSimpleHash(32));
+    private final AbstractRowKeyDistributor agentStatRowKeyDistributor = new RowKeyDistributorByHashPrefix(new RangeOneByteSimpleHash(0, NAME_LENGTH, 32));
+
+    private final HbaseOperations2 template;
+    private final int agentCount;
+    private final int applicationCount;
+    private final int transactionCount;
+    private final int queryCount;
+    private final int limit;
+    private final int batchSize;
+    private final long baseTime;
+
+    public EmbeddedHbaseTemplateBenchmark(HbaseOperations2 template, int agentCount, int applicationCount, int transactionCount, int queryCount, int limit, int batchSize) {
+        if (template == null) {
+            throw new NullPointerException("template must not be null");
+        }
+        this.template = template;
+        this.agentCount = agentCount;
+        this.applicationCount = applicationCount;
+        this.transactionCount = transactionCount;
+        this.queryCount = queryCount;
+        this.limit = limit;
+        this.batchSize = batchSize;
+        // rounded, so that the hbase store keeps the rows of previous runs apart
+        this.baseTime = System.currentTimeMillis() / TIME_SPAN * TIME_SPAN - TIME_SPAN;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final String store = System.getProperty("benchmark.store", "embedded");
+        final HbaseOperations2 template;
+        final List<DisposableBean> disposables = new ArrayList<DisposableBean>();
+        if ("hbase".equals(store)) {
+            final Configuration configuration = HBaseConfiguration.create();
+            configuration.set("hbase.zookeeper.quorum", System.getProperty("hbase.client.host", "localhost"));
+            configuration.set("hbase.zookeeper.property.clientPort", System.getProperty("hbase.client.port", "2181"));
+            final PooledHTableFactory tableFactory = new PooledHTableFactory(configuration);
+            final HbaseTemplate2 hbaseTemplate = new HbaseTemplate2(configuration);
+            hbaseTemplate.setTableFactory(tableFactory);
+            hbaseTemplate.afterPropertiesSet();
+            disposables.add(hbaseTemplate);
+            disposables.add(tableFactory);
+            template = hbaseTemplate;
+        } else if ("embedded".equals(store)) {
+            String directory = System.getProperty("benchmark.directory");
+            if (directory == null) {
+                final File tempFile = File.createTempFile("pinpoint-store", "");
+                if (!tempFile.delete()) {
+                    throw new IllegalStateException("can not create " + tempFile);
+                }
+                directory = tempFile.getPath();
+            }
+            final EmbeddedHbaseTemplate embeddedTemplate = new EmbeddedHbaseTemplate(directory, false, 64 * 1024 * 1024, TimeUnit.DAYS.toSeconds(1));
+            embeddedTemplate.afterPropertiesSet();
+            disposables.add(embeddedTemplate);
+            template = embeddedTemplate;
+        } else {
+            throw new IllegalArgumentException("unknown benchmark.store:" + store);
+        }
+
+        try {
+            final EmbeddedHbaseTemplateBenchmark benchmark = new EmbeddedHbaseTemplateBenchmark(template,
+                    Integer.getInteger("benchmark.agentCount", 20),
+                    Integer.getInteger("benchmark.applicationCount", 4),
+                    Integer.getInteger("benchmark.transactionCount", 200000),
+                    Integer.getInteger("benchmark.queryCount", 2000),
+                    Integer.getInteger("benchmark.limit", 500),
+                    Integer.getInteger("benchmark.batchSize", 100));
+            benchmark.run(store);
+        } finally {
+            for (DisposableBean disposable : disposables) {
+                disposable.destroy();
+            }
+        }
+    }
+
+    public void run(String store) {
+        logger.info("start benchmark. store:{} agentCount:{} applicationCount:{} transactionCount:{} queryCount:{} limit:{}",
+                store, agentCount, applicationCount, transactionCount, queryCount, limit);
+        writeTransactions();
+        writeAgentStats();
+
+        // warm up
+        query(new Random(1), queryCount / 10, new LatencyRecorder(queryCount / 10), new LatencyRecorder(queryCount / 10),
+                new LatencyRecorder(queryCount / 10), new LatencyRecorder(queryCount / 10));
+
+        final LatencyRecorder indexScan = new LatencyRecorder(queryCount);
+        final LatencyRecorder traceGet = new LatencyRecorder(queryCount);
+        final LatencyRecorder agentStatScan = new LatencyRecorder(queryCount);
+        final LatencyRecorder statisticsScan = new LatencyRecorder(queryCount);
+        final long rowCount = query(new Random(2), queryCount, indexScan, traceGet, agentStatScan, statisticsScan);
+        logger.info("{} read rows:{}", store, rowCount);
+        logger.info("{} {}", store, indexScan.report("ApplicationTraceIndex scan"));
+        logger.info("{} {}", store, traceGet.report("Traces get"));
+        logger.info("{} {}", store, agentStatScan.report("AgentStat scan"));
+        logger.info("{} {}", store, statisticsScan.report("ApplicationMapStatisticsCaller scan"));
+    }
+
+    private void writeTransactions() {
+        final Random random = new Random(0);
+        final byte[] span = new byte[SPAN_SIZE];
+        final List<Put> tracePuts = new ArrayList<Put>(batchSize);
+        final List<Put> indexPuts = new ArrayList<Put>(batchSize);
+        final List<Increment> increments = new ArrayList<Increment>(batchSize);
+
+        final long startTime = System.nanoTime();
+        for (int i = 0; i < transactionCount; i++) {
+            final int agentIndex = i % agentCount;
+            final String agentId = agentId(agentIndex);
+            final String applicationName = applicationName(agentIndex);
+            final long acceptedTime = baseTime + TIME_SPAN * i / transactionCount;
+            final int elapsed = random.nextInt(3000);
+
+            final byte[] traceId = BytesUtils.stringLongLongToBytes(agentId, NAME_LENGTH, baseTime, i);
+            random.nextBytes(span);
+            final Put tracePut = new Put(traceDistributor.getDistributedKey(traceId));
+            tracePut.addColumn(HBaseTables.TRACES_CF_SPAN, Bytes.toBytes(random.nextLong()), acceptedTime, span);
+            tracePuts.add(tracePut);
+
+            final Put indexPut = new Put(applicationTraceIndexDistributor.getDistributedKey(indexRowKey(applicationName, acceptedTime)));
+            indexPut.addColumn(HBaseTables.APPLICATION_TRACE_INDEX_CF_TRACE, traceId, acceptedTime, Bytes.toBytes(elapsed));
+            indexPuts.add(indexPut);
+
+            final Increment increment = new Increment(statisticsRowKey(applicationName, acceptedTime / STATISTICS_SLOT * STATISTICS_SLOT));
+            final String calleeName = applicationName((agentIndex + 1) % agentCount);
+            increment.addColumn(HBaseTables.MAP_STATISTICS_CALLER_CF_COUNTER, Bytes.toBytes(calleeName + histogramSlot(elapsed)), 1);
+            increments.add(increment);
+
+            if (tracePuts.size() >= batchSize) {
+                flush(tracePuts, indexPuts, increments);
+            }
+        }
+        flush(tracePuts, indexPuts, increments);
+        logWriteThroughput("transactions", transactionCount, startTime);
+    }
+
+    private void flush(List<Put> tracePuts, List<Put> indexPuts, List<Increment> increments) {
+        if (!tracePuts.isEmpty()) {
+            template.put(HBaseTables.TRACES, tracePuts);
+            template.put(HBaseTables.APPLICATION_TRACE_INDEX, indexPuts);
+            template.increment(HBaseTables.MAP_STATISTICS_CALLER, increments);
+            tracePuts.clear();
+            indexPuts.clear();
+            increments.clear();
+        }
+    }
+
+    private void writeAgentStats() {
+        final Random random = new Random(0);
+        final byte[] value = new byte[AGENT_STAT_SIZE];
+        final List<Put> puts = new ArrayList<Put>(batchSize);
+
+        final long startTime = System.nanoTime();
+        int count = 0;
+        for (long timestamp = baseTime; timestamp < baseTime + TIME_SPAN; timestamp += AGENT_STAT_INTERVAL) {
+            for (int agentIndex = 0; agentIndex < agentCount; agentIndex++) {
+                random.nextBytes(value);
+                final Put put = new Put(agentStatRowKeyDistributor.getDistributedKey(agentStatRowKey(agentId(agentIndex), timestamp)));
+                put.addColumn(HBaseTables.AGENT_STAT_CF_STATISTICS, Bytes.toBytes("S"), timestamp, value);
+                puts.add(put);
+                if (puts.size() >= batchSize) {
+                    template.put(HBaseTables.AGENT_STAT, puts);
+                    puts.clear();
+                }
+                count++;
+            }
+        }
+        if (!puts.isEmpty()) {
+            template.put(HBaseTables.AGENT_STAT, puts);
+        }
+        logWriteThroughput("agent stats", count, startTime);
+    }
+
+    private void logWriteThroughput(String name, long count, long startTime) {
+        final long elapsed = Math.max(1, System.nanoTime() - startTime);
+        logger.info("write {}:{} elapsed:{}ms throughput:{}/s", name, count, TimeUnit.NANOSECONDS.toMillis(elapsed), count * TimeUnit.SECONDS.toNanos(1) / elapsed);
+    }
+
+    private long query(Random random, int count, LatencyRecorder indexScan, LatencyRecorder traceGet, LatencyRecorder agentStatScan, LatencyRecorder statisticsScan) {
+        long rowCount = 0;
+        for (int i = 0; i < count; i++) {
+            final int agentIndex = random.nextInt(agentCount);
+            final long to = baseTime + QUERY_WINDOW + (long) (random.nextDouble() * (TIME_SPAN - QUERY_WINDOW));
+            final long from = to - QUERY_WINDOW;
+
+            // HbaseApplicationTraceIndexDao.scanTraceIndex
+            long startTime = System.nanoTime();
+            final Scan indexScanRange = new Scan(indexRowKey(applicationName(agentIndex), to), indexRowKey(applicationName(agentIndex), from));
+            indexScanRange.addFamily(HBaseTables.APPLICATION_TRACE_INDEX_CF_TRACE);
+            indexScanRange.setCaching(256);
+            final List<List<byte[]>> traceIdsList = template.find(HBaseTables.APPLICATION_TRACE_INDEX, indexScanRange, applicationTraceIndexDistributor, limit, TRACE_ID_MAPPER);
+            indexScan.record(System.nanoTime() - startTime);
+            rowCount += traceIdsList.size();
+
+            // HbaseTraceDao.selectAllSpans
+            final List<Get> getList = new ArrayList<Get>(TRACE_GET_COUNT);
+            for (List<byte[]> traceIds : traceIdsList) {
+                for (byte[] traceId : traceIds) {
+                    if (getList.size() < TRACE_GET_COUNT) {
+                        final Get get = new Get(traceDistributor.getDistributedKey(traceId));
+                        get.addFamily(HBaseTables.TRACES_CF_SPAN);
+                        getList.add(get);
+                    }
+                }
+            }
+            startTime = System.nanoTime();
+            rowCount += template.get(HBaseTables.TRACES, getList, CELL_COUNT_MAPPER).size();
+            traceGet.record(System.nanoTime() - startTime);
+
+            // HbaseAgentStatDao.getAgentStatList
+            startTime = System.nanoTime();
+            final String agentId = agentId(agentIndex);
+            final Scan agentStatScanRange = new Scan(agentStatRowKey(agentId, to), agentStatRowKey(agentId, from));
+            agentStatScanRange.addFamily(HBaseTables.AGENT_STAT_CF_STATISTICS);
+            agentStatScanRange.setCaching(256);
+            rowCount += template.find(HBaseTables.AGENT_STAT, agentStatScanRange, agentStatRowKeyDistributor, CELL_COUNT_MAPPER).size();
+            agentStatScan.record(System.nanoTime() - startTime);
+
+            // HbaseMapStatisticsCallerDao.selectCaller
+            startTime = System.nanoTime();
+            final Scan statisticsScanRange = new Scan(statisticsRowKey(applicationName(agentIndex), to), statisticsRowKey(applicationName(agentIndex), from));
+            statisticsScanRange.addFamily(HBaseTables.MAP_STATISTICS_CALLER_CF_COUNTER);
+            statisticsScanRange.setCaching(256);
+            rowCount += template.find(HBaseTables.MAP_STATISTICS_CALLER, statisticsScanRange, CELL_COUNT_MAPPER).size();
+            statisticsScan.record(System.nanoTime() - startTime);
+        }
+        return rowCount;
+    }
+
+    private String agentId(int agentIndex) {
+        return "agent-" + agentIndex;
+    }
+
+    private String applicationName(int agentIndex) {
+        return "application-" + (agentIndex % applicationCount);
+    }
+
+    private static byte[] indexRowKey(String applicationName, long acceptedTime) {
+        return RowKeyUtils.concatFixedByteAndLong(Bytes.toBytes(applicationName), HBaseTables.APPLICATION_NAME_MAX_LEN, TimeUtils.reverseTimeMillis(acceptedTime));
+    }
+
+    private static byte[] agentStatRowKey(String agentId, long timestamp) {
+        return RowKeyUtils.concatFixedByteAndLong(Bytes.toBytes(agentId), HBaseTables.AGENT_NAME_MAX_LEN, TimeUtils.reverseTimeMillis(timestamp));
+    }
+
+    private static byte[] statisticsRowKey(String applicationName, long slotTime) {
+        return RowKeyUtils.concatFixedByteAndLong(Bytes.toBytes(applicationName), HBaseTables.APPLICATION_NAME_MAX_LEN, TimeUtils.reverseTimeMillis(slotTime));
+    }
+
+    private static String histogramSlot(int elapsed) {
+        if (elapsed < 100) {
+            return "100";
+        }
+        if (elapsed < 300) {
+            return "300";
+        }
+        if (elapsed < 500) {
+            return "500";
+        }
+        return elapsed < 1000 ? "1000" : "slow";
+    }
+
+    private static final RowMapper<List<byte[]>> TRACE_ID_MAPPER = new RowMapper<List<byte[]>>() {
+        @Override
+        public List<byte[]> mapRow(Result result, int rowNum) throws Exception {
+            final byte[][] traceIds = result.getFamilyMap(HBaseTables.APPLICATION_TRACE_INDEX_CF_TRACE).keySet().toArray(new byte[0][]);
+            return Arrays.asList(traceIds);
+        }
+    };
+
+    private static final RowMapper<Integer> CELL_COUNT_MAPPER = new RowMapper<Integer>() {
+        @Override
+        public Integer mapRow(Result result, int rowNum) throws Exception {
+            return result.size();
+        }
+    };
+
+    private static class LatencyRecorder {
+
+        private final long[] latencies;
+        private int count;
+
+        LatencyRecorder(int capacity) {
+            this.latencies = new long[Math.max(1, capacity)];
+        }
+
+        void record(long latencyNanos) {
+            if (count < latencies.length) {
+                latencies[count++] = latencyNanos;
+            }
+        }
+
+        String report(String name) {
+            final long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return String.format("%s count:%d p50:%.3fms p99:%.3fms max:%.3fms", name, count,
+                    percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0));
+        }
+
+        private static double percentile(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            final int index = Math.min(sorted.length - 1, (int) Math.ceil(percentile * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / 1000000.0;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase.embedded;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.data.hadoop.hbase.RowMapper;
+
+import com.navercorp.pinpoint.common.util.RowKeyUtils;
+import com.navercorp.pinpoint.common.util.TimeUtils;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+import com.sematext.hbase.wd.RowKeyDistributorByHashPrefix;
+
+public class EmbeddedHbaseTemplateTest {
+
+    private static final String TABLE = "ApplicationTraceIndex";
+    private static final byte[] FAMILY = Bytes.toBytes("I");
+    private static final byte[] APPLICATION_NAME = Bytes.toBytes("order-api");
+    private static final long START_TIME = 1451606400000L;
+
+    private final AbstractRowKeyDistributor rowKeyDistributor = new RowKeyDistributorByHashPrefix(new RowKeyDistributorByHashPrefix.OneByteSimpleHash(8));
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private EmbeddedHbaseTemplate template;
+
+    @Before
+    public void setUp() throws Exception {
+        template = newTemplate(false);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        template.destroy();
+    }
+
+    @Test
+    public void timeRangeScanWithLimit() {
+        for (int i = 0; i < 100; i++) {
+            Put put = new Put(rowKeyDistributor.getDistributedKey(indexRow(START_TIME + i * 1000)));
+            put.addColumn(FAMILY, Bytes.toBytes("q" + i), Bytes.toBytes(START_TIME + i * 1000));
+            template.put(TABLE, put);
+        }
+
+        // rows are ordered by the reversed time, the latest first
+        Scan scan = new Scan(indexRow(START_TIME + 60 * 1000), indexRow(START_TIME + 10 * 1000));
+        scan.addFamily(FAMILY);
+        List<Long> times = template.find(TABLE, scan, rowKeyDistributor, 5, TIME_MAPPER);
+        Assert.assertEquals(Arrays.asList(60000L, 59000L, 58000L, 57000L, 56000L), elapsed(times));
+
+        List<Long> all = template.find(TABLE, scan, rowKeyDistributor, TIME_MAPPER);
+        Assert.assertEquals(50, all.size());
+        Assert.assertEquals(11000L, (long) elapsed(all).get(49));
+    }
+
+    @Test
+    public void reversedScan() {
+        for (int i = 0; i < 10; i++) {
+            template.put(TABLE, indexRow(START_TIME + i), FAMILY, Bytes.toBytes("q"), Bytes.toBytes(START_TIME + i));
+        }
+        Scan scan = new Scan();
+        scan.setStartRow(RowKeyUtils.concatFixedByteAndLong(APPLICATION_NAME, 24, Long.MAX_VALUE));
+        scan.setReversed(true);
+        scan.setCaching(1);
+
+        // the oldest row has the largest reversed time
+        List<Long> times = template.find(TABLE, scan, TIME_MAPPER);
+        Assert.assertEquals(10, times.size());
+        Assert.assertEquals(0L, (long) elapsed(times).get(0));
+    }
+
+    @Test
+    public void getAndDelete() {
+        Put put = new Put(Bytes.toBytes("row"));
+        put.addColumn(FAMILY, Bytes.toBytes("q1"), Bytes.toBytes("v1"));
+        put.addColumn(FAMILY, Bytes.toBytes("q2"), Bytes.toBytes("v2"));
+        template.put(TABLE, put);
+
+        List<Get> getList = new ArrayList<Get>();
+        getList.add(new Get(Bytes.toBytes("row")));
+        getList.add(new Get(Bytes.toBytes("none")));
+        List<Result> results = template.get(TABLE, getList, RESULT_MAPPER);
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals("v2", Bytes.toString(results.get(0).getValue(FAMILY, Bytes.toBytes("q2"))));
+        Assert.assertTrue(results.get(1).isEmpty());
+
+        Delete delete = new Delete(Bytes.toBytes("row"));
+        delete.addColumns(FAMILY, Bytes.toBytes("q1"));
+        template.delete(TABLE, delete);
+        Result result = template.get(TABLE, Bytes.toBytes("row"), RESULT_MAPPER);
+        Assert.assertNull(result.getValue(FAMILY, Bytes.toBytes("q1")));
+        Assert.assertNotNull(result.getValue(FAMILY, Bytes.toBytes("q2")));
+    }
+
+    @Test
+    public void increment() {
+        Increment increment = new Increment(Bytes.toBytes("row"));
+        increment.addColumn(FAMILY, Bytes.toBytes("c1"), 1);
+        increment.addColumn(FAMILY, Bytes.toBytes("c2"), 10);
+        template.increment(TABLE, Arrays.asList(increment, increment));
+
+        Assert.assertEquals(3, template.incrementColumnValue(TABLE, Bytes.toBytes("row"), FAMILY, Bytes.toBytes("c1"), 1));
+        Result result = template.get(TABLE, Bytes.toBytes("row"), RESULT_MAPPER);
+        Assert.assertEquals(20, Bytes.toLong(result.getValue(FAMILY, Bytes.toBytes("c2"))));
+    }
+
+    @Test
+    public void readOnly() throws Exception {
+        template.put(TABLE, Bytes.toBytes("row1"), FAMILY, Bytes.toBytes("q"), Bytes.toBytes("v1"));
+        EmbeddedHbaseTemplate reader = newTemplate(true);
+        try {
+            Assert.assertFalse(reader.get(TABLE, Bytes.toBytes("row1"), RESULT_MAPPER).isEmpty());
+
+            template.put(TABLE, Bytes.toBytes("row2"), FAMILY, Bytes.toBytes("q"), Bytes.toBytes("v2"));
+            reader.refresh();
+            Assert.assertFalse(reader.get(TABLE, Bytes.toBytes("row2"), RESULT_MAPPER).isEmpty());
+
+            try {
+                reader.put(TABLE, Bytes.toBytes("row3"), FAMILY, Bytes.toBytes("q"), Bytes.toBytes("v3"));
+                Assert.fail();
+            } catch (UnsupportedOperationException expected) {
+            }
+        } finally {
+            reader.destroy();
+        }
+    }
+
+    private EmbeddedHbaseTemplate newTemplate(boolean readOnly) throws Exception {
+        EmbeddedHbaseTemplate template = new EmbeddedHbaseTemplate(temporaryFolder.getRoot().getPath(), readOnly, 1024 * 1024, 3600);
+        template.afterPropertiesSet();
+        return template;
+    }
+
+    private static byte[] indexRow(long acceptedTime) {
+        return RowKeyUtils.concatFixedByteAndLong(APPLICATION_NAME, 24, TimeUtils.reverseTimeMillis(acceptedTime));
+    }
+
+    private static List<Long> elapsed(List<Long> times) {
+        List<Long> elapsed = new ArrayList<Long>(times.size());
+        for (Long time : times) {
+            elapsed.add(time - START_TIME);
+        }
+        return elapsed;
+    }
+
+    private static final RowMapper<Long> TIME_MAPPER = new RowMapper<Long>() {
+        @Override
+        public Long mapRow(Result result, int rowNum) throws Exception {
+            return Bytes.toLong(result.value());
+        }
+    };
+
+    private static final RowMapper<Result> RESULT_MAPPER = new RowMapper<Result>() {
+        @Override
+        public Result mapRow(Result result, int rowNum) throws Exception {
+            return result;
+        }
+    };
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.hbase.embedded;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EmbeddedTableTest {
+
+    private static final byte[] FAMILY = Bytes.toBytes("S");
+    private static final byte[] OTHER_FAMILY = Bytes.toBytes("T");
+    private static final Map<byte[], NavigableSet<byte[]>> ALL = Collections.emptyMap();
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void putAndGet() throws Exception {
+        EmbeddedTable table = newTable(1024 * 1024, false);
+        table.put(row(1), Arrays.asList(cell(FAMILY, "q1", 100, "v1"), cell(OTHER_FAMILY, "q1", 100, "t1")));
+        // an older version does not replace the latest one
+        table.put(row(1), Arrays.asList(cell(FAMILY, "q1", 99, "old"), cell(FAMILY, "q2", 100, "v2")));
+
+        EmbeddedRow result = table.get(row(1), ALL);
+        Assert.assertEquals(Arrays.asList("S:q1=v1", "S:q2=v2", "T:q1=t1"), toStrings(result));
+        Assert.assertEquals(Arrays.asList("T:q1=t1"), toStrings(table.get(row(1), familyMap(OTHER_FAMILY))));
+        Assert.assertEquals(Arrays.asList("S:q2=v2"), toStrings(table.get(row(1), familyMap(FAMILY, "q2"))));
+        Assert.assertNull(table.get(row(1), familyMap(Bytes.toBytes("X"))));
+        Assert.assertNull(table.get(row(2), ALL));
+        table.close();
+    }
+
+    @Test
+    public void scan() throws Exception {
+        EmbeddedTable table = newTable(1024 * 1024, false);
+        for (int i = 9; i >= 0; i--) {
+            table.put(row(i), Arrays.asList(cell(FAMILY, "q", 100, "v" + i)));
+        }
+
+        Assert.assertEquals(Arrays.asList(2, 3, 4), scanRows(table, row(2), row(5), false));
+        Assert.assertEquals(Arrays.asList(7, 8, 9), scanRows(table, row(7), new byte[0], false));
+        Assert.assertEquals(10, scanRows(table, null, null, false).size());
+        Assert.assertTrue(scanRows(table, row(5), row(2), false).isEmpty());
+
+        // a reversed scan starts at the start row (inclusive) and stops before the stop row
+        Assert.assertEquals(Arrays.asList(5, 4, 3), scanRows(table, row(5), row(2), true));
+        Assert.assertEquals(Arrays.asList(1, 0), scanRows(table, row(1), null, true));
+        Assert.assertEquals(Arrays.asList(9, 8), scanRows(table, null, row(7), true));
+        Assert.assertTrue(scanRows(table, row(2), row(5), true).isEmpty());
+        table.close();
+    }
+
+    @Test
+    public void reopen() throws Exception {
+        final int segmentSize = 200;
+        EmbeddedTable table = newTable(segmentSize, false);
+        for (int i = 0; i < 20; i++) {
+            table.put(row(i), Arrays.asList(cell(FAMILY, "q", 100 + i, "v" + i)));
+        }
+        // larger than a segment
+        final String large = new String(new char[segmentSize]).replace('\0', 'x');
+        table.put(row(20), Arrays.asList(cell(FAMILY, "q", 200, large)));
+        table.put(row(21), Arrays.asList(cell(FAMILY, "q", 200, "v21")));
+        final int segmentCount = table.getSegmentCount();
+        Assert.assertTrue(segmentCount > 2);
+        table.close();
+
+        table = newTable(segmentSize, false);
+        Assert.assertEquals(segmentCount, table.getSegmentCount());
+        Assert.assertEquals(22, scanRows(table, null, null, false).size());
+        Assert.assertEquals(Arrays.asList("S:q=" + large), toStrings(table.get(row(20), ALL)));
+
+        table.put(row(22), Arrays.asList(cell(FAMILY, "q", 200, "v22")));
+        Assert.assertEquals(Arrays.asList("S:q=v22"), toStrings(table.get(row(22), ALL)));
+        table.close();
+    }
+
+    @Test
+    public void tornRecord() throws Exception {
+        EmbeddedTable table = newTable(1024 * 1024, false);
+        table.put(row(0), Arrays.asList(cell(FAMILY, "q", 100, "v0")));
+        final long offset = table.getUsedBytes();
+        table.put(row(1), Arrays.asList(cell(FAMILY, "q", 100, "v1")));
+        table.close();
+
+        RandomAccessFile file = new RandomAccessFile(segmentFile(0), "rw");
+        file.seek(offset + 4);
+        file.writeInt(0);
+        file.close();
+
+        table = newTable(1024 * 1024, false);
+        Assert.assertEquals(1, table.getCorruptedCount());
+        Assert.assertEquals(Arrays.asList(0), scanRows(table, null, null, false));
+        table.put(row(2), Arrays.asList(cell(FAMILY, "q", 100, "v2")));
+        table.close();
+
+        table = newTable(1024 * 1024, false);
+        Assert.assertEquals(0, table.getCorruptedCount());
+        Assert.assertEquals(Arrays.asList(0, 2), scanRows(table, null, null, false));
+        table.close();
+    }
+
+    @Test
+    public void readOnly() throws Exception {
+        EmbeddedTable reader = newTable(200, true);
+        Assert.assertTrue(scanRows(reader, null, null, false).isEmpty());
+
+        EmbeddedTable writer = newTable(200, false);
+        for (int i = 0; i < 3; i++) {
+            writer.put(row(i), Arrays.asList(cell(FAMILY, "q", 100, "v" + i)));
+        }
+        reader.refresh();
+        Assert.assertEquals(Arrays.asList(0, 1, 2), scanRows(reader, null, null, false));
+
+        for (int i = 3; i < 20; i++) {
+            writer.put(row(i), Arrays.asList(cell(FAMILY, "q", 100, "v" + i)));
+        }
+        Assert.assertEquals(3, scanRows(reader, null, null, false).size());
+        reader.refresh();
+        Assert.assertEquals(20, scanRows(reader, null, null, false).size());
+        Assert.assertEquals(writer.getSegmentCount(), reader.getSegmentCount());
+
+        try {
+            reader.put(row(0), Arrays.asList(cell(FAMILY, "q", 100, "v")));
+            Assert.fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+        writer.close();
+        reader.close();
+    }
+
+    @Test
+    public void purge() throws Exception {
+        EmbeddedTable writer = newTable(200, false);
+        for (int i = 0; i < 10; i++) {
+            writer.put(row(i), Arrays.asList(cell(FAMILY, "q", 1000, "old" + i)));
+        }
+        // row 0 is written again, the new version is kept
+        writer.put(row(0), Arrays.asList(cell(FAMILY, "q", 5000, "new0")));
+        for (int i = 10; i < 20; i++) {
+            writer.put(row(i), Arrays.asList(cell(FAMILY, "q", 5000, "new" + i)));
+        }
+        EmbeddedTable reader = newTable(200, true);
+        final int segmentCount = writer.getSegmentCount();
+
+        Assert.assertEquals(0, writer.purge(1000));
+        final int purged = writer.purge(2000);
+        Assert.assertTrue(purged > 0);
+        Assert.assertEquals(segmentCount - purged, writer.getSegmentCount());
+
+        final List<Integer> rows = scanRows(writer, null, null, false);
+        Assert.assertTrue(rows.contains(0));
+        Assert.assertEquals(Arrays.asList("S:q=new0"), toStrings(writer.get(row(0), ALL)));
+        Assert.assertFalse(rows.contains(1));
+        Assert.assertTrue(rows.contains(19));
+
+        reader.refresh();
+        Assert.assertEquals(rows, scanRows(reader, null, null, false));
+        Assert.assertEquals(writer.getSegmentCount(), reader.getSegmentCount());
+        writer.close();
+        reader.close();
+    }
+
+    @Test
+    public void incrementAndDelete() throws Exception {
+        EmbeddedTable table = newTable(1024 * 1024, false);
+        List<EmbeddedCell> amounts = Arrays.asList(amount("c1", 1), amount("c2", 10));
+        table.increment(row(0), amounts);
+        List<EmbeddedCell> cells = table.increment(row(0), amounts);
+        Assert.assertEquals(2, Bytes.toLong(cells.get(0).getValue()));
+        Assert.assertEquals(20, Bytes.toLong(cells.get(1).getValue()));
+        Assert.assertEquals(20, Bytes.toLong(table.get(row(0), familyMap(FAMILY, "c2")).getCells().get(0).getValue()));
+
+        table.put(row(0), Arrays.asList(cell(OTHER_FAMILY, "q", 100, "v")));
+        table.delete(row(0), familyMap(FAMILY, "c1"));
+        Assert.assertEquals(Arrays.asList("S:c2", "T:q"), toColumns(table.get(row(0), ALL)));
+        table.delete(row(0), familyMap(FAMILY));
+        Assert.assertEquals(Arrays.asList("T:q"), toColumns(table.get(row(0), ALL)));
+        table.delete(row(0), ALL);
+        Assert.assertNull(table.get(row(0), ALL));
+        table.close();
+
+        table = newTable(1024 * 1024, false);
+        Assert.assertNull(table.get(row(0), ALL));
+        table.close();
+    }
+
+    private EmbeddedTable newTable(int segmentSize, boolean readOnly) throws Exception {
+        EmbeddedTable table = new EmbeddedTable("Traces", new File(temporaryFolder.getRoot(), "Traces"), segmentSize, readOnly);
+        table.open();
+        return table;
+    }
+
+    private File segmentFile(long segmentId) {
+        return new File(new File(temporaryFolder.getRoot(), "Traces"), String.format("%020d.seg", segmentId));
+    }
+
+    private static byte[] row(int i) {
+        return Bytes.toBytes(String.format("row%02d", i));
+    }
+
+    private static EmbeddedCell cell(byte[] family, String qualifier, long timestamp, String value) {
+        return new EmbeddedCell(family, Bytes.toBytes(qualifier), timestamp, Bytes.toBytes(value));
+    }
+
+    private static EmbeddedCell amount(String qualifier, long amount) {
+        return new EmbeddedCell(FAMILY, Bytes.toBytes(qualifier), Long.MAX_VALUE, Bytes.toBytes(amount));
+    }
+
+    private static Map<byte[], NavigableSet<byte[]>> familyMap(byte[] family, String... qualifiers) {
+        Map<byte[], NavigableSet<byte[]>> familyMap = new TreeMap<byte[], NavigableSet<byte[]>>(EmbeddedTable.BYTES_COMPARATOR);
+        NavigableSet<byte[]> qualifierSet = new TreeSet<byte[]>(EmbeddedTable.BYTES_COMPARATOR);
+        for (String qualifier : qualifiers) {
+            qualifierSet.add(Bytes.toBytes(qualifier));
+        }
+        familyMap.put(family, qualifierSet);
+        return familyMap;
+    }
+
+    private static List<Integer> scanRows(EmbeddedTable table, byte[] startRow, byte[] stopRow, boolean reversed) {
+        List<Integer> rows = new ArrayList<Integer>();
+        Iterator<EmbeddedRow> iterator = table.scan(startRow, stopRow, reversed, ALL);
+        while (iterator.hasNext()) {
+            rows.add(Integer.parseInt(Bytes.toString(iterator.next().getRow()).substring(3)));
+        }
+        return rows;
+    }
+
+    private static List<String> toStrings(EmbeddedRow row) {
+        List<String> strings = new ArrayList<String>();
+        for (EmbeddedCell cell : row.getCells()) {
+            strings.add(Bytes.toString(cell.getFamily()) + ":" + Bytes.toString(cell.getQualifier()) + "=" + Bytes.toString(cell.getValue()));
+        }
+        return strings;
+    }
+
+    private static List<String> toColumns(EmbeddedRow row) {
+        List<String> columns = new ArrayList<String>();
+        for (EmbeddedCell cell : row.getCells()) {
+            columns.add(Bytes.toString(cell.getFamily()) + ":" + Bytes.toString(cell.getQualifier()));
+        }
+        return columns;
+    }
+}
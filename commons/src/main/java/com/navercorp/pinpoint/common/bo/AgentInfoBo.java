@@ -16,9 +16,10 @@
 
 package com.navercorp.pinpoint.common.bo;
 
-import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
 import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.ThreadLocalEncodeBuffer;
 import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.common.util.BytesUtils;
 
 import java.util.Comparator;
 
@@ -133,8 +134,35 @@ public class AgentInfoBo {
         return this.serverMetaData;
     }
 
+    /**
+     * @return upper bound of the size of {@link #writeValue()}
+     */
+    public int getEstimatedValueSize() {
+        int size = 0;
+        size += BytesUtils.maxPrefixedStringSize(hostName);
+        size += BytesUtils.maxPrefixedStringSize(ip);
+        size += BytesUtils.maxPrefixedStringSize(ports);
+        size += BytesUtils.maxPrefixedStringSize(applicationName);
+        // serviceTypeCode, pid
+        size += BytesUtils.SHORT_BYTE_LENGTH + BytesUtils.INT_BYTE_LENGTH;
+        size += BytesUtils.maxPrefixedStringSize(agentVersion);
+        // startTime, endTimeStamp, endStatus
+        size += BytesUtils.LONG_BYTE_LENGTH * 2 + BytesUtils.INT_BYTE_LENGTH;
+        size += BytesUtils.maxPrefixedStringSize(vmVersion);
+        return size;
+    }
+
     public byte[] writeValue() {
-        final Buffer buffer = new AutomaticBuffer();
+        final Buffer buffer = ThreadLocalEncodeBuffer.acquire(getEstimatedValueSize());
+        try {
+            writeValue(buffer);
+            return buffer.getBuffer();
+        } finally {
+            ThreadLocalEncodeBuffer.release(buffer);
+        }
+    }
+
+    public void writeValue(Buffer buffer) {
         buffer.putPrefixedString(this.getHostName());
         buffer.putPrefixedString(this.getIp());
         buffer.putPrefixedString(this.getPorts());
@@ -148,8 +176,6 @@ public class AgentInfoBo {
         buffer.put(this.getEndStatus());
         
         buffer.putPrefixedString(this.getVmVersion());
-
-        return buffer.getBuffer();
     }
 
     @Override
@@ -0,0 +1,311 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.bo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+import com.navercorp.pinpoint.common.buffer.ThreadLocalEncodeBuffer;
+import com.navercorp.pinpoint.common.util.BytesUtils;
+
+/**
+ * Consecutive agent stat samples of one agent encoded column by column.
+ * <ul>
+ *     <li>timestamps : first value, first delta, then delta of delta</li>
+ *     <li>gc type : run length</li>
+ *     <li>memory and gc counters : first value, then delta</li>
+ *     <li>cpu loads : xor with the bits of the previous value</li>
+ * </ul>
+ * All numbers are zigzag varints, so regular 5 second samples of a slowly changing jvm take a few bytes each.
+ */
+public class AgentStatBlockBo {
+
+    private static final byte VERSION = 1;
+
+    private final String agentId;
+    private final long startTimestamp;
+    private final List<AgentStatMemoryGcBo> memoryGcBos;
+    private final List<AgentStatCpuLoadBo> cpuLoadBos;
+
+    /**
+     * @param memoryGcBos samples ordered by timestamp
+     * @param cpuLoadBos samples of the same timestamps as memoryGcBos
+     */
+    public AgentStatBlockBo(String agentId, long startTimestamp, List<AgentStatMemoryGcBo> memoryGcBos, List<AgentStatCpuLoadBo> cpuLoadBos) {
+        if (agentId == null) {
+            throw new NullPointerException("agentId must not be null");
+        }
+        if (memoryGcBos == null) {
+            throw new NullPointerException("memoryGcBos must not be null");
+        }
+        if (cpuLoadBos == null) {
+            throw new NullPointerException("cpuLoadBos must not be null");
+        }
+        if (memoryGcBos.size() != cpuLoadBos.size()) {
+            throw new IllegalArgumentException("sample count mismatch. memoryGc:" + memoryGcBos.size() + " cpuLoad:" + cpuLoadBos.size());
+        }
+        this.agentId = agentId;
+        this.startTimestamp = startTimestamp;
+        this.memoryGcBos = memoryGcBos;
+        this.cpuLoadBos = cpuLoadBos;
+    }
+
+    public String getAgentId() {
+        return agentId;
+    }
+
+    public long getStartTimestamp() {
+        return startTimestamp;
+    }
+
+    public List<AgentStatMemoryGcBo> getMemoryGcBos() {
+        return memoryGcBos;
+    }
+
+    public List<AgentStatCpuLoadBo> getCpuLoadBos() {
+        return cpuLoadBos;
+    }
+
+    public int size() {
+        return memoryGcBos.size();
+    }
+
+    /**
+     * @return upper bound of the size of {@link #writeValue()}
+     */
+    public int getEstimatedValueSize() {
+        // version, startTimestamp, count
+        int size = 1 + BytesUtils.maxPrefixedStringSize(agentId) + BytesUtils.VLONG_MAX_SIZE + BytesUtils.VINT_MAX_SIZE;
+        for (AgentStatMemoryGcBo memoryGcBo : memoryGcBos) {
+            // gc type run
+            size += BytesUtils.VINT_MAX_SIZE + BytesUtils.maxPrefixedStringSize(memoryGcBo.getGcType());
+        }
+        // timestamp, 6 memory and gc counters, 2 cpu loads with their header byte
+        size += size() * (BytesUtils.VLONG_MAX_SIZE * 7 + (1 + BytesUtils.VLONG_MAX_SIZE) * 2);
+        return size;
+    }
+
+    public byte[] writeValue() {
+        final Buffer buffer = ThreadLocalEncodeBuffer.acquire(getEstimatedValueSize());
+        try {
+            writeValue(buffer);
+            return buffer.getBuffer();
+        } finally {
+            ThreadLocalEncodeBuffer.release(buffer);
+        }
+    }
+
+    public void writeValue(Buffer buffer) {
+        final int size = size();
+        buffer.put(VERSION);
+        buffer.putPrefixedString(agentId);
+        buffer.putVar(startTimestamp);
+        buffer.putVar(size);
+        if (size == 0) {
+            return;
+        }
+
+        writeTimestamps(buffer);
+        writeGcTypes(buffer);
+
+        long prevHeapUsed = 0;
+        long prevHeapMax = 0;
+        long prevNonHeapUsed = 0;
+        long prevNonHeapMax = 0;
+        long prevGcOldCount = 0;
+        long prevGcOldTime = 0;
+        for (AgentStatMemoryGcBo memoryGcBo : memoryGcBos) {
+            buffer.putSVar(memoryGcBo.getJvmMemoryHeapUsed() - prevHeapUsed);
+            buffer.putSVar(memoryGcBo.getJvmMemoryHeapMax() - prevHeapMax);
+            buffer.putSVar(memoryGcBo.getJvmMemoryNonHeapUsed() - prevNonHeapUsed);
+            buffer.putSVar(memoryGcBo.getJvmMemoryNonHeapMax() - prevNonHeapMax);
+            buffer.putSVar(memoryGcBo.getJvmGcOldCount() - prevGcOldCount);
+            buffer.putSVar(memoryGcBo.getJvmGcOldTime() - prevGcOldTime);
+            prevHeapUsed = memoryGcBo.getJvmMemoryHeapUsed();
+            prevHeapMax = memoryGcBo.getJvmMemoryHeapMax();
+            prevNonHeapUsed = memoryGcBo.getJvmMemoryNonHeapUsed();
+            prevNonHeapMax = memoryGcBo.getJvmMemoryNonHeapMax();
+            prevGcOldCount = memoryGcBo.getJvmGcOldCount();
+            prevGcOldTime = memoryGcBo.getJvmGcOldTime();
+        }
+
+        long prevJvmCpuLoad = 0;
+        long prevSystemCpuLoad = 0;
+        for (AgentStatCpuLoadBo cpuLoadBo : cpuLoadBos) {
+            prevJvmCpuLoad = putXorDouble(buffer, cpuLoadBo.getJvmCpuLoad(), prevJvmCpuLoad);
+            prevSystemCpuLoad = putXorDouble(buffer, cpuLoadBo.getSystemCpuLoad(), prevSystemCpuLoad);
+        }
+    }
+
+    private void writeTimestamps(Buffer buffer) {
+        long prevTimestamp = 0;
+        long prevDelta = 0;
+        for (int i = 0; i < memoryGcBos.size(); i++) {
+            final long timestamp = memoryGcBos.get(i).getTimestamp();
+            if (i == 0) {
+                buffer.putVar(timestamp);
+            } else {
+                final long delta = timestamp - prevTimestamp;
+                buffer.putSVar(delta - prevDelta);
+                prevDelta = delta;
+            }
+            prevTimestamp = timestamp;
+        }
+    }
+
+    private void writeGcTypes(Buffer buffer) {
+        String runGcType = memoryGcBos.get(0).getGcType();
+        int runLength = 0;
+        for (AgentStatMemoryGcBo memoryGcBo : memoryGcBos) {
+            final String gcType = memoryGcBo.getGcType();
+            if (runLength > 0 && !equals(runGcType, gcType)) {
+                buffer.putVar(runLength);
+                buffer.putPrefixedString(runGcType);
+                runLength = 0;
+            }
+            runGcType = gcType;
+            runLength++;
+        }
+        buffer.putVar(runLength);
+        buffer.putPrefixedString(runGcType);
+    }
+
+    private static boolean equals(String s1, String s2) {
+        return s1 == null ? s2 == null : s1.equals(s2);
+    }
+
+    /**
+     * writes 0 for a repeated value, otherwise the number of trailing zero bits of the xor + 1
+     * followed by the xor without its trailing zeros.
+     * @return bits of the value
+     */
+    private static long putXorDouble(Buffer buffer, double value, long prevBits) {
+        final long bits = Double.doubleToRawLongBits(value);
+        final long xor = bits ^ prevBits;
+        if (xor == 0) {
+            buffer.put((byte) 0);
+        } else {
+            final int trailingZeros = Long.numberOfTrailingZeros(xor);
+            buffer.put((byte) (trailingZeros + 1));
+            buffer.putVar(xor >>> trailingZeros);
+        }
+        return bits;
+    }
+
+    private static long readXorDouble(Buffer buffer, long prevBits) {
+        final byte header = buffer.readByte();
+        if (header == 0) {
+            return prevBits;
+        }
+        final long xor = buffer.readVarLong() << (header - 1);
+        return prevBits ^ xor;
+    }
+
+    public static AgentStatBlockBo readValue(byte[] value) {
+        if (value == null) {
+            throw new NullPointerException("value must not be null");
+        }
+        final Buffer buffer = new FixedBuffer(value);
+        final byte version = buffer.readByte();
+        if (version != VERSION) {
+            throw new IllegalStateException("unknown version:" + version);
+        }
+        final String agentId = buffer.readPrefixedString();
+        final long startTimestamp = buffer.readVarLong();
+        final int size = buffer.readVarInt();
+        if (size == 0) {
+            return new AgentStatBlockBo(agentId, startTimestamp, Collections.<AgentStatMemoryGcBo>emptyList(), Collections.<AgentStatCpuLoadBo>emptyList());
+        }
+
+        final long[] timestamps = new long[size];
+        long delta = 0;
+        for (int i = 0; i < size; i++) {
+            if (i == 0) {
+                timestamps[i] = buffer.readVarLong();
+            } else {
+                delta += buffer.readSVarLong();
+                timestamps[i] = timestamps[i - 1] + delta;
+            }
+        }
+
+        final String[] gcTypes = new String[size];
+        int index = 0;
+        while (index < size) {
+            final int runLength = buffer.readVarInt();
+            final String gcType = buffer.readPrefixedString();
+            if (runLength <= 0 || index + runLength > size) {
+                throw new IllegalStateException("invalid gc type run length:" + runLength);
+            }
+            for (int i = 0; i < runLength; i++) {
+                gcTypes[index++] = gcType;
+            }
+        }
+
+        final List<AgentStatMemoryGcBo> memoryGcBos = new ArrayList<AgentStatMemoryGcBo>(size);
+        long heapUsed = 0;
+        long heapMax = 0;
+        long nonHeapUsed = 0;
+        long nonHeapMax = 0;
+        long gcOldCount = 0;
+        long gcOldTime = 0;
+        for (int i = 0; i < size; i++) {
+            heapUsed += buffer.readSVarLong();
+            heapMax += buffer.readSVarLong();
+            nonHeapUsed += buffer.readSVarLong();
+            nonHeapMax += buffer.readSVarLong();
+            gcOldCount += buffer.readSVarLong();
+            gcOldTime += buffer.readSVarLong();
+
+            final AgentStatMemoryGcBo.Builder builder = new AgentStatMemoryGcBo.Builder(agentId, startTimestamp, timestamps[i]);
+            builder.gcType(gcTypes[i]);
+            builder.jvmMemoryHeapUsed(heapUsed);
+            builder.jvmMemoryHeapMax(heapMax);
+            builder.jvmMemoryNonHeapUsed(nonHeapUsed);
+            builder.jvmMemoryNonHeapMax(nonHeapMax);
+            builder.jvmGcOldCount(gcOldCount);
+            builder.jvmGcOldTime(gcOldTime);
+            memoryGcBos.add(builder.build());
+        }
+
+        final List<AgentStatCpuLoadBo> cpuLoadBos = new ArrayList<AgentStatCpuLoadBo>(size);
+        long jvmCpuLoad = 0;
+        long systemCpuLoad = 0;
+        for (int i = 0; i < size; i++) {
+            jvmCpuLoad = readXorDouble(buffer, jvmCpuLoad);
+            systemCpuLoad = readXorDouble(buffer, systemCpuLoad);
+
+            final AgentStatCpuLoadBo.Builder builder = new AgentStatCpuLoadBo.Builder(agentId, startTimestamp, timestamps[i]);
+            builder.jvmCpuLoad(Double.longBitsToDouble(jvmCpuLoad));
+            builder.systemCpuLoad(Double.longBitsToDouble(systemCpuLoad));
+            cpuLoadBos.add(builder.build());
+        }
+        return new AgentStatBlockBo(agentId, startTimestamp, memoryGcBos, cpuLoadBos);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("AgentStatBlockBo{");
+        sb.append("agentId='").append(this.agentId).append('\'');
+        sb.append(", startTimestamp=").append(this.startTimestamp);
+        sb.append(", size=").append(size());
+        sb.append('}');
+        return sb.toString();
+    }
+}
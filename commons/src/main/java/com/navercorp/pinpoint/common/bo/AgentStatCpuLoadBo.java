@@ -16,9 +16,10 @@
 
 package com.navercorp.pinpoint.common.bo;
 
-import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
 import com.navercorp.pinpoint.common.buffer.Buffer;
 import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+import com.navercorp.pinpoint.common.buffer.ThreadLocalEncodeBuffer;
+import com.navercorp.pinpoint.common.util.BytesUtils;
 
 /**
  * @author hyungil.jeong
@@ -59,14 +60,30 @@ public class AgentStatCpuLoadBo {
         return systemCpuLoad;
     }
 
+    /**
+     * @return upper bound of the size of {@link #writeValue()}
+     */
+    public int getEstimatedValueSize() {
+        // startTimestamp, timestamp, jvmCpuLoad, systemCpuLoad
+        return BytesUtils.maxPrefixedStringSize(agentId) + BytesUtils.LONG_BYTE_LENGTH * 4;
+    }
+
     public byte[] writeValue() {
-        final Buffer buffer = new AutomaticBuffer();
+        final Buffer buffer = ThreadLocalEncodeBuffer.acquire(getEstimatedValueSize());
+        try {
+            writeValue(buffer);
+            return buffer.getBuffer();
+        } finally {
+            ThreadLocalEncodeBuffer.release(buffer);
+        }
+    }
+
+    public void writeValue(Buffer buffer) {
         buffer.putPrefixedString(this.agentId);
         buffer.put(this.startTimestamp);
         buffer.put(this.timestamp);
         buffer.put(this.jvmCpuLoad);
         buffer.put(this.systemCpuLoad);
-        return buffer.getBuffer();
     }
 
     @Override
@@ -16,9 +16,10 @@
 
 package com.navercorp.pinpoint.common.bo;
 
-import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
 import com.navercorp.pinpoint.common.buffer.Buffer;
 import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+import com.navercorp.pinpoint.common.buffer.ThreadLocalEncodeBuffer;
+import com.navercorp.pinpoint.common.util.BytesUtils;
 
 /**
  * @author hyungil.jeong
@@ -89,8 +90,30 @@ public class AgentStatMemoryGcBo {
         return jvmGcOldTime;
     }
 
+    /**
+     * @return upper bound of the size of {@link #writeValue()}
+     */
+    public int getEstimatedValueSize() {
+        int size = BytesUtils.maxPrefixedStringSize(agentId);
+        // startTimestamp, timestamp
+        size += BytesUtils.LONG_BYTE_LENGTH * 2;
+        size += BytesUtils.maxPrefixedStringSize(gcType);
+        // heap, non heap and gc values
+        size += BytesUtils.LONG_BYTE_LENGTH * 6;
+        return size;
+    }
+
     public byte[] writeValue() {
-        final Buffer buffer = new AutomaticBuffer();
+        final Buffer buffer = ThreadLocalEncodeBuffer.acquire(getEstimatedValueSize());
+        try {
+            writeValue(buffer);
+            return buffer.getBuffer();
+        } finally {
+            ThreadLocalEncodeBuffer.release(buffer);
+        }
+    }
+
+    public void writeValue(Buffer buffer) {
         buffer.putPrefixedString(this.agentId);
         buffer.put(this.startTimestamp);
         buffer.put(this.timestamp);
@@ -101,7 +124,6 @@ public class AgentStatMemoryGcBo {
         buffer.put(this.jvmMemoryNonHeapMax);
         buffer.put(this.jvmGcOldCount);
         buffer.put(this.jvmGcOldTime);
-        return buffer.getBuffer();
     }
 
     @Override
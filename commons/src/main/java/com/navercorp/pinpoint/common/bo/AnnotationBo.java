@@ -19,6 +19,7 @@ package com.navercorp.pinpoint.common.bo;
 import com.navercorp.pinpoint.common.buffer.Buffer;
 import com.navercorp.pinpoint.common.trace.AnnotationKey;
 import com.navercorp.pinpoint.common.util.AnnotationTranscoder;
+import com.navercorp.pinpoint.common.util.BytesUtils;
 import com.navercorp.pinpoint.thrift.dto.TAnnotation;
 
 /**
@@ -106,6 +107,16 @@ public class AnnotationBo {
         this.value = value;
     }
 
+    /**
+     * @return upper bound of the size of {@link #writeValue(Buffer)}
+     */
+    public int getEstimatedValueSize() {
+        // version, key, valueType
+        int size = VERSION_SIZE + BytesUtils.VINT_MAX_SIZE + 1;
+        size += BytesUtils.maxPrefixedBytesSize(this.byteValue);
+        return size;
+    }
+
     public void writeValue(Buffer buffer) {
         // long timestamp;    // required 8
         // long duration;     // optional 8
@@ -17,6 +17,8 @@
 package com.navercorp.pinpoint.common.bo;
 
 import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.buffer.ThreadLocalEncodeBuffer;
+import com.navercorp.pinpoint.common.util.BytesUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
@@ -53,6 +55,33 @@ public class AnnotationBoList {
         this.annotationBoList.add(annotationBo);
     }
 
+    /**
+     * @return upper bound of the size of {@link #writeValue(Buffer)}
+     */
+    public int getEstimatedValueSize() {
+        return getEstimatedValueSize(this.annotationBoList);
+    }
+
+    static int getEstimatedValueSize(List<AnnotationBo> annotationBoList) {
+        int size = BytesUtils.VLONG_MAX_SIZE;
+        if (annotationBoList != null) {
+            for (AnnotationBo annotationBo : annotationBoList) {
+                size += annotationBo.getEstimatedValueSize();
+            }
+        }
+        return size;
+    }
+
+    public byte[] writeValue() {
+        final Buffer buffer = ThreadLocalEncodeBuffer.acquire(getEstimatedValueSize());
+        try {
+            writeValue(buffer);
+            return buffer.getBuffer();
+        } finally {
+            ThreadLocalEncodeBuffer.release(buffer);
+        }
+    }
+
     public void writeValue(Buffer writer){
 
         int size = this.annotationBoList.size();
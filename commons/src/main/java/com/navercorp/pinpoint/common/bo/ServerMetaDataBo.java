@@ -20,9 +20,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
 import com.navercorp.pinpoint.common.buffer.Buffer;
 import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+import com.navercorp.pinpoint.common.buffer.ThreadLocalEncodeBuffer;
+import com.navercorp.pinpoint.common.util.BytesUtils;
 
 /**
  * @author hyungil.jeong
@@ -51,8 +52,37 @@ public class ServerMetaDataBo {
         return this.serviceInfos;
     }
 
+    /**
+     * @return upper bound of the size of {@link #writeValue()}
+     */
+    public int getEstimatedValueSize() {
+        int size = BytesUtils.max2PrefixedStringSize(this.serverInfo);
+        size += BytesUtils.VLONG_MAX_SIZE;
+        if (this.vmArgs != null) {
+            for (String vmArg : this.vmArgs) {
+                size += BytesUtils.max2PrefixedStringSize(vmArg);
+            }
+        }
+        size += BytesUtils.VLONG_MAX_SIZE;
+        if (this.serviceInfos != null) {
+            for (ServiceInfoBo serviceInfo : this.serviceInfos) {
+                size += BytesUtils.VINT_MAX_SIZE + serviceInfo.getEstimatedValueSize();
+            }
+        }
+        return size;
+    }
+
     public byte[] writeValue() {
-        final Buffer buffer = new AutomaticBuffer();
+        final Buffer buffer = ThreadLocalEncodeBuffer.acquire(getEstimatedValueSize());
+        try {
+            writeValue(buffer);
+            return buffer.getBuffer();
+        } finally {
+            ThreadLocalEncodeBuffer.release(buffer);
+        }
+    }
+
+    public void writeValue(Buffer buffer) {
         buffer.put2PrefixedString(this.serverInfo);
         final int numVmArgs = this.vmArgs == null ? 0 : this.vmArgs.size();
         buffer.putVar(numVmArgs);
@@ -68,7 +98,6 @@ public class ServerMetaDataBo {
                 buffer.putPrefixedBytes(serviceInfo.writeValue());
             }
         }
-        return buffer.getBuffer();
     }
 
     @Override
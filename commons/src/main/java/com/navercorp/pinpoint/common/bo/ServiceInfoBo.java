@@ -20,9 +20,10 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
-import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
 import com.navercorp.pinpoint.common.buffer.Buffer;
 import com.navercorp.pinpoint.common.buffer.FixedBuffer;
+import com.navercorp.pinpoint.common.buffer.ThreadLocalEncodeBuffer;
+import com.navercorp.pinpoint.common.util.BytesUtils;
 
 /**
  * @author hyungil.jeong
@@ -45,15 +46,37 @@ public class ServiceInfoBo {
         return this.serviceLibs;
     }
     
+    /**
+     * @return upper bound of the size of {@link #writeValue()}
+     */
+    public int getEstimatedValueSize() {
+        int size = BytesUtils.max2PrefixedStringSize(this.serviceName);
+        size += BytesUtils.VLONG_MAX_SIZE;
+        if (this.serviceLibs != null) {
+            for (String serviceLib : this.serviceLibs) {
+                size += BytesUtils.max2PrefixedStringSize(serviceLib);
+            }
+        }
+        return size;
+    }
+
     public byte[] writeValue() {
-        final Buffer buffer = new AutomaticBuffer();
+        final Buffer buffer = ThreadLocalEncodeBuffer.acquire(getEstimatedValueSize());
+        try {
+            writeValue(buffer);
+            return buffer.getBuffer();
+        } finally {
+            ThreadLocalEncodeBuffer.release(buffer);
+        }
+    }
+
+    public void writeValue(Buffer buffer) {
         buffer.put2PrefixedString(this.serviceName);
         int numServiceLibs = this.serviceLibs == null ? 0 : this.serviceLibs.size();
         buffer.putVar(numServiceLibs);
         for (int i = 0; i < numServiceLibs; ++i) {
             buffer.put2PrefixedString(this.serviceLibs.get(i));
         }
-        return buffer.getBuffer();
     }
     
     @Override
@@ -19,13 +19,14 @@ package com.navercorp.pinpoint.common.bo;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
 import com.navercorp.pinpoint.common.buffer.Buffer;
 import com.navercorp.pinpoint.common.buffer.OffsetFixedBuffer;
+import com.navercorp.pinpoint.common.buffer.ThreadLocalEncodeBuffer;
 import com.navercorp.pinpoint.common.trace.LoggingInfo;
 import com.navercorp.pinpoint.common.trace.ServiceType;
 import com.navercorp.pinpoint.common.util.TransactionId;
 import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.common.util.BytesUtils;
 import com.navercorp.pinpoint.thrift.dto.TAnnotation;
 import com.navercorp.pinpoint.thrift.dto.TIntStringValue;
 import com.navercorp.pinpoint.thrift.dto.TSpan;
@@ -394,15 +395,52 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
         this.loggingTransactionInfo = loggingTransactionInfo;
     }
 
+    /**
+     * @return upper bound of the size of {@link #writeValue()}
+     */
+    public int getEstimatedValueSize() {
+        int size = VERSION_SIZE;
+        size += BytesUtils.maxPrefixedStringSize(agentId);
+        // agentStartTime
+        size += BytesUtils.VLONG_MAX_SIZE;
+        // parentSpanId
+        size += BytesUtils.LONG_BYTE_LENGTH;
+        // startTime, elapsed
+        size += BytesUtils.VLONG_MAX_SIZE * 2;
+        size += BytesUtils.maxPrefixedStringSize(rpc);
+        size += BytesUtils.maxPrefixedStringSize(applicationId);
+        // serviceType
+        size += BytesUtils.SHORT_BYTE_LENGTH;
+        size += BytesUtils.maxPrefixedStringSize(endPoint);
+        size += BytesUtils.maxPrefixedStringSize(remoteAddr);
+        // apiId, errCode
+        size += BytesUtils.VINT_MAX_SIZE * 2;
+        // hasException
+        size += 1;
+        if (hasException) {
+            size += BytesUtils.VINT_MAX_SIZE + BytesUtils.maxPrefixedStringSize(exceptionMessage);
+        }
+        // flag
+        size += BytesUtils.SHORT_BYTE_LENGTH;
+        // hasApplicationServiceType, applicationServiceType
+        size += 1 + BytesUtils.SHORT_BYTE_LENGTH;
+        // loggingTransactionInfo
+        size += 1;
+        return size;
+    }
+
     // Variable encoding has been added in case of write io operation. The data size can be reduced by about 10%.
     public byte[] writeValue() {
-        /*
-           It is difficult to calculate the size of buffer. It's not impossible.
-           However just use automatic incremental buffer for convenience's sake.
-           Consider to reuse getBufferLength when memory can be used more efficiently later.
-        */
-        final Buffer buffer = new AutomaticBuffer(256);
+        final Buffer buffer = ThreadLocalEncodeBuffer.acquire(getEstimatedValueSize());
+        try {
+            writeValue(buffer);
+            return buffer.getBuffer();
+        } finally {
+            ThreadLocalEncodeBuffer.release(buffer);
+        }
+    }
 
+    public void writeValue(Buffer buffer) {
         buffer.put(version);
 
         // buffer.put(mostTraceID);
@@ -449,8 +487,6 @@ public class SpanBo implements com.navercorp.pinpoint.common.bo.Span {
         }
         
         buffer.put(loggingTransactionInfo);
-
-        return buffer.getBuffer();
     }
 
     public int readValue(byte[] bytes, int offset) {
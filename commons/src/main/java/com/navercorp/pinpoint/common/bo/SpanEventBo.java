@@ -19,12 +19,13 @@ package com.navercorp.pinpoint.common.bo;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
 import com.navercorp.pinpoint.common.buffer.Buffer;
 import com.navercorp.pinpoint.common.buffer.OffsetFixedBuffer;
+import com.navercorp.pinpoint.common.buffer.ThreadLocalEncodeBuffer;
 import com.navercorp.pinpoint.common.trace.ServiceType;
 import com.navercorp.pinpoint.common.util.TransactionId;
 import com.navercorp.pinpoint.common.util.TransactionIdUtils;
+import com.navercorp.pinpoint.common.util.BytesUtils;
 import com.navercorp.pinpoint.thrift.dto.*;
 
 /**
@@ -224,6 +225,14 @@ public class SpanEventBo implements Span {
         this.agentId = agentId;
     }
 
+    public String getApplicationId() {
+        return applicationId;
+    }
+
+    public void setApplicationId(String applicationId) {
+        this.applicationId = applicationId;
+    }
+
     public long getAgentStartTime() {
         return this.agentStartTime;
     }
@@ -383,6 +392,12 @@ public class SpanEventBo implements Span {
         return exceptionMessage;
     }
 
+    public void setExceptionInfo(int exceptionId, String exceptionMessage) {
+        this.hasException = true;
+        this.exceptionId = exceptionId;
+        this.exceptionMessage = exceptionMessage;
+    }
+
     public String getExceptionClass() {
         return exceptionClass;
     }
@@ -415,9 +430,46 @@ public class SpanEventBo implements Span {
         this.asyncSequence = asyncSequence;
     }
 
+    /**
+     * @return upper bound of the size of {@link #writeValue()}
+     */
+    public int getEstimatedValueSize() {
+        int size = VERSION_SIZE;
+        size += BytesUtils.maxPrefixedStringSize(agentId);
+        size += BytesUtils.maxPrefixedStringSize(applicationId);
+        // agentStartTime, startElapsed, endElapsed
+        size += BytesUtils.VLONG_MAX_SIZE * 3;
+        size += BytesUtils.maxPrefixedStringSize(rpc);
+        // serviceType
+        size += BytesUtils.SHORT_BYTE_LENGTH;
+        size += BytesUtils.maxPrefixedStringSize(endPoint);
+        size += BytesUtils.maxPrefixedStringSize(destinationId);
+        // apiId, depth
+        size += BytesUtils.VINT_MAX_SIZE * 2;
+        // nextSpanId
+        size += BytesUtils.LONG_BYTE_LENGTH;
+        // hasException
+        size += 1;
+        if (hasException) {
+            size += BytesUtils.VINT_MAX_SIZE + BytesUtils.maxPrefixedStringSize(exceptionMessage);
+        }
+        size += AnnotationBoList.getEstimatedValueSize(annotationBoList);
+        // nextAsyncId
+        size += BytesUtils.VINT_MAX_SIZE;
+        return size;
+    }
+
     public byte[] writeValue() {
-        final Buffer buffer = new AutomaticBuffer(512);
+        final Buffer buffer = ThreadLocalEncodeBuffer.acquire(getEstimatedValueSize());
+        try {
+            writeValue(buffer);
+            return buffer.getBuffer();
+        } finally {
+            ThreadLocalEncodeBuffer.release(buffer);
+        }
+    }
 
+    public void writeValue(Buffer buffer) {
         buffer.put(version);
 
         // buffer.put(mostTraceID);
@@ -452,8 +504,6 @@ public class SpanEventBo implements Span {
 
         writeAnnotation(buffer);
         buffer.putSVar(nextAsyncId);
-
-        return buffer.getBuffer();
     }
 
     private void writeAnnotation(Buffer buffer) {
@@ -0,0 +1,101 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.buffer;
+
+/**
+ * Growable buffer reused by each thread to encode values.
+ * A value is encoded into the buffer of the current thread and copied once into a right-sized array.
+ * <pre>
+ * final Buffer buffer = ThreadLocalEncodeBuffer.acquire(estimatedSize);
+ * try {
+ *     ...
+ *     return buffer.getBuffer();
+ * } finally {
+ *     ThreadLocalEncodeBuffer.release(buffer);
+ * }
+ * </pre>
+ * A nested acquire on the same thread gets a new buffer, so encoders can call other encoders.
+ */
+public final class ThreadLocalEncodeBuffer {
+
+    static final int INITIAL_SIZE = 1024;
+    // do not keep the memory of an unusually large value for the lifetime of the thread
+    static final int MAX_RETAINED_SIZE = 1024 * 64;
+
+    private static final ThreadLocal<EncodeBuffer> LOCAL_BUFFER = new ThreadLocal<EncodeBuffer>() {
+        @Override
+        protected EncodeBuffer initialValue() {
+            return new EncodeBuffer(INITIAL_SIZE);
+        }
+    };
+
+    private ThreadLocalEncodeBuffer() {
+    }
+
+    /**
+     * @param estimatedSize expected size of the value, the buffer is grown to it before encoding
+     */
+    public static Buffer acquire(int estimatedSize) {
+        final EncodeBuffer buffer = LOCAL_BUFFER.get();
+        if (buffer.inUse) {
+            return new EncodeBuffer(Math.max(estimatedSize, 32));
+        }
+        buffer.inUse = true;
+        buffer.reset(estimatedSize);
+        return buffer;
+    }
+
+    public static void release(Buffer buffer) {
+        if (buffer == null) {
+            throw new NullPointerException("buffer must not be null");
+        }
+        final EncodeBuffer localBuffer = LOCAL_BUFFER.get();
+        if (localBuffer != buffer) {
+            return;
+        }
+        if (localBuffer.getInternalBuffer().length > MAX_RETAINED_SIZE) {
+            LOCAL_BUFFER.set(new EncodeBuffer(INITIAL_SIZE));
+            return;
+        }
+        localBuffer.inUse = false;
+    }
+
+    private static class EncodeBuffer extends AutomaticBuffer {
+
+        private boolean inUse;
+
+        private EncodeBuffer(int size) {
+            super(size);
+        }
+
+        private void reset(int capacity) {
+            this.offset = 0;
+            if (this.buffer.length < capacity) {
+                this.buffer = new byte[capacity];
+            }
+        }
+
+        /**
+         * always returns a copy, the internal buffer is reused by the next value.
+         */
+        @Override
+        public byte[] getBuffer() {
+            return copyBuffer();
+        }
+    }
+}
@@ -107,6 +107,7 @@ public class AnnotationKey {
     public static final AnnotationKey SQL_METADATA = new AnnotationKey(22, "SQL-METADATA");
     public static final AnnotationKey SQL_PARAM = new AnnotationKey(23, "SQL-PARAM");
     public static final AnnotationKey SQL_BINDVALUE = new AnnotationKey(24, "SQL-BindValue", VIEW_IN_RECORD_SET);
+    public static final AnnotationKey SQL_BATCH_SIZE = new AnnotationKey(25, "SQL-BatchSize", VIEW_IN_RECORD_SET);
 
     public static final AnnotationKey STRING_ID = new AnnotationKey(30, "STRING_ID");
 
@@ -32,24 +32,24 @@ import com.navercorp.pinpoint.thrift.dto.TIntStringValue;
  */
 public class AnnotationTranscoder {
 
-    static final byte CODE_STRING = 0;
-    static final byte CODE_NULL = 1;
-    static final byte CODE_INT = 2;
-    static final byte CODE_LONG = 3;
+    public static final byte CODE_STRING = 0;
+    public static final byte CODE_NULL = 1;
+    public static final byte CODE_INT = 2;
+    public static final byte CODE_LONG = 3;
 
-    static final byte CODE_BOOLEAN_TRUE = 4;
-    static final byte CODE_BOOLEAN_FALSE = 5;
+    public static final byte CODE_BOOLEAN_TRUE = 4;
+    public static final byte CODE_BOOLEAN_FALSE = 5;
 
-    static final byte CODE_BYTEARRAY = 6;
-    static final byte CODE_BYTE = 7;
+    public static final byte CODE_BYTEARRAY = 6;
+    public static final byte CODE_BYTE = 7;
 
-    static final byte CODE_SHORT = 8;
-    static final byte CODE_FLOAT = 9;
-    static final byte CODE_DOUBLE = 10;
-    static final byte CODE_TOSTRING = 11;
+    public static final byte CODE_SHORT = 8;
+    public static final byte CODE_FLOAT = 9;
+    public static final byte CODE_DOUBLE = 10;
+    public static final byte CODE_TOSTRING = 11;
     // multivalue
-    static final byte CODE_INT_STRING = 20;
-    static final byte CODE_INT_STRING_STRING = 21;
+    public static final byte CODE_INT_STRING = 20;
+    public static final byte CODE_INT_STRING_STRING = 21;
 
 
     public Object getMappingValue(TAnnotation annotation) {
@@ -201,6 +201,13 @@ public class AnnotationTranscoder {
         final TIntStringValue tIntStringValue = (TIntStringValue) value;
         final int intValue = tIntStringValue.getIntValue();
         final byte[] stringValue = BytesUtils.toBytes(tIntStringValue.getStringValue());
+        return encodeIntStringValue(intValue, stringValue);
+    }
+
+    /**
+     * encodes {@link #CODE_INT_STRING} from the already encoded string value.
+     */
+    public byte[] encodeIntStringValue(int intValue, byte[] stringValue) {
         // TODO increase by a more precise value
         final int bufferSize = getBufferSize(stringValue, 4 + 8);
         final Buffer buffer = new AutomaticBuffer(bufferSize);
@@ -230,6 +237,13 @@ public class AnnotationTranscoder {
         final int intValue = tIntStringStringValue.getIntValue();
         final byte[] stringValue1 = BytesUtils.toBytes(tIntStringStringValue.getStringValue1());
         final byte[] stringValue2 = BytesUtils.toBytes(tIntStringStringValue.getStringValue2());
+        return encodeIntStringStringValue(intValue, stringValue1, stringValue2);
+    }
+
+    /**
+     * encodes {@link #CODE_INT_STRING_STRING} from the already encoded string values.
+     */
+    public byte[] encodeIntStringStringValue(int intValue, byte[] stringValue1, byte[] stringValue2) {
         // TODO increase by a more precise value
         final int bufferSize = getBufferSize(stringValue1, stringValue2, 4 + 8);
         final Buffer buffer = new AutomaticBuffer(bufferSize);
@@ -347,6 +347,40 @@ public final class BytesUtils {
         }
     }
 
+    /**
+     * @return upper bound of the UTF-8 encoded size of the string
+     */
+    public static int maxUtf8Size(final String value) {
+        if (value == null) {
+            return 0;
+        }
+        return value.length() * 3;
+    }
+
+    /**
+     * @return upper bound of the size written by {@link com.navercorp.pinpoint.common.buffer.Buffer#putPrefixedString(String)}
+     */
+    public static int maxPrefixedStringSize(final String value) {
+        return VINT_MAX_SIZE + maxUtf8Size(value);
+    }
+
+    /**
+     * @return upper bound of the size written by {@link com.navercorp.pinpoint.common.buffer.Buffer#put2PrefixedString(String)}
+     */
+    public static int max2PrefixedStringSize(final String value) {
+        return SHORT_BYTE_LENGTH + maxUtf8Size(value);
+    }
+
+    /**
+     * @return upper bound of the size written by {@link com.navercorp.pinpoint.common.buffer.Buffer#putPrefixedBytes(byte[])}
+     */
+    public static int maxPrefixedBytesSize(final byte[] value) {
+        if (value == null) {
+            return VINT_MAX_SIZE;
+        }
+        return VINT_MAX_SIZE + value.length;
+    }
+
     public static byte[] merge(final byte[] b1, final byte[] b2) {
         if (b1 == null) {
             throw new NullPointerException("b1 must not be null");
@@ -0,0 +1,191 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.bo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.navercorp.pinpoint.common.PinpointConstants;
+
+/**
+ * Encoding and decoding of a batch of 6 agent stat samples (30 seconds),
+ * one row per sample with a Gc and a Cpu column against one delta encoded block column.
+ * {@link #main(String[])} prints the bytes of a day of samples of one agent in both formats, as scanned from HBase.
+ * <pre>
+ * mvn -pl commons test-compile
+ * java -cp "commons/target/test-classes:commons/target/classes:..." org.openjdk.jmh.Main AgentStatBlockBenchmark -prof gc
+ * java -cp "commons/target/test-classes:commons/target/classes" com.navercorp.pinpoint.common.bo.AgentStatBlockBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class AgentStatBlockBenchmark {
+
+    private static final String AGENT_ID = "order-api-10.12.34.56";
+    private static final long START_TIMESTAMP = 1451606400000L;
+    private static final long INTERVAL = 5000;
+    private static final int BATCH_SIZE = 6;
+    private static final int SAMPLES_PER_DAY = (int) (TimeUnit.DAYS.toMillis(1) / INTERVAL);
+    private static final int BLOCK_SIZE = (int) (TimeUnit.MINUTES.toMillis(5) / INTERVAL);
+
+    // row key : agent id + reversed timestamp
+    private static final int ROW_SIZE = PinpointConstants.AGENT_NAME_MAX_LEN + 8;
+    private static final int FAMILY_SIZE = 1;
+    private static final int GC_QUALIFIER_SIZE = 2;
+    private static final int CPU_QUALIFIER_SIZE = 3;
+    private static final int BLOCK_QUALIFIER_SIZE = 1 + 4;
+
+    private List<AgentStatMemoryGcBo> memoryGcBos;
+    private List<AgentStatCpuLoadBo> cpuLoadBos;
+    private AgentStatBlockBo blockBo;
+
+    private byte[][] memoryGcValues;
+    private byte[][] cpuLoadValues;
+    private byte[] blockValue;
+
+    @Setup
+    public void setup() {
+        memoryGcBos = new ArrayList<AgentStatMemoryGcBo>(BATCH_SIZE);
+        cpuLoadBos = new ArrayList<AgentStatCpuLoadBo>(BATCH_SIZE);
+        createSamples(new Random(1), START_TIMESTAMP, BATCH_SIZE, memoryGcBos, cpuLoadBos);
+        blockBo = new AgentStatBlockBo(AGENT_ID, START_TIMESTAMP, memoryGcBos, cpuLoadBos);
+
+        memoryGcValues = new byte[BATCH_SIZE][];
+        cpuLoadValues = new byte[BATCH_SIZE][];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            memoryGcValues[i] = memoryGcBos.get(i).writeValue();
+            cpuLoadValues[i] = cpuLoadBos.get(i).writeValue();
+        }
+        blockValue = blockBo.writeValue();
+    }
+
+    private static void createSamples(Random random, long from, int count, List<AgentStatMemoryGcBo> memoryGcBos, List<AgentStatCpuLoadBo> cpuLoadBos) {
+        long heapUsed = 300L * 1024 * 1024;
+        long gcOldCount = 0;
+        long gcOldTime = 0;
+        for (int i = 0; i < count; i++) {
+            // timer jitter of the agent
+            final long timestamp = from + INTERVAL * i + random.nextInt(3);
+            heapUsed += random.nextInt(4 * 1024 * 1024);
+            if (heapUsed > 800L * 1024 * 1024) {
+                heapUsed = 300L * 1024 * 1024;
+                gcOldCount++;
+                gcOldTime += 100 + random.nextInt(200);
+            }
+            final AgentStatMemoryGcBo.Builder memoryGcBuilder = new AgentStatMemoryGcBo.Builder(AGENT_ID, START_TIMESTAMP, timestamp);
+            memoryGcBuilder.gcType("PARALLEL");
+            memoryGcBuilder.jvmMemoryHeapUsed(heapUsed);
+            memoryGcBuilder.jvmMemoryHeapMax(1024L * 1024 * 1024);
+            memoryGcBuilder.jvmMemoryNonHeapUsed(90L * 1024 * 1024 + random.nextInt(1024));
+            memoryGcBuilder.jvmMemoryNonHeapMax(-1L);
+            memoryGcBuilder.jvmGcOldCount(gcOldCount);
+            memoryGcBuilder.jvmGcOldTime(gcOldTime);
+            memoryGcBos.add(memoryGcBuilder.build());
+
+            final AgentStatCpuLoadBo.Builder cpuLoadBuilder = new AgentStatCpuLoadBo.Builder(AGENT_ID, START_TIMESTAMP, timestamp);
+            cpuLoadBuilder.jvmCpuLoad(random.nextDouble() * 0.3);
+            cpuLoadBuilder.systemCpuLoad(random.nextDouble() * 0.5);
+            cpuLoadBos.add(cpuLoadBuilder.build());
+        }
+    }
+
+    @Benchmark
+    public int encodeLegacy() {
+        int size = 0;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            size += memoryGcBos.get(i).writeValue().length;
+            size += cpuLoadBos.get(i).writeValue().length;
+        }
+        return size;
+    }
+
+    @Benchmark
+    public int encodeBlock() {
+        return blockBo.writeValue().length;
+    }
+
+    @Benchmark
+    public long decodeLegacy() {
+        long sum = 0;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            sum += new AgentStatMemoryGcBo.Builder(memoryGcValues[i]).build().getJvmMemoryHeapUsed();
+            sum += new AgentStatCpuLoadBo.Builder(cpuLoadValues[i]).build().getTimestamp();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long decodeBlock() {
+        final AgentStatBlockBo decoded = AgentStatBlockBo.readValue(blockValue);
+        long sum = 0;
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            sum += decoded.getMemoryGcBos().get(i).getJvmMemoryHeapUsed();
+            sum += decoded.getCpuLoadBos().get(i).getTimestamp();
+        }
+        return sum;
+    }
+
+    /**
+     * size of a cell as it is returned by a scan : key length, value length, row length, row, family length,
+     * family, qualifier, timestamp, type and value
+     */
+    private static long cellSize(int qualifierSize, int valueSize) {
+        return 4 + 4 + 2 + ROW_SIZE + 1 + FAMILY_SIZE + qualifierSize + 8 + 1 + valueSize;
+    }
+
+    public static void main(String[] args) {
+        final List<AgentStatMemoryGcBo> memoryGcBos = new ArrayList<AgentStatMemoryGcBo>(SAMPLES_PER_DAY);
+        final List<AgentStatCpuLoadBo> cpuLoadBos = new ArrayList<AgentStatCpuLoadBo>(SAMPLES_PER_DAY);
+        createSamples(new Random(1), START_TIMESTAMP, SAMPLES_PER_DAY, memoryGcBos, cpuLoadBos);
+
+        long legacyBytes = 0;
+        for (int i = 0; i < SAMPLES_PER_DAY; i++) {
+            legacyBytes += cellSize(GC_QUALIFIER_SIZE, memoryGcBos.get(i).writeValue().length);
+            legacyBytes += cellSize(CPU_QUALIFIER_SIZE, cpuLoadBos.get(i).writeValue().length);
+        }
+
+        // one column per batch, BLOCK_SIZE / BATCH_SIZE columns per row
+        long blockBytes = 0;
+        for (int i = 0; i < SAMPLES_PER_DAY; i += BATCH_SIZE) {
+            final int to = Math.min(i + BATCH_SIZE, SAMPLES_PER_DAY);
+            final AgentStatBlockBo batch = new AgentStatBlockBo(AGENT_ID, START_TIMESTAMP, memoryGcBos.subList(i, to), cpuLoadBos.subList(i, to));
+            blockBytes += cellSize(BLOCK_QUALIFIER_SIZE, batch.writeValue().length);
+        }
+
+        System.out.println("samples per day : " + SAMPLES_PER_DAY);
+        System.out.println("legacy : rows=" + SAMPLES_PER_DAY + " bytes=" + legacyBytes);
+        System.out.println("block  : rows=" + (SAMPLES_PER_DAY / BLOCK_SIZE) + " bytes=" + blockBytes);
+        System.out.println("ratio  : " + String.format("%.2f", (double) legacyBytes / blockBytes));
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.common.bo;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AgentStatBlockBoTest {
+
+    private static final String AGENT_ID = "agentId";
+    private static final long START_TIMESTAMP = 1451606400000L;
+
+    @Test
+    public void testByteArrayConversion() {
+        // Given
+        final long[] timestamps = {1451606405000L, 1451606410000L, 1451606415003L, 1451606420000L, 1451606424998L, 1451606440000L};
+        final String[] gcTypes = {"PARALLEL", "PARALLEL", "PARALLEL", "CMS", "CMS", null};
+        final double[] cpuLoads = {0.22871734201908112D, 0.22871734201908112D, 0.5D, -1.0D, Double.NaN, Double.MAX_VALUE};
+
+        final List<AgentStatMemoryGcBo> memoryGcBos = new ArrayList<AgentStatMemoryGcBo>();
+        final List<AgentStatCpuLoadBo> cpuLoadBos = new ArrayList<AgentStatCpuLoadBo>();
+        for (int i = 0; i < timestamps.length; i++) {
+            memoryGcBos.add(createMemoryGcBo(timestamps[i], gcTypes[i], i));
+            cpuLoadBos.add(createCpuLoadBo(timestamps[i], cpuLoads[i], cpuLoads[timestamps.length - 1 - i]));
+        }
+        final AgentStatBlockBo testBo = new AgentStatBlockBo(AGENT_ID, START_TIMESTAMP, memoryGcBos, cpuLoadBos);
+        // When
+        final AgentStatBlockBo deserializedBo = AgentStatBlockBo.readValue(testBo.writeValue());
+        // Then
+        assertEquals(AGENT_ID, deserializedBo.getAgentId());
+        assertEquals(START_TIMESTAMP, deserializedBo.getStartTimestamp());
+        assertEquals(timestamps.length, deserializedBo.size());
+        for (int i = 0; i < timestamps.length; i++) {
+            assertMemoryGcBo(memoryGcBos.get(i), deserializedBo.getMemoryGcBos().get(i));
+            assertCpuLoadBo(cpuLoadBos.get(i), deserializedBo.getCpuLoadBos().get(i));
+        }
+    }
+
+    @Test
+    public void testByteArrayConversionEmpty() {
+        // Given
+        final AgentStatBlockBo testBo = new AgentStatBlockBo(AGENT_ID, START_TIMESTAMP,
+                Collections.<AgentStatMemoryGcBo>emptyList(), Collections.<AgentStatCpuLoadBo>emptyList());
+        // When
+        final AgentStatBlockBo deserializedBo = AgentStatBlockBo.readValue(testBo.writeValue());
+        // Then
+        assertEquals(AGENT_ID, deserializedBo.getAgentId());
+        assertEquals(0, deserializedBo.size());
+    }
+
+    @Test
+    public void testEncodedSize() {
+        // Given
+        final List<AgentStatMemoryGcBo> memoryGcBos = new ArrayList<AgentStatMemoryGcBo>();
+        final List<AgentStatCpuLoadBo> cpuLoadBos = new ArrayList<AgentStatCpuLoadBo>();
+        int legacySize = 0;
+        for (int i = 0; i < 60; i++) {
+            final long timestamp = START_TIMESTAMP + 5000L * (i + 1);
+            final AgentStatMemoryGcBo memoryGcBo = createMemoryGcBo(timestamp, "PARALLEL", i);
+            final AgentStatCpuLoadBo cpuLoadBo = createCpuLoadBo(timestamp, 0.25D, 0.5D);
+            memoryGcBos.add(memoryGcBo);
+            cpuLoadBos.add(cpuLoadBo);
+            legacySize += memoryGcBo.writeValue().length + cpuLoadBo.writeValue().length;
+        }
+        final AgentStatBlockBo testBo = new AgentStatBlockBo(AGENT_ID, START_TIMESTAMP, memoryGcBos, cpuLoadBos);
+        // When
+        final byte[] value = testBo.writeValue();
+        // Then
+        assertTrue(value.length <= testBo.getEstimatedValueSize());
+        assertTrue("block:" + value.length + " legacy:" + legacySize, value.length * 10 < legacySize);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void sampleCountMismatch() {
+        final List<AgentStatMemoryGcBo> memoryGcBos = Collections.singletonList(createMemoryGcBo(START_TIMESTAMP, "CMS", 0));
+        new AgentStatBlockBo(AGENT_ID, START_TIMESTAMP, memoryGcBos, Collections.<AgentStatCpuLoadBo>emptyList());
+    }
+
+    private AgentStatMemoryGcBo createMemoryGcBo(long timestamp, String gcType, int seed) {
+        final AgentStatMemoryGcBo.Builder builder = new AgentStatMemoryGcBo.Builder(AGENT_ID, START_TIMESTAMP, timestamp);
+        builder.gcType(gcType);
+        builder.jvmMemoryHeapUsed(512L * 1024 * 1024 - seed * 1000L);
+        builder.jvmMemoryHeapMax(1024L * 1024 * 1024);
+        builder.jvmMemoryNonHeapUsed(64L * 1024 * 1024 + seed * 10L);
+        builder.jvmMemoryNonHeapMax(-1L);
+        builder.jvmGcOldCount(seed / 2);
+        builder.jvmGcOldTime(seed / 2 * 150L);
+        return builder.build();
+    }
+
+    private AgentStatCpuLoadBo createCpuLoadBo(long timestamp, double jvmCpuLoad, double systemCpuLoad) {
+        final AgentStatCpuLoadBo.Builder builder = new AgentStatCpuLoadBo.Builder(AGENT_ID, START_TIMESTAMP, timestamp);
+        builder.jvmCpuLoad(jvmCpuLoad);
+        builder.systemCpuLoad(systemCpuLoad);
+        return builder.build();
+    }
+
+    private void assertMemoryGcBo(AgentStatMemoryGcBo expected, AgentStatMemoryGcBo actual) {
+        assertEquals(expected, actual);
+        assertEquals(expected.getGcType(), actual.getGcType());
+        assertEquals(expected.getJvmMemoryHeapUsed(), actual.getJvmMemoryHeapUsed());
+        assertEquals(expected.getJvmMemoryHeapMax(), actual.getJvmMemoryHeapMax());
+        assertEquals(expected.getJvmMemoryNonHeapUsed(), actual.getJvmMemoryNonHeapUsed());
+        assertEquals(expected.getJvmMemoryNonHeapMax(), actual.getJvmMemoryNonHeapMax());
+        assertEquals(expected.getJvmGcOldCount(), actual.getJvmGcOldCount());
+        assertEquals(expected.getJvmGcOldTime(), actual.getJvmGcOldTime());
+    }
+
+    private void assertCpuLoadBo(AgentStatCpuLoadBo expected, AgentStatCpuLoadBo actual) {
+        assertEquals(expected, actual);
+        // xor encoding is lossless
+        assertEquals(Double.doubleToRawLongBits(expected.getJvmCpuLoad()), Double.doubleToRawLongBits(actual.getJvmCpuLoad()));
+        assertEquals(Double.doubleToRawLongBits(expected.getSystemCpuLoad()), Double.doubleToRawLongBits(actual.getSystemCpuLoad()));
+    }
+}
@@ -54,6 +54,16 @@ public class ServerMetaDataBoTest {
         assertEquals(testBo, deserializedBo);
     }
     
+    @Test
+    public void testEstimatedValueSize() {
+        final ServerMetaDataBo testBo = createTestBo("testServer", Arrays.asList("arg1", "arg2"),
+                Arrays.asList(ServiceInfoBoTest.createTestBo("testService", Arrays.asList("lib1", "lib2"))));
+        assertTrue(testBo.writeValue().length <= testBo.getEstimatedValueSize());
+
+        final ServerMetaDataBo nullValuesBo = createTestBo(null, null, null);
+        assertTrue(nullValuesBo.writeValue().length <= nullValuesBo.getEstimatedValueSize());
+    }
+    
     static ServerMetaDataBo createTestBo(String serverInfo, List<String> vmArgs, List<ServiceInfoBo> serviceInfos) {
         final ServerMetaDataBo.Builder builder = new ServerMetaDataBo.Builder();
         builder.serverInfo(serverInfo);
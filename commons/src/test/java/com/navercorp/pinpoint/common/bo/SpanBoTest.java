@@ -124,6 +124,23 @@ public class SpanBoTest {
         Assert.assertEquals(spanBo.getApplicationServiceType(), spanBo.getApplicationServiceType());
     }
 
+    @Test
+    public void estimatedValueSize() {
+        SpanBo spanBo = new SpanBo();
+        spanBo.setAgentId("agentId");
+        spanBo.setApplicationId("applicationId");
+        spanBo.setEndPoint("end");
+        spanBo.setRpc("rpc");
+        spanBo.setServiceType(ServiceType.STAND_ALONE.getCode());
+        Assert.assertTrue(spanBo.writeValue().length <= spanBo.getEstimatedValueSize());
+
+        spanBo.setApplicationId(createString(24));
+        spanBo.setEndPoint(createString(127));
+        spanBo.setRpc(createString(255));
+        spanBo.setRemoteAddr(createString(64));
+        Assert.assertTrue(spanBo.writeValue().length <= spanBo.getEstimatedValueSize());
+    }
+
     private String createString(int size) {
         StringBuilder sb = new StringBuilder(size);
         for (int i = 0; i < size; i++) {
@@ -0,0 +1,148 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.bo;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.navercorp.pinpoint.common.buffer.AutomaticBuffer;
+import com.navercorp.pinpoint.common.buffer.Buffer;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.common.util.BytesUtils;
+
+/**
+ * Encoding of a web request span with a JDBC and an HTTP client span event.
+ * The legacy methods encode the same values the way it was done before the thread local buffer,
+ * into a new automatic buffer which is copied into the value.
+ * <pre>
+ * mvn -pl commons test-compile
+ * java -cp "commons/target/test-classes:commons/target/classes:..." org.openjdk.jmh.Main SpanEncodeBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(4)
+public class SpanEncodeBenchmark {
+
+    private SpanBo spanBo;
+    private SpanEventBo sqlEventBo;
+    private SpanEventBo httpEventBo;
+    private AnnotationBoList annotationBoList;
+
+    @Setup
+    public void setup() {
+        spanBo = new SpanBo();
+        spanBo.setAgentId("order-api-10.12.34.56");
+        spanBo.setApplicationId("ORDER-API");
+        spanBo.setAgentStartTime(1451606400000L);
+        spanBo.setParentSpanId(-1);
+        spanBo.setStartTime(1451606412345L);
+        spanBo.setElapsed(183);
+        spanBo.setRpc("/api/v1/orders/2015123100012345/items");
+        spanBo.setServiceType(ServiceType.STAND_ALONE.getCode());
+        spanBo.setEndPoint("order-api.example.com:8080");
+        spanBo.setRemoteAddr("10.12.0.101");
+        spanBo.setApiId(12);
+
+        sqlEventBo = newSpanEventBo("jdbc:mysql://order-db-master.example.com:3306/orders", "ORDERS",
+                annotations(
+                        "SELECT o.order_id, o.user_id, o.status, i.item_id, i.quantity, i.price FROM orders o "
+                                + "JOIN order_items i ON o.order_id = i.order_id WHERE o.order_id = ? AND o.status IN (?, ?)",
+                        "2015123100012345, PAID, SHIPPED"));
+        httpEventBo = newSpanEventBo("inventory-api.example.com:8080", "inventory-api.example.com:8080",
+                annotations("http://inventory-api.example.com:8080/api/v1/stock?itemIds=1001,1002,1003", "200"));
+
+        annotationBoList = new AnnotationBoList(annotations("order.id=2015123100012345", "user.id=12345"));
+    }
+
+    private SpanEventBo newSpanEventBo(String endPoint, String destinationId, List<AnnotationBo> annotationBoList) {
+        SpanEventBo spanEventBo = new SpanEventBo();
+        spanEventBo.setAgentId("order-api-10.12.34.56");
+        spanEventBo.setApplicationId("ORDER-API");
+        spanEventBo.setAgentStartTime(1451606400000L);
+        spanEventBo.setStartElapsed(35);
+        spanEventBo.setEndElapsed(12);
+        spanEventBo.setServiceType(ServiceType.STAND_ALONE.getCode());
+        spanEventBo.setEndPoint(endPoint);
+        spanEventBo.setDestinationId(destinationId);
+        spanEventBo.setApiId(48);
+        spanEventBo.setDepth(2);
+        spanEventBo.setNextSpanId(-1);
+        spanEventBo.setAnnotationBoList(annotationBoList);
+        return spanEventBo;
+    }
+
+    private List<AnnotationBo> annotations(String... values) {
+        List<AnnotationBo> annotationBoList = new ArrayList<AnnotationBo>(values.length);
+        int key = 20;
+        for (String value : values) {
+            AnnotationBo annotationBo = new AnnotationBo();
+            annotationBo.setKey(key++);
+            annotationBo.setValueType((byte) 0);
+            annotationBo.setByteValue(BytesUtils.toBytes(value));
+            annotationBoList.add(annotationBo);
+        }
+        return annotationBoList;
+    }
+
+    @Benchmark
+    public int encode() {
+        int size = spanBo.writeValue().length;
+        size += sqlEventBo.writeValue().length;
+        size += httpEventBo.writeValue().length;
+        size += annotationBoList.writeValue().length;
+        return size;
+    }
+
+    @Benchmark
+    public int encodeLegacy() {
+        Buffer spanBuffer = new AutomaticBuffer(256);
+        spanBo.writeValue(spanBuffer);
+        int size = spanBuffer.getBuffer().length;
+
+        Buffer sqlEventBuffer = new AutomaticBuffer(512);
+        sqlEventBo.writeValue(sqlEventBuffer);
+        size += sqlEventBuffer.getBuffer().length;
+
+        Buffer httpEventBuffer = new AutomaticBuffer(512);
+        httpEventBo.writeValue(httpEventBuffer);
+        size += httpEventBuffer.getBuffer().length;
+
+        Buffer annotationBuffer = new AutomaticBuffer(64);
+        annotationBoList.writeValue(annotationBuffer);
+        size += annotationBuffer.getBuffer().length;
+        return size;
+    }
+}
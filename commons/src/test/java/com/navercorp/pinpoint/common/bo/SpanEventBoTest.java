@@ -19,6 +19,8 @@ package com.navercorp.pinpoint.common.bo;
 import com.navercorp.pinpoint.common.bo.SpanEventBo;
 import com.navercorp.pinpoint.common.trace.ServiceType;
 
+import java.util.Arrays;
+
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -82,4 +84,25 @@ public class SpanEventBoTest {
         newSpanEventBo.setSequence((short) 3);
         Assert.assertEquals(spanEventBo.getSequence(), newSpanEventBo.getSequence());
     }
+
+    @Test
+    public void testEstimatedValueSize() {
+        SpanEventBo spanEventBo = new SpanEventBo();
+        spanEventBo.setAgentId("test");
+        spanEventBo.setApplicationId("testApplication");
+        spanEventBo.setDestinationId("testdest");
+        spanEventBo.setEndPoint("endpoint");
+        spanEventBo.setRpc("rpc");
+        spanEventBo.setServiceType(ServiceType.STAND_ALONE.getCode());
+        spanEventBo.setNextAsyncId(1);
+        Assert.assertTrue(spanEventBo.writeValue().length <= spanEventBo.getEstimatedValueSize());
+
+        spanEventBo.setExceptionInfo(2, "exception message");
+        AnnotationBo annotationBo = new AnnotationBo();
+        annotationBo.setKey(20);
+        annotationBo.setValueType((byte) 0);
+        annotationBo.setByteValue(new byte[100]);
+        spanEventBo.setAnnotationBoList(Arrays.asList(annotationBo, annotationBo));
+        Assert.assertTrue(spanEventBo.writeValue().length <= spanEventBo.getEstimatedValueSize());
+    }
 }
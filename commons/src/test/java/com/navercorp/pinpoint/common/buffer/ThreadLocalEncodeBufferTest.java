@@ -0,0 +1,91 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.common.buffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ThreadLocalEncodeBufferTest {
+
+    @Test
+    public void reuse() {
+        Buffer buffer = ThreadLocalEncodeBuffer.acquire(16);
+        buffer.put(1);
+        buffer.putPrefixedString("test");
+        byte[] first = buffer.getBuffer();
+        ThreadLocalEncodeBuffer.release(buffer);
+        Assert.assertEquals(4 + 1 + 4, first.length);
+
+        Buffer reused = ThreadLocalEncodeBuffer.acquire(16);
+        Assert.assertSame(buffer, reused);
+        Assert.assertEquals(0, reused.getOffset());
+        reused.put(2);
+        byte[] second = reused.getBuffer();
+        ThreadLocalEncodeBuffer.release(reused);
+
+        Assert.assertEquals(4, second.length);
+        // the value encoded first is not overwritten
+        Assert.assertEquals(1, new FixedBuffer(first).readInt());
+        Assert.assertEquals(2, new FixedBuffer(second).readInt());
+    }
+
+    @Test
+    public void nested() {
+        Buffer outer = ThreadLocalEncodeBuffer.acquire(16);
+        outer.put(1);
+
+        Buffer inner = ThreadLocalEncodeBuffer.acquire(16);
+        Assert.assertNotSame(outer, inner);
+        inner.put(2);
+        outer.putPrefixedBytes(inner.getBuffer());
+        ThreadLocalEncodeBuffer.release(inner);
+
+        // still in use by the outer encoder
+        Assert.assertNotSame(outer, ThreadLocalEncodeBuffer.acquire(16));
+
+        byte[] bytes = outer.getBuffer();
+        ThreadLocalEncodeBuffer.release(outer);
+
+        Buffer reader = new FixedBuffer(bytes);
+        Assert.assertEquals(1, reader.readInt());
+        Assert.assertEquals(2, new FixedBuffer(reader.readPrefixedBytes()).readInt());
+        Assert.assertSame(outer, ThreadLocalEncodeBuffer.acquire(16));
+        ThreadLocalEncodeBuffer.release(outer);
+    }
+
+    @Test
+    public void largeBufferNotRetained() {
+        Buffer buffer = ThreadLocalEncodeBuffer.acquire(ThreadLocalEncodeBuffer.MAX_RETAINED_SIZE + 1);
+        Assert.assertTrue(buffer.getInternalBuffer().length > ThreadLocalEncodeBuffer.MAX_RETAINED_SIZE);
+        ThreadLocalEncodeBuffer.release(buffer);
+
+        Buffer next = ThreadLocalEncodeBuffer.acquire(16);
+        Assert.assertNotSame(buffer, next);
+        Assert.assertEquals(ThreadLocalEncodeBuffer.INITIAL_SIZE, next.getInternalBuffer().length);
+        ThreadLocalEncodeBuffer.release(next);
+    }
+
+    @Test
+    public void grow() {
+        Buffer buffer = ThreadLocalEncodeBuffer.acquire(0);
+        byte[] bytes = new byte[ThreadLocalEncodeBuffer.INITIAL_SIZE * 2];
+        buffer.put(bytes);
+        Assert.assertEquals(bytes.length, buffer.getBuffer().length);
+        ThreadLocalEncodeBuffer.release(buffer);
+    }
+}
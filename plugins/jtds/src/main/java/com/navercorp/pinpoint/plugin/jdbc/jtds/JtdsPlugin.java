@@ -18,6 +18,7 @@ import java.security.ProtectionDomain;
 
 import com.navercorp.pinpoint.bootstrap.instrument.InstrumentClass;
 import com.navercorp.pinpoint.bootstrap.instrument.InstrumentException;
+import com.navercorp.pinpoint.bootstrap.instrument.MethodFilters;
 import com.navercorp.pinpoint.bootstrap.interceptor.group.ExecutionPolicy;
 import com.navercorp.pinpoint.bootstrap.interceptor.group.InterceptorGroup;
 import com.navercorp.pinpoint.bootstrap.plugin.ProfilerPlugin;
@@ -101,11 +102,14 @@ public class JtdsPlugin implements ProfilerPlugin, JtdsConstants {
                 target.addField("com.navercorp.pinpoint.bootstrap.plugin.jdbc.DatabaseInfoAccessor");
                 target.addField("com.navercorp.pinpoint.bootstrap.plugin.jdbc.ParsingResultAccessor");
                 target.addField("com.navercorp.pinpoint.bootstrap.plugin.jdbc.BindValueAccessor", "new java.util.HashMap()");
+                target.addField("com.navercorp.pinpoint.bootstrap.plugin.jdbc.BatchSizeAccessor");
                 
                 int maxBindValueSize = config.getMaxSqlBindValueSize();
                 InterceptorGroup group = instrumentContext.getInterceptorGroup(GROUP_JTDS);
                 
                 target.addInterceptor("com.navercorp.pinpoint.bootstrap.plugin.jdbc.interceptor.PreparedStatementExecuteQueryInterceptor", group, maxBindValueSize);
+                target.addInterceptor(MethodFilters.chain(MethodFilters.name("executeBatch"), MethodFilters.args()), "com.navercorp.pinpoint.bootstrap.plugin.jdbc.interceptor.PreparedStatementExecuteBatchInterceptor", group, ExecutionPolicy.BOUNDARY, maxBindValueSize);
+                target.addInterceptor(MethodFilters.chain(MethodFilters.name("addBatch", "clearBatch"), MethodFilters.args()), "com.navercorp.pinpoint.bootstrap.plugin.jdbc.interceptor.PreparedStatementAddBatchInterceptor", group, ExecutionPolicy.BOUNDARY);
                 target.addInterceptor("com.navercorp.pinpoint.bootstrap.plugin.jdbc.interceptor.PreparedStatementBindVariableInterceptor", group);
                 
                 return target.toBytecode();
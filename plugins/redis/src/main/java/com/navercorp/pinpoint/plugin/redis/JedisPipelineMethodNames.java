@@ -30,10 +30,7 @@ import java.util.List;
 public class JedisPipelineMethodNames {
     
     public static String[] get() {
-        final String[] methodNames = { 
-                "sync",
-                "syncAndReturnAll"
-            };
+        final String[] methodNames = getSyncMethodNames();
         
         final List<String> names = new ArrayList<String>();
         names.addAll(Arrays.asList(JedisMethodNames.get()));
@@ -41,4 +38,11 @@ public class JedisPipelineMethodNames {
         
         return names.toArray(new String[names.size()]);
     }
-}
\ No newline at end of file
+
+    public static String[] getSyncMethodNames() {
+        return new String[] {
+                "sync",
+                "syncAndReturnAll"
+            };
+    }
+}
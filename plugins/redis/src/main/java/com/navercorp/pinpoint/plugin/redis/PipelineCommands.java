@@ -0,0 +1,78 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.navercorp.pinpoint.plugin.redis;
+
+import java.util.Arrays;
+
+/**
+ * Command names and counts queued in a pipeline until sync.
+ * A pipeline is used by a single thread, so this is not thread-safe.
+ */
+public class PipelineCommands {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private String[] names = new String[DEFAULT_CAPACITY];
+    private int[] counts = new int[DEFAULT_CAPACITY];
+    private int size = 0;
+    private int total = 0;
+
+    public void add(String name) {
+        total++;
+        for (int i = 0; i < size; i++) {
+            // command names are constants of the method descriptor, so identity check is enough in most cases.
+            if (names[i] == name || names[i].equals(name)) {
+                counts[i]++;
+                return;
+            }
+        }
+
+        if (size == names.length) {
+            names = Arrays.copyOf(names, size * 2);
+            counts = Arrays.copyOf(counts, size * 2);
+        }
+        names[size] = name;
+        counts[size] = 1;
+        size++;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return total == 0;
+    }
+
+    public void clear() {
+        Arrays.fill(names, 0, size, null);
+        size = 0;
+        total = 0;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder(16 + size * 16);
+        builder.append("commands=").append(total).append(" {");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(names[i]).append('=').append(counts[i]);
+        }
+        builder.append("}");
+        return builder.toString();
+    }
+}
@@ -0,0 +1,6 @@
+package com.navercorp.pinpoint.plugin.redis;
+
+public interface PipelineCommandsAccessor {
+    public void _$PINPOINT$_setPipelineCommands(PipelineCommands pipelineCommands);
+    public PipelineCommands _$PINPOINT$_getPipelineCommands();
+}
@@ -29,6 +29,7 @@ public interface RedisConstants {
 
     public static final ServiceType REDIS = ServiceType.of(8200, "REDIS", FAST_SCHEMA, TERMINAL, RECORD_STATISTICS);
     public static final String METADATA_END_POINT = "com.navercorp.pinpoint.plugin.redis.EndPointAccessor";
+    public static final String METADATA_PIPELINE_COMMANDS = "com.navercorp.pinpoint.plugin.redis.PipelineCommandsAccessor";
     
     public static final String REDIS_SCOPE = "redisScope";
 }
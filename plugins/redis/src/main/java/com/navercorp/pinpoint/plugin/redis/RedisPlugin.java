@@ -159,7 +159,17 @@ public class RedisPlugin implements ProfilerPlugin, RedisConstants {
 
     // Pipeline
     private void addJedisPipelineClassEditors(ProfilerPluginSetupContext context, RedisPluginConfig config) {
-        addJedisPipelineBaseExtendedClassEditor(context, config, "redis.clients.jedis.PipelineBase", null);
+        TransformHandler pipelineBaseHandler = null;
+        if (config.isPipelineBatch()) {
+            pipelineBaseHandler = new TransformHandler() {
+
+                @Override
+                public void handle(InstrumentClass target) throws InstrumentException {
+                    target.addField(METADATA_PIPELINE_COMMANDS);
+                }
+            };
+        }
+        addJedisPipelineBaseExtendedClassEditor(context, config, "redis.clients.jedis.PipelineBase", pipelineBaseHandler);
 
         // MultikeyPipellineBase extends PipelineBase
         addJedisPipelineBaseExtendedClassEditor(context, config, "redis.clients.jedis.MultiKeyPipelineBase", null);
@@ -194,6 +204,11 @@ public class RedisPlugin implements ProfilerPlugin, RedisConstants {
                     handler.handle(target);
                 }
 
+                if (config.isPipelineBatch()) {
+                    addJedisPipelineBatchInterceptors(target, config);
+                    return target.toBytecode();
+                }
+
                 for (InstrumentMethod method : target.getDeclaredMethods(MethodFilters.chain(MethodFilters.name(JedisPipelineMethodNames.get()), MethodFilters.modifierNot(MethodFilters.SYNTHETIC)))) {
                     try {
                         method.addInterceptor("com.navercorp.pinpoint.plugin.redis.interceptor.JedisPipelineMethodInterceptor", config.isIo());
@@ -209,6 +224,29 @@ public class RedisPlugin implements ProfilerPlugin, RedisConstants {
         });
     }
 
+    // queued commands are only counted, and one span event is recorded per sync.
+    private void addJedisPipelineBatchInterceptors(InstrumentClass target, RedisPluginConfig config) {
+        for (InstrumentMethod method : target.getDeclaredMethods(MethodFilters.chain(MethodFilters.name(JedisMethodNames.get()), MethodFilters.modifierNot(MethodFilters.SYNTHETIC)))) {
+            try {
+                method.addInterceptor("com.navercorp.pinpoint.plugin.redis.interceptor.JedisPipelineBatchMethodInterceptor");
+            } catch (Exception e) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Unsupported method " + method, e);
+                }
+            }
+        }
+
+        for (InstrumentMethod method : target.getDeclaredMethods(MethodFilters.chain(MethodFilters.name(JedisPipelineMethodNames.getSyncMethodNames()), MethodFilters.modifierNot(MethodFilters.SYNTHETIC)))) {
+            try {
+                method.addInterceptor("com.navercorp.pinpoint.plugin.redis.interceptor.JedisPipelineSyncMethodInterceptor", config.isIo());
+            } catch (Exception e) {
+                if (logger.isWarnEnabled()) {
+                    logger.warn("Unsupported method " + method, e);
+                }
+            }
+        }
+    }
+
     private interface TransformHandler {
         void handle(InstrumentClass target) throws InstrumentException;
     }
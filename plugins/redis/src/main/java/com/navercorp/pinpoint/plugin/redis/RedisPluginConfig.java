@@ -25,10 +25,12 @@ import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
 public class RedisPluginConfig {
     private boolean pipelineEnabled = true;
     private boolean io = true;
+    private boolean pipelineBatch = false;
 
     public RedisPluginConfig(ProfilerConfig src) {
         pipelineEnabled = src.readBoolean("profiler.redis.pipeline", true);
         io = src.readBoolean("profiler.redis.io", true);
+        pipelineBatch = src.readBoolean("profiler.redis.pipeline.batch", false);
     }
 
     public boolean isPipelineEnabled() {
@@ -39,6 +41,10 @@ public class RedisPluginConfig {
         return io;
     }
 
+    public boolean isPipelineBatch() {
+        return pipelineBatch;
+    }
+
     @Override
     public String toString() {
         StringBuilder builder = new StringBuilder();
@@ -46,6 +52,8 @@ public class RedisPluginConfig {
         builder.append(pipelineEnabled);
         builder.append(", io=");
         builder.append(io);
+        builder.append(", pipelineBatch=");
+        builder.append(pipelineBatch);
         builder.append("}");
         return builder.toString();
     }
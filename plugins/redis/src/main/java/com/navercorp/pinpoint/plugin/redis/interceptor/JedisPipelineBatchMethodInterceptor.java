@@ -0,0 +1,76 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.plugin.redis.interceptor;
+
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.interceptor.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.SimpleAroundInterceptor;
+import com.navercorp.pinpoint.bootstrap.logging.PLogger;
+import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
+import com.navercorp.pinpoint.bootstrap.plugin.annotation.Group;
+import com.navercorp.pinpoint.plugin.redis.PipelineCommands;
+import com.navercorp.pinpoint.plugin.redis.PipelineCommandsAccessor;
+import com.navercorp.pinpoint.plugin.redis.RedisConstants;
+
+/**
+ * Jedis Pipeline(redis client) command method interceptor for batch mode.
+ * Only counts the queued command. The span event is recorded once at sync.
+ *
+ */
+@Group(value = RedisConstants.REDIS_SCOPE)
+public class JedisPipelineBatchMethodInterceptor implements SimpleAroundInterceptor, RedisConstants {
+    private final PLogger logger = PLoggerFactory.getLogger(this.getClass());
+    private final boolean isDebug = logger.isDebugEnabled();
+
+    private final TraceContext traceContext;
+    private final String commandName;
+
+    public JedisPipelineBatchMethodInterceptor(TraceContext traceContext, MethodDescriptor methodDescriptor) {
+        this.traceContext = traceContext;
+        this.commandName = methodDescriptor.getMethodName();
+    }
+
+    @Override
+    public void before(Object target, Object[] args) {
+        if (isDebug) {
+            logger.beforeInterceptor(target, args);
+        }
+
+        final Trace trace = traceContext.currentTraceObject();
+        if (trace == null) {
+            return;
+        }
+
+        if (!(target instanceof PipelineCommandsAccessor)) {
+            logger.debug("Invalid target object. Need field accessor({}).", METADATA_PIPELINE_COMMANDS);
+            return;
+        }
+
+        final PipelineCommandsAccessor accessor = (PipelineCommandsAccessor) target;
+        PipelineCommands commands = accessor._$PINPOINT$_getPipelineCommands();
+        if (commands == null) {
+            commands = new PipelineCommands();
+            accessor._$PINPOINT$_setPipelineCommands(commands);
+        }
+        commands.add(commandName);
+    }
+
+    @Override
+    public void after(Object target, Object[] args, Object result, Throwable throwable) {
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.plugin.redis.interceptor;
+
+import com.navercorp.pinpoint.bootstrap.context.SpanEventRecorder;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.interceptor.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.group.InterceptorGroup;
+import com.navercorp.pinpoint.bootstrap.plugin.annotation.Group;
+import com.navercorp.pinpoint.common.trace.AnnotationKey;
+import com.navercorp.pinpoint.plugin.redis.PipelineCommands;
+import com.navercorp.pinpoint.plugin.redis.PipelineCommandsAccessor;
+import com.navercorp.pinpoint.plugin.redis.RedisConstants;
+
+/**
+ * Jedis Pipeline(redis client) sync method interceptor for batch mode.
+ * Records one span event for the round trip with the names and counts of the commands queued since the last sync.
+ *
+ */
+@Group(value = RedisConstants.REDIS_SCOPE)
+public class JedisPipelineSyncMethodInterceptor extends JedisPipelineMethodInterceptor {
+
+    public JedisPipelineSyncMethodInterceptor(TraceContext traceContext, MethodDescriptor methodDescriptor, InterceptorGroup interceptorGroup, boolean io) {
+        super(traceContext, methodDescriptor, interceptorGroup, io);
+    }
+
+    @Override
+    public void after(Object target, Object[] args, Object result, Throwable throwable) {
+        try {
+            super.after(target, args, result, throwable);
+        } finally {
+            // commands queued by a trace must not leak into a later sync, even if this sync is not traced
+            final PipelineCommands commands = getPipelineCommands(target);
+            if (commands != null) {
+                commands.clear();
+            }
+        }
+    }
+
+    @Override
+    public void doInAfterTrace(SpanEventRecorder recorder, Object target, Object[] args, Object result, Throwable throwable) {
+        super.doInAfterTrace(recorder, target, args, result, throwable);
+
+        final PipelineCommands commands = getPipelineCommands(target);
+        if (commands != null && !commands.isEmpty()) {
+            recorder.recordAttribute(AnnotationKey.ARGS1, commands.toString());
+        }
+    }
+
+    private PipelineCommands getPipelineCommands(Object target) {
+        if (!(target instanceof PipelineCommandsAccessor)) {
+            return null;
+        }
+        return ((PipelineCommandsAccessor) target)._$PINPOINT$_getPipelineCommands();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.plugin.redis;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class PipelineCommandsTest {
+
+    @Test
+    public void add() {
+        PipelineCommands commands = new PipelineCommands();
+        assertTrue(commands.isEmpty());
+
+        commands.add("get");
+        commands.add("set");
+        commands.add(new String("get"));
+
+        assertFalse(commands.isEmpty());
+        assertEquals(3, commands.getTotal());
+        assertEquals("commands=3 {get=2, set=1}", commands.toString());
+    }
+
+    @Test
+    public void grow() {
+        PipelineCommands commands = new PipelineCommands();
+        for (int i = 0; i < 20; i++) {
+            commands.add("command" + i);
+        }
+        commands.add("command19");
+
+        assertEquals(21, commands.getTotal());
+        assertTrue(commands.toString().endsWith("command18=1, command19=2}"));
+    }
+
+    @Test
+    public void clear() {
+        PipelineCommands commands = new PipelineCommands();
+        commands.add("get");
+        commands.clear();
+
+        assertTrue(commands.isEmpty());
+        assertEquals("commands=0 {}", commands.toString());
+
+        commands.add("set");
+        assertEquals("commands=1 {set=1}", commands.toString());
+    }
+}
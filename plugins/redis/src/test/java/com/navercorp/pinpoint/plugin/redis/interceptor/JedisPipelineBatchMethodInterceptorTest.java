@@ -0,0 +1,89 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.plugin.redis.interceptor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.interceptor.MethodDescriptor;
+import com.navercorp.pinpoint.plugin.redis.PipelineCommands;
+import com.navercorp.pinpoint.plugin.redis.PipelineCommandsAccessor;
+
+public class JedisPipelineBatchMethodInterceptorTest {
+
+    private TraceContext traceContext;
+    private JedisPipelineBatchMethodInterceptor interceptor;
+
+    @Before
+    public void setUp() {
+        traceContext = mock(TraceContext.class);
+        MethodDescriptor methodDescriptor = mock(MethodDescriptor.class);
+        when(methodDescriptor.getMethodName()).thenReturn("get");
+        interceptor = new JedisPipelineBatchMethodInterceptor(traceContext, methodDescriptor);
+    }
+
+    @Test
+    public void countCommand() {
+        when(traceContext.currentTraceObject()).thenReturn(mock(Trace.class));
+        PipelineMock pipeline = new PipelineMock();
+
+        interceptor.before(pipeline, new Object[] {"foo"});
+        interceptor.after(pipeline, new Object[] {"foo"}, null, null);
+        interceptor.before(pipeline, new Object[] {"bar"});
+        interceptor.after(pipeline, new Object[] {"bar"}, null, null);
+
+        assertEquals("commands=2 {get=2}", pipeline._$PINPOINT$_getPipelineCommands().toString());
+    }
+
+    @Test
+    public void notTraced() {
+        PipelineMock pipeline = new PipelineMock();
+
+        interceptor.before(pipeline, new Object[] {"foo"});
+        interceptor.after(pipeline, new Object[] {"foo"}, null, null);
+
+        assertNull(pipeline._$PINPOINT$_getPipelineCommands());
+    }
+
+    @Test
+    public void notAccessor() {
+        when(traceContext.currentTraceObject()).thenReturn(mock(Trace.class));
+
+        interceptor.before(new Object(), new Object[] {"foo"});
+        interceptor.after(new Object(), new Object[] {"foo"}, null, null);
+    }
+
+    static class PipelineMock implements PipelineCommandsAccessor {
+        private PipelineCommands pipelineCommands;
+
+        @Override
+        public void _$PINPOINT$_setPipelineCommands(PipelineCommands pipelineCommands) {
+            this.pipelineCommands = pipelineCommands;
+        }
+
+        @Override
+        public PipelineCommands _$PINPOINT$_getPipelineCommands() {
+            return pipelineCommands;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.plugin.redis.interceptor;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.bootstrap.context.SpanEventRecorder;
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.interceptor.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.group.InterceptorGroup;
+import com.navercorp.pinpoint.common.trace.AnnotationKey;
+import com.navercorp.pinpoint.plugin.redis.PipelineCommands;
+import com.navercorp.pinpoint.plugin.redis.interceptor.JedisPipelineBatchMethodInterceptorTest.PipelineMock;
+
+public class JedisPipelineSyncMethodInterceptorTest {
+
+    private TraceContext traceContext;
+    private SpanEventRecorder recorder;
+    private JedisPipelineSyncMethodInterceptor interceptor;
+
+    @Before
+    public void setUp() {
+        traceContext = mock(TraceContext.class);
+        recorder = mock(SpanEventRecorder.class);
+        interceptor = new JedisPipelineSyncMethodInterceptor(traceContext, mock(MethodDescriptor.class), mock(InterceptorGroup.class), false);
+    }
+
+    @Test
+    public void recordCommands() {
+        Trace trace = mock(Trace.class);
+        when(trace.traceBlockBegin()).thenReturn(recorder);
+        when(trace.currentSpanEventRecorder()).thenReturn(recorder);
+        when(traceContext.currentTraceObject()).thenReturn(trace);
+        PipelineMock pipeline = newPipeline("get", "get", "set");
+
+        interceptor.before(pipeline, null);
+        interceptor.after(pipeline, null, null, null);
+
+        verify(recorder).recordAttribute(AnnotationKey.ARGS1, "commands=3 {get=2, set=1}");
+        verify(trace).traceBlockEnd();
+        assertTrue(pipeline._$PINPOINT$_getPipelineCommands().isEmpty());
+    }
+
+    @Test
+    public void clearCommandsWithoutTrace() {
+        PipelineMock pipeline = newPipeline("get", "set");
+
+        interceptor.before(pipeline, null);
+        interceptor.after(pipeline, null, null, null);
+
+        assertTrue(pipeline._$PINPOINT$_getPipelineCommands().isEmpty());
+        verifyZeroInteractions(recorder);
+    }
+
+    @Test
+    public void noCommands() {
+        PipelineMock pipeline = new PipelineMock();
+
+        interceptor.before(pipeline, null);
+        interceptor.after(pipeline, null, null, null);
+
+        assertNull(pipeline._$PINPOINT$_getPipelineCommands());
+    }
+
+    private PipelineMock newPipeline(String... commandNames) {
+        PipelineCommands commands = new PipelineCommands();
+        for (String commandName : commandNames) {
+            commands.add(commandName);
+        }
+        PipelineMock pipeline = new PipelineMock();
+        pipeline._$PINPOINT$_setPipelineCommands(commands);
+        return pipeline;
+    }
+}
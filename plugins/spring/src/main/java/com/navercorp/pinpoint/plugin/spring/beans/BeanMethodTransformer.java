@@ -19,6 +19,7 @@ import java.security.ProtectionDomain;
 import java.util.Arrays;
 import java.util.List;
 
+import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
 import com.navercorp.pinpoint.bootstrap.instrument.InstrumentClass;
 import com.navercorp.pinpoint.bootstrap.instrument.InstrumentException;
 import com.navercorp.pinpoint.bootstrap.instrument.InstrumentMethod;
@@ -27,6 +28,7 @@ import com.navercorp.pinpoint.bootstrap.instrument.MethodFilters;
 import com.navercorp.pinpoint.bootstrap.interceptor.BasicMethodInterceptor;
 import com.navercorp.pinpoint.bootstrap.logging.PLogger;
 import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
+import com.navercorp.pinpoint.bootstrap.plugin.ObjectRecipe;
 import com.navercorp.pinpoint.bootstrap.plugin.ProfilerPluginInstrumentContext;
 import com.navercorp.pinpoint.bootstrap.plugin.transformer.PinpointClassFileTransformer;
 
@@ -39,9 +41,19 @@ public class BeanMethodTransformer implements PinpointClassFileTransformer, Spri
     private static final int REJECTED_ACCESS_FLAG = Modifier.ABSTRACT |  Modifier.NATIVE | Modifier.STATIC;
     private static final MethodFilter METHOD_FILTER = MethodFilters.modifier(REQUIRED_ACCESS_FLAG, REJECTED_ACCESS_FLAG);
 
+    private static final String ADAPTIVE_INTERCEPTOR = "com.navercorp.pinpoint.plugin.spring.beans.interceptor.AdaptiveBeanMethodInterceptor";
+    private static final String ADAPTIVE_POLICY = "com.navercorp.pinpoint.plugin.spring.beans.interceptor.AdaptiveTracePolicy";
+
     private final PLogger logger = PLoggerFactory.getLogger(getClass());
-    
-    
+
+    private final ProfilerConfig profilerConfig;
+    private final boolean adaptive;
+
+    public BeanMethodTransformer(ProfilerConfig profilerConfig) {
+        this.profilerConfig = profilerConfig;
+        this.adaptive = new SpringBeansConfig(profilerConfig).isAdaptiveEnable();
+    }
+
     /* (non-Javadoc)
      * @see com.navercorp.pinpoint.bootstrap.plugin.transformer.PinpointClassFileTransformer#transform(com.navercorp.pinpoint.bootstrap.plugin.ProfilerPluginInstrumentContext, java.lang.ClassLoader, java.lang.String, java.lang.Class, java.security.ProtectionDomain, byte[])
      */
@@ -64,7 +76,12 @@ public class BeanMethodTransformer implements PinpointClassFileTransformer, Spri
                     logger.trace("### c={}, m={}, params={}", new Object[] {className, method.getName(), Arrays.toString(method.getParameterTypes())});
                 }
 
-                method.addInterceptor(BasicMethodInterceptor.class.getName(), SERVICE_TYPE);
+                if (adaptive) {
+                    ObjectRecipe policyRecipe = ObjectRecipe.byStaticFactory(ADAPTIVE_POLICY, "of", profilerConfig);
+                    method.addInterceptor(ADAPTIVE_INTERCEPTOR, SERVICE_TYPE, policyRecipe);
+                } else {
+                    method.addInterceptor(BasicMethodInterceptor.class.getName(), SERVICE_TYPE);
+                }
             }
 
             return target.toBytecode();
@@ -25,14 +25,36 @@ public class SpringBeansConfig {
     public static final String SPRING_BEANS_CLASS_PATTERN = "profiler.spring.beans.class.pattern";
     public static final String SPRING_BEANS_NAME_PATTERN = "profiler.spring.beans.name.pattern";
 
+    public static final String SPRING_BEANS_ADAPTIVE_ENABLE = "profiler.spring.beans.adaptive.enable";
+    public static final String SPRING_BEANS_ADAPTIVE_WINDOW = "profiler.spring.beans.adaptive.window";
+    public static final String SPRING_BEANS_ADAPTIVE_CALL_THRESHOLD = "profiler.spring.beans.adaptive.call.threshold";
+    public static final String SPRING_BEANS_ADAPTIVE_ELAPSED_THRESHOLD = "profiler.spring.beans.adaptive.elapsed.threshold";
+    public static final String SPRING_BEANS_ADAPTIVE_REEVALUATION_INTERVAL = "profiler.spring.beans.adaptive.reevaluation.interval";
+
     private final String springBeansNamePatterns;
     private final String springBeansClassPatterns;
     private final String springBeansAnnotations;
 
+    private final boolean adaptiveEnable;
+    // millis
+    private final long adaptiveWindow;
+    // calls per window
+    private final int adaptiveCallThreshold;
+    // micros
+    private final long adaptiveElapsedThreshold;
+    // millis
+    private final long adaptiveReevaluationInterval;
+
     public SpringBeansConfig(ProfilerConfig config) {
         this.springBeansNamePatterns = config.readString(SPRING_BEANS_NAME_PATTERN, null);
         this.springBeansClassPatterns = config.readString(SPRING_BEANS_CLASS_PATTERN, null);
         this.springBeansAnnotations = config.readString(SPRING_BEANS_ANNOTATION, null);
+
+        this.adaptiveEnable = config.readBoolean(SPRING_BEANS_ADAPTIVE_ENABLE, false);
+        this.adaptiveWindow = config.readLong(SPRING_BEANS_ADAPTIVE_WINDOW, 10000);
+        this.adaptiveCallThreshold = config.readInt(SPRING_BEANS_ADAPTIVE_CALL_THRESHOLD, 1000);
+        this.adaptiveElapsedThreshold = config.readLong(SPRING_BEANS_ADAPTIVE_ELAPSED_THRESHOLD, 100);
+        this.adaptiveReevaluationInterval = config.readLong(SPRING_BEANS_ADAPTIVE_REEVALUATION_INTERVAL, 300000);
     }
     
     public String getSpringBeansNamePatterns() {
@@ -47,4 +69,24 @@ public class SpringBeansConfig {
         return springBeansAnnotations;
     }
 
+    public boolean isAdaptiveEnable() {
+        return adaptiveEnable;
+    }
+
+    public long getAdaptiveWindow() {
+        return adaptiveWindow;
+    }
+
+    public int getAdaptiveCallThreshold() {
+        return adaptiveCallThreshold;
+    }
+
+    public long getAdaptiveElapsedThreshold() {
+        return adaptiveElapsedThreshold;
+    }
+
+    public long getAdaptiveReevaluationInterval() {
+        return adaptiveReevaluationInterval;
+    }
+
 }
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.plugin.spring.beans.interceptor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.navercorp.pinpoint.bootstrap.context.SpanEventRecorder;
+import com.navercorp.pinpoint.bootstrap.context.Trace;
+import com.navercorp.pinpoint.bootstrap.context.TraceContext;
+import com.navercorp.pinpoint.bootstrap.interceptor.MethodDescriptor;
+import com.navercorp.pinpoint.bootstrap.interceptor.SimpleAroundInterceptor;
+import com.navercorp.pinpoint.bootstrap.logging.PLogger;
+import com.navercorp.pinpoint.bootstrap.logging.PLoggerFactory;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+
+/**
+ * Same as BasicMethodInterceptor, but stops recording span events of the intercepted method
+ * while it is called more often than the policy's call threshold with a mean elapsed time under the elapsed threshold.
+ * Suppressed methods are traced again after the re-evaluation interval.
+ * <p>
+ * Each interceptor instance is bound to exactly one method, so statistics are kept per interceptor.
+ * A span event is opened with a stack id unique to this interceptor so that after() can tell
+ * whether before() actually opened a block, even if the suppression state changed in between.
+ */
+public class AdaptiveBeanMethodInterceptor implements SimpleAroundInterceptor {
+
+    // 0, -1 and 1 are used by the profiler.
+    private static final AtomicInteger STACK_ID_SEQUENCE = new AtomicInteger(1024);
+    private static final AtomicInteger SUPPRESSED_METHOD_COUNT = new AtomicInteger();
+
+    private final PLogger logger = PLoggerFactory.getLogger(AdaptiveBeanMethodInterceptor.class);
+    private final boolean isDebug = logger.isDebugEnabled();
+
+    private final MethodDescriptor descriptor;
+    private final TraceContext traceContext;
+    private final ServiceType serviceType;
+    private final AdaptiveTracePolicy policy;
+    private final int stackId;
+
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong elapsedNanos = new AtomicLong();
+    private final AtomicLong windowStartTime;
+
+    private volatile boolean suppressed = false;
+    private volatile long suppressedUntil = 0;
+
+    public AdaptiveBeanMethodInterceptor(TraceContext traceContext, MethodDescriptor descriptor, ServiceType serviceType, AdaptiveTracePolicy policy) {
+        this.descriptor = descriptor;
+        this.traceContext = traceContext;
+        this.serviceType = serviceType;
+        this.policy = policy;
+        this.stackId = STACK_ID_SEQUENCE.getAndIncrement();
+        this.windowStartTime = new AtomicLong(System.currentTimeMillis());
+    }
+
+    @Override
+    public void before(Object target, Object[] args) {
+        if (isDebug) {
+            logger.beforeInterceptor(target, args);
+        }
+
+        Trace trace = traceContext.currentTraceObject();
+        if (trace == null) {
+            return;
+        }
+
+        if (isSuppressed()) {
+            // A recursive call inside our own open block must be traced to keep before/after paired.
+            if (trace.getCallStackFrameId() != stackId) {
+                return;
+            }
+        }
+
+        final SpanEventRecorder recorder = trace.traceBlockBegin(stackId);
+        recorder.recordServiceType(serviceType);
+        recorder.attachFrameObject(System.nanoTime());
+    }
+
+    @Override
+    public void after(Object target, Object[] args, Object result, Throwable throwable) {
+        if (isDebug) {
+            logger.afterInterceptor(target, args);
+        }
+
+        Trace trace = traceContext.currentTraceObject();
+        if (trace == null) {
+            return;
+        }
+
+        if (trace.getCallStackFrameId() != stackId) {
+            return;
+        }
+
+        try {
+            final SpanEventRecorder recorder = trace.currentSpanEventRecorder();
+            recorder.recordApi(descriptor);
+            recorder.recordException(throwable);
+
+            final Object startTime = recorder.detachFrameObject();
+            if (startTime instanceof Long) {
+                record(System.nanoTime() - (Long) startTime);
+            }
+        } finally {
+            trace.traceBlockEnd(stackId);
+        }
+    }
+
+    private void record(long elapsed) {
+        callCount.incrementAndGet();
+        elapsedNanos.addAndGet(elapsed);
+    }
+
+    private boolean isSuppressed() {
+        final long currentTime = System.currentTimeMillis();
+        if (suppressed) {
+            if (currentTime < suppressedUntil) {
+                return true;
+            }
+            resume(currentTime);
+            return false;
+        }
+
+        final long windowStart = windowStartTime.get();
+        if (currentTime - windowStart < policy.getWindowMillis()) {
+            return false;
+        }
+        // only one thread evaluates a finished window.
+        if (!windowStartTime.compareAndSet(windowStart, currentTime)) {
+            return suppressed;
+        }
+        return evaluate(currentTime);
+    }
+
+    private boolean evaluate(long currentTime) {
+        final long calls = callCount.getAndSet(0);
+        final long elapsed = elapsedNanos.getAndSet(0);
+
+        if (!policy.isSuppressTarget(calls, elapsed)) {
+            return false;
+        }
+
+        this.suppressedUntil = currentTime + policy.getReevaluationIntervalMillis();
+        this.suppressed = true;
+
+        final int suppressedMethods = SUPPRESSED_METHOD_COUNT.incrementAndGet();
+        if (logger.isInfoEnabled()) {
+            logger.info("Suppress span events of {}. calls:{}, avgElapsed:{}ns, suppressedMethods:{}", new Object[] {descriptor.getFullName(), calls, elapsed / calls, suppressedMethods});
+        }
+        return true;
+    }
+
+    private synchronized void resume(long currentTime) {
+        if (!suppressed) {
+            return;
+        }
+        callCount.set(0);
+        elapsedNanos.set(0);
+        windowStartTime.set(currentTime);
+        this.suppressed = false;
+
+        final int suppressedMethods = SUPPRESSED_METHOD_COUNT.decrementAndGet();
+        if (logger.isInfoEnabled()) {
+            logger.info("Re-evaluate span events of {}. suppressedMethods:{}", descriptor.getFullName(), suppressedMethods);
+        }
+    }
+
+    public static int getSuppressedMethodCount() {
+        return SUPPRESSED_METHOD_COUNT.get();
+    }
+}
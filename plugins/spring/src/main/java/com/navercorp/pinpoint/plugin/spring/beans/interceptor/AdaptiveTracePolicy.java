@@ -0,0 +1,82 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.plugin.spring.beans.interceptor;
+
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
+import com.navercorp.pinpoint.plugin.spring.beans.SpringBeansConfig;
+
+/**
+ * Thresholds used by {@link AdaptiveBeanMethodInterceptor} to decide whether a bean method is too hot and too cheap to be traced.
+ */
+public class AdaptiveTracePolicy {
+    private final long windowMillis;
+    private final long callThreshold;
+    private final long elapsedThresholdNanos;
+    private final long reevaluationIntervalMillis;
+
+    public static AdaptiveTracePolicy of(ProfilerConfig profilerConfig) {
+        SpringBeansConfig config = new SpringBeansConfig(profilerConfig);
+
+        long elapsedThresholdNanos = TimeUnit.MICROSECONDS.toNanos(config.getAdaptiveElapsedThreshold());
+        return new AdaptiveTracePolicy(config.getAdaptiveWindow(), config.getAdaptiveCallThreshold(), elapsedThresholdNanos, config.getAdaptiveReevaluationInterval());
+    }
+
+    public AdaptiveTracePolicy(long windowMillis, long callThreshold, long elapsedThresholdNanos, long reevaluationIntervalMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be positive. windowMillis:" + windowMillis);
+        }
+        if (reevaluationIntervalMillis <= 0) {
+            throw new IllegalArgumentException("reevaluationIntervalMillis must be positive. reevaluationIntervalMillis:" + reevaluationIntervalMillis);
+        }
+        this.windowMillis = windowMillis;
+        this.callThreshold = callThreshold;
+        this.elapsedThresholdNanos = elapsedThresholdNanos;
+        this.reevaluationIntervalMillis = reevaluationIntervalMillis;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public long getReevaluationIntervalMillis() {
+        return reevaluationIntervalMillis;
+    }
+
+    /**
+     * @param callCount number of traced calls observed during one window
+     * @param elapsedNanos sum of the elapsed time of those calls
+     * @return true if the method is called often enough and returns fast enough that its span events are not worth recording
+     */
+    public boolean isSuppressTarget(long callCount, long elapsedNanos) {
+        if (callCount <= 0 || callCount < callThreshold) {
+            return false;
+        }
+        return (elapsedNanos / callCount) < elapsedThresholdNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "AdaptiveTracePolicy{" +
+                "windowMillis=" + windowMillis +
+                ", callThreshold=" + callThreshold +
+                ", elapsedThresholdNanos=" + elapsedThresholdNanos +
+                ", reevaluationIntervalMillis=" + reevaluationIntervalMillis +
+                '}';
+    }
+}
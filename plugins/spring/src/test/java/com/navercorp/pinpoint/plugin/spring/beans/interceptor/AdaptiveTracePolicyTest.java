@@ -0,0 +1,50 @@
+/**
+ * Copyright 2014 NAVER Corp.
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.navercorp.pinpoint.plugin.spring.beans.interceptor;
+
+import static org.junit.Assert.*;
+
+import java.util.Properties;
+
+import org.junit.Test;
+
+import com.navercorp.pinpoint.bootstrap.config.ProfilerConfig;
+import com.navercorp.pinpoint.plugin.spring.beans.SpringBeansConfig;
+
+public class AdaptiveTracePolicyTest {
+
+    @Test
+    public void testSuppressTarget() {
+        Properties properties = new Properties();
+        properties.put(SpringBeansConfig.SPRING_BEANS_ADAPTIVE_CALL_THRESHOLD, "100");
+        properties.put(SpringBeansConfig.SPRING_BEANS_ADAPTIVE_ELAPSED_THRESHOLD, "10");
+        ProfilerConfig config = new ProfilerConfig(properties);
+
+        AdaptiveTracePolicy policy = AdaptiveTracePolicy.of(config);
+
+        // 100 calls, 1us each
+        assertTrue(policy.isSuppressTarget(100, 100 * 1000));
+        // not hot enough
+        assertFalse(policy.isSuppressTarget(99, 99 * 1000));
+        // not cheap enough
+        assertFalse(policy.isSuppressTarget(100, 100 * 10 * 1000));
+        assertFalse(policy.isSuppressTarget(0, 0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidWindow() {
+        new AdaptiveTracePolicy(0, 100, 1000, 1000);
+    }
+}
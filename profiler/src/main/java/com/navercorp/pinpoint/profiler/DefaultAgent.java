@@ -35,6 +35,7 @@ import com.navercorp.pinpoint.profiler.context.DefaultServerMetaDataHolder;
 import com.navercorp.pinpoint.profiler.context.DefaultTraceContext;
 import com.navercorp.pinpoint.profiler.context.active.ActiveTraceLocator;
 import com.navercorp.pinpoint.profiler.context.storage.BufferedStorageFactory;
+import com.navercorp.pinpoint.profiler.context.storage.CallStatStorageFactory;
 import com.navercorp.pinpoint.profiler.context.storage.SpanStorageFactory;
 import com.navercorp.pinpoint.profiler.context.storage.StorageFactory;
 import com.navercorp.pinpoint.profiler.interceptor.DefaultInterceptorRegistryBinder;
@@ -43,12 +44,16 @@ import com.navercorp.pinpoint.profiler.interceptor.bci.JavaAssistByteCodeInstrum
 import com.navercorp.pinpoint.profiler.interceptor.bci.JavassistClassPool;
 import com.navercorp.pinpoint.profiler.logging.Slf4jLoggerBinder;
 import com.navercorp.pinpoint.profiler.monitor.AgentStatMonitor;
+import com.navercorp.pinpoint.profiler.monitor.CallStatAggregator;
+import com.navercorp.pinpoint.profiler.monitor.CallStatMonitor;
 import com.navercorp.pinpoint.profiler.plugin.DefaultProfilerPluginContext;
 import com.navercorp.pinpoint.profiler.plugin.ProfilerPluginLoader;
 import com.navercorp.pinpoint.profiler.receiver.CommandDispatcher;
 import com.navercorp.pinpoint.profiler.receiver.service.ActiveThreadService;
+import com.navercorp.pinpoint.profiler.receiver.service.CollectorLoadService;
 import com.navercorp.pinpoint.profiler.receiver.service.EchoService;
 import com.navercorp.pinpoint.profiler.receiver.service.ThreadDumpService;
+import com.navercorp.pinpoint.profiler.sampler.CollectorLoadSampler;
 import com.navercorp.pinpoint.profiler.sampler.SamplerFactory;
 import com.navercorp.pinpoint.profiler.sender.DataSender;
 import com.navercorp.pinpoint.profiler.sender.EnhancedDataSender;
@@ -88,8 +93,11 @@ public class DefaultAgent implements Agent {
 
     private final AgentInfoSender agentInfoSender;
     private final AgentStatMonitor agentStatMonitor;
+    private final CallStatAggregator callStatAggregator;
+    private final CallStatMonitor callStatMonitor;
 
     private final TraceContext traceContext;
+    private final CollectorLoadSampler collectorLoadSampler;
 
     private PinpointSocketFactory factory;
     private PinpointSocket socket;
@@ -188,7 +196,16 @@ public class DefaultAgent implements Agent {
                 this.profilerConfig.getStatDataSenderWriteQueueSize(), this.profilerConfig.getStatDataSenderSocketTimeout(),
                 this.profilerConfig.getStatDataSenderSocketSendBufferSize());
 
-        this.traceContext = createTraceContext();
+        if (this.profilerConfig.isCallStatEnable()) {
+            this.callStatAggregator = new CallStatAggregator(this.serviceTypeRegistryService);
+            this.callStatMonitor = new CallStatMonitor(this.statDataSender, this.agentInformation, this.callStatAggregator, this.profilerConfig.getCallStatSendInterval());
+        } else {
+            this.callStatAggregator = null;
+            this.callStatMonitor = null;
+        }
+
+        this.collectorLoadSampler = new CollectorLoadSampler(createSampler());
+        this.traceContext = createTraceContext(collectorLoadSampler);
 
         addCommandService(commandDispatcher, traceContext);
 
@@ -207,6 +224,7 @@ public class DefaultAgent implements Agent {
     private void addCommandService(CommandDispatcher commandDispatcher, TraceContext traceContext) {
         commandDispatcher.registerCommandService(new ThreadDumpService());
         commandDispatcher.registerCommandService(new EchoService());
+        commandDispatcher.registerCommandService(new CollectorLoadService(collectorLoadSampler));
 
         if (traceContext instanceof DefaultTraceContext) {
             ActiveTraceLocator activeTraceLocator = ((DefaultTraceContext) traceContext).getActiveTraceLocator();
@@ -273,11 +291,10 @@ public class DefaultAgent implements Agent {
         PLoggerFactory.initialize(binder);
     }
 
-    private TraceContext createTraceContext() {
+    private TraceContext createTraceContext(Sampler sampler) {
         final StorageFactory storageFactory = createStorageFactory();
         logger.info("StorageFactoryType:{}", storageFactory);
 
-        final Sampler sampler = createSampler();
         logger.info("SamplerType:{}", sampler);
         
         final int jdbcSqlCacheSize = profilerConfig.getJdbcSqlCacheSize();
@@ -290,12 +307,17 @@ public class DefaultAgent implements Agent {
     }
 
     protected StorageFactory createStorageFactory() {
+        final StorageFactory storageFactory;
         if (profilerConfig.isIoBufferingEnable()) {
-            return new BufferedStorageFactory(this.spanDataSender, this.profilerConfig, this.agentInformation);
+            storageFactory = new BufferedStorageFactory(this.spanDataSender, this.profilerConfig, this.agentInformation);
         } else {
-            return new SpanStorageFactory(spanDataSender);
+            storageFactory = new SpanStorageFactory(spanDataSender);
+        }
 
+        if (this.callStatAggregator != null) {
+            return new CallStatStorageFactory(storageFactory, this.callStatAggregator);
         }
+        return storageFactory;
     }
 
     private Sampler createSampler() {
@@ -401,6 +423,9 @@ public class DefaultAgent implements Agent {
         logger.info("Starting {} Agent.", ProductInfo.NAME);
         this.agentInfoSender.start();
         this.agentStatMonitor.start();
+        if (this.callStatMonitor != null) {
+            this.callStatMonitor.start();
+        }
     }
 
     @Override
@@ -417,6 +442,9 @@ public class DefaultAgent implements Agent {
 
         this.agentInfoSender.stop();
         this.agentStatMonitor.stop();
+        if (this.callStatMonitor != null) {
+            this.callStatMonitor.stop();
+        }
 
         // Need to process stop
         this.spanDataSender.stop();
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.context.storage;
+
+import com.navercorp.pinpoint.profiler.context.Span;
+import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.profiler.monitor.CallStatAggregator;
+
+/**
+ * {@link Storage} that counts span events in a {@link CallStatAggregator} before handing them to the delegate.
+ */
+public class CallStatStorage implements Storage {
+
+    private final Storage delegate;
+    private final CallStatAggregator callStatAggregator;
+
+    public CallStatStorage(Storage delegate, CallStatAggregator callStatAggregator) {
+        if (delegate == null) {
+            throw new NullPointerException("delegate must not be null");
+        }
+        if (callStatAggregator == null) {
+            throw new NullPointerException("callStatAggregator must not be null");
+        }
+        this.delegate = delegate;
+        this.callStatAggregator = callStatAggregator;
+    }
+
+    @Override
+    public void store(SpanEvent spanEvent) {
+        callStatAggregator.record(spanEvent);
+        delegate.store(spanEvent);
+    }
+
+    @Override
+    public void store(Span span) {
+        delegate.store(span);
+    }
+
+    @Override
+    public void flush() {
+        delegate.flush();
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.context.storage;
+
+import com.navercorp.pinpoint.profiler.monitor.CallStatAggregator;
+
+/**
+ * Decorates the storages of another {@link StorageFactory} so that every stored span event is counted by a {@link CallStatAggregator}.
+ */
+public class CallStatStorageFactory implements StorageFactory {
+
+    private final StorageFactory storageFactory;
+    private final CallStatAggregator callStatAggregator;
+
+    public CallStatStorageFactory(StorageFactory storageFactory, CallStatAggregator callStatAggregator) {
+        if (storageFactory == null) {
+            throw new NullPointerException("storageFactory must not be null");
+        }
+        if (callStatAggregator == null) {
+            throw new NullPointerException("callStatAggregator must not be null");
+        }
+        this.storageFactory = storageFactory;
+        this.callStatAggregator = callStatAggregator;
+    }
+
+    @Override
+    public Storage createStorage() {
+        return new CallStatStorage(storageFactory.createStorage(), callStatAggregator);
+    }
+
+    @Override
+    public String toString() {
+        return "CallStatStorageFactory{" + storageFactory + '}';
+    }
+}
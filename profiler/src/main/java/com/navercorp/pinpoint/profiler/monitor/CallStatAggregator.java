@@ -0,0 +1,168 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.monitor;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.navercorp.pinpoint.common.service.ServiceTypeRegistryService;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
+import com.navercorp.pinpoint.common.util.SpanEventUtils;
+import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.thrift.dto.TCallStat;
+
+/**
+ * Aggregates outgoing calls by (destination, serviceType, endPoint, callerEndPoint, histogram slot)
+ * so that the collector can update the server map statistics without walking span events.
+ * Only the calls of sampled transactions are counted: an unsampled transaction records no span events,
+ * so its destination and elapsed time are not known.
+ */
+public class CallStatAggregator {
+
+    // set by drain() on an idle counter before removing it, record() then starts a new counter
+    private static final long RETIRED = Long.MIN_VALUE;
+
+    private final ConcurrentMap<CallStatKey, AtomicLong> counter = new ConcurrentHashMap<CallStatKey, AtomicLong>();
+
+    private final ServiceTypeRegistryService serviceTypeRegistryService;
+
+    public CallStatAggregator(ServiceTypeRegistryService serviceTypeRegistryService) {
+        if (serviceTypeRegistryService == null) {
+            throw new NullPointerException("serviceTypeRegistryService must not be null");
+        }
+        this.serviceTypeRegistryService = serviceTypeRegistryService;
+    }
+
+    public void record(SpanEvent spanEvent) {
+        if (spanEvent == null) {
+            return;
+        }
+        final ServiceType serviceType = serviceTypeRegistryService.findServiceType(spanEvent.getServiceType());
+        if (!serviceType.isRecordStatistics()) {
+            return;
+        }
+        final boolean hasException = SpanEventUtils.hasException(spanEvent);
+        final short slot = ApplicationMapStatisticsUtils.getSlotNumber(serviceType, spanEvent.getEndElapsed(), hasException);
+        final String callerEndPoint = spanEvent.getSpan() == null ? null : spanEvent.getSpan().getEndPoint();
+
+        final CallStatKey key = new CallStatKey(spanEvent.getDestinationId(), serviceType.getCode(), spanEvent.getEndPoint(), callerEndPoint, slot);
+        while (true) {
+            AtomicLong count = counter.get(key);
+            if (count == null) {
+                final AtomicLong newCount = new AtomicLong(1);
+                final AtomicLong oldCount = counter.putIfAbsent(key, newCount);
+                if (oldCount == null) {
+                    return;
+                }
+                count = oldCount;
+            }
+            if (increment(count)) {
+                return;
+            }
+            // retired by drain(), replace it
+            counter.remove(key, count);
+        }
+    }
+
+    private boolean increment(AtomicLong count) {
+        while (true) {
+            final long current = count.get();
+            if (current == RETIRED) {
+                return false;
+            }
+            if (count.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the calls recorded since the previous drain.
+     * Keys that received no calls during the last interval are evicted to keep the table bounded.
+     */
+    public List<TCallStat> drain() {
+        final List<TCallStat> callStats = new ArrayList<TCallStat>(counter.size());
+        final Iterator<Map.Entry<CallStatKey, AtomicLong>> iterator = counter.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final Map.Entry<CallStatKey, AtomicLong> entry = iterator.next();
+            final AtomicLong value = entry.getValue();
+            final long count = value.getAndSet(0);
+            if (count == 0) {
+                // a call recorded since getAndSet() fails the retirement and is drained next time
+                if (value.compareAndSet(0, RETIRED)) {
+                    counter.remove(entry.getKey(), value);
+                }
+                continue;
+            }
+            final CallStatKey key = entry.getKey();
+            callStats.add(new TCallStat(key.destinationId, key.serviceType, key.endPoint, key.callerEndPoint, key.slot, count));
+        }
+        return callStats;
+    }
+
+    private static final class CallStatKey {
+        private final String destinationId;
+        private final short serviceType;
+        private final String endPoint;
+        private final String callerEndPoint;
+        private final short slot;
+        private final int hashCode;
+
+        private CallStatKey(String destinationId, short serviceType, String endPoint, String callerEndPoint, short slot) {
+            this.destinationId = destinationId;
+            this.serviceType = serviceType;
+            this.endPoint = endPoint;
+            this.callerEndPoint = callerEndPoint;
+            this.slot = slot;
+            this.hashCode = hash();
+        }
+
+        private int hash() {
+            int result = destinationId != null ? destinationId.hashCode() : 0;
+            result = 31 * result + serviceType;
+            result = 31 * result + (endPoint != null ? endPoint.hashCode() : 0);
+            result = 31 * result + (callerEndPoint != null ? callerEndPoint.hashCode() : 0);
+            result = 31 * result + slot;
+            return result;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            final CallStatKey that = (CallStatKey) o;
+
+            if (serviceType != that.serviceType) return false;
+            if (slot != that.slot) return false;
+            if (destinationId != null ? !destinationId.equals(that.destinationId) : that.destinationId != null) return false;
+            if (endPoint != null ? !endPoint.equals(that.endPoint) : that.endPoint != null) return false;
+            return !(callerEndPoint != null ? !callerEndPoint.equals(that.callerEndPoint) : that.callerEndPoint != null);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.monitor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.navercorp.pinpoint.common.util.PinpointThreadFactory;
+import com.navercorp.pinpoint.profiler.AgentInformation;
+import com.navercorp.pinpoint.profiler.sender.DataSender;
+import com.navercorp.pinpoint.thrift.dto.TCallStat;
+import com.navercorp.pinpoint.thrift.dto.TCallStatBatch;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Periodically sends the outgoing calls aggregated by {@link CallStatAggregator}.
+ * A batch is sent even when no call was recorded, so the collector keeps knowing
+ * that this agent reports its own call statistics.
+ */
+public class CallStatMonitor {
+
+    // keeps a single batch well under the maximum UDP packet size
+    private static final int MAX_CALL_STATS_PER_BATCH = 256;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final boolean isTrace = logger.isTraceEnabled();
+
+    private final ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1, new PinpointThreadFactory("Pinpoint-callstat-monitor", true));
+
+    private final DataSender dataSender;
+    private final AgentInformation agentInformation;
+    private final CallStatAggregator callStatAggregator;
+    private final long sendIntervalMs;
+
+    public CallStatMonitor(DataSender dataSender, AgentInformation agentInformation, CallStatAggregator callStatAggregator, long sendIntervalMs) {
+        if (dataSender == null) {
+            throw new NullPointerException("dataSender must not be null");
+        }
+        if (agentInformation == null) {
+            throw new NullPointerException("agentInformation must not be null");
+        }
+        if (callStatAggregator == null) {
+            throw new NullPointerException("callStatAggregator must not be null");
+        }
+        if (sendIntervalMs <= 0) {
+            throw new IllegalArgumentException("sendIntervalMs must be greater than 0");
+        }
+        this.dataSender = dataSender;
+        this.agentInformation = agentInformation;
+        this.callStatAggregator = callStatAggregator;
+        this.sendIntervalMs = sendIntervalMs;
+    }
+
+    public void start() {
+        long wait = 0;
+        executor.scheduleAtFixedRate(new SendJob(), wait, this.sendIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("CallStat monitor started");
+    }
+
+    public void stop() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(3000, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // send the remaining calls
+        new SendJob().run();
+        logger.info("CallStat monitor stopped");
+    }
+
+    private class SendJob implements Runnable {
+
+        public void run() {
+            try {
+                final List<TCallStat> callStats = callStatAggregator.drain();
+                final long timestamp = System.currentTimeMillis();
+                if (callStats.size() <= MAX_CALL_STATS_PER_BATCH) {
+                    send(timestamp, callStats);
+                    return;
+                }
+                for (int from = 0; from < callStats.size(); from += MAX_CALL_STATS_PER_BATCH) {
+                    final int to = Math.min(from + MAX_CALL_STATS_PER_BATCH, callStats.size());
+                    send(timestamp, new ArrayList<TCallStat>(callStats.subList(from, to)));
+                }
+            } catch (Exception ex) {
+                logger.warn("CallStat send failed. Caused:{}", ex.getMessage(), ex);
+            }
+        }
+
+        private void send(long timestamp, List<TCallStat> callStats) {
+            final TCallStatBatch callStatBatch = new TCallStatBatch();
+            callStatBatch.setAgentId(agentInformation.getAgentId());
+            callStatBatch.setStartTimestamp(agentInformation.getStartTime());
+            callStatBatch.setTimestamp(timestamp);
+            callStatBatch.setApplicationName(agentInformation.getApplicationName());
+            callStatBatch.setApplicationServiceType(agentInformation.getServerType().getCode());
+            callStatBatch.setCallStats(callStats);
+            if (isTrace) {
+                logger.trace("send callStat:{}", callStatBatch);
+            }
+            dataSender.send(callStatBatch);
+        }
+    }
+}
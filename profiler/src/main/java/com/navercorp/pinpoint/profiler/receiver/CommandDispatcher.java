@@ -82,7 +82,15 @@ public class CommandDispatcher implements MessageListener, ServerStreamChannelMe
 
     @Override
     public void handleSend(SendPacket sendPacket, Channel channel) {
-        logger.info("MessageReceive {} {}", sendPacket, channel);
+        final TBase<?, ?> message = SerializationUtils.deserialize(sendPacket.getPayload(), deserializerFactory, null);
+        logger.debug("MessageReceive {} {}", message, channel);
+
+        final ProfilerSimpleCommandService service = commandServiceRegistry.getSimpleService(message);
+        if (service == null) {
+            logger.info("Can't find suitable service({}) {}", message, channel);
+            return;
+        }
+        service.simpleCommandService(message);
     }
 
     @Override
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.receiver.service;
+
+import org.apache.thrift.TBase;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.navercorp.pinpoint.profiler.receiver.ProfilerSimpleCommandService;
+import com.navercorp.pinpoint.profiler.sampler.CollectorLoadSampler;
+import com.navercorp.pinpoint.thrift.dto.command.TCmdCollectorLoad;
+
+/**
+ * Applies the load level advertised by the collector to the sampler.
+ */
+public class CollectorLoadService implements ProfilerSimpleCommandService {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final CollectorLoadSampler collectorLoadSampler;
+
+    public CollectorLoadService(CollectorLoadSampler collectorLoadSampler) {
+        if (collectorLoadSampler == null) {
+            throw new NullPointerException("collectorLoadSampler must not be null");
+        }
+        this.collectorLoadSampler = collectorLoadSampler;
+    }
+
+    @Override
+    public void simpleCommandService(TBase<?, ?> tbase) {
+        final TCmdCollectorLoad command = (TCmdCollectorLoad) tbase;
+        if (logger.isDebugEnabled()) {
+            logger.debug("{} execute {}.", this, command);
+        }
+        collectorLoadSampler.updateLoadLevel(command.getLoadLevel());
+    }
+
+    @Override
+    public Class<? extends TBase> getCommandClazz() {
+        return TCmdCollectorLoad.class;
+    }
+
+}
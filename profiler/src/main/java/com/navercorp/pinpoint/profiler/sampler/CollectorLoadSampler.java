@@ -0,0 +1,154 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sampler;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.navercorp.pinpoint.bootstrap.sampler.Sampler;
+import com.navercorp.pinpoint.common.util.MathUtils;
+
+/**
+ * Sheds part of the sampled transactions while the collector advertises load.
+ * The load level goes from 0 (normal) to 100 (saturated).
+ * A raised level applies at once, a lowered one is approached step by step so that agents return to the full rate gradually.
+ * The collector repeats a non-zero level while it is loaded. An advertised level expires when it is not repeated within
+ * the TTL, as if 0 had been advertised, so a lost message or a collector gone away does not keep the agent shedding.
+ */
+public class CollectorLoadSampler implements Sampler {
+
+    public static final int MAX_LOAD_LEVEL = 100;
+    // transactions still sampled while the collector is saturated
+    public static final int MIN_SAMPLING_PERCENT = 10;
+    // 10 seconds from saturated to normal
+    public static final long DEFAULT_RECOVERY_MILLIS_PER_LEVEL = 100;
+    // a few advertise intervals of the collector
+    public static final long DEFAULT_LOAD_LEVEL_TTL_MILLIS = 5000;
+
+    private static final LoadState NORMAL = new LoadState(0, 0, 0, Long.MAX_VALUE);
+
+    private final Sampler delegate;
+    private final long recoveryMillisPerLevel;
+    private final long loadLevelTtlMillis;
+
+    private final AtomicInteger counter = new AtomicInteger(0);
+    private volatile LoadState loadState = NORMAL;
+
+    public CollectorLoadSampler(Sampler delegate) {
+        this(delegate, DEFAULT_RECOVERY_MILLIS_PER_LEVEL);
+    }
+
+    public CollectorLoadSampler(Sampler delegate, long recoveryMillisPerLevel) {
+        this(delegate, recoveryMillisPerLevel, DEFAULT_LOAD_LEVEL_TTL_MILLIS);
+    }
+
+    public CollectorLoadSampler(Sampler delegate, long recoveryMillisPerLevel, long loadLevelTtlMillis) {
+        if (delegate == null) {
+            throw new NullPointerException("delegate must not be null");
+        }
+        if (recoveryMillisPerLevel <= 0) {
+            throw new IllegalArgumentException("Invalid recoveryMillisPerLevel " + recoveryMillisPerLevel);
+        }
+        if (loadLevelTtlMillis <= 0) {
+            throw new IllegalArgumentException("Invalid loadLevelTtlMillis " + loadLevelTtlMillis);
+        }
+        this.delegate = delegate;
+        this.recoveryMillisPerLevel = recoveryMillisPerLevel;
+        this.loadLevelTtlMillis = loadLevelTtlMillis;
+    }
+
+    @Override
+    public boolean isSampling() {
+        if (!delegate.isSampling()) {
+            return false;
+        }
+        final LoadState loadState = this.loadState;
+        if (loadState == NORMAL) {
+            return true;
+        }
+        final int loadLevel = loadState.getLoadLevel(System.currentTimeMillis(), recoveryMillisPerLevel);
+        if (loadLevel == 0) {
+            return true;
+        }
+        final int samplingPercent = Math.max(MAX_LOAD_LEVEL - loadLevel, MIN_SAMPLING_PERCENT);
+        final int samplingCount = MathUtils.fastAbs(counter.getAndIncrement());
+        return (samplingCount % 100) < samplingPercent;
+    }
+
+    public void updateLoadLevel(int loadLevel) {
+        updateLoadLevel(loadLevel, System.currentTimeMillis());
+    }
+
+    synchronized void updateLoadLevel(int loadLevel, long currentTime) {
+        if (loadLevel < 0) {
+            loadLevel = 0;
+        } else if (loadLevel > MAX_LOAD_LEVEL) {
+            loadLevel = MAX_LOAD_LEVEL;
+        }
+        final int currentLevel = getLoadLevel(currentTime);
+        final long expireTime = (Long.MAX_VALUE - currentTime > loadLevelTtlMillis) ? currentTime + loadLevelTtlMillis : Long.MAX_VALUE;
+        if (loadLevel >= currentLevel) {
+            this.loadState = (loadLevel == 0) ? NORMAL : new LoadState(loadLevel, loadLevel, currentTime, expireTime);
+        } else {
+            // recover from the level in effect now
+            this.loadState = new LoadState(loadLevel, currentLevel, currentTime, expireTime);
+        }
+    }
+
+    int getLoadLevel(long currentTime) {
+        return loadState.getLoadLevel(currentTime, recoveryMillisPerLevel);
+    }
+
+    @Override
+    public String toString() {
+        return "CollectorLoadSampler{" +
+                "delegate=" + delegate +
+                ", loadLevel=" + loadState.targetLevel +
+                '}';
+    }
+
+    private static final class LoadState {
+        private final int targetLevel;
+        private final int startLevel;
+        private final long startTime;
+        private final long expireTime;
+
+        private LoadState(int targetLevel, int startLevel, long startTime, long expireTime) {
+            this.targetLevel = targetLevel;
+            this.startLevel = startLevel;
+            this.startTime = startTime;
+            this.expireTime = expireTime;
+        }
+
+        private int getLoadLevel(long currentTime, long recoveryMillisPerLevel) {
+            if (currentTime > expireTime) {
+                // not repeated within the TTL, recover to 0 from the level in effect at the expiry
+                final int expiredLevel = getAdvertisedLoadLevel(expireTime, recoveryMillisPerLevel);
+                final long recovered = (currentTime - expireTime) / recoveryMillisPerLevel;
+                return (int) Math.max(expiredLevel - recovered, 0);
+            }
+            return getAdvertisedLoadLevel(currentTime, recoveryMillisPerLevel);
+        }
+
+        private int getAdvertisedLoadLevel(long currentTime, long recoveryMillisPerLevel) {
+            if (startLevel <= targetLevel) {
+                return targetLevel;
+            }
+            final long recovered = Math.max(currentTime - startTime, 0) / recoveryMillisPerLevel;
+            return (int) Math.max(startLevel - recovered, targetLevel);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+import com.navercorp.pinpoint.profiler.util.ByteBufferUtils;
+import com.navercorp.pinpoint.thrift.io.SpanStreamConstants;
+
+/**
+ * Deflates a whole span stream packet.
+ * The header is kept readable and flagged with {@link SpanStreamConstants.Protocol#SPAN_STREAM_COMPRESSED_FLAG};
+ * packets which do not get smaller are sent as they are.
+ */
+public class SpanStreamPacketCompressor {
+
+    private final Deflater deflater;
+
+    private byte[] inputBuffer = new byte[0];
+    private byte[] outputBuffer = new byte[0];
+
+    private final AtomicLong packetCount = new AtomicLong();
+    private final AtomicLong compressedPacketCount = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong sentBytes = new AtomicLong();
+
+    public SpanStreamPacketCompressor() {
+        this(Deflater.BEST_SPEED);
+    }
+
+    public SpanStreamPacketCompressor(int level) {
+        this.deflater = new Deflater(level);
+    }
+
+    /**
+     * @param sendBuffers buffers returned by {@link SpanStreamSendData#getSendBuffers()}. They are left untouched.
+     * @return buffers to write, compressed if it saves space
+     */
+    public synchronized ByteBuffer[] compress(ByteBuffer[] sendBuffers) {
+        if (sendBuffers == null || sendBuffers.length < 2) {
+            return sendBuffers;
+        }
+        final ByteBuffer header = sendBuffers[0];
+        if (header.remaining() != SpanStreamConstants.START_PROTOCOL_BUFFER_SIZE) {
+            return sendBuffers;
+        }
+
+        final int totalLength = ByteBufferUtils.getRemaining(sendBuffers);
+        final int bodyLength = totalLength - SpanStreamConstants.START_PROTOCOL_BUFFER_SIZE;
+        packetCount.incrementAndGet();
+        uncompressedBytes.addAndGet(totalLength);
+
+        final byte[] input = getInputBuffer(bodyLength);
+        int offset = 0;
+        for (int i = 1; i < sendBuffers.length; i++) {
+            final ByteBuffer body = sendBuffers[i].duplicate();
+            final int length = body.remaining();
+            body.get(input, offset, length);
+            offset += length;
+        }
+
+        // not worth it unless the deflated body and its length field are smaller than the body
+        final int maxCompressedLength = bodyLength - SpanStreamConstants.COMPRESSED_LENGTH_BUFFER_SIZE;
+        if (maxCompressedLength <= 0) {
+            sentBytes.addAndGet(totalLength);
+            return sendBuffers;
+        }
+        final byte[] output = getOutputBuffer(maxCompressedLength);
+        deflater.reset();
+        deflater.setInput(input, 0, bodyLength);
+        deflater.finish();
+        final int compressedLength = deflater.deflate(output, 0, maxCompressedLength);
+        if (!deflater.finished()) {
+            sentBytes.addAndGet(totalLength);
+            return sendBuffers;
+        }
+
+        final ByteBuffer headerCopy = header.duplicate();
+        final ByteBuffer compressedHeader = ByteBuffer.allocate(SpanStreamConstants.START_PROTOCOL_BUFFER_SIZE + SpanStreamConstants.COMPRESSED_LENGTH_BUFFER_SIZE);
+        compressedHeader.put(headerCopy.get());
+        compressedHeader.put((byte) (headerCopy.get() | SpanStreamConstants.Protocol.SPAN_STREAM_COMPRESSED_FLAG));
+        compressedHeader.put(headerCopy.get());
+        compressedHeader.putInt(bodyLength);
+        compressedHeader.flip();
+
+        // the output buffer is reused, so hand over a copy.
+        final ByteBuffer compressedBody = ByteBuffer.wrap(Arrays.copyOf(output, compressedLength));
+
+        compressedPacketCount.incrementAndGet();
+        sentBytes.addAndGet(compressedHeader.remaining() + compressedLength);
+        return new ByteBuffer[] {compressedHeader, compressedBody};
+    }
+
+    private byte[] getInputBuffer(int length) {
+        if (inputBuffer.length < length) {
+            inputBuffer = new byte[length];
+        }
+        return inputBuffer;
+    }
+
+    private byte[] getOutputBuffer(int length) {
+        if (outputBuffer.length < length) {
+            outputBuffer = new byte[length];
+        }
+        return outputBuffer;
+    }
+
+    public long getPacketCount() {
+        return packetCount.get();
+    }
+
+    public long getCompressedPacketCount() {
+        return compressedPacketCount.get();
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+    public long getSentBytes() {
+        return sentBytes.get();
+    }
+
+    public synchronized void close() {
+        deflater.end();
+    }
+
+    @Override
+    public String toString() {
+        return "SpanStreamPacketCompressor{packetCount=" + packetCount + ", compressedPacketCount=" + compressedPacketCount
+                + ", uncompressedBytes=" + uncompressedBytes + ", sentBytes=" + sentBytes + '}';
+    }
+}
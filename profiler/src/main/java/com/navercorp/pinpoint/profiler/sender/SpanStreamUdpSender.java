@@ -60,6 +60,9 @@ public class SpanStreamUdpSender extends AbstractDataSender {
 
     private final StandbySpanStreamDataSendWorker standbySpanStreamDataSendWorker;
 
+    // null if compression is disabled
+    private final SpanStreamPacketCompressor compressor;
+
     public SpanStreamUdpSender(String host, int port, String threadName, int queueSize) {
         this(host, port, threadName, queueSize, SOCKET_TIMEOUT, SEND_BUFFER_SIZE);
     }
@@ -69,6 +72,10 @@ public class SpanStreamUdpSender extends AbstractDataSender {
     }
 
     public SpanStreamUdpSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, int dataBufferSize) {
+        this(host, port, threadName, queueSize, timeout, sendBufferSize, dataBufferSize, false);
+    }
+
+    public SpanStreamUdpSender(String host, int port, String threadName, int queueSize, int timeout, int sendBufferSize, int dataBufferSize, boolean compress) {
         if (host == null) {
             throw new NullPointerException("host must not be null");
         }
@@ -86,9 +93,11 @@ public class SpanStreamUdpSender extends AbstractDataSender {
         }
 
         // TODO If fail to create socket, stop agent start
-        logger.info("UdpDataSender initialized. host={}, port={}", host, port);
+        logger.info("UdpDataSender initialized. host={}, port={}, compress={}", host, port, compress);
         this.udpChannel = createChannel(host, port, timeout, sendBufferSize);
 
+        this.compressor = compress ? new SpanStreamPacketCompressor() : null;
+
         HeaderTBaseSerializerPoolFactory headerTBaseSerializerPoolFactory = new HeaderTBaseSerializerPoolFactory(false, dataBufferSize, true);
         this.serializerPool = new ObjectPool<HeaderTBaseSerializer>(headerTBaseSerializerPoolFactory, 16);
 
@@ -158,6 +167,11 @@ public class SpanStreamUdpSender extends AbstractDataSender {
         }
 
         executor.stop();
+
+        if (compressor != null) {
+            logger.info("{}", compressor);
+            compressor.close();
+        }
     }
 
     // Interface will be discarded.
@@ -255,7 +269,7 @@ public class SpanStreamUdpSender extends AbstractDataSender {
             return;
         }
         
-        ByteBuffer[] byteBuffers = spanStreamSendData.getSendBuffers();
+        ByteBuffer[] byteBuffers = getSendBuffers(spanStreamSendData);
         int remainingLength = ByteBufferUtils.getRemaining(byteBuffers);
 
         try {
@@ -272,6 +286,14 @@ public class SpanStreamUdpSender extends AbstractDataSender {
         }
     }
 
+    private ByteBuffer[] getSendBuffers(SpanStreamSendData spanStreamSendData) {
+        ByteBuffer[] byteBuffers = spanStreamSendData.getSendBuffers();
+        if (compressor == null) {
+            return byteBuffers;
+        }
+        return compressor.compress(byteBuffers);
+    }
+
     class FlushHandler implements StandbySpanStreamDataFlushHandler {
 
         @Override
@@ -281,7 +303,7 @@ public class SpanStreamUdpSender extends AbstractDataSender {
             }
 
             try {
-                ByteBuffer[] byteBuffers = spanStreamSendData.getSendBuffers();
+                ByteBuffer[] byteBuffers = getSendBuffers(spanStreamSendData);
                 int remainingLength = ByteBufferUtils.getRemaining(byteBuffers);
 
                 if (remainingLength != 0) {
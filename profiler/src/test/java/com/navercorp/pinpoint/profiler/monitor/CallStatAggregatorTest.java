@@ -0,0 +1,147 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.monitor;
+
+import static com.navercorp.pinpoint.common.trace.HistogramSchema.*;
+import static com.navercorp.pinpoint.common.trace.ServiceTypeProperty.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.common.service.ServiceTypeRegistryService;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.profiler.context.Span;
+import com.navercorp.pinpoint.profiler.context.SpanEvent;
+import com.navercorp.pinpoint.thrift.dto.TCallStat;
+
+public class CallStatAggregatorTest {
+
+    private static final ServiceType HTTP_CLIENT = ServiceType.of(9052, "HTTP_CLIENT", NORMAL_SCHEMA, RECORD_STATISTICS);
+    private static final ServiceType INTERNAL_METHOD = ServiceType.of(1010, "INTERNAL_METHOD", NORMAL_SCHEMA);
+
+    private CallStatAggregator aggregator;
+
+    @Before
+    public void setUp() {
+        ServiceTypeRegistryService registry = mock(ServiceTypeRegistryService.class);
+        when(registry.findServiceType(HTTP_CLIENT.getCode())).thenReturn(HTTP_CLIENT);
+        when(registry.findServiceType(INTERNAL_METHOD.getCode())).thenReturn(INTERNAL_METHOD);
+        this.aggregator = new CallStatAggregator(registry);
+    }
+
+    @Test
+    public void aggregateBySlot() {
+        Span span = new Span();
+        span.setEndPoint("localhost:8080");
+
+        aggregator.record(newSpanEvent(span, HTTP_CLIENT, 10));
+        aggregator.record(newSpanEvent(span, HTTP_CLIENT, 20));
+        aggregator.record(newSpanEvent(span, HTTP_CLIENT, 2000));
+        aggregator.record(newSpanEvent(span, INTERNAL_METHOD, 10));
+
+        List<TCallStat> callStats = aggregator.drain();
+        assertEquals(2, callStats.size());
+
+        long total = 0;
+        for (TCallStat callStat : callStats) {
+            assertEquals("api.server", callStat.getDestinationId());
+            assertEquals("localhost:8080", callStat.getCallerEndPoint());
+            if (callStat.getHistogramSlot() == 1000) {
+                assertEquals(2, callStat.getCount());
+            } else {
+                assertEquals(3000, callStat.getHistogramSlot());
+                assertEquals(1, callStat.getCount());
+            }
+            total += callStat.getCount();
+        }
+        assertEquals(3, total);
+    }
+
+    @Test
+    public void drainResetsCounters() {
+        Span span = new Span();
+        aggregator.record(newSpanEvent(span, HTTP_CLIENT, 10));
+        assertEquals(1, aggregator.drain().size());
+
+        // idle key is evicted
+        assertTrue(aggregator.drain().isEmpty());
+
+        aggregator.record(newSpanEvent(span, HTTP_CLIENT, 10));
+        List<TCallStat> callStats = aggregator.drain();
+        assertEquals(1, callStats.size());
+        assertEquals(1, callStats.get(0).getCount());
+    }
+
+    @Test
+    public void drainConcurrentlyWithRecord() throws Exception {
+        final Span span = new Span();
+        final int threadCount = 4;
+        final int recordCount = 100000;
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final CountDownLatch endLatch = new CountDownLatch(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        for (int j = 0; j < recordCount; j++) {
+                            aggregator.record(newSpanEvent(span, HTTP_CLIENT, 10));
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        endLatch.countDown();
+                    }
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long total = 0;
+        startLatch.countDown();
+        // drains, including the eviction of idle counters, while the calls are recorded
+        while (endLatch.getCount() > 0) {
+            total += sum(aggregator.drain());
+        }
+        total += sum(aggregator.drain());
+        assertEquals(threadCount * recordCount, total);
+    }
+
+    private long sum(List<TCallStat> callStats) {
+        long sum = 0;
+        for (TCallStat callStat : callStats) {
+            sum += callStat.getCount();
+        }
+        return sum;
+    }
+
+    private SpanEvent newSpanEvent(Span span, ServiceType serviceType, int elapsed) {
+        SpanEvent spanEvent = new SpanEvent(span);
+        spanEvent.setServiceType(serviceType.getCode());
+        spanEvent.setDestinationId("api.server");
+        spanEvent.setEndPoint("api.server:80");
+        spanEvent.setEndElapsed(elapsed);
+        return spanEvent;
+    }
+}
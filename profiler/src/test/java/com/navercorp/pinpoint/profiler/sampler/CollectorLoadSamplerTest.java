@@ -0,0 +1,96 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sampler;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CollectorLoadSamplerTest {
+
+    @Test
+    public void normal() {
+        CollectorLoadSampler sampler = new CollectorLoadSampler(new TrueSampler());
+        Assert.assertEquals(100, countSampling(sampler, 100));
+
+        CollectorLoadSampler falseSampler = new CollectorLoadSampler(new FalseSampler());
+        Assert.assertEquals(0, countSampling(falseSampler, 100));
+    }
+
+    @Test
+    public void shed() {
+        CollectorLoadSampler sampler = new CollectorLoadSampler(new TrueSampler());
+        sampler.updateLoadLevel(70);
+        Assert.assertEquals(30, countSampling(sampler, 100));
+
+        sampler.updateLoadLevel(100);
+        Assert.assertEquals(CollectorLoadSampler.MIN_SAMPLING_PERCENT, countSampling(sampler, 100));
+    }
+
+    @Test
+    public void recoverGradually() {
+        CollectorLoadSampler sampler = new CollectorLoadSampler(new TrueSampler(), 100, 60000);
+        sampler.updateLoadLevel(80, 1000);
+        Assert.assertEquals(80, sampler.getLoadLevel(1000));
+        Assert.assertEquals(80, sampler.getLoadLevel(5000));
+
+        sampler.updateLoadLevel(20, 5000);
+        Assert.assertEquals(80, sampler.getLoadLevel(5000));
+        Assert.assertEquals(70, sampler.getLoadLevel(6000));
+        Assert.assertEquals(20, sampler.getLoadLevel(11000));
+        Assert.assertEquals(20, sampler.getLoadLevel(20000));
+
+        // raised again while recovering
+        sampler.updateLoadLevel(0, 20000);
+        sampler.updateLoadLevel(50, 21000);
+        Assert.assertEquals(50, sampler.getLoadLevel(21000));
+
+        sampler.updateLoadLevel(0, 21000);
+        Assert.assertEquals(0, sampler.getLoadLevel(26000));
+    }
+
+    @Test
+    public void expireWithoutRepeat() {
+        CollectorLoadSampler sampler = new CollectorLoadSampler(new TrueSampler(), 100, 5000);
+        sampler.updateLoadLevel(90, 1000);
+        // repeated by the collector while loaded
+        sampler.updateLoadLevel(90, 4000);
+        Assert.assertEquals(90, sampler.getLoadLevel(9000));
+
+        // the 0 level was lost, recovers from the expiry at 9000
+        Assert.assertEquals(80, sampler.getLoadLevel(10000));
+        Assert.assertEquals(0, sampler.getLoadLevel(18000));
+        Assert.assertEquals(0, sampler.getLoadLevel(60000));
+
+        // expires while recovering to a lowered level
+        sampler.updateLoadLevel(100, 100000);
+        sampler.updateLoadLevel(50, 100000);
+        Assert.assertEquals(60, sampler.getLoadLevel(104000));
+        Assert.assertEquals(50, sampler.getLoadLevel(105000));
+        Assert.assertEquals(40, sampler.getLoadLevel(106000));
+        Assert.assertEquals(0, sampler.getLoadLevel(110000));
+    }
+
+    private int countSampling(CollectorLoadSampler sampler, int count) {
+        int sampling = 0;
+        for (int i = 0; i < count; i++) {
+            if (sampler.isSampling()) {
+                sampling++;
+            }
+        }
+        return sampling;
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.thrift.TException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.navercorp.pinpoint.common.trace.AnnotationKey;
+import com.navercorp.pinpoint.thrift.dto.TAnnotation;
+import com.navercorp.pinpoint.thrift.dto.TAnnotationValue;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
+
+/**
+ * Cpu time spent per span stream packet of 10 SQL span events, by deflate level.
+ * The bytes saved are reported by {@link SpanStreamPacketCompressor#getSentBytes()}, see SpanStreamPacketCompressorTest.
+ * <pre>
+ * mvn -pl profiler test-compile
+ * java -cp "profiler/target/test-classes:profiler/target/classes:..." org.openjdk.jmh.Main SpanStreamPacketCompressorBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class SpanStreamPacketCompressorBenchmark {
+
+    // Deflater.BEST_SPEED, Deflater.DEFAULT_COMPRESSION
+    @Param({"1", "-1"})
+    private int level;
+
+    private SpanStreamPacketCompressor compressor;
+    private SpanStreamSendData sendData;
+
+    @Setup
+    public void setup() throws TException {
+        compressor = new SpanStreamPacketCompressor(level);
+        sendData = createSqlSendData(10);
+    }
+
+    @TearDown
+    public void tearDown() {
+        compressor.close();
+    }
+
+    @Benchmark
+    public ByteBuffer[] compress() {
+        return compressor.compress(sendData.getSendBuffers());
+    }
+
+    private SpanStreamSendData createSqlSendData(int spanEventSize) throws TException {
+        HeaderTBaseSerializer serializer = new HeaderTBaseSerializerFactory().createSerializer();
+        SpanStreamSendData sendData = new SpanStreamSendData(SpanStreamUdpSender.DEFAULT_BUFFER_SIZE, 16, null);
+        for (int i = 0; i < spanEventSize; i++) {
+            TSpanEvent spanEvent = new TSpanEvent();
+            spanEvent.setSequence((short) i);
+            spanEvent.setStartElapsed(i);
+            spanEvent.setEndElapsed(10);
+            spanEvent.setServiceType((short) 2100);
+            spanEvent.setDestinationId("MYSQL_DB");
+            spanEvent.setEndPoint("10.0.0.1:3306");
+            spanEvent.addToAnnotations(createAnnotation(AnnotationKey.SQL, "SELECT id, name, email, created_at FROM member WHERE id = ? AND status = ? ORDER BY created_at DESC"));
+            spanEvent.addToAnnotations(createAnnotation(AnnotationKey.SQL_BINDVALUE, i + ", ACTIVE"));
+
+            if (!sendData.addBuffer(serializer.serialize(spanEvent))) {
+                throw new IllegalStateException("span event does not fit into the packet");
+            }
+        }
+        return sendData;
+    }
+
+    private TAnnotation createAnnotation(AnnotationKey key, String value) {
+        TAnnotation annotation = new TAnnotation(key.getCode());
+        annotation.setValue(TAnnotationValue.stringValue(value));
+        return annotation;
+    }
+}
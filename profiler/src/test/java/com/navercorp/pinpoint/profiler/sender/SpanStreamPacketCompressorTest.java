@@ -0,0 +1,121 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.profiler.sender;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.zip.Inflater;
+
+import org.apache.thrift.TException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.common.trace.AnnotationKey;
+import com.navercorp.pinpoint.profiler.util.ByteBufferUtils;
+import com.navercorp.pinpoint.thrift.dto.TAnnotation;
+import com.navercorp.pinpoint.thrift.dto.TAnnotationValue;
+import com.navercorp.pinpoint.thrift.dto.TSpanEvent;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
+import com.navercorp.pinpoint.thrift.io.SpanStreamConstants;
+
+public class SpanStreamPacketCompressorTest {
+
+    @Test
+    public void compress() throws Exception {
+        SpanStreamSendData sendData = createSqlSendData(10);
+        byte[] original = toBytes(sendData.getSendBuffers());
+
+        SpanStreamPacketCompressor compressor = new SpanStreamPacketCompressor();
+        ByteBuffer[] compressed = compressor.compress(sendData.getSendBuffers());
+        byte[] compressedBytes = toBytes(compressed);
+
+        Assert.assertTrue(compressedBytes.length < original.length);
+        Assert.assertEquals(SpanStreamConstants.Protocol.SPAN_STREAM_SIGNATURE, compressedBytes[0]);
+        Assert.assertEquals(SpanStreamConstants.Protocol.SPAN_STREAM_VERSION | SpanStreamConstants.Protocol.SPAN_STREAM_COMPRESSED_FLAG, compressedBytes[1]);
+        Assert.assertEquals(original[2], compressedBytes[2]);
+        Assert.assertEquals(1, compressor.getCompressedPacketCount());
+
+        ByteBuffer compressedBuffer = ByteBuffer.wrap(compressedBytes);
+        compressedBuffer.position(SpanStreamConstants.START_PROTOCOL_BUFFER_SIZE);
+        int bodyLength = compressedBuffer.getInt();
+        Assert.assertEquals(original.length - SpanStreamConstants.START_PROTOCOL_BUFFER_SIZE, bodyLength);
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressedBytes, compressedBuffer.position(), compressedBuffer.remaining());
+        byte[] body = new byte[bodyLength];
+        Assert.assertEquals(bodyLength, inflater.inflate(body));
+        inflater.end();
+
+        for (int i = 0; i < bodyLength; i++) {
+            Assert.assertEquals(original[i + SpanStreamConstants.START_PROTOCOL_BUFFER_SIZE], body[i]);
+        }
+        compressor.close();
+    }
+
+    @Test
+    public void incompressible() {
+        byte[] random = new byte[1024];
+        new Random(0).nextBytes(random);
+
+        SpanStreamSendData sendData = new SpanStreamSendData(SpanStreamUdpSender.DEFAULT_BUFFER_SIZE, 16, null);
+        Assert.assertTrue(sendData.addBuffer(random));
+
+        SpanStreamPacketCompressor compressor = new SpanStreamPacketCompressor();
+        ByteBuffer[] sendBuffers = sendData.getSendBuffers();
+        Assert.assertSame(sendBuffers, compressor.compress(sendBuffers));
+        Assert.assertEquals(0, compressor.getCompressedPacketCount());
+        compressor.close();
+    }
+
+    private SpanStreamSendData createSqlSendData(int spanEventSize) throws TException {
+        HeaderTBaseSerializer serializer = new HeaderTBaseSerializerFactory().createSerializer();
+        SpanStreamSendData sendData = new SpanStreamSendData(SpanStreamUdpSender.DEFAULT_BUFFER_SIZE, 16, null);
+        for (int i = 0; i < spanEventSize; i++) {
+            TSpanEvent spanEvent = new TSpanEvent();
+            spanEvent.setSequence((short) i);
+            spanEvent.setStartElapsed(i);
+            spanEvent.setEndElapsed(10);
+            spanEvent.setServiceType((short) 2100);
+            spanEvent.setDestinationId("MYSQL_DB");
+            spanEvent.setEndPoint("10.0.0.1:3306");
+            spanEvent.addToAnnotations(createAnnotation(AnnotationKey.SQL, "SELECT id, name, email, created_at FROM member WHERE id = ? AND status = ? ORDER BY created_at DESC"));
+            spanEvent.addToAnnotations(createAnnotation(AnnotationKey.SQL_BINDVALUE, i + ", ACTIVE"));
+
+            Assert.assertTrue(sendData.addBuffer(serializer.serialize(spanEvent)));
+        }
+        return sendData;
+    }
+
+    private TAnnotation createAnnotation(AnnotationKey key, String value) {
+        TAnnotation annotation = new TAnnotation(key.getCode());
+        annotation.setValue(TAnnotationValue.stringValue(value));
+        return annotation;
+    }
+
+    private byte[] toBytes(ByteBuffer[] buffers) {
+        byte[] bytes = new byte[ByteBufferUtils.getRemaining(buffers)];
+        int offset = 0;
+        for (ByteBuffer buffer : buffers) {
+            ByteBuffer duplicate = buffer.duplicate();
+            int length = duplicate.remaining();
+            duplicate.get(bytes, offset, length);
+            offset += length;
+        }
+        return bytes;
+    }
+}
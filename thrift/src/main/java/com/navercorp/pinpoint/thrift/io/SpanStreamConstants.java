@@ -24,11 +24,16 @@ public class SpanStreamConstants {
     public static final int START_PROTOCOL_BUFFER_SIZE = 3;
     public static final int DEFAULT_CHUNK_FLAG_BUFFER_SIZE = 2;
     public static final int END_PROTOCOL_BUFFER_SIZE = 1;
+    public static final int COMPRESSED_LENGTH_BUFFER_SIZE = 4;
 
     public static class Protocol {
         public static final byte SPAN_STREAM_SIGNATURE = (byte) 0xCC;
         public static final byte SPAN_STREAM_VERSION = (byte) 0x10;
         public static final byte SPAN_STREAM_END = 'z';
+
+        // set on the version byte when everything after the header is deflated.
+        // a compressed packet is : signature, version | flag, chunk count, uncompressed length(int), deflated (chunks + end)
+        public static final byte SPAN_STREAM_COMPRESSED_FLAG = (byte) 0x01;
     }
 
 }
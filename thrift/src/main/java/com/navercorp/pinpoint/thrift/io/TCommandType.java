@@ -47,6 +47,18 @@ public enum TCommandType {
             return new TCommandTransferResponse();
         }
     },
+    TRANSFER_BATCH((short) 702, TCommandTransferBatch.class) {
+        @Override
+        public TBase newObject() {
+            return new TCommandTransferBatch();
+        }
+    },
+    TRANSFER_BATCH_RESPONSE((short) 703, TCommandTransferBatchResponse.class) {
+        @Override
+        public TBase newObject() {
+            return new TCommandTransferBatchResponse();
+        }
+    },
     ECHO((short) 710, TCommandEcho.class) {
         @Override
         public TBase newObject() {
@@ -88,6 +100,12 @@ public enum TCommandType {
         public TBase newObject() {
             return new TCmdActiveThreadDumpRes();
         }
+    },
+    COLLECTOR_LOAD((short) 750, TCmdCollectorLoad.class) {
+        @Override
+        public TBase newObject() {
+            return new TCmdCollectorLoad();
+        }
     };
 
     private final short type;
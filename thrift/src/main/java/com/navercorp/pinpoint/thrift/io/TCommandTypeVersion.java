@@ -40,7 +40,8 @@ public enum TCommandTypeVersion {
     V_1_5_0_SNAPSHOT("1.5.0-SNAPSHOT", V_1_1_0,
             TCommandType.ACTIVE_THREAD_COUNT, TCommandType.ACTIVE_THREAD_COUNT_RESPONSE,
             TCommandType.ACTIVE_THREAD_DUMP, TCommandType.ACTIVE_THREAD_DUMP_RESPONSE,
-            TCommandType.TRANSFER_RESPONSE),
+            TCommandType.TRANSFER_RESPONSE, TCommandType.COLLECTOR_LOAD,
+            TCommandType.TRANSFER_BATCH, TCommandType.TRANSFER_BATCH_RESPONSE),
     
     UNKNOWN("UNKNOWN");
 
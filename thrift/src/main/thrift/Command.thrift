@@ -70,6 +70,10 @@ struct TCmdActiveThreadDumpRes {
 	1: list<TActiveThreadDump> threadDumps
 }
 
+struct TCmdCollectorLoad {
+	1: i32	loadLevel
+}
+
 struct TCommandEcho {
 	1: string	message
 }
@@ -105,4 +109,16 @@ struct TCommandTransferResponse {
 	1: TRouteResult routeResult
 	2: binary payload
 	3: optional string message
+}
+
+// one command routed by the collector to several of its agents, the payload is shared by all transfers
+struct TCommandTransferBatch {
+	1: list<TCommandTransfer> transferList
+	2: binary payload
+	// time left for the web, agents not answering within it are reported as TIMEOUT
+	3: optional i64 timeoutMillis
+}
+// responses in the order of TCommandTransferBatch.transferList
+struct TCommandTransferBatchResponse {
+	1: list<TCommandTransferResponse> responseList
 }
\ No newline at end of file
@@ -67,3 +67,21 @@ struct TAgentStatBatch {
     2: i64                      startTimestamp
     10: list<TAgentStat>        agentStats
 }
+
+struct TCallStat {
+    1: string                   destinationId
+    2: i16                      serviceType
+    3: string                   endPoint
+    4: string                   callerEndPoint
+    5: i16                      histogramSlot
+    6: i64                      count
+}
+
+struct TCallStatBatch {
+    1: string                   agentId
+    2: i64                      startTimestamp
+    3: i64                      timestamp
+    4: string                   applicationName
+    5: i16                      applicationServiceType
+    10: list<TCallStat>         callStats
+}
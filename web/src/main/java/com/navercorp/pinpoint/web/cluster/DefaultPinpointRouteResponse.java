@@ -33,6 +33,7 @@ import org.apache.thrift.TException;
 public class DefaultPinpointRouteResponse implements PinpointRouteResponse {
 
     private final byte[] payload;
+    private final TCommandTransferResponse commandResponse;
 
     private TRouteResult routeResult;
     private TBase response;
@@ -41,10 +42,28 @@ public class DefaultPinpointRouteResponse implements PinpointRouteResponse {
 
     public DefaultPinpointRouteResponse(byte[] payload) {
         this.payload = payload;
+        this.commandResponse = null;
+    }
+
+    /**
+     * response of an agent taken out of a {@link com.navercorp.pinpoint.thrift.dto.command.TCommandTransferBatchResponse}
+     */
+    public DefaultPinpointRouteResponse(TCommandTransferResponse commandResponse) {
+        if (commandResponse == null) {
+            throw new NullPointerException("commandResponse may not be null");
+        }
+        this.payload = null;
+        this.commandResponse = commandResponse;
     }
 
     public void parse(DeserializerFactory<HeaderTBaseDeserializer> commandDeserializerFactory) {
         if (!isParsed) {
+            if (commandResponse != null) {
+                parseCommandResponse(commandDeserializerFactory, commandResponse);
+                isParsed = true;
+                return;
+            }
+
             if (payload == null || payload.length == 0) {
                 routeResult = TRouteResult.EMPTY_RESPONSE;
                 return;
@@ -55,14 +74,7 @@ public class DefaultPinpointRouteResponse implements PinpointRouteResponse {
             if (object == null) {
                 routeResult = TRouteResult.NOT_SUPPORTED_RESPONSE;
             } else if (object instanceof  TCommandTransferResponse) {
-                TCommandTransferResponse commandResponse = (TCommandTransferResponse) object;
-                response = deserialize(commandDeserializerFactory, commandResponse.getPayload(), null);
-                if (response == null) {
-                    routeResult = TRouteResult.NOT_SUPPORTED_RESPONSE;
-                } else {
-                    routeResult = commandResponse.getRouteResult();
-                }
-
+                parseCommandResponse(commandDeserializerFactory, (TCommandTransferResponse) object);
             } else {
                 routeResult = TRouteResult.UNKNOWN;
                 response = object;
@@ -71,6 +83,15 @@ public class DefaultPinpointRouteResponse implements PinpointRouteResponse {
         }
     }
 
+    private void parseCommandResponse(DeserializerFactory<HeaderTBaseDeserializer> commandDeserializerFactory, TCommandTransferResponse commandResponse) {
+        response = deserialize(commandDeserializerFactory, commandResponse.getPayload(), null);
+        if (response == null) {
+            routeResult = TRouteResult.NOT_SUPPORTED_RESPONSE;
+        } else {
+            routeResult = commandResponse.getRouteResult();
+        }
+    }
+
     @Override
     public TRouteResult getRouteResult() {
         assertParsed();
@@ -87,12 +87,25 @@ public class HbaseAgentStatDao implements AgentStatDao {
         List<AgentStat> merged = new ArrayList<AgentStat>(expectedSize);
 
         for(List<AgentStat> each : intermediate) {
-            merged.addAll(each);
+            for (AgentStat agentStat : each) {
+                // block rows may hold samples outside of the range
+                final long timestamp = getTimestamp(agentStat);
+                if (range.getFrom() < timestamp && timestamp <= range.getTo()) {
+                    merged.add(agentStat);
+                }
+            }
         }
 
         return merged;
     }
 
+    private long getTimestamp(AgentStat agentStat) {
+        if (agentStat.getMemoryGc() != null) {
+            return agentStat.getMemoryGc().getTimestamp();
+        }
+        return agentStat.getCpuLoad().getTimestamp();
+    }
+
     /**
      * make a row key based on timestamp
      * FIXME there is the same duplicate code at collector's dao module
@@ -109,7 +122,9 @@ public class HbaseAgentStatDao implements AgentStatDao {
         Scan scan = new Scan();
         scan.setCaching(this.scanCacheSize);
 
-        byte[] startKey = getRowKey(agentId, range.getFrom());
+        // include the block row holding the samples right after range.from
+        final long fromBlockTimestamp = range.getFrom() - (range.getFrom() % AGENT_STAT_BLOCK_SIZE);
+        byte[] startKey = getRowKey(agentId, fromBlockTimestamp - 1);
         byte[] endKey = getRowKey(agentId, range.getTo());
 
         // start key is replaced by end key because key has been reversed
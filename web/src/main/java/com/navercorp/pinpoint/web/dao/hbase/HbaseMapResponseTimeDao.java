@@ -20,10 +20,13 @@ import com.navercorp.pinpoint.common.hbase.HBaseTables;
 import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
 import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
 import com.navercorp.pinpoint.web.dao.MapResponseDao;
+import com.navercorp.pinpoint.web.util.TimeWindowDownSampler;
 import com.navercorp.pinpoint.web.vo.Application;
 import com.navercorp.pinpoint.web.vo.Range;
 import com.navercorp.pinpoint.web.vo.RangeFactory;
 import com.navercorp.pinpoint.web.vo.ResponseTime;
+import com.navercorp.pinpoint.web.vo.StatisticsRollupRange;
+import com.navercorp.pinpoint.web.vo.StatisticsRollupSelector;
 
 import org.apache.hadoop.hbase.client.Scan;
 import org.slf4j.Logger;
@@ -56,6 +59,9 @@ public class HbaseMapResponseTimeDao implements MapResponseDao {
     @Autowired
     private RangeFactory rangeFactory;
 
+    @Autowired
+    private StatisticsRollupSelector statisticsRollupSelector;
+
 
     @Override
     public List<ResponseTime> selectResponseTime(Application application, Range range) {
@@ -65,8 +71,13 @@ public class HbaseMapResponseTimeDao implements MapResponseDao {
         if (logger.isDebugEnabled()) {
             logger.debug("selectResponseTime applicationName:{}, {}", application, range);
         }
-        Scan scan = createScan(application, range);
-        List<ResponseTime> responseTimeList = hbaseOperations2.find(tableName, scan, responseTimeMapper);
+        // response times are merged into the same window slots as the application map
+        final long windowSlotSize = TimeWindowDownSampler.SAMPLER.getWindowSize(range);
+        final List<ResponseTime> responseTimeList = new ArrayList<ResponseTime>();
+        for (StatisticsRollupRange rollupRange : statisticsRollupSelector.select(range, windowSlotSize)) {
+            final Scan scan = createScan(application, rangeFactory.createStatisticsRange(rollupRange));
+            responseTimeList.addAll(hbaseOperations2.find(rollupRange.getTableName(tableName), scan, responseTimeMapper));
+        }
         if (logger.isDebugEnabled()) {
             logger.debug("row:{}", responseTimeList.size());
             for (ResponseTime responseTime : responseTimeList) {
@@ -78,9 +89,6 @@ public class HbaseMapResponseTimeDao implements MapResponseDao {
     }
 
     private Scan createScan(Application application, Range range) {
-        range = rangeFactory.createStatisticsRange(range);
-
-
         if (logger.isDebugEnabled()) {
             logger.debug("scan time:{} ", range.prettyToString());
         }
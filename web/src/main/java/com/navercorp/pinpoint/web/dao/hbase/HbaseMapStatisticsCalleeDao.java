@@ -29,6 +29,8 @@ import com.navercorp.pinpoint.web.util.TimeWindowDownSampler;
 import com.navercorp.pinpoint.web.vo.Application;
 import com.navercorp.pinpoint.web.vo.Range;
 import com.navercorp.pinpoint.web.vo.RangeFactory;
+import com.navercorp.pinpoint.web.vo.StatisticsRollupRange;
+import com.navercorp.pinpoint.web.vo.StatisticsRollupSelector;
 
 import org.apache.hadoop.hbase.client.Scan;
 import org.slf4j.Logger;
@@ -61,6 +63,9 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
     @Autowired
     private RangeFactory rangeFactory;
 
+    @Autowired
+    private StatisticsRollupSelector statisticsRollupSelector;
+
     @Override
     public LinkDataMap selectCallee(Application calleeApplication, Range range) {
         if (calleeApplication == null) {
@@ -69,11 +74,17 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
         if (range == null) {
             throw new NullPointerException("range must not be null");
         }
-        Scan scan = createScan(calleeApplication, range);
-        //List<LinkDataMap> foundListList = hbaseOperations2.find(HBaseTables.MAP_STATISTICS_CALLER, scan, mapStatisticsCalleeMapper);
         final TimeWindow timeWindow = new TimeWindow(range, TimeWindowDownSampler.SAMPLER);
         final ResultsExtractor<LinkDataMap> resultExtractor = new RowMapReduceResultExtractor<LinkDataMap>(mapStatisticsCalleeMapper, new MapStatisticsTimeWindowReducer(timeWindow));
-        LinkDataMap foundListList = hbaseOperations2.find(HBaseTables.MAP_STATISTICS_CALLER, scan, resultExtractor);
+        // the reducer merges the rows of every resolution into the same LinkDataMap
+        LinkDataMap foundListList = null;
+        for (StatisticsRollupRange rollupRange : statisticsRollupSelector.select(range, timeWindow.getWindowSlotSize())) {
+            final Scan scan = createScan(calleeApplication, rangeFactory.createStatisticsRange(rollupRange));
+            final LinkDataMap found = hbaseOperations2.find(rollupRange.getTableName(HBaseTables.MAP_STATISTICS_CALLER), scan, resultExtractor);
+            if (found != null) {
+                foundListList = found;
+            }
+        }
 
         if (foundListList == null) {
             logger.debug("There's no caller data. {}, {}", calleeApplication, range);
@@ -114,7 +125,7 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
         if (logger.isDebugEnabled()) {
             logger.debug("selectCalleeStatistics. {}, {}, {}", callerApplication, calleeApplication, range);
         }
-        Scan scan = createScan(calleeApplication, range);
+        Scan scan = createScan(calleeApplication, rangeFactory.createStatisticsRange(range));
 
 
         final LinkFilter filter = new DefaultLinkFilter(callerApplication, calleeApplication);
@@ -123,8 +134,6 @@ public class HbaseMapStatisticsCalleeDao implements MapStatisticsCalleeDao {
     }
 
     private Scan createScan(Application application, Range range) {
-        range = rangeFactory.createStatisticsRange(range);
-
         if (logger.isDebugEnabled()) {
             logger.debug("scan time:{} ", range.prettyToString());
         }
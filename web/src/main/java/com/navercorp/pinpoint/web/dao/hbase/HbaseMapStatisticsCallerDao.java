@@ -29,6 +29,8 @@ import com.navercorp.pinpoint.web.util.TimeWindowDownSampler;
 import com.navercorp.pinpoint.web.vo.Application;
 import com.navercorp.pinpoint.web.vo.Range;
 import com.navercorp.pinpoint.web.vo.RangeFactory;
+import com.navercorp.pinpoint.web.vo.StatisticsRollupRange;
+import com.navercorp.pinpoint.web.vo.StatisticsRollupSelector;
 
 import org.apache.hadoop.hbase.client.Scan;
 import org.slf4j.Logger;
@@ -61,14 +63,22 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
     @Autowired
     private RangeFactory rangeFactory;
 
+    @Autowired
+    private StatisticsRollupSelector statisticsRollupSelector;
+
     @Override
     public LinkDataMap selectCaller(Application callerApplication, Range range) {
-        Scan scan = createScan(callerApplication, range);
-        //final List<LinkDataMap> foundList = hbaseOperations2.find(HBaseTables.MAP_STATISTICS_CALLEE, scan, mapStatisticsCallerMapper);
-
         final TimeWindow timeWindow = new TimeWindow(range, TimeWindowDownSampler.SAMPLER);
         final ResultsExtractor<LinkDataMap> resultExtractor = new RowMapReduceResultExtractor<LinkDataMap>(mapStatisticsCallerMapper, new MapStatisticsTimeWindowReducer(timeWindow));
-        final LinkDataMap foundList = hbaseOperations2.find(HBaseTables.MAP_STATISTICS_CALLEE, scan, resultExtractor);
+        // the reducer merges the rows of every resolution into the same LinkDataMap
+        LinkDataMap foundList = null;
+        for (StatisticsRollupRange rollupRange : statisticsRollupSelector.select(range, timeWindow.getWindowSlotSize())) {
+            final Scan scan = createScan(callerApplication, rangeFactory.createStatisticsRange(rollupRange));
+            final LinkDataMap found = hbaseOperations2.find(rollupRange.getTableName(HBaseTables.MAP_STATISTICS_CALLEE), scan, resultExtractor);
+            if (found != null) {
+                foundList = found;
+            }
+        }
         logger.debug("Caller data. {}, {}", foundList, range);
         
         if (foundList == null) {
@@ -108,7 +118,7 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
         if (logger.isDebugEnabled()) {
             logger.debug("selectCallerStatistics. {}, {}, {}", callerApplication, calleeApplication, range);
         }
-        Scan scan = createScan(callerApplication, range);
+        Scan scan = createScan(callerApplication, rangeFactory.createStatisticsRange(range));
 
         final LinkFilter filter = new DefaultLinkFilter(callerApplication, calleeApplication);
         RowMapper<LinkDataMap> mapper = new MapStatisticsCallerMapper(filter);
@@ -116,8 +126,6 @@ public class HbaseMapStatisticsCallerDao implements MapStatisticsCallerDao {
     }
 
     private Scan createScan(Application application, Range range) {
-        range = rangeFactory.createStatisticsRange(range);
-
         if (logger.isDebugEnabled()) {
             logger.debug("scan Time:{}", range.prettyToString());
         }
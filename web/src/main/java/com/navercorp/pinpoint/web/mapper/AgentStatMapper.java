@@ -22,14 +22,18 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 
+import com.navercorp.pinpoint.common.bo.AgentStatBlockBo;
 import com.navercorp.pinpoint.common.bo.AgentStatCpuLoadBo;
 import com.navercorp.pinpoint.common.bo.AgentStatMemoryGcBo;
+import com.navercorp.pinpoint.common.util.BytesUtils;
 import com.navercorp.pinpoint.thrift.dto.TAgentStat;
 import com.navercorp.pinpoint.thrift.dto.TJvmGc;
 import com.navercorp.pinpoint.web.vo.AgentStat;
 
 import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.thrift.TDeserializer;
 import org.apache.thrift.TException;
 import org.apache.thrift.protocol.TCompactProtocol;
@@ -51,26 +55,53 @@ public class AgentStatMapper implements RowMapper<List<AgentStat>> {
             return Collections.emptyList();
         }
 
-        Map<byte[], byte[]> qualifierMap = result.getFamilyMap(AGENT_STAT_CF_STATISTICS);
+        NavigableMap<byte[], byte[]> qualifierMap = result.getFamilyMap(AGENT_STAT_CF_STATISTICS);
         // FIXME (2014.08) Legacy support for TAgentStat Thrift DTO stored directly into hbase.
         if (qualifierMap.containsKey(AGENT_STAT_CF_STATISTICS_V1)) {
             return readAgentStatThriftDto(qualifierMap.get(AGENT_STAT_CF_STATISTICS_V1));
         }
 
-        AgentStat agentStat = new AgentStat();
-        if (qualifierMap.containsKey(AGENT_STAT_CF_STATISTICS_MEMORY_GC)) {
-            AgentStatMemoryGcBo.Builder builder = new AgentStatMemoryGcBo.Builder(qualifierMap.get(AGENT_STAT_CF_STATISTICS_MEMORY_GC));
-            agentStat.setMemoryGc(builder.build());
+        List<AgentStat> agentStats = new ArrayList<AgentStat>();
+        // block columns are ordered by the offset of their first sample, read them newest first
+        for (Map.Entry<byte[], byte[]> entry : qualifierMap.descendingMap().entrySet()) {
+            if (isBlockQualifier(entry.getKey())) {
+                readAgentStatBlock(entry.getValue(), agentStats);
+            }
         }
-        if (qualifierMap.containsKey(AGENT_STAT_CF_STATISTICS_CPU_LOAD)) {
-            AgentStatCpuLoadBo.Builder builder = new AgentStatCpuLoadBo.Builder(qualifierMap.get(AGENT_STAT_CF_STATISTICS_CPU_LOAD));
-            agentStat.setCpuLoad(builder.build());
+
+        // rows written before the block format, or a sample at the start of the block
+        if (qualifierMap.containsKey(AGENT_STAT_CF_STATISTICS_MEMORY_GC) || qualifierMap.containsKey(AGENT_STAT_CF_STATISTICS_CPU_LOAD)) {
+            AgentStat agentStat = new AgentStat();
+            if (qualifierMap.containsKey(AGENT_STAT_CF_STATISTICS_MEMORY_GC)) {
+                AgentStatMemoryGcBo.Builder builder = new AgentStatMemoryGcBo.Builder(qualifierMap.get(AGENT_STAT_CF_STATISTICS_MEMORY_GC));
+                agentStat.setMemoryGc(builder.build());
+            }
+            if (qualifierMap.containsKey(AGENT_STAT_CF_STATISTICS_CPU_LOAD)) {
+                AgentStatCpuLoadBo.Builder builder = new AgentStatCpuLoadBo.Builder(qualifierMap.get(AGENT_STAT_CF_STATISTICS_CPU_LOAD));
+                agentStat.setCpuLoad(builder.build());
+            }
+            agentStats.add(agentStat);
         }
-        List<AgentStat> agentStats = new ArrayList<AgentStat>();
-        agentStats.add(agentStat);
         return agentStats;
     }
 
+    private boolean isBlockQualifier(byte[] qualifier) {
+        return qualifier.length == AGENT_STAT_CF_STATISTICS_BLOCK.length + BytesUtils.INT_BYTE_LENGTH
+                && Bytes.startsWith(qualifier, AGENT_STAT_CF_STATISTICS_BLOCK);
+    }
+
+    private void readAgentStatBlock(byte[] value, List<AgentStat> agentStats) {
+        final AgentStatBlockBo agentStatBlockBo = AgentStatBlockBo.readValue(value);
+        final List<AgentStatMemoryGcBo> memoryGcBos = agentStatBlockBo.getMemoryGcBos();
+        final List<AgentStatCpuLoadBo> cpuLoadBos = agentStatBlockBo.getCpuLoadBos();
+        for (int i = agentStatBlockBo.size() - 1; i >= 0; i--) {
+            AgentStat agentStat = new AgentStat();
+            agentStat.setMemoryGc(memoryGcBos.get(i));
+            agentStat.setCpuLoad(cpuLoadBos.get(i));
+            agentStats.add(agentStat);
+        }
+    }
+
     // FIXME (2014.08) Legacy support for TAgentStat Thrift DTO stored directly into hbase.
     private List<AgentStat> readAgentStatThriftDto(byte[] tAgentStatByteArray) throws TException {
         // CompactProtocol used
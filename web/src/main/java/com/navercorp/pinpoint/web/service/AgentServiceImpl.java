@@ -26,6 +26,9 @@ import com.navercorp.pinpoint.rpc.util.ListUtils;
 import com.navercorp.pinpoint.thrift.dto.command.TCmdActiveThreadCount;
 import com.navercorp.pinpoint.thrift.dto.command.TCmdActiveThreadCountRes;
 import com.navercorp.pinpoint.thrift.dto.command.TCommandTransfer;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransferBatch;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransferBatchResponse;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransferResponse;
 import com.navercorp.pinpoint.thrift.dto.command.TRouteResult;
 import com.navercorp.pinpoint.thrift.io.DeserializerFactory;
 import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializer;
@@ -41,6 +44,8 @@ import com.navercorp.pinpoint.web.vo.AgentActiveThreadCountList;
 import com.navercorp.pinpoint.web.vo.AgentInfo;
 import org.apache.thrift.TBase;
 import org.apache.thrift.TException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -55,6 +60,11 @@ public class AgentServiceImpl implements AgentService {
 
     private static final long DEFUALT_FUTURE_TIMEOUT = 3000;
 
+    // time left for a batch to come back from the collector after its agents are given up
+    private static final long BATCH_RESPONSE_MARGIN = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
     @Autowired
     private AgentInfoService agentInfoService;
 
@@ -67,6 +77,9 @@ public class AgentServiceImpl implements AgentService {
     @Autowired
     private DeserializerFactory<HeaderTBaseDeserializer> commandDeserializerFactory;
 
+    // collectors of older versions do not know the batch command. a reconnected collector is a new PinpointServer
+    private final Map<PinpointServer, Boolean> batchUnsupportedCollectorMap = Collections.synchronizedMap(new WeakHashMap<PinpointServer, Boolean>());
+
     @Override
     public AgentInfo getAgentInfo(String applicationName, String agentId, long startTimeStamp) {
         return getAgentInfo(applicationName, agentId, startTimeStamp, false);
@@ -167,6 +180,92 @@ public class AgentServiceImpl implements AgentService {
     @Override
     public Map<AgentInfo, PinpointRouteResponse> invoke(List<AgentInfo> agentInfoList, byte[] payload, long timeout)
             throws TException {
+        Map<AgentInfo, PinpointRouteResponse> result = new HashMap<AgentInfo, PinpointRouteResponse>();
+
+        // one request per collector carrying all of its agents, instead of one request per agent
+        Map<PinpointServer, List<AgentInfo>> collectorAgentMap = new HashMap<PinpointServer, List<AgentInfo>>();
+        List<AgentInfo> eachAgentList = new ArrayList<AgentInfo>();
+        for (AgentInfo agentInfo : agentInfoList) {
+            PinpointServer collector = pinpointSocketManager.getCollector(agentInfo);
+            if (collector == null) {
+                result.put(agentInfo, new FailedPinpointRouteResponse(TRouteResult.NOT_FOUND, null));
+                continue;
+            }
+            if (batchUnsupportedCollectorMap.containsKey(collector)) {
+                eachAgentList.add(agentInfo);
+                continue;
+            }
+
+            List<AgentInfo> collectorAgentList = collectorAgentMap.get(collector);
+            if (collectorAgentList == null) {
+                collectorAgentList = new ArrayList<AgentInfo>();
+                collectorAgentMap.put(collector, collectorAgentList);
+            }
+            collectorAgentList.add(agentInfo);
+        }
+
+        Map<PinpointServer, Future<ResponseMessage>> futureMap = new HashMap<PinpointServer, Future<ResponseMessage>>();
+        for (Map.Entry<PinpointServer, List<AgentInfo>> collectorAgentEntry : collectorAgentMap.entrySet()) {
+            PinpointServer collector = collectorAgentEntry.getKey();
+            TCommandTransferBatch batchObject = createCommandTransferBatchObject(collectorAgentEntry.getValue(), payload, timeout);
+            futureMap.put(collector, collector.request(serialize(batchObject)));
+        }
+
+        long startTime = System.currentTimeMillis();
+
+        if (!eachAgentList.isEmpty()) {
+            result.putAll(invokeEach(eachAgentList, payload, timeout));
+        }
+
+        List<AgentInfo> timeoutAgentList = new ArrayList<AgentInfo>();
+        for (Map.Entry<PinpointServer, List<AgentInfo>> collectorAgentEntry : collectorAgentMap.entrySet()) {
+            PinpointServer collector = collectorAgentEntry.getKey();
+            List<AgentInfo> collectorAgentList = collectorAgentEntry.getValue();
+
+            Future<ResponseMessage> future = futureMap.get(collector);
+            if (!future.await(getTimeoutMillis(startTime, timeout))) {
+                // the collector did not answer within its deadline, the agents are asked one by one instead of failing them all
+                logger.info("{} batched command timed out, commands are sent per agent. agents:{}", collector, collectorAgentList.size());
+                timeoutAgentList.addAll(collectorAgentList);
+                continue;
+            }
+
+            ResponseMessage responseMessage = future.getResult();
+            if (responseMessage == null) {
+                for (AgentInfo agentInfo : collectorAgentList) {
+                    result.put(agentInfo, new FailedPinpointRouteResponse(TRouteResult.EMPTY_RESPONSE, null));
+                }
+                continue;
+            }
+
+            TBase<?, ?> response = deserialize(responseMessage.getMessage(), null);
+            if (response instanceof TCommandTransferBatchResponse) {
+                List<TCommandTransferResponse> responseList = ((TCommandTransferBatchResponse) response).getResponseList();
+                if (responseList != null && responseList.size() == collectorAgentList.size()) {
+                    for (int i = 0; i < collectorAgentList.size(); i++) {
+                        DefaultPinpointRouteResponse agentResponse = new DefaultPinpointRouteResponse(responseList.get(i));
+                        agentResponse.parse(commandDeserializerFactory);
+                        result.put(collectorAgentList.get(i), agentResponse);
+                    }
+                    continue;
+                }
+            }
+
+            // collectors of older versions do not know the batch command
+            logger.info("{} does not support batched commands, commands are sent per agent. response:{}", collector, response);
+            batchUnsupportedCollectorMap.put(collector, Boolean.TRUE);
+            result.putAll(invokeEach(collectorAgentList, payload, getTimeoutMillis(startTime, timeout)));
+        }
+
+        if (!timeoutAgentList.isEmpty()) {
+            result.putAll(invokeEach(timeoutAgentList, payload, timeout));
+        }
+
+        return result;
+    }
+
+    private Map<AgentInfo, PinpointRouteResponse> invokeEach(List<AgentInfo> agentInfoList, byte[] payload, long timeout)
+            throws TException {
         Map<AgentInfo, Future<ResponseMessage>> futureMap = new HashMap<AgentInfo, Future<ResponseMessage>>();
         for (AgentInfo agentInfo : agentInfoList) {
             TCommandTransfer transferObject = createCommandTransferObject(agentInfo, payload);
@@ -233,8 +332,21 @@ public class AgentServiceImpl implements AgentService {
         return transferObject;
     }
 
+    private TCommandTransferBatch createCommandTransferBatchObject(List<AgentInfo> agentInfoList, byte[] payload, long timeout) {
+        TCommandTransferBatch batchObject = new TCommandTransferBatch();
+        for (AgentInfo agentInfo : agentInfoList) {
+            // the payload is carried once by the batch
+            batchObject.addToTransferList(createCommandTransferObject(agentInfo, null));
+        }
+        batchObject.setPayload(payload);
+        // the collector answers with TIMEOUT for agents still running at the deadline, before this side times out
+        batchObject.setTimeoutMillis(getBatchTimeoutMillis(timeout));
+
+        return batchObject;
+    }
+
     private PinpointRouteResponse getResponse(Future<ResponseMessage> future, long timeout) {
-        boolean completed = future.await(DEFUALT_FUTURE_TIMEOUT);
+        boolean completed = future.await(timeout);
         if (completed) {
             DefaultPinpointRouteResponse response = new DefaultPinpointRouteResponse(future.getResult().getMessage());
             response.parse(commandDeserializerFactory);
@@ -244,6 +356,10 @@ public class AgentServiceImpl implements AgentService {
         }
     }
 
+    private long getBatchTimeoutMillis(long timeout) {
+        return Math.max(timeout - BATCH_RESPONSE_MARGIN, timeout / 2);
+    }
+
     private long getTimeoutMillis(long startTime, long timeout) {
         return Math.max(startTime + timeout - System.currentTimeMillis(), 100L);
     }
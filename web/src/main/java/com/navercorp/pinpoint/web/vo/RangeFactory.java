@@ -44,4 +44,18 @@ public class RangeFactory {
         return Range.createUncheckedRange(startTime, endTime);
     }
 
+    /**
+     * Create reversed Range for the statistics rows of the rollupRange
+     *
+     * @param rollupRange
+     * @return
+     */
+    public Range createStatisticsRange(StatisticsRollupRange rollupRange) {
+        if (rollupRange == null) {
+            throw new NullPointerException("rollupRange must not be null");
+        }
+        final Range range = rollupRange.getRange();
+        return Range.createUncheckedRange(range.getFrom() - 1, range.getTo());
+    }
+
 }
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.vo;
+
+import com.navercorp.pinpoint.common.hbase.StatisticsResolution;
+
+/**
+ * Statistics rows of a single resolution.
+ * The range holds the time slots of the first and the last row, both inclusive.
+ */
+public class StatisticsRollupRange {
+
+    private final StatisticsResolution resolution;
+    private final Range range;
+
+    public StatisticsRollupRange(StatisticsResolution resolution, Range range) {
+        if (resolution == null) {
+            throw new NullPointerException("resolution must not be null");
+        }
+        if (range == null) {
+            throw new NullPointerException("range must not be null");
+        }
+        this.resolution = resolution;
+        this.range = range;
+    }
+
+    public StatisticsResolution getResolution() {
+        return resolution;
+    }
+
+    public Range getRange() {
+        return range;
+    }
+
+    public String getTableName(String tableName) {
+        return resolution.getTableName(tableName);
+    }
+
+    @Override
+    public String toString() {
+        return "StatisticsRollupRange{" +
+                "resolution=" + resolution +
+                ", range=" + range +
+                '}';
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.vo;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.navercorp.pinpoint.common.hbase.StatisticsResolution;
+
+/**
+ * Splits a statistics query into ranges of the coarsest resolution that still fits the time window.
+ * A rollup row is used only if its whole period lies in the queried range and in a single window slot,
+ * the remaining head and tail of the range are read from finer resolutions.
+ *
+ * @see StatisticsResolution
+ */
+public class StatisticsRollupSelector {
+
+    private static final StatisticsResolution[] RESOLUTIONS = StatisticsResolution.values();
+    private static final long ONE_MINUTE = StatisticsResolution.ONE_MINUTE.getResolution();
+
+    private final boolean rollupEnable;
+
+    public StatisticsRollupSelector(boolean rollupEnable) {
+        this.rollupEnable = rollupEnable;
+    }
+
+    public boolean isRollupEnable() {
+        return rollupEnable;
+    }
+
+    /**
+     * @param range queried range
+     * @param windowSlotSize slot size of the {@link com.navercorp.pinpoint.web.util.TimeWindow} the rows are merged into
+     */
+    public List<StatisticsRollupRange> select(Range range, long windowSlotSize) {
+        if (range == null) {
+            throw new NullPointerException("range must not be null");
+        }
+        final long from = StatisticsResolution.ONE_MINUTE.getTimeSlot().getTimeSlot(range.getFrom());
+        final long to = StatisticsResolution.ONE_MINUTE.getTimeSlot().getTimeSlot(range.getTo());
+
+        final List<StatisticsRollupRange> result = new ArrayList<StatisticsRollupRange>();
+        if (!rollupEnable || from > to) {
+            result.add(new StatisticsRollupRange(StatisticsResolution.ONE_MINUTE, Range.createUncheckedRange(from, to)));
+            return result;
+        }
+        split(from, to, getMaxResolutionIndex(windowSlotSize), result);
+        return result;
+    }
+
+    private int getMaxResolutionIndex(long windowSlotSize) {
+        // resolutions are multiples of each other, so every finer resolution fits as well
+        for (int i = RESOLUTIONS.length - 1; i > 0; i--) {
+            if (windowSlotSize % RESOLUTIONS[i].getResolution() == 0) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    private void split(long from, long to, int index, List<StatisticsRollupRange> result) {
+        final StatisticsResolution resolution = RESOLUTIONS[index];
+        if (index == 0) {
+            result.add(new StatisticsRollupRange(resolution, new Range(from, to)));
+            return;
+        }
+        final long size = resolution.getResolution();
+        // first and last row whose period lies within [from, to + 1 minute)
+        final long rollupFrom = ceil(from, size);
+        final long rollupTo = floor(to + ONE_MINUTE, size) - size;
+        if (rollupFrom > rollupTo) {
+            split(from, to, index - 1, result);
+            return;
+        }
+        if (from < rollupFrom) {
+            split(from, rollupFrom - ONE_MINUTE, index - 1, result);
+        }
+        result.add(new StatisticsRollupRange(resolution, new Range(rollupFrom, rollupTo)));
+        if (rollupTo + size <= to) {
+            split(rollupTo + size, to, index - 1, result);
+        }
+    }
+
+    private static long floor(long time, long size) {
+        return (time / size) * size;
+    }
+
+    private static long ceil(long time, long size) {
+        return floor(time + size - 1, size);
+    }
+}
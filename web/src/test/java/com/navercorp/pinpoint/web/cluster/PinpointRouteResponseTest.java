@@ -22,6 +22,7 @@ package com.navercorp.pinpoint.web.cluster;
 import com.navercorp.pinpoint.common.Version;
 import com.navercorp.pinpoint.rpc.util.AssertUtils;
 import com.navercorp.pinpoint.thrift.dto.command.TCommandEcho;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransferBatchResponse;
 import com.navercorp.pinpoint.thrift.dto.command.TCommandTransferResponse;
 import com.navercorp.pinpoint.thrift.dto.command.TRouteResult;
 import com.navercorp.pinpoint.thrift.io.*;
@@ -81,6 +82,30 @@ public class PinpointRouteResponseTest {
         Assert.assertNull(response.getResponse());
     }
 
+    @Test
+    public void batchRouteResponseTest() throws Exception {
+        HeaderTBaseSerializer serializer = serializerFactory.createSerializer();
+
+        TCommandTransferBatchResponse batchResponse = new TCommandTransferBatchResponse();
+        batchResponse.addToResponseList(wrapResponse(TRouteResult.OK, serializer.serialize(createCommandEcho("echo"))));
+        batchResponse.addToResponseList(wrapResponse(TRouteResult.OK, new byte[1]));
+
+        byte[] responsePayload = serializer.serialize(batchResponse);
+        HeaderTBaseDeserializer deserializer = deserializerFactory.createDeserializer();
+        TCommandTransferBatchResponse deserializedBatchResponse = (TCommandTransferBatchResponse) deserializer.deserialize(responsePayload);
+        Assert.assertEquals(2, deserializedBatchResponse.getResponseListSize());
+
+        DefaultPinpointRouteResponse response1 = new DefaultPinpointRouteResponse(deserializedBatchResponse.getResponseList().get(0));
+        response1.parse(deserializerFactory);
+        Assert.assertEquals(TRouteResult.OK, response1.getRouteResult());
+        Assert.assertTrue(response1.getResponse() instanceof TCommandEcho);
+
+        DefaultPinpointRouteResponse response2 = new DefaultPinpointRouteResponse(deserializedBatchResponse.getResponseList().get(1));
+        response2.parse(deserializerFactory);
+        Assert.assertEquals(TRouteResult.NOT_SUPPORTED_RESPONSE, response2.getRouteResult());
+        Assert.assertNull(response2.getResponse());
+    }
+
 
     private TCommandEcho createCommandEcho(String message) {
         TCommandEcho echo = new TCommandEcho(message);
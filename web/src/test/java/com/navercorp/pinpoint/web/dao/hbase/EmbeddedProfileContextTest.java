@@ -0,0 +1,56 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.support.GenericXmlApplicationContext;
+
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.embedded.EmbeddedHbaseTemplate;
+
+/**
+ * Starts applicationContext-web.xml with the embedded profile, which has no HBase and no HBaseAdminTemplate.
+ */
+public class EmbeddedProfileContextTest {
+
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void start() {
+        final GenericXmlApplicationContext context = new GenericXmlApplicationContext();
+        try {
+            context.getEnvironment().setActiveProfiles("embedded");
+            context.load("classpath:applicationContext-web.xml");
+            // the store directory of hbase.properties
+            context.getBeanDefinition("hbaseTemplate").getConstructorArgumentValues().addIndexedArgumentValue(0, temporaryFolder.getRoot().getPath());
+            context.refresh();
+
+            final HbaseOperations2 hbaseTemplate = context.getBean("hbaseTemplate", HbaseOperations2.class);
+            Assert.assertTrue(hbaseTemplate instanceof EmbeddedHbaseTemplate);
+            Assert.assertEquals(true, ((EmbeddedHbaseTemplate) hbaseTemplate).isReadOnly());
+            Assert.assertTrue(context.getBean("hbaseSqlMetaDataCompatibility") instanceof HbaseSqlMetaDataDao);
+            Assert.assertFalse(context.containsBean("hBaseAdminTemplate"));
+        } finally {
+            context.close();
+        }
+    }
+}
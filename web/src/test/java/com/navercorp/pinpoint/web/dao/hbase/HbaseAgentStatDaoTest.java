@@ -0,0 +1,128 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.hadoop.hbase.RowMapper;
+
+import com.navercorp.pinpoint.common.bo.AgentStatCpuLoadBo;
+import com.navercorp.pinpoint.common.bo.AgentStatMemoryGcBo;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.util.RowKeyUtils;
+import com.navercorp.pinpoint.common.util.TimeUtils;
+import com.navercorp.pinpoint.web.vo.AgentStat;
+import com.navercorp.pinpoint.web.vo.Range;
+import com.sematext.hbase.wd.AbstractRowKeyDistributor;
+
+public class HbaseAgentStatDaoTest {
+
+    private static final String AGENT_ID = "agentId";
+    private static final long START_TIMESTAMP = 1451606000000L;
+    private static final long BLOCK_TIMESTAMP = 1451606400000L;
+
+    @Mock
+    private HbaseOperations2 hbaseOperations2;
+
+    @Mock
+    private RowMapper<List<AgentStat>> agentStatMapper;
+
+    @Mock
+    private AbstractRowKeyDistributor rowKeyDistributor;
+
+    @InjectMocks
+    private HbaseAgentStatDao agentStatDao = new HbaseAgentStatDao();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void filterSamplesOutsideOfRange() {
+        final long from = BLOCK_TIMESTAMP + 60000;
+        final long to = BLOCK_TIMESTAMP + 120000;
+
+        // block rows, newest first, holding samples on both sides of the range
+        List<AgentStat> newerBlock = Arrays.asList(createAgentStat(to + 5000), createAgentStat(to), createAgentStat(to - 5000));
+        List<AgentStat> olderBlock = Arrays.asList(createAgentStat(from + 5000), createAgentStat(from), createAgentStat(from - 5000));
+        List<List<AgentStat>> rows = new ArrayList<List<AgentStat>>();
+        rows.add(newerBlock);
+        rows.add(olderBlock);
+        doReturn(rows).when(hbaseOperations2).find(eq(AGENT_STAT), any(Scan.class), eq(rowKeyDistributor), eq(agentStatMapper));
+
+        List<AgentStat> agentStats = agentStatDao.scanAgentStatList(AGENT_ID, new Range(from, to));
+
+        Assert.assertEquals(3, agentStats.size());
+        Assert.assertEquals(to, agentStats.get(0).getMemoryGc().getTimestamp());
+        Assert.assertEquals(to - 5000, agentStats.get(1).getMemoryGc().getTimestamp());
+        Assert.assertEquals(from + 5000, agentStats.get(2).getMemoryGc().getTimestamp());
+
+        ArgumentCaptor<Scan> captor = ArgumentCaptor.forClass(Scan.class);
+        verify(hbaseOperations2).find(eq(AGENT_STAT), captor.capture(), eq(rowKeyDistributor), eq(agentStatMapper));
+        Scan scan = captor.getValue();
+        Assert.assertArrayEquals(getRowKey(to), scan.getStartRow());
+        // the scan reaches back to the block row holding range.from
+        Assert.assertArrayEquals(getRowKey(BLOCK_TIMESTAMP - 1), scan.getStopRow());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void filterCpuLoadOnlySample() {
+        final long from = BLOCK_TIMESTAMP;
+        final long to = BLOCK_TIMESTAMP + 10000;
+
+        AgentStat cpuLoadOnly = new AgentStat();
+        cpuLoadOnly.setCpuLoad(new AgentStatCpuLoadBo.Builder(AGENT_ID, START_TIMESTAMP, to + 5000).build());
+        List<List<AgentStat>> rows = new ArrayList<List<AgentStat>>();
+        rows.add(Arrays.asList(cpuLoadOnly, createAgentStat(to)));
+        doReturn(rows).when(hbaseOperations2).find(eq(AGENT_STAT), any(Scan.class), eq(rowKeyDistributor), eq(agentStatMapper));
+
+        List<AgentStat> agentStats = agentStatDao.scanAgentStatList(AGENT_ID, new Range(from, to));
+
+        Assert.assertEquals(1, agentStats.size());
+        Assert.assertEquals(to, agentStats.get(0).getMemoryGc().getTimestamp());
+    }
+
+    private byte[] getRowKey(long timestamp) {
+        return RowKeyUtils.concatFixedByteAndLong(Bytes.toBytes(AGENT_ID), AGENT_NAME_MAX_LEN, TimeUtils.reverseTimeMillis(timestamp));
+    }
+
+    private AgentStat createAgentStat(long timestamp) {
+        AgentStat agentStat = new AgentStat();
+        agentStat.setMemoryGc(new AgentStatMemoryGcBo.Builder(AGENT_ID, START_TIMESTAMP, timestamp).build());
+        agentStat.setCpuLoad(new AgentStatCpuLoadBo.Builder(AGENT_ID, START_TIMESTAMP, timestamp).build());
+        return agentStat;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.dao.hbase;
+
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.hbase.client.Scan;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.data.hadoop.hbase.RowMapper;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.navercorp.pinpoint.common.hbase.HBaseTables;
+import com.navercorp.pinpoint.common.hbase.HbaseOperations2;
+import com.navercorp.pinpoint.common.hbase.StatisticsResolution;
+import com.navercorp.pinpoint.common.trace.ServiceType;
+import com.navercorp.pinpoint.common.util.ApplicationMapStatisticsUtils;
+import com.navercorp.pinpoint.web.vo.Application;
+import com.navercorp.pinpoint.web.vo.Range;
+import com.navercorp.pinpoint.web.vo.RangeFactory;
+import com.navercorp.pinpoint.web.vo.ResponseTime;
+import com.navercorp.pinpoint.web.vo.StatisticsRollupSelector;
+
+public class HbaseMapResponseTimeDaoTest {
+
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long BASE = TimeUnit.DAYS.toMillis(16000);
+
+    private final Application application = new Application("test", ServiceType.STAND_ALONE);
+
+    @Mock
+    private HbaseOperations2 hbaseOperations2;
+
+    @Mock
+    private RowMapper<ResponseTime> responseTimeMapper;
+
+    @InjectMocks
+    private HbaseMapResponseTimeDao mapResponseTimeDao = new HbaseMapResponseTimeDao();
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        ReflectionTestUtils.setField(mapResponseTimeDao, "rangeFactory", new RangeFactory());
+        ReflectionTestUtils.setField(mapResponseTimeDao, "statisticsRollupSelector", new StatisticsRollupSelector(true));
+        when(hbaseOperations2.find(anyString(), any(Scan.class), eq(responseTimeMapper))).thenReturn(new ArrayList<ResponseTime>());
+    }
+
+    @Test
+    public void rollupScansReadEachMinuteOnce() {
+        // 10:37:12 ~ 3 days later 10:37:45, hourly window slots
+        Range range = new Range(BASE + 10 * ONE_HOUR + 37 * ONE_MINUTE + 12000, BASE + TimeUnit.DAYS.toMillis(3) + 10 * ONE_HOUR + 37 * ONE_MINUTE + 45000);
+
+        mapResponseTimeDao.selectResponseTime(application, range);
+
+        Set<String> tableNames = assertScannedMinutes(range);
+        Assert.assertTrue(tableNames.contains(StatisticsResolution.ONE_MINUTE.getTableName(HBaseTables.MAP_STATISTICS_SELF)));
+        Assert.assertTrue(tableNames.contains(StatisticsResolution.FIVE_MINUTES.getTableName(HBaseTables.MAP_STATISTICS_SELF)));
+        Assert.assertTrue(tableNames.contains(StatisticsResolution.ONE_HOUR.getTableName(HBaseTables.MAP_STATISTICS_SELF)));
+    }
+
+    @Test
+    public void twoDayRangeReadsFiveMinuteRows() {
+        // 30 minute window slots up to 2 days, so hourly rows would straddle two slots
+        Range range = new Range(BASE + 3 * ONE_MINUTE, BASE + TimeUnit.DAYS.toMillis(2));
+
+        mapResponseTimeDao.selectResponseTime(application, range);
+
+        Set<String> tableNames = assertScannedMinutes(range);
+        Assert.assertTrue(tableNames.contains(StatisticsResolution.FIVE_MINUTES.getTableName(HBaseTables.MAP_STATISTICS_SELF)));
+        Assert.assertFalse(tableNames.contains(StatisticsResolution.ONE_HOUR.getTableName(HBaseTables.MAP_STATISTICS_SELF)));
+    }
+
+    /**
+     * Checks that the scanned rows of all tables cover every minute of the range exactly once.
+     * @return names of the scanned tables
+     */
+    @SuppressWarnings("unchecked")
+    private Set<String> assertScannedMinutes(Range range) {
+        ArgumentCaptor<String> tableNameCaptor = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Scan> scanCaptor = ArgumentCaptor.forClass(Scan.class);
+        verify(hbaseOperations2, atLeastOnce()).find(tableNameCaptor.capture(), scanCaptor.capture(), eq(responseTimeMapper));
+        List<String> tableNames = tableNameCaptor.getAllValues();
+        List<Scan> scans = scanCaptor.getAllValues();
+
+        Set<Long> expected = new HashSet<Long>();
+        for (long minute = range.getFrom() / ONE_MINUTE; minute <= range.getTo() / ONE_MINUTE; minute++) {
+            expected.add(minute * ONE_MINUTE);
+        }
+        Set<Long> actual = new HashSet<Long>();
+        for (int i = 0; i < scans.size(); i++) {
+            final long resolution = getResolution(tableNames.get(i)).getResolution();
+            // timestamps are reversed, so the start row holds the newest row and the exclusive stop row the oldest
+            final long newest = ApplicationMapStatisticsUtils.getTimestampFromRowKey(scans.get(i).getStartRow());
+            final long stop = ApplicationMapStatisticsUtils.getTimestampFromRowKey(scans.get(i).getStopRow());
+            for (long row = newest; row > stop; row -= resolution) {
+                Assert.assertEquals(0, row % resolution);
+                for (long minute = row; minute < row + resolution; minute += ONE_MINUTE) {
+                    Assert.assertTrue("duplicated minute " + minute, actual.add(minute));
+                }
+            }
+        }
+        Assert.assertEquals(expected, actual);
+        return new HashSet<String>(tableNames);
+    }
+
+    private StatisticsResolution getResolution(String tableName) {
+        for (StatisticsResolution resolution : StatisticsResolution.values()) {
+            if (resolution.getTableName(HBaseTables.MAP_STATISTICS_SELF).equals(tableName)) {
+                return resolution;
+            }
+        }
+        throw new AssertionError("unexpected table " + tableName);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.mapper;
+
+import static com.navercorp.pinpoint.common.hbase.HBaseTables.*;
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.common.bo.AgentStatBlockBo;
+import com.navercorp.pinpoint.common.bo.AgentStatCpuLoadBo;
+import com.navercorp.pinpoint.common.bo.AgentStatMemoryGcBo;
+import com.navercorp.pinpoint.web.vo.AgentStat;
+
+public class AgentStatMapperTest {
+
+    private static final String AGENT_ID = "agentId";
+    private static final long START_TIMESTAMP = 1451606000000L;
+    private static final long BLOCK_TIMESTAMP = 1451606400000L;
+    private static final byte[] ROW = Bytes.toBytes("row");
+
+    private final AgentStatMapper mapper = new AgentStatMapper();
+
+    @Test
+    public void readBlockAndLegacyColumns() throws Exception {
+        List<Cell> cells = new ArrayList<Cell>();
+        cells.add(blockCell(5000, 5));
+        cells.add(blockCell(30000, 5));
+        // a sample written by an older collector at the start of the block
+        cells.add(new KeyValue(ROW, AGENT_STAT_CF_STATISTICS, AGENT_STAT_CF_STATISTICS_CPU_LOAD, BLOCK_TIMESTAMP, createCpuLoadBo(BLOCK_TIMESTAMP).writeValue()));
+        cells.add(new KeyValue(ROW, AGENT_STAT_CF_STATISTICS, AGENT_STAT_CF_STATISTICS_MEMORY_GC, BLOCK_TIMESTAMP, createMemoryGcBo(BLOCK_TIMESTAMP).writeValue()));
+
+        List<AgentStat> agentStats = mapper.mapRow(Result.create(cells), 0);
+
+        // newest first, the legacy sample is the oldest one
+        assertEquals(11, agentStats.size());
+        for (int i = 0; i < agentStats.size(); i++) {
+            final long expectedTimestamp = BLOCK_TIMESTAMP + 50000 - 5000 * i;
+            final AgentStat agentStat = agentStats.get(i);
+            assertEquals(expectedTimestamp, agentStat.getMemoryGc().getTimestamp());
+            assertEquals(expectedTimestamp, agentStat.getCpuLoad().getTimestamp());
+            assertEquals(AGENT_ID, agentStat.getMemoryGc().getAgentId());
+            assertEquals(expectedTimestamp / 1000, agentStat.getMemoryGc().getJvmMemoryHeapUsed());
+            assertEquals(0.5D, agentStat.getCpuLoad().getJvmCpuLoad(), 0.0D);
+        }
+    }
+
+    @Test
+    public void readLegacyColumns() throws Exception {
+        List<Cell> cells = new ArrayList<Cell>();
+        cells.add(new KeyValue(ROW, AGENT_STAT_CF_STATISTICS, AGENT_STAT_CF_STATISTICS_MEMORY_GC, BLOCK_TIMESTAMP, createMemoryGcBo(BLOCK_TIMESTAMP).writeValue()));
+
+        List<AgentStat> agentStats = mapper.mapRow(Result.create(cells), 0);
+
+        assertEquals(1, agentStats.size());
+        assertEquals(BLOCK_TIMESTAMP, agentStats.get(0).getMemoryGc().getTimestamp());
+        assertNull(agentStats.get(0).getCpuLoad());
+    }
+
+    private Cell blockCell(int offset, int sampleCount) {
+        List<AgentStatMemoryGcBo> memoryGcBos = new ArrayList<AgentStatMemoryGcBo>();
+        List<AgentStatCpuLoadBo> cpuLoadBos = new ArrayList<AgentStatCpuLoadBo>();
+        for (int i = 0; i < sampleCount; i++) {
+            final long timestamp = BLOCK_TIMESTAMP + offset + 5000 * i;
+            memoryGcBos.add(createMemoryGcBo(timestamp));
+            cpuLoadBos.add(createCpuLoadBo(timestamp));
+        }
+        byte[] value = new AgentStatBlockBo(AGENT_ID, START_TIMESTAMP, memoryGcBos, cpuLoadBos).writeValue();
+        byte[] qualifier = Bytes.add(AGENT_STAT_CF_STATISTICS_BLOCK, Bytes.toBytes(offset));
+        return new KeyValue(ROW, AGENT_STAT_CF_STATISTICS, qualifier, memoryGcBos.get(sampleCount - 1).getTimestamp(), value);
+    }
+
+    private AgentStatMemoryGcBo createMemoryGcBo(long timestamp) {
+        AgentStatMemoryGcBo.Builder builder = new AgentStatMemoryGcBo.Builder(AGENT_ID, START_TIMESTAMP, timestamp);
+        builder.gcType("PARALLEL");
+        builder.jvmMemoryHeapUsed(timestamp / 1000);
+        builder.jvmMemoryHeapMax(2048L);
+        return builder.build();
+    }
+
+    private AgentStatCpuLoadBo createCpuLoadBo(long timestamp) {
+        AgentStatCpuLoadBo.Builder builder = new AgentStatCpuLoadBo.Builder(AGENT_ID, START_TIMESTAMP, timestamp);
+        builder.jvmCpuLoad(0.5D);
+        builder.systemCpuLoad(0.25D);
+        return builder.build();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.navercorp.pinpoint.web.service;
+
+import static org.mockito.Mockito.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.thrift.TBase;
+import org.apache.thrift.protocol.TCompactProtocol;
+import org.apache.thrift.protocol.TProtocolFactory;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.navercorp.pinpoint.common.Version;
+import com.navercorp.pinpoint.rpc.DefaultFuture;
+import com.navercorp.pinpoint.rpc.Future;
+import com.navercorp.pinpoint.rpc.ResponseMessage;
+import com.navercorp.pinpoint.rpc.server.PinpointServer;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandEcho;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransfer;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransferBatch;
+import com.navercorp.pinpoint.thrift.dto.command.TCommandTransferResponse;
+import com.navercorp.pinpoint.thrift.dto.command.TRouteResult;
+import com.navercorp.pinpoint.thrift.io.DeserializerFactory;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseDeserializerFactory;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializer;
+import com.navercorp.pinpoint.thrift.io.HeaderTBaseSerializerFactory;
+import com.navercorp.pinpoint.thrift.io.SerializerFactory;
+import com.navercorp.pinpoint.thrift.io.TCommandRegistry;
+import com.navercorp.pinpoint.thrift.io.TCommandTypeVersion;
+import com.navercorp.pinpoint.thrift.util.SerializationUtils;
+import com.navercorp.pinpoint.web.cluster.PinpointRouteResponse;
+import com.navercorp.pinpoint.web.server.PinpointSocketManager;
+import com.navercorp.pinpoint.web.vo.AgentInfo;
+
+public class AgentServiceImplTest {
+
+    private static final long TIMEOUT = 500;
+
+    private final TProtocolFactory protocolFactory = new TCompactProtocol.Factory();
+    private final TCommandRegistry commandTbaseRegistry = new TCommandRegistry(TCommandTypeVersion.getVersion(Version.VERSION));
+    private final SerializerFactory<HeaderTBaseSerializer> serializerFactory = new HeaderTBaseSerializerFactory(true, 10000, protocolFactory, commandTbaseRegistry);
+    private final DeserializerFactory<HeaderTBaseDeserializer> deserializerFactory = new HeaderTBaseDeserializerFactory(protocolFactory, commandTbaseRegistry);
+
+    private PinpointSocketManager pinpointSocketManager;
+    private AgentServiceImpl agentService;
+
+    @Before
+    public void setUp() {
+        pinpointSocketManager = mock(PinpointSocketManager.class);
+        agentService = new AgentServiceImpl();
+        ReflectionTestUtils.setField(agentService, "pinpointSocketManager", pinpointSocketManager);
+        ReflectionTestUtils.setField(agentService, "commandSerializerFactory", serializerFactory);
+        ReflectionTestUtils.setField(agentService, "commandDeserializerFactory", deserializerFactory);
+    }
+
+    @Test
+    public void batchTimeoutFallsBackToEachAgent() throws Exception {
+        final List<AgentInfo> agentInfoList = Arrays.asList(newAgentInfo("agent1"), newAgentInfo("agent2"), newAgentInfo("agent3"));
+        final PinpointServer collector = mock(PinpointServer.class);
+        for (AgentInfo agentInfo : agentInfoList) {
+            when(pinpointSocketManager.getCollector(agentInfo)).thenReturn(collector);
+        }
+
+        when(collector.request(any(byte[].class))).thenAnswer(new Answer<Future>() {
+            @Override
+            public Future answer(InvocationOnMock invocation) throws Throwable {
+                final TBase<?, ?> request = SerializationUtils.deserialize((byte[]) invocation.getArguments()[0], deserializerFactory);
+                if (request instanceof TCommandTransferBatch) {
+                    // the collector is told to give up on its agents before the web gives up on the batch
+                    final TCommandTransferBatch batch = (TCommandTransferBatch) request;
+                    Assert.assertTrue(batch.isSetTimeoutMillis());
+                    Assert.assertTrue(batch.getTimeoutMillis() < TIMEOUT);
+                    // the collector does not answer
+                    return new DefaultFuture<ResponseMessage>(60000);
+                }
+                // agent2 never answers
+                final String agentId = ((TCommandTransfer) request).getAgentId();
+                if ("agent2".equals(agentId)) {
+                    return new DefaultFuture<ResponseMessage>(60000);
+                }
+                final DefaultFuture<ResponseMessage> future = new DefaultFuture<ResponseMessage>(1000);
+                future.setResult(newResponseMessage(agentId));
+                return future;
+            }
+        });
+
+        final Map<AgentInfo, PinpointRouteResponse> result = agentService.invoke(agentInfoList, new TCommandEcho("echo"), TIMEOUT);
+
+        Assert.assertEquals(3, result.size());
+        assertEcho("agent1", result.get(agentInfoList.get(0)));
+        Assert.assertEquals(TRouteResult.TIMEOUT, result.get(agentInfoList.get(1)).getRouteResult());
+        assertEcho("agent3", result.get(agentInfoList.get(2)));
+        // one batch and a request per agent
+        verify(collector, times(4)).request(any(byte[].class));
+    }
+
+    private AgentInfo newAgentInfo(String agentId) {
+        final AgentInfo agentInfo = new AgentInfo();
+        agentInfo.setApplicationName("application");
+        agentInfo.setAgentId(agentId);
+        agentInfo.setStartTimestamp(1451606400000L);
+        return agentInfo;
+    }
+
+    private ResponseMessage newResponseMessage(String message) throws Exception {
+        final TCommandTransferResponse response = new TCommandTransferResponse();
+        response.setRouteResult(TRouteResult.OK);
+        response.setPayload(SerializationUtils.serialize(new TCommandEcho(message), serializerFactory));
+
+        final ResponseMessage responseMessage = new ResponseMessage();
+        responseMessage.setMessage(SerializationUtils.serialize(response, serializerFactory));
+        return responseMessage;
+    }
+
+    private void assertEcho(String message, PinpointRouteResponse response) {
+        Assert.assertEquals(TRouteResult.OK, response.getRouteResult());
+        Assert.assertEquals(message, response.getResponse(TCommandEcho.class).getMessage());
+    }
+}
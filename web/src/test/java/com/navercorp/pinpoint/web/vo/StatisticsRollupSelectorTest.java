@@ -0,0 +1,115 @@
+/*
+ * Copyright 2014 NAVER Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.navercorp.pinpoint.web.vo;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.navercorp.pinpoint.common.hbase.StatisticsResolution;
+
+public class StatisticsRollupSelectorTest {
+
+    private static final long ONE_MINUTE = TimeUnit.MINUTES.toMillis(1);
+    private static final long ONE_HOUR = TimeUnit.HOURS.toMillis(1);
+    private static final long BASE = TimeUnit.DAYS.toMillis(16000);
+
+    @Test
+    public void disabled() {
+        StatisticsRollupSelector selector = new StatisticsRollupSelector(false);
+        Range range = new Range(BASE + 1234, BASE + TimeUnit.DAYS.toMillis(3) + 5678);
+
+        List<StatisticsRollupRange> rollupRanges = selector.select(range, ONE_HOUR);
+        Assert.assertEquals(1, rollupRanges.size());
+        Assert.assertEquals(StatisticsResolution.ONE_MINUTE, rollupRanges.get(0).getResolution());
+        Assert.assertEquals(new Range(BASE, BASE + TimeUnit.DAYS.toMillis(3)), rollupRanges.get(0).getRange());
+    }
+
+    @Test
+    public void oneMinuteWindow() {
+        StatisticsRollupSelector selector = new StatisticsRollupSelector(true);
+        Range range = new Range(BASE, BASE + ONE_HOUR);
+
+        List<StatisticsRollupRange> rollupRanges = selector.select(range, ONE_MINUTE);
+        Assert.assertEquals(1, rollupRanges.size());
+        Assert.assertEquals(StatisticsResolution.ONE_MINUTE, rollupRanges.get(0).getResolution());
+        assertCoverage(range, rollupRanges);
+    }
+
+    @Test
+    public void unalignedRange() {
+        StatisticsRollupSelector selector = new StatisticsRollupSelector(true);
+        // 10:37:12 ~ 3 days later 10:37:45
+        Range range = new Range(BASE + 10 * ONE_HOUR + 37 * ONE_MINUTE + 12000, BASE + TimeUnit.DAYS.toMillis(3) + 10 * ONE_HOUR + 37 * ONE_MINUTE + 45000);
+
+        List<StatisticsRollupRange> rollupRanges = selector.select(range, ONE_HOUR);
+        Assert.assertEquals(5, rollupRanges.size());
+        Assert.assertEquals(StatisticsResolution.ONE_MINUTE, rollupRanges.get(0).getResolution());
+        Assert.assertEquals(StatisticsResolution.FIVE_MINUTES, rollupRanges.get(1).getResolution());
+        Assert.assertEquals(StatisticsResolution.ONE_HOUR, rollupRanges.get(2).getResolution());
+        Assert.assertEquals(StatisticsResolution.FIVE_MINUTES, rollupRanges.get(3).getResolution());
+        Assert.assertEquals(StatisticsResolution.ONE_MINUTE, rollupRanges.get(4).getResolution());
+        assertCoverage(range, rollupRanges);
+    }
+
+    @Test
+    public void windowSlotLimitsResolution() {
+        StatisticsRollupSelector selector = new StatisticsRollupSelector(true);
+        Range range = new Range(BASE + 3 * ONE_MINUTE, BASE + TimeUnit.DAYS.toMillis(2));
+
+        List<StatisticsRollupRange> rollupRanges = selector.select(range, 30 * ONE_MINUTE);
+        for (StatisticsRollupRange rollupRange : rollupRanges) {
+            Assert.assertNotEquals(StatisticsResolution.ONE_HOUR, rollupRange.getResolution());
+        }
+        assertCoverage(range, rollupRanges);
+    }
+
+    @Test
+    public void coverage() {
+        StatisticsRollupSelector selector = new StatisticsRollupSelector(true);
+        for (long from = 0; from < 2 * ONE_HOUR; from += 7 * ONE_MINUTE + 1) {
+            for (long length = 0; length < 5 * ONE_HOUR; length += 13 * ONE_MINUTE + 3) {
+                Range range = new Range(BASE + from, BASE + from + length);
+                assertCoverage(range, selector.select(range, ONE_HOUR));
+            }
+        }
+    }
+
+    private void assertCoverage(Range range, List<StatisticsRollupRange> rollupRanges) {
+        Set<Long> expected = new HashSet<Long>();
+        for (long minute = range.getFrom() / ONE_MINUTE; minute <= range.getTo() / ONE_MINUTE; minute++) {
+            expected.add(minute * ONE_MINUTE);
+        }
+        Set<Long> actual = new HashSet<Long>();
+        for (StatisticsRollupRange rollupRange : rollupRanges) {
+            final long resolution = rollupRange.getResolution().getResolution();
+            final Range rowRange = rollupRange.getRange();
+            Assert.assertEquals(0, rowRange.getFrom() % resolution);
+            Assert.assertEquals(0, rowRange.getTo() % resolution);
+            for (long row = rowRange.getFrom(); row <= rowRange.getTo(); row += resolution) {
+                for (long minute = row; minute < row + resolution; minute += ONE_MINUTE) {
+                    Assert.assertTrue("duplicated minute " + minute, actual.add(minute));
+                }
+            }
+        }
+        Assert.assertEquals(expected, actual);
+    }
+}